@@ -0,0 +1,176 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.benchmark;
+
+import com.goide.dlv.DlvResultDecoder;
+import com.goide.dlv.JsonReaderEx;
+import com.goide.dlv.protocol.DlvRequest;
+import com.goide.dlv.protocol.DlvResponse;
+import com.google.gson.GsonBuilder;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.text.CharArrayCharSequence;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays Delve responses through the decoding path of the debugger. Traffic is taken from an idea.log written with
+ * debug logging of {@code com.goide.dlv.DlvVm} enabled ({@code -p traffic=path/to/idea.log}), methods of responses are
+ * matched by ids of the logged requests. Without a log, stops of a goroutine-heavy program are simulated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class DlvResponseDecodingBenchmark {
+  private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+  private static final Pattern METHOD = Pattern.compile("\"method\"\\s*:\\s*\"([^\"]+)\"");
+  private static final int SIMULATED_STOPS = 20;
+  private static final int SIMULATED_VARIABLES = 200;
+
+  @Param("")
+  public String traffic;
+
+  private List<Pair<String, char[]>> myResponses;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    myResponses = StringUtil.isEmpty(traffic) ? simulate() : readLog(new File(traffic));
+  }
+
+  @Benchmark
+  public void decode(Blackhole blackhole) {
+    for (Pair<String, char[]> response : myResponses) {
+      JsonReaderEx result = read(response.second);
+      if (result != null) {
+        blackhole.consume(DlvResultDecoder.<Object>decode(response.first, result));
+      }
+    }
+  }
+
+  /**
+   * The former path: a new Gson and a reflective lookup of the result type per response.
+   */
+  @Benchmark
+  public void decodeWithGsonPerResponse(Blackhole blackhole) {
+    for (Pair<String, char[]> response : myResponses) {
+      JsonReaderEx result = read(response.second);
+      if (result != null) {
+        Type type = getResultType(response.first.replaceFirst("RPCServer\\.", ""));
+        blackhole.consume(new GsonBuilder().create().fromJson(result.asGson(), type));
+      }
+    }
+  }
+
+  private static JsonReaderEx read(char[] chars) {
+    return new DlvResponse.CommandResponseImpl(new JsonReaderEx(new CharArrayCharSequence(chars)), null).result();
+  }
+
+  private static Type getResultType(String method) {
+    for (Class<?> c : DlvRequest.class.getDeclaredClasses()) {
+      if (method.equals(c.getSimpleName())) {
+        return ((ParameterizedType)c.getGenericSuperclass()).getActualTypeArguments()[0];
+      }
+    }
+    return Object.class;
+  }
+
+  private static List<Pair<String, char[]>> readLog(File log) throws IOException {
+    Map<String, String> methods = ContainerUtil.newHashMap();
+    List<Pair<String, char[]>> responses = ContainerUtil.newArrayList();
+    for (String line : FileUtil.loadLines(log)) {
+      int out = line.indexOf("OUT: ");
+      int in = line.indexOf("IN: ");
+      if (out >= 0) {
+        String json = line.substring(out + 5);
+        Matcher id = ID.matcher(json);
+        Matcher method = METHOD.matcher(json);
+        if (id.find() && method.find()) methods.put(id.group(1), method.group(1));
+      }
+      else if (in >= 0) {
+        String json = line.substring(in + 4);
+        Matcher id = ID.matcher(json);
+        String method = id.find() ? methods.get(id.group(1)) : null;
+        if (method != null) responses.add(Pair.create(method, json.toCharArray()));
+      }
+    }
+    if (responses.isEmpty()) throw new IOException("No Delve traffic found in " + log);
+    return responses;
+  }
+
+  private static List<Pair<String, char[]>> simulate() {
+    List<Pair<String, char[]>> responses = ContainerUtil.newArrayList();
+    int id = 0;
+    for (int stop = 0; stop < SIMULATED_STOPS; stop++) {
+      responses.add(Pair.create("RPCServer.Command", ("{\"id\":" + id++ + ",\"result\":{\"currentThread\":{\"id\":1,\"pc\":4198400," +
+                                                      "\"file\":\"/go/src/app/main.go\",\"line\":" + stop + "},\"exited\":false}," +
+                                                      "\"error\":null}").toCharArray()));
+      responses.add(Pair.create("RPCServer.StacktraceGoroutine", stacktrace(id++).toCharArray()));
+      responses.add(Pair.create("RPCServer.ListLocalVars", variables(id++, SIMULATED_VARIABLES).toCharArray()));
+      responses.add(Pair.create("RPCServer.ListFunctionArgs", variables(id++, 3).toCharArray()));
+    }
+    return responses;
+  }
+
+  private static String stacktrace(int id) {
+    StringBuilder sb = new StringBuilder("{\"id\":").append(id).append(",\"result\":[");
+    for (int i = 0; i < 50; i++) {
+      if (i > 0) sb.append(',');
+      sb.append("{\"pc\":").append(4198400 + i).append(",\"file\":\"/go/src/app/worker").append(i).append(".go\",\"line\":")
+        .append(i + 10).append(",\"function\":{\"name\":\"main.worker").append(i).append("\",\"value\":").append(4198000 + i)
+        .append(",\"type\":0,\"goType\":0}}");
+    }
+    return sb.append("],\"error\":null}").toString();
+  }
+
+  private static String variables(int id, int count) {
+    StringBuilder sb = new StringBuilder("{\"id\":").append(id).append(",\"result\":[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) sb.append(',');
+      variable(sb, "v" + i, i % 4 == 0 ? 2 : 0);
+    }
+    return sb.append("],\"error\":null}").toString();
+  }
+
+  private static void variable(StringBuilder sb, String name, int depth) {
+    sb.append("{\"name\":\"").append(name).append("\",\"addr\":842350559232,\"type\":\"")
+      .append(depth > 0 ? "[]main.item" : "int").append("\",\"realType\":\"").append(depth > 0 ? "[]main.item" : "int")
+      .append("\",\"kind\":").append(depth > 0 ? 23 : 2).append(",\"value\":\"").append(depth > 0 ? "" : "42")
+      .append("\",\"len\":").append(depth > 0 ? 64 : 0).append(",\"cap\":64,\"children\":[");
+    if (depth > 0) {
+      for (int i = 0; i < 64; i++) {
+        if (i > 0) sb.append(',');
+        variable(sb, "", depth - 1);
+      }
+    }
+    sb.append("],\"unreadable\":\"\"}");
+  }
+}
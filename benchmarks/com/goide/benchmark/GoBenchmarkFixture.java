@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.benchmark;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.goide.SdkAware;
+import com.intellij.testFramework.EdtTestUtil;
+import com.intellij.testFramework.TestRunnerUtil;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reuses the regular light test setup (mock SDK, GOPATH at the temp file system root) outside of JUnit.
+ */
+@SdkAware
+public class GoBenchmarkFixture extends GoCodeInsightFixtureTestCase {
+  public GoBenchmarkFixture() {
+    setName("testBenchmark");
+  }
+
+  public void start() throws Throwable {
+    TestRunnerUtil.replaceIdeEventQueueSafely();
+    EdtTestUtil.runInEdtAndWait(this::setUp);
+  }
+
+  public void stop() throws Throwable {
+    EdtTestUtil.runInEdtAndWait(this::tearDown);
+  }
+
+  @NotNull
+  public CodeInsightTestFixture getFixture() {
+    return myFixture;
+  }
+
+  @NotNull
+  @Override
+  protected String getBasePath() {
+    return "performance";
+  }
+}
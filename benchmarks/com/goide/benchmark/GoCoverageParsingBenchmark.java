@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.benchmark;
+
+import com.goide.runconfig.testing.coverage.GoCoverageProfileParser;
+import com.goide.runconfig.testing.coverage.GoCoverageProjectData;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a synthetic {@code go test -coverprofile} output of a few million lines ({@code -p lines=...}). Import paths
+ * are resolved by prefixing them with a GOPATH, so only parsing and storing of ranges is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GoCoverageParsingBenchmark {
+  private static final int RANGES_PER_FILE = 200;
+
+  @Param("2000000")
+  public int lines;
+
+  private File myProfile;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    myProfile = FileUtil.createTempFile("coverage", ".out", true);
+    try (Writer writer = new BufferedWriter(new FileWriter(myProfile))) {
+      writer.write("mode: count\n");
+      for (int i = 0; i < lines; i++) {
+        int file = i / RANGES_PER_FILE;
+        int line = (i % RANGES_PER_FILE) * 3 + 1;
+        writer.append("github.com/synthetic/pkg").append(String.valueOf(file / 10)).append("/file")
+          .append(String.valueOf(file % 10)).append(".go:").append(String.valueOf(line)).append(".2,")
+          .append(String.valueOf(line + 2)).append(".16 ").append(String.valueOf(i % 5 + 1)).append(' ')
+          .append(String.valueOf(i % 3)).append('\n');
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    FileUtil.delete(myProfile);
+  }
+
+  @Benchmark
+  public GoCoverageProjectData parse() throws IOException {
+    GoCoverageProjectData result = new GoCoverageProjectData();
+    new GoCoverageProfileParser(importPath -> "/gopath/src/" + importPath, result).parse(myProfile);
+    return result;
+  }
+
+  /**
+   * The former path: every line is split into strings, resolved and stored into a map by a string key of its range.
+   */
+  @Benchmark
+  public Map<String, Map<String, int[]>> parseWithLineSplitting() throws IOException {
+    Map<String, Map<String, int[]>> result = ContainerUtil.newHashMap();
+    try (BufferedReader reader = new BufferedReader(new FileReader(myProfile))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        List<String> fileNameTail = StringUtil.split(line, ":");
+        String filePath = "/gopath/src/" + fileNameTail.get(0);
+        List<String> tailParts = StringUtil.split(fileNameTail.get(1), " ");
+        if (tailParts.size() != 3) continue;
+        String offsets = tailParts.get(0);
+        int firstDot = offsets.indexOf('.');
+        int comma = offsets.indexOf(',', firstDot);
+        int secondDot = offsets.indexOf('.', comma);
+        if (firstDot == -1 || comma == -1 || secondDot == -1) continue;
+        int[] range = {Integer.parseInt(offsets.substring(0, firstDot)), Integer.parseInt(offsets.substring(firstDot + 1, comma)),
+          Integer.parseInt(offsets.substring(comma + 1, secondDot)), Integer.parseInt(offsets.substring(secondDot + 1)),
+          Integer.parseInt(tailParts.get(1)), Integer.parseInt(tailParts.get(2))};
+        ContainerUtil.getOrCreate(result, filePath, ContainerUtil::newHashMap).put(offsets, range);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.benchmark;
+
+import com.goide.psi.GoFile;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.PsiModificationTrackerImpl;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.testFramework.EdtTestUtil;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * A project with a synthetic GOPATH of {@link #files} files. Benchmarks work on the files of the last
+ * {@link #SAMPLE_PACKAGES} packages, which have the longest dependency chains, so the measured work per invocation
+ * is the same for every project size and only the size of indices and scopes differs.
+ */
+@State(Scope.Benchmark)
+public class GoProjectState {
+  public static final int SAMPLE_PACKAGES = 5;
+  public static final int SAMPLE_FILES = SAMPLE_PACKAGES * GoSyntheticGoPath.FILES_PER_PACKAGE;
+
+  @Param({"1000", "10000", "100000"})
+  public int files;
+
+  private GoBenchmarkFixture myTestCase;
+  private File myGoPath;
+  private List<GoFile> mySample;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Throwable {
+    myGoPath = FileUtil.createTempDirectory("goPath", null);
+    GoSyntheticGoPath.generate(new File(myGoPath, "src"), files);
+    myTestCase = new GoBenchmarkFixture();
+    myTestCase.start();
+    CodeInsightTestFixture fixture = myTestCase.getFixture();
+    fixture.setTestDataPath(myGoPath.getPath());
+    EdtTestUtil.runInEdtAndWait(() -> fixture.copyDirectoryToProject("src", ""));
+
+    int packages = GoSyntheticGoPath.packageCount(files);
+    mySample = ContainerUtil.newArrayList();
+    ApplicationManager.getApplication().runReadAction(() -> {
+      PsiManager psiManager = PsiManager.getInstance(getProject());
+      for (int p = Math.max(0, packages - SAMPLE_PACKAGES); p < packages; p++) {
+        VirtualFile dir = fixture.findFileInTempDir(GoSyntheticGoPath.importPath(p));
+        for (VirtualFile file : dir.getChildren()) {
+          mySample.add((GoFile)psiManager.findFile(file));
+        }
+      }
+    });
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Throwable {
+    mySample = null;
+    try {
+      myTestCase.stop();
+    }
+    finally {
+      FileUtil.delete(myGoPath);
+    }
+  }
+
+  @NotNull
+  public Project getProject() {
+    return myTestCase.getFixture().getProject();
+  }
+
+  @NotNull
+  public List<GoFile> getSample() {
+    return mySample;
+  }
+
+  /**
+   * Forgets everything computed by previous invocations: resolve results and cached values such as expression types.
+   */
+  public void dropCaches() {
+    PsiManager.getInstance(getProject()).dropResolveCaches();
+    ((PsiModificationTrackerImpl)PsiModificationTracker.SERVICE.getInstance(getProject())).incCounter();
+  }
+}
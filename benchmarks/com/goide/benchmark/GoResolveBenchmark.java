@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.benchmark;
+
+import com.goide.psi.GoFile;
+import com.goide.psi.GoReferenceExpressionBase;
+import com.goide.psi.impl.GoReference;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves every reference of the sample files from scratch, i.e. measures {@link GoReference#processResolveVariants}
+ * and type reference resolve with the cross-package lookups they do for qualified references.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(GoProjectState.SAMPLE_FILES)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GoResolveBenchmark {
+  @Benchmark
+  public int resolveFile(GoProjectState state) {
+    return ApplicationManager.getApplication().runReadAction((Computable<Integer>)() -> {
+      state.dropCaches();
+      int resolved = 0;
+      for (GoFile file : state.getSample()) {
+        for (GoReferenceExpressionBase expression : PsiTreeUtil.findChildrenOfType(file, GoReferenceExpressionBase.class)) {
+          PsiReference reference = expression.getReference();
+          if (reference != null && reference.resolve() != null) resolved++;
+        }
+      }
+      return resolved;
+    });
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.benchmark;
+
+import com.goide.GoFileElementType;
+import com.goide.psi.GoFile;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FileContentImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds stubs for the sample files the way the indexer does: from file content, with a fresh light tree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(GoProjectState.SAMPLE_FILES)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class GoStubBuildingBenchmark {
+  private List<VirtualFile> myFiles;
+  private List<CharSequence> myTexts;
+
+  @Setup(Level.Trial)
+  public void setUp(GoProjectState state) {
+    myFiles = ContainerUtil.newArrayList();
+    myTexts = ContainerUtil.newArrayList();
+    ApplicationManager.getApplication().runReadAction(() -> {
+      for (GoFile file : state.getSample()) {
+        myFiles.add(file.getVirtualFile());
+        myTexts.add(file.getViewProvider().getContents());
+      }
+    });
+  }
+
+  @Benchmark
+  public void buildStubTree(Blackhole blackhole) {
+    ApplicationManager.getApplication().runReadAction(() -> {
+      for (int i = 0; i < myFiles.size(); i++) {
+        VirtualFile file = myFiles.get(i);
+        FileContentImpl content = new FileContentImpl(file, myTexts.get(i), file.getCharset());
+        StubElement stub = GoFileElementType.INSTANCE.getBuilder().buildStubTree(content.getPsiFile());
+        blackhole.consume(stub);
+      }
+    });
+  }
+}
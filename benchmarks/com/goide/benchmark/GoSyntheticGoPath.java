@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.benchmark;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Generates a GOPATH of {@code fileCount} files split into packages of {@link #FILES_PER_PACKAGE} files.
+ * Every package imports the previous one, embeds its types and calls its functions, so resolve and type inference
+ * have to cross package boundaries the same way they do in real projects.
+ */
+public class GoSyntheticGoPath {
+  public static final int FILES_PER_PACKAGE = 10;
+
+  private GoSyntheticGoPath() {}
+
+  public static int packageCount(int fileCount) {
+    return Math.max(1, fileCount / FILES_PER_PACKAGE);
+  }
+
+  @NotNull
+  public static String importPath(int packageIndex) {
+    return "group" + packageIndex / 100 + "/pkg" + packageIndex;
+  }
+
+  public static void generate(@NotNull File root, int fileCount) throws IOException {
+    int packages = packageCount(fileCount);
+    for (int p = 0; p < packages; p++) {
+      File packageDir = new File(root, importPath(p));
+      for (int f = 0; f < FILES_PER_PACKAGE; f++) {
+        FileUtil.writeToFile(new File(packageDir, "file" + f + ".go"), fileText(p, f));
+      }
+    }
+  }
+
+  @NotNull
+  static String fileText(int packageIndex, int fileIndex) {
+    boolean hasDependency = packageIndex > 0;
+    String type = "T" + fileIndex;
+    StringBuilder b = new StringBuilder();
+    b.append("package pkg").append(packageIndex).append("\n\n");
+    if (hasDependency) {
+      b.append("import dep \"").append(importPath(packageIndex - 1)).append("\"\n\n");
+    }
+    b.append("type ").append(type).append(" struct {\n");
+    b.append("\tName  string\n");
+    b.append("\tCount int\n");
+    b.append("\tNext  *").append(type).append("\n");
+    if (hasDependency) b.append("\tdep.").append(type).append("\n");
+    b.append("}\n\n");
+    b.append("type Getter").append(fileIndex).append(" interface {\n");
+    b.append("\tGet").append(fileIndex).append("() *").append(type).append("\n");
+    b.append("}\n\n");
+    b.append("func (t *").append(type).append(") Get").append(fileIndex).append("() *").append(type).append(" {\n");
+    b.append("\treturn t.Next\n");
+    b.append("}\n\n");
+    b.append("func New").append(fileIndex).append("(name string) *").append(type).append(" {\n");
+    b.append("\treturn &").append(type).append("{Name: name}\n");
+    b.append("}\n\n");
+    b.append("func Use").append(fileIndex).append("() int {\n");
+    b.append("\tt := New").append(fileIndex).append("(\"t\")\n");
+    b.append("\tvar g Getter").append(fileIndex).append(" = t\n");
+    b.append("\tnext := g.Get").append(fileIndex).append("().Next\n");
+    b.append("\tcounts := map[string][]*").append(type).append("{next.Name: {t, next}}\n");
+    b.append("\tfor _, values := range counts {\n");
+    b.append("\t\tt.Count += len(values) + values[0].Count\n");
+    b.append("\t}\n");
+    if (hasDependency) {
+      b.append("\td := dep.New").append(fileIndex).append("(t.Name)\n");
+      b.append("\tt.Count += d.Get").append(fileIndex).append("().Count + len(t.").append(type).append(".Name)\n");
+    }
+    b.append("\treturn t.Count\n");
+    b.append("}\n");
+    return b.toString();
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.benchmark;
+
+import com.goide.GoConstants;
+import com.goide.runconfig.testing.GoTestOutputScanner;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dispatches lines of recorded {@code go test -v} and gocheck outputs the way test events converters do. Recordings
+ * are taken from {@code testData/testing/<framework>} or from a file ({@code -p recording=path/to/output.txt}) and
+ * repeated up to {@code -p outputLines=...}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GoTestOutputScanningBenchmark {
+  private static final Pattern RUN = Pattern.compile("^=== RUN\\s+(" + GoConstants.TEST_NAME_REGEX + ")");
+  private static final Pattern PASSED = Pattern.compile("--- PASS:\\s+(" + GoConstants.TEST_NAME_REGEX + ")");
+  private static final Pattern SKIP = Pattern.compile("--- SKIP:\\s+(" + GoConstants.TEST_NAME_REGEX + ")");
+  private static final Pattern FAILED = Pattern.compile("--- FAIL:\\s+(" + GoConstants.TEST_NAME_REGEX + ")");
+  private static final Pattern FINISHED = Pattern.compile("^(PASS)|(FAIL)$");
+  private static final Pattern SUITE_START = Pattern.compile("=== RUN (.+)\\s*$");
+  private static final Pattern SUITE_END = Pattern.compile("((PASS)|(FAIL))\\s*$");
+  private static final Pattern TEST_START = Pattern.compile("(.*)START: [^:]+:\\d+: ([^\\s]+)\\s*$");
+  private static final Pattern TEST_PASSED = Pattern.compile("(.*)PASS: [^:]+:\\d+: ([^\\s]+)\\t[^\\s]+\\s*$");
+  private static final Pattern TEST_FAILED = Pattern.compile("(.*)FAIL: [^:]+:\\d+: ([^\\s]+)\\s*$");
+
+  @Param({"gotest", "gocheck"})
+  public String framework;
+
+  @Param("")
+  public String recording;
+
+  @Param("1000000")
+  public int outputLines;
+
+  private List<String> myLines;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    List<String> recorded = ContainerUtil.newArrayList();
+    if (StringUtil.isEmpty(recording)) {
+      File[] files = new File("testData/testing/" + framework).listFiles((dir, name) -> !name.endsWith("-expected.txt"));
+      if (files == null) {
+        throw new IOException("Recorded outputs are not found, run the benchmark from the project directory");
+      }
+      for (File file : files) {
+        recorded.addAll(readLines(file));
+      }
+    }
+    else {
+      recorded.addAll(readLines(new File(recording)));
+    }
+    if (recorded.isEmpty()) {
+      throw new IOException("Recorded output is empty");
+    }
+    myLines = ContainerUtil.newArrayList();
+    while (myLines.size() < outputLines) {
+      myLines.addAll(recorded);
+    }
+  }
+
+  @Benchmark
+  public void scan(Blackhole blackhole) {
+    GoTestOutputScanner scanner = new GoTestOutputScanner();
+    boolean gotest = "gotest".equals(framework);
+    for (String line : myLines) {
+      if (gotest) {
+        GoTestOutputScanner.Event event = scanner.scanGotest(line, 0);
+        blackhole.consume(event);
+        if (event != GoTestOutputScanner.Event.NONE && event != GoTestOutputScanner.Event.FINISHED) {
+          blackhole.consume(scanner.getName(line));
+        }
+      }
+      else if (GoTestOutputScanner.isGocheckSuiteStart(line) || GoTestOutputScanner.isGocheckSuiteEnd(line)) {
+        blackhole.consume(line);
+      }
+      else if (scanner.scanGocheckResult(line, "START: ", GoTestOutputScanner.GocheckTail.NONE) ||
+               scanner.scanGocheckResult(line, "PASS: ", GoTestOutputScanner.GocheckTail.DURATION) ||
+               scanner.scanGocheckResult(line, "FAIL: ", GoTestOutputScanner.GocheckTail.NONE)) {
+        blackhole.consume(scanner.getName(line));
+      }
+    }
+  }
+
+  /**
+   * The former path: every line goes through the regular expressions of events until one of them matches.
+   */
+  @Benchmark
+  public void scanWithRegexps(Blackhole blackhole) {
+    boolean gotest = "gotest".equals(framework);
+    for (String line : myLines) {
+      Matcher matcher;
+      if (gotest) {
+        if ((matcher = RUN.matcher(line)).find(0) ||
+            (matcher = SKIP.matcher(line)).find(0) ||
+            (matcher = FAILED.matcher(line)).find(0) ||
+            (matcher = PASSED.matcher(line)).find(0)) {
+          blackhole.consume(matcher.group(1));
+        }
+        else {
+          blackhole.consume(FINISHED.matcher(line).find(0));
+        }
+      }
+      else if (SUITE_START.matcher(line).matches() || SUITE_END.matcher(line).matches()) {
+        blackhole.consume(line);
+      }
+      else if ((matcher = TEST_START.matcher(line)).matches() ||
+               (matcher = TEST_PASSED.matcher(line)).matches() ||
+               (matcher = TEST_FAILED.matcher(line)).matches()) {
+        blackhole.consume(matcher.group(2));
+      }
+    }
+  }
+
+  @NotNull
+  private static List<String> readLines(@NotNull File file) throws IOException {
+    List<String> result = ContainerUtil.newArrayList();
+    for (String line : FileUtil.loadLines(file, CharsetToolkit.UTF8)) {
+      result.add(line + "\n");
+    }
+    return result;
+  }
+}
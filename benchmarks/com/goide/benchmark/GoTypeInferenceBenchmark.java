@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.benchmark;
+
+import com.goide.psi.GoExpression;
+import com.goide.psi.GoFile;
+import com.goide.psi.impl.GoPsiImplUtil;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Infers the type of every expression of the sample files. An explicit resolve context bypasses the cached value
+ * in {@link GoPsiImplUtil#getGoType(GoExpression, com.intellij.psi.ResolveState)}, so it's the inference itself
+ * that is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(GoProjectState.SAMPLE_FILES)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GoTypeInferenceBenchmark {
+  @Benchmark
+  public int inferTypes(GoProjectState state) {
+    return ApplicationManager.getApplication().runReadAction((Computable<Integer>)() -> {
+      state.dropCaches();
+      int inferred = 0;
+      for (GoFile file : state.getSample()) {
+        for (GoExpression expression : PsiTreeUtil.findChildrenOfType(file, GoExpression.class)) {
+          if (expression.getGoType(GoPsiImplUtil.createContextOnElement(expression)) != null) inferred++;
+        }
+      }
+      return inferred;
+    });
+  }
+}
@@ -26,10 +26,14 @@ import com.intellij.openapi.project.DumbAwareAction;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Map;
+
 public class GoFmtProjectAction extends DumbAwareAction {
   @Override
   public void update(@NotNull AnActionEvent e) {
@@ -43,9 +47,17 @@ public class GoFmtProjectAction extends DumbAwareAction {
     assert project != null;
 
     FileDocumentManager.getInstance().saveAllDocuments();
+    // `./...` of a content root covers nested ones, processes are limited and queued by GoExecutorService
+    Map<VirtualFile, Module> roots = ContainerUtil.newLinkedHashMap();
     for (Module module : GoSdkUtil.getGoModules(project)) {
       for (VirtualFile file : ModuleRootManager.getInstance(module).getContentRoots()) {
-        fmt(project, module, "go fmt " + file.getPath(), file);
+        roots.putIfAbsent(file, module);
+      }
+    }
+    for (Map.Entry<VirtualFile, Module> entry : roots.entrySet()) {
+      VirtualFile file = entry.getKey();
+      if (!ContainerUtil.exists(roots.keySet(), root -> !root.equals(file) && VfsUtilCore.isAncestor(root, file, true))) {
+        fmt(project, entry.getValue(), "go fmt " + file.getPath(), file);
       }
     }
   }
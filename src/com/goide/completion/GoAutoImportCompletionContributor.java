@@ -21,6 +21,7 @@ import com.goide.psi.*;
 import com.goide.psi.impl.GoPsiImplUtil;
 import com.goide.psi.impl.GoTypeReference;
 import com.goide.runconfig.testing.GoTestFinder;
+import com.goide.sdk.GoSdkUtil;
 import com.goide.stubs.index.GoIdFilter;
 import com.goide.util.GoUtil;
 import com.intellij.codeInsight.completion.*;
@@ -29,6 +30,7 @@ import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.patterns.PsiElementPattern;
 import com.intellij.patterns.StandardPatterns;
@@ -36,6 +38,7 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiReference;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
 import com.intellij.psi.stubs.StubIndex;
 import com.intellij.util.ProcessingContext;
 import com.intellij.util.Processor;
@@ -52,6 +55,13 @@ import static com.goide.stubs.index.GoAllPublicNamesIndex.ALL_PUBLIC_NAMES;
 import static com.intellij.patterns.PlatformPatterns.psiElement;
 
 public class GoAutoImportCompletionContributor extends CompletionContributor {
+  /**
+   * Registry key of the number of matching variants after which a basic invocation stops collecting more. Completion is
+   * then restarted on any prefix change, so names that didn't make it into the truncated list show up while typing; an
+   * explicit second invocation lifts the limit.
+   */
+  private static final String VARIANTS_LIMIT_KEY = "go.completion.auto.import.variants.limit";
+
   public GoAutoImportCompletionContributor() {
     extend(CompletionType.BASIC, inGoFile(), new CompletionProvider<CompletionParameters>() {
       @Override
@@ -86,7 +96,8 @@ public class GoAutoImportCompletionContributor extends CompletionContributor {
         if (processors.isEmpty()) return;
 
         Module module = ModuleUtilCore.findModuleForPsiElement(psiFile);
-        NamedElementProcessor processor = new NamedElementProcessor(processors, file, result, module);
+        int limit = parameters.getInvocationCount() > 1 ? Integer.MAX_VALUE : Math.max(1, Registry.intValue(VARIANTS_LIMIT_KEY));
+        NamedElementProcessor processor = new NamedElementProcessor(processors, file, result, module, limit);
         Project project = position.getProject();
         GlobalSearchScope scope = new GoUtil.ExceptTestsScope(GoUtil.goPathResolveScope(file));
         VirtualFile containingDirectory = file.getVirtualFile().getParent();
@@ -94,15 +105,8 @@ public class GoAutoImportCompletionContributor extends CompletionContributor {
           scope = new GoUtil.ExceptChildOfDirectory(containingDirectory, scope, GoTestFinder.getTestTargetPackage(file));
         }
         IdFilter idFilter = GoIdFilter.getProductionFilter(project);
-        Set<String> sortedKeys = collectAndSortAllPublicProductionNames(matcher, scope, idFilter, file);
-        for (String name : sortedKeys) {
-          processor.setName(name);
-          for (GoNamedElement element : StubIndex.getElements(ALL_PUBLIC_NAMES, name, project, scope, idFilter, GoNamedElement.class)) {
-            if (!processor.process(element)) {
-              break;
-            }
-          }
-        }
+        List<String> sortedKeys = collectAndSortAllPublicProductionNames(matcher, file);
+        processNames(sortedKeys, processor, file, module, scope, idFilter);
       }
 
       private CompletionResultSet adjustMatcher(@NotNull CompletionParameters parameters,
@@ -116,15 +120,9 @@ public class GoAutoImportCompletionContributor extends CompletionContributor {
   }
 
   @NotNull
-  private static Set<String> collectAndSortAllPublicProductionNames(@NotNull PrefixMatcher matcher,
-                                                                    @NotNull GlobalSearchScope scope, 
-                                                                    @Nullable IdFilter idFilter,
-                                                                    @NotNull GoFile file) {
-    String prefix = matcher.getPrefix();
-    boolean emptyPrefix = prefix.isEmpty();
-
+  private static List<String> collectAndSortAllPublicProductionNames(@NotNull PrefixMatcher matcher, @NotNull GoFile file) {
     Set<String> packagesWithAliases = ContainerUtil.newHashSet();
-    if (!emptyPrefix) {
+    if (!matcher.getPrefix().isEmpty()) {
       for (Map.Entry<String, Collection<GoImportSpec>> entry : file.getImportMap().entrySet()) {
         for (GoImportSpec spec : entry.getValue()) {
           String alias = spec.getAlias();
@@ -135,37 +133,59 @@ public class GoAutoImportCompletionContributor extends CompletionContributor {
         }
       }
     }
+    return GoPublicNamesService.getInstance(file.getProject()).findProductionNames(matcher, packagesWithAliases);
+  }
 
-    Set<String> allNames = ContainerUtil.newTroveSet();
-    StubIndex.getInstance().processAllKeys(ALL_PUBLIC_NAMES, new CancellableCollectProcessor<String>(allNames) {
-      @Override
-      protected boolean accept(String s) {
-        return emptyPrefix || matcher.prefixMatches(s) || packagesWithAliases.contains(substringBefore(s, '.'));
-      }
-    }, scope, idFilter);
-
-    if (emptyPrefix) {
-      return allNames;
+  /**
+   * Streams elements of ranked names to the processor: names of packages imported by the file go first, then elements
+   * from the SDK, then the rest of GOPATH. Elements are read from the index name by name, so the lookup stops as soon
+   * as the processor has enough variants.
+   */
+  private static void processNames(@NotNull List<String> names,
+                                   @NotNull NamedElementProcessor processor,
+                                   @NotNull GoFile file,
+                                   @Nullable Module module,
+                                   @NotNull GlobalSearchScope scope,
+                                   @Nullable IdFilter idFilter) {
+    Project project = file.getProject();
+    Set<String> importedPackages = ContainerUtil.newHashSet();
+    for (GoImportSpec spec : file.getImports()) {
+      ContainerUtil.addIfNotNull(importedPackages, spec.getLocalPackageName());
     }
 
-    List<String> sorted = ContainerUtil.sorted(allNames, String.CASE_INSENSITIVE_ORDER);
-    ProgressManager.checkCanceled();
+    List<String> notImported = ContainerUtil.newArrayList();
+    for (String name : names) {
+      if (importedPackages.contains(substringBefore(name, '.'))) {
+        if (!processor.process(name, project, scope, idFilter)) return;
+      }
+      else {
+        notImported.add(name);
+      }
+    }
 
-    LinkedHashSet<String> result = ContainerUtil.newLinkedHashSet();
-    for (String name : sorted) {
-      ProgressManager.checkCanceled();
-      if (matcher.isStartMatch(name)) {
-        result.add(name);
+    VirtualFile sdkSources = GoSdkUtil.getSdkSrcDir(project, module);
+    List<GlobalSearchScope> scopes = ContainerUtil.newSmartList(scope);
+    if (sdkSources != null) {
+      GlobalSearchScope sdkScope = GlobalSearchScopesCore.directoryScope(project, sdkSources, true);
+      scopes = ContainerUtil.newArrayList(scope.intersectWith(sdkScope), scope.intersectWith(GlobalSearchScope.notScope(sdkScope)));
+    }
+    for (GlobalSearchScope namesScope : scopes) {
+      for (String name : notImported) {
+        if (!processor.process(name, project, namesScope, idFilter)) return;
       }
     }
-    result.addAll(sorted);
-    return result;
   }
 
   private static PsiElementPattern.Capture<PsiElement> inGoFile() {
     return psiElement().inFile(psiElement(GoFile.class));
   }
 
+  private static String substringAfter(@NotNull String s, char c) {
+    int i = s.indexOf(c);
+    if (i == -1) return "";
+    return s.substring(i + 1);
+  }
+
   @NotNull
   private static String substringBefore(@NotNull String s, char c) {
     int i = s.indexOf(c);
@@ -173,12 +193,6 @@ public class GoAutoImportCompletionContributor extends CompletionContributor {
     return s.substring(0, i);
   }
 
-  private static String substringAfter(@NotNull String s, char c) {
-    int i = s.indexOf(c);
-    if (i == -1) return "";
-    return s.substring(i + 1);
-  }
-
   @NotNull
   private static String replacePackageWithAlias(@NotNull String qualifiedName, @Nullable String alias) {
     return alias != null ? alias + "." + substringAfter(qualifiedName, '.') : qualifiedName;
@@ -281,20 +295,31 @@ public class GoAutoImportCompletionContributor extends CompletionContributor {
     @NotNull private final Map<String, GoImportSpec> myImportedPackages;
     @Nullable private final Module myModule;
     private final boolean myVendoringEnabled;
+    private final int myLimit;
+    private int myVariantsCount;
 
     public NamedElementProcessor(@NotNull Collection<ElementProcessor> processors,
                                  @NotNull GoFile contextFile,
                                  @NotNull CompletionResultSet result,
-                                 @Nullable Module module) {
+                                 @Nullable Module module,
+                                 int limit) {
       myProcessors = processors;
       myVendoringEnabled = GoVendoringUtil.isVendoringEnabled(module);
       myImportedPackages = contextFile.getImportedPackagesMap();
       myModule = module;
       myResult = result;
+      myLimit = limit;
     }
 
-    public void setName(@NotNull String name) {
+    /**
+     * @return false if no more variants are needed
+     */
+    public boolean process(@NotNull String name,
+                           @NotNull Project project,
+                           @NotNull GlobalSearchScope scope,
+                           @Nullable IdFilter idFilter) {
       myName = name;
+      return StubIndex.getInstance().processElements(ALL_PUBLIC_NAMES, name, project, scope, idFilter, GoNamedElement.class, this);
     }
 
     @Override
@@ -310,6 +335,14 @@ public class GoAutoImportCompletionContributor extends CompletionContributor {
           if (!processor.process(myName, element, importData, myResult)) {
             return false;
           }
+          if (myResult.getPrefixMatcher().prefixMatches(replacePackageWithAlias(myName, importData.alias)) &&
+              ++myVariantsCount >= myLimit) {
+            myResult.restartCompletionOnAnyPrefixChange();
+            return false;
+          }
+          if (myResult.isStopped()) {
+            return false;
+          }
         }
       }
       return true;
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.completion;
+
+import com.intellij.codeInsight.completion.PrefixMatcher;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.containers.ContainerUtil;
+import gnu.trove.TIntHashSet;
+import gnu.trove.TLongArrayList;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Prefix/camel-hump lookup over qualified names like {@code fmt.Println}.
+ * <p>
+ * The trie is flattened into a sorted array: every word start of every name (see {@link #isWordStart(String, int)})
+ * is an entry, and entries are ordered by the lower-cased suffix that begins there. A trie node is then a contiguous
+ * range of entries that is found by binary search, and a name costs one {@code long} per word instead of a node per
+ * character. Names added after construction go to a small unsorted buffer that is merged into the array when it fills up.
+ * Every change publishes a new immutable {@link Snapshot}, so lookups take no lock.
+ * <p>
+ * Candidates of a range are pre-filtered by a bit mask of the letters and digits they contain before the real matcher
+ * is asked, so only names that may match are ever handed to {@link PrefixMatcher#prefixMatches(String)}.
+ */
+final class GoNameTrie {
+  private static final int MAX_PENDING = 512;
+  private static final int OFFSET_BITS = 16;
+  private static final int MAX_OFFSET = (1 << OFFSET_BITS) - 1;
+
+  private final TObjectIntHashMap<String> myIds = new TObjectIntHashMap<>();
+  private volatile Snapshot mySnapshot;
+
+  GoNameTrie(@NotNull Collection<String> names) {
+    String[] nameArray = new String[Math.max(names.size(), 16)];
+    long[] masks = new long[nameArray.length];
+    TLongArrayList entries = new TLongArrayList(names.size() * 3);
+    int size = 0;
+    for (String name : names) {
+      if (myIds.containsKey(name)) continue;
+      myIds.put(name, size);
+      nameArray[size] = name;
+      masks[size] = mask(name);
+      addEntries(name, size++, entries);
+    }
+    Snapshot snapshot = new Snapshot(nameArray, masks, size, entries.toNativeArray(), ArrayUtil.EMPTY_LONG_ARRAY);
+    snapshot.sort(snapshot.myEntries);
+    mySnapshot = snapshot;
+  }
+
+  int size() {
+    return mySnapshot.mySize;
+  }
+
+  synchronized boolean contains(@NotNull String name) {
+    return myIds.containsKey(name);
+  }
+
+  /**
+   * Publishes a new snapshot with the name added, readers that already took the previous one are not affected.
+   *
+   * @return false if the name is already present
+   */
+  synchronized boolean add(@NotNull String name) {
+    if (myIds.containsKey(name)) return false;
+    Snapshot snapshot = mySnapshot;
+    int id = snapshot.mySize;
+    myIds.put(name, id);
+
+    // names and masks are only appended to: older snapshots never look past their own size
+    String[] names = snapshot.myNames;
+    long[] masks = snapshot.myMasks;
+    if (id == names.length) {
+      names = ArrayUtil.realloc(names, id * 2, ArrayUtil.STRING_ARRAY_FACTORY);
+      masks = ArrayUtil.realloc(masks, id * 2);
+    }
+    names[id] = name;
+    masks[id] = mask(name);
+
+    TLongArrayList added = new TLongArrayList();
+    addEntries(name, id, added);
+    long[] entries = snapshot.myEntries;
+    long[] pending = snapshot.myPending;
+    if (pending.length + added.size() > MAX_PENDING) {
+      entries = new Snapshot(names, masks, id + 1, entries, pending).mergePending();
+      pending = ArrayUtil.EMPTY_LONG_ARRAY;
+    }
+    int pendingCount = pending.length;
+    pending = Arrays.copyOf(pending, pendingCount + added.size());
+    for (int i = 0; i < added.size(); i++) {
+      pending[pendingCount + i] = added.get(i);
+    }
+    mySnapshot = new Snapshot(names, masks, id + 1, entries, pending);
+    return true;
+  }
+
+  /**
+   * Returns names accepted by the matcher together with all names of {@code packages}, ranked like auto-import
+   * completion expects them: start matches first, each group in case-insensitive order.
+   * An empty prefix returns all names without any particular order.
+   */
+  @NotNull
+  List<String> findMatches(@NotNull PrefixMatcher matcher, @NotNull Collection<String> packages) {
+    return mySnapshot.findMatches(matcher, packages);
+  }
+
+  private static void addEntries(@NotNull String name, int id, @NotNull TLongArrayList entries) {
+    for (int i = 0; i < name.length() && i <= MAX_OFFSET; i++) {
+      if (isWordStart(name, i)) {
+        entries.add(((long)id << OFFSET_BITS) | i);
+      }
+    }
+  }
+
+  /**
+   * Whether every match of the pattern starts at a word start of the name, so that only the entries of its first
+   * character have to be looked at. Matchers that also accept matches in the middle of a word, like
+   * {@code CamelHumpMatcher} with middle matching enabled, are detected by a probe and fall back to a full scan.
+   */
+  private static boolean matchesWordStartsOnly(@NotNull PrefixMatcher matcher) {
+    String prefix = matcher.getPrefix();
+    return isWordChar(prefix.charAt(0)) && prefix.indexOf('*') < 0 && prefix.indexOf(' ') < 0 &&
+           !matcher.prefixMatches("x" + StringUtil.toLowerCase(prefix));
+  }
+
+  private interface IdConsumer {
+    void consume(int id);
+  }
+
+  /**
+   * Immutable view of the trie, so lookups from several completion threads don't block each other or {@link #add}.
+   */
+  private static final class Snapshot {
+    @NotNull private final String[] myNames;
+    @NotNull private final long[] myMasks;
+    private final int mySize;
+    @NotNull private final long[] myEntries;
+    @NotNull private final long[] myPending;
+
+    private Snapshot(@NotNull String[] names,
+                     @NotNull long[] masks,
+                     int size,
+                     @NotNull long[] entries,
+                     @NotNull long[] pending) {
+      myNames = names;
+      myMasks = masks;
+      mySize = size;
+      myEntries = entries;
+      myPending = pending;
+    }
+
+    @NotNull
+    private List<String> findMatches(@NotNull PrefixMatcher matcher, @NotNull Collection<String> packages) {
+      String prefix = matcher.getPrefix();
+      if (prefix.isEmpty()) {
+        return ContainerUtil.newArrayList(Arrays.asList(myNames).subList(0, mySize));
+      }
+
+      TIntHashSet found = new TIntHashSet();
+      long patternMask = mask(prefix);
+      if (matchesWordStartsOnly(matcher)) {
+        // whatever the humps of the pattern are, its first character has to match at a word start
+        processRange(String.valueOf(StringUtil.toLowerCase(prefix.charAt(0))), false, id -> {
+          if ((myMasks[id] & patternMask) == patternMask && matcher.prefixMatches(myNames[id])) {
+            found.add(id);
+          }
+        });
+      }
+      else {
+        for (int id = 0; id < mySize; id++) {
+          if ((id & 0xFF) == 0) ProgressManager.checkCanceled();
+          if ((myMasks[id] & patternMask) == patternMask && matcher.prefixMatches(myNames[id])) found.add(id);
+        }
+      }
+      for (String packageName : packages) {
+        String packagePrefix = packageName + ".";
+        processRange(StringUtil.toLowerCase(packagePrefix), true, id -> {
+          if (myNames[id].startsWith(packagePrefix)) found.add(id);
+        });
+      }
+      return rank(found, matcher);
+    }
+
+    @NotNull
+    private List<String> rank(@NotNull TIntHashSet ids, @NotNull PrefixMatcher matcher) {
+      List<String> sorted = ContainerUtil.newArrayListWithCapacity(ids.size());
+      ids.forEach(id -> sorted.add(myNames[id]));
+      ProgressManager.checkCanceled();
+      sorted.sort(String.CASE_INSENSITIVE_ORDER);
+
+      List<String> result = ContainerUtil.newArrayListWithCapacity(sorted.size());
+      List<String> rest = ContainerUtil.newArrayList();
+      for (String name : sorted) {
+        (matcher.isStartMatch(name) ? result : rest).add(name);
+      }
+      result.addAll(rest);
+      return result;
+    }
+
+    private void processRange(@NotNull String lowerCasePrefix, boolean nameStartOnly, @NotNull IdConsumer consumer) {
+      for (int i = lowerBound(lowerCasePrefix); i < myEntries.length; i++) {
+        long entry = myEntries[i];
+        if (compareToPrefix(entry, lowerCasePrefix) != 0) break;
+        if ((i & 0xFF) == 0) ProgressManager.checkCanceled();
+        if (!nameStartOnly || offset(entry) == 0) consumer.consume(nameId(entry));
+      }
+      for (long entry : myPending) {
+        if ((!nameStartOnly || offset(entry) == 0) && compareToPrefix(entry, lowerCasePrefix) == 0) {
+          consumer.consume(nameId(entry));
+        }
+      }
+    }
+
+    private int lowerBound(@NotNull String lowerCasePrefix) {
+      int low = 0;
+      int high = myEntries.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (compareToPrefix(myEntries[mid], lowerCasePrefix) < 0) {
+          low = mid + 1;
+        }
+        else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    @NotNull
+    private long[] mergePending() {
+      long[] pending = myPending.clone();
+      sort(pending);
+      long[] merged = new long[myEntries.length + pending.length];
+      int i = 0, j = 0, k = 0;
+      while (i < myEntries.length && j < pending.length) {
+        merged[k++] = compare(myEntries[i], pending[j]) <= 0 ? myEntries[i++] : pending[j++];
+      }
+      while (i < myEntries.length) merged[k++] = myEntries[i++];
+      while (j < pending.length) merged[k++] = pending[j++];
+      return merged;
+    }
+
+    private void sort(@NotNull long[] entries) {
+      if (entries.length > 1) {
+        mergeSort(entries, entries.clone(), 0, entries.length);
+      }
+    }
+
+    // sorts src[from, to) using dst as a scratch buffer of the same content
+    private void mergeSort(@NotNull long[] dst, @NotNull long[] src, int from, int to) {
+      if (to - from < 2) return;
+      int mid = (from + to) >>> 1;
+      mergeSort(src, dst, from, mid);
+      mergeSort(src, dst, mid, to);
+      int i = from, j = mid;
+      for (int k = from; k < to; k++) {
+        dst[k] = j >= to || i < mid && compare(src[i], src[j]) <= 0 ? src[i++] : src[j++];
+      }
+    }
+
+    private int compare(long entry1, long entry2) {
+      String s1 = myNames[nameId(entry1)];
+      String s2 = myNames[nameId(entry2)];
+      int i1 = offset(entry1);
+      int i2 = offset(entry2);
+      while (i1 < s1.length() && i2 < s2.length()) {
+        int diff = StringUtil.toLowerCase(s1.charAt(i1++)) - StringUtil.toLowerCase(s2.charAt(i2++));
+        if (diff != 0) return diff;
+      }
+      return (s1.length() - i1) - (s2.length() - i2);
+    }
+
+    private int compareToPrefix(long entry, @NotNull String lowerCasePrefix) {
+      String name = myNames[nameId(entry)];
+      int offset = offset(entry);
+      for (int i = 0; i < lowerCasePrefix.length(); i++) {
+        if (offset + i >= name.length()) return -1;
+        int diff = StringUtil.toLowerCase(name.charAt(offset + i)) - lowerCasePrefix.charAt(i);
+        if (diff != 0) return diff;
+      }
+      return 0;
+    }
+  }
+
+  private static int nameId(long entry) {
+    return (int)(entry >>> OFFSET_BITS);
+  }
+
+  private static int offset(long entry) {
+    return (int)(entry & MAX_OFFSET);
+  }
+
+  /**
+   * One bit per latin letter (ignoring case) and per digit; other characters don't take part in filtering.
+   */
+  private static long mask(@NotNull String s) {
+    long mask = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = StringUtil.toLowerCase(s.charAt(i));
+      if (c >= 'a' && c <= 'z') {
+        mask |= 1L << (c - 'a');
+      }
+      else if (c >= '0' && c <= '9') {
+        mask |= 1L << (26 + c - '0');
+      }
+    }
+    return mask;
+  }
+
+  private static boolean isWordChar(char c) {
+    return Character.isLetterOrDigit(c);
+  }
+
+  static boolean isWordStart(@NotNull String name, int i) {
+    if (i == 0) return true;
+    char c = name.charAt(i);
+    if (!isWordChar(c)) return false;
+    char prev = name.charAt(i - 1);
+    if (!isWordChar(prev)) return true;
+    if (Character.isDigit(c) != Character.isDigit(prev)) return true;
+    if (!Character.isUpperCase(c)) return false;
+    return !Character.isUpperCase(prev) || i + 1 < name.length() && Character.isLowerCase(name.charAt(i + 1));
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.completion;
+
+import com.goide.GoFileType;
+import com.goide.psi.*;
+import com.goide.stubs.index.GoIdFilter;
+import com.intellij.ProjectTopics;
+import com.intellij.codeInsight.completion.PrefixMatcher;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootAdapter;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.NewVirtualFile;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.goide.stubs.index.GoAllPublicNamesIndex.ALL_PUBLIC_NAMES;
+
+/**
+ * Keeps a {@link GoNameTrie} of {@code GoAllPublicNamesIndex} keys that come from production files, i.e. files accepted
+ * by {@link GoIdFilter#getProductionFilter(Project)}, for auto-import completion.
+ * <p>
+ * The trie is built once from the index and then patched: files changed through PSI or VFS are remembered and their
+ * top-level public declarations are added on the next request. Names that disappear are not removed, they just stop
+ * resolving to elements; the trie is rebuilt after a change of project roots or after enough patched files.
+ */
+public class GoPublicNamesService {
+  private static final Logger LOG = Logger.getInstance(GoPublicNamesService.class);
+  private static final int MAX_PATCHED_FILES = 5000;
+
+  private final Project myProject;
+  private final Object myLock = new Object();
+  private final Set<VirtualFile> myChangedFiles = ContainerUtil.newConcurrentSet();
+  private volatile GoNameTrie myProductionNames;
+  private int myPatchedFiles;
+
+  public GoPublicNamesService(@NotNull Project project) {
+    myProject = project;
+    MessageBusConnection connection = project.getMessageBus().connect(project);
+    connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter() {
+      @Override
+      public void rootsChanged(ModuleRootEvent event) {
+        myProductionNames = null;
+      }
+    });
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        if (myProductionNames == null) return;
+        for (VFileEvent event : events) {
+          if (event instanceof VFileContentChangeEvent || event instanceof VFileCreateEvent || event instanceof VFileMoveEvent) {
+            fileChanged(event.getFile());
+          }
+          else if (event instanceof VFileCopyEvent) {
+            fileChanged(((VFileCopyEvent)event).findCreatedFile());
+          }
+          else if (event instanceof VFilePropertyChangeEvent &&
+                   VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent)event).getPropertyName())) {
+            fileChanged(event.getFile());
+          }
+        }
+      }
+    });
+    PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+      @Override
+      public void childAdded(@NotNull PsiTreeChangeEvent event) {
+        psiChanged(event);
+      }
+
+      @Override
+      public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        psiChanged(event);
+      }
+
+      @Override
+      public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        psiChanged(event);
+      }
+
+      private void psiChanged(@NotNull PsiTreeChangeEvent event) {
+        PsiFile file = event.getFile();
+        if (file instanceof GoFile && myProductionNames != null) {
+          fileChanged(file.getVirtualFile());
+        }
+      }
+    }, project);
+  }
+
+  public static GoPublicNamesService getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, GoPublicNamesService.class);
+  }
+
+  /**
+   * Public names of production files, ranked for the given matcher, see {@link GoNameTrie#findMatches}.
+   */
+  @NotNull
+  public List<String> findProductionNames(@NotNull PrefixMatcher matcher,
+                                          @NotNull Collection<String> packages) {
+    return getProductionNames().findMatches(matcher, packages);
+  }
+
+  @NotNull
+  GoNameTrie getProductionNames() {
+    GoNameTrie names = myProductionNames;
+    if (names == null) {
+      synchronized (myLock) {
+        names = myProductionNames;
+        if (names == null) {
+          myChangedFiles.clear();
+          names = build();
+          myPatchedFiles = 0;
+          myProductionNames = names;
+        }
+      }
+    }
+    if (!myChangedFiles.isEmpty()) {
+      patch(names);
+    }
+    return names;
+  }
+
+  @NotNull
+  private GoNameTrie build() {
+    long start = System.nanoTime();
+    Set<String> keys = ContainerUtil.newTroveSet();
+    StubIndex.getInstance().processAllKeys(ALL_PUBLIC_NAMES, new CancellableCollectProcessor<>(keys),
+                                           GlobalSearchScope.allScope(myProject), GoIdFilter.getProductionFilter(myProject));
+    GoNameTrie names = new GoNameTrie(keys);
+    LOG.debug("Public names trie of " + keys.size() + " names built in " +
+              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    return names;
+  }
+
+  private void patch(@NotNull GoNameTrie names) {
+    GoIdFilter productionFilter = GoIdFilter.getProductionFilter(myProject);
+    PsiManager psiManager = PsiManager.getInstance(myProject);
+    int patched = 0;
+    for (VirtualFile file : ContainerUtil.newArrayList(myChangedFiles)) {
+      myChangedFiles.remove(file);
+      if (!file.isValid() || !(file instanceof VirtualFileWithId) || !productionFilter.containsFileId(((VirtualFileWithId)file).getId())) {
+        continue;
+      }
+      PsiFile psiFile = psiManager.findFile(file);
+      if (psiFile instanceof GoFile) {
+        addPublicNames((GoFile)psiFile, names);
+        patched++;
+      }
+    }
+    synchronized (myLock) {
+      myPatchedFiles += patched;
+      if (myPatchedFiles > MAX_PATCHED_FILES && myProductionNames == names) {
+        myProductionNames = null;
+      }
+    }
+  }
+
+  private static void addPublicNames(@NotNull GoFile file, @NotNull GoNameTrie names) {
+    String packageName = file.getPackageName();
+    if (packageName == null) return;
+    for (GoFunctionDeclaration function : file.getFunctions()) addPublicName(packageName, function, names);
+    for (GoTypeSpec type : file.getTypes()) addPublicName(packageName, type, names);
+    for (GoVarDefinition var : file.getVars()) addPublicName(packageName, var, names);
+    for (GoConstDefinition constant : file.getConstants()) addPublicName(packageName, constant, names);
+  }
+
+  private static void addPublicName(@NotNull String packageName, @NotNull GoNamedElement element, @NotNull GoNameTrie names) {
+    String name = element.getName();
+    if (name != null && element.isPublic()) {
+      names.add(packageName + "." + name);
+    }
+  }
+
+  private void fileChanged(@Nullable VirtualFile file) {
+    if (file == null) return;
+    if (!file.isDirectory()) {
+      if (file.getFileType() == GoFileType.INSTANCE) myChangedFiles.add(file);
+      return;
+    }
+    if (file instanceof NewVirtualFile) {
+      for (VirtualFile child : ((NewVirtualFile)file).getCachedChildren()) {
+        fileChanged(child);
+      }
+    }
+  }
+}
@@ -67,7 +67,8 @@ public class GoTestFunctionCompletionProvider extends CompletionProvider<Complet
       String fileNameWithoutTestPrefix = StringUtil.trimEnd(file.getName(), GoConstants.TEST_SUFFIX_WITH_EXTENSION) + ".go";
       GlobalSearchScope packageScope = GoPackageUtil.packageScope(containingDirectory, ((GoFile)file).getCanonicalPackageName());
       GlobalSearchScope scope = new GoUtil.ExceptTestsScope(packageScope);
-      IdFilter idFilter = GoIdFilter.getFilesFilter(scope);
+      GoIdFilter packageIdFilter = GoIdFilter.getFilesFilter(packageScope);
+      IdFilter idFilter = packageIdFilter != null ? packageIdFilter.and(GoIdFilter.getProductionFilter(project)) : null;
       for (String functionName : allPackageFunctionNames) {
         GoFunctionIndex.process(functionName, project, scope, idFilter, declaration -> {
           addVariants(declaration, functionName, fileNameWithoutTestPrefix, allTestFunctionNames, resultSet);
@@ -140,7 +141,8 @@ public class GoTestFunctionCompletionProvider extends CompletionProvider<Complet
     Set<String> result = ContainerUtil.newHashSet();
     GlobalSearchScope packageScope = GoPackageUtil.packageScope(file);
     GlobalSearchScope scope = new GoUtil.TestsScope(packageScope);
-    IdFilter idFilter = GoIdFilter.getFilesFilter(packageScope);
+    GoIdFilter packageIdFilter = GoIdFilter.getFilesFilter(packageScope);
+    IdFilter idFilter = packageIdFilter != null ? packageIdFilter.and(GoIdFilter.getTestsFilter(project)) : null;
     for (String name : names) {
       if (GoTestFunctionType.fromName(name) != null) {
         GoFunctionIndex.process(name, project, scope, idFilter, declaration -> {
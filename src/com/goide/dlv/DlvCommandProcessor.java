@@ -16,21 +16,15 @@
 
 package com.goide.dlv;
 
-import com.goide.dlv.protocol.DlvRequest;
 import com.goide.dlv.protocol.DlvResponse;
-import com.google.gson.GsonBuilder;
-import com.google.gson.stream.JsonReader;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.concurrency.Promise;
 import org.jetbrains.rpc.CommandProcessor;
-import org.jetbrains.rpc.CommandProcessorKt;
 import org.jetbrains.rpc.RequestCallback;
 
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.List;
 
 public abstract class DlvCommandProcessor extends CommandProcessor<JsonReaderEx, DlvResponse, DlvResponse> {
@@ -80,24 +74,6 @@ public abstract class DlvCommandProcessor extends CommandProcessor<JsonReaderEx,
   public <RESULT> RESULT readResult(@NotNull String method, @NotNull DlvResponse successResponse) {
     JsonReaderEx result = successResponse.result();
     assert result != null : "success result should be not null";
-    JsonReader reader = result.asGson();
-    Object o = new GsonBuilder().create().fromJson(reader, getResultType(method.replaceFirst("RPCServer\\.", "")));
-    //noinspection unchecked
-    return (RESULT)o;
+    return DlvResultDecoder.decode(method, result);
   }
-
-  @NotNull
-  private static Type getResultType(@NotNull String method) {
-    for (Class<?> c : DlvRequest.class.getDeclaredClasses()) {
-      if (method.equals(c.getSimpleName())) {
-        Type s = c.getGenericSuperclass();
-        assert s instanceof ParameterizedType : c.getCanonicalName() + " should have a generic parameter for correct callback processing";
-        Type[] arguments = ((ParameterizedType)s).getActualTypeArguments();
-        assert arguments.length == 1 : c.getCanonicalName() + " should have only one generic argument for correct callback processing";
-        return arguments[0];
-      }
-    }
-    CommandProcessorKt.getLOG().error("Unknown response " + method + ", please register an appropriate request into com.goide.dlv.protocol.DlvRequest");
-    return Object.class;
-  }
-}
\ No newline at end of file
+}
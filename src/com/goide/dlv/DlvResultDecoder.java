@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv;
+
+import com.goide.dlv.protocol.DlvRequest;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.rpc.CommandProcessorKt;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decodes results of Delve responses. Result types of requests are looked up once, and type adapters are created once
+ * per method by a single {@link Gson} instance, so a response costs just reading the already decoded characters.
+ */
+public final class DlvResultDecoder {
+  private static final String SERVER_PREFIX = "RPCServer.";
+  private static final Gson GSON = new GsonBuilder().create();
+  private static final Map<String, Type> RESULT_TYPES = collectResultTypes();
+  private static final ConcurrentMap<String, TypeAdapter<?>> ADAPTERS = ContainerUtil.newConcurrentMap();
+
+  private DlvResultDecoder() {
+  }
+
+  @NotNull
+  public static <RESULT> RESULT decode(@NotNull String method, @NotNull JsonReaderEx result) {
+    TypeAdapter<?> adapter = ADAPTERS.get(method);
+    if (adapter == null) {
+      adapter = ConcurrencyUtil.cacheOrGet(ADAPTERS, method, GSON.getAdapter(TypeToken.get(getResultType(method))));
+    }
+    try {
+      //noinspection unchecked
+      return (RESULT)adapter.read(result.asGson());
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Cannot read result of " + method, e);
+    }
+  }
+
+  @NotNull
+  static Type getResultType(@NotNull String method) {
+    Type type = RESULT_TYPES.get(StringUtil.trimStart(method, SERVER_PREFIX));
+    if (type != null) return type;
+    CommandProcessorKt.getLOG().error("Unknown response " + method + ", please register an appropriate request into com.goide.dlv.protocol.DlvRequest");
+    return Object.class;
+  }
+
+  @NotNull
+  private static Map<String, Type> collectResultTypes() {
+    Map<String, Type> types = ContainerUtil.newHashMap();
+    for (Class<?> c : DlvRequest.class.getDeclaredClasses()) {
+      if (Modifier.isAbstract(c.getModifiers()) || !DlvRequest.class.isAssignableFrom(c)) continue;
+      Type s = c.getGenericSuperclass();
+      assert s instanceof ParameterizedType : c.getCanonicalName() + " should have a generic parameter for correct callback processing";
+      Type[] arguments = ((ParameterizedType)s).getActualTypeArguments();
+      assert arguments.length == 1 : c.getCanonicalName() + " should have only one generic argument for correct callback processing";
+      types.put(c.getSimpleName(), arguments[0]);
+    }
+    return types;
+  }
+}
@@ -52,6 +52,7 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.concurrency.Promise;
 
 import javax.swing.*;
+import java.util.List;
 
 class DlvStackFrame extends XStackFrame {
   private final DlvDebugProcess myProcess;
@@ -78,7 +79,7 @@ class DlvStackFrame extends XStackFrame {
                            @NotNull XEvaluationCallback callback,
                            @Nullable XSourcePosition expressionPosition) {
         myProcessor.send(new DlvRequest.EvalSymbol(expression, myId))
-          .done(variable -> callback.evaluated(createXValue(variable, AllIcons.Debugger.Watch)))
+          .done(variable -> callback.evaluated(createXValue(variable, AllIcons.Debugger.Watch, expression)))
           .rejected(throwable -> callback.errorOccurred(throwable.getMessage()));
       }
 
@@ -111,8 +112,8 @@ class DlvStackFrame extends XStackFrame {
   }
 
   @NotNull
-  private XValue createXValue(@NotNull DlvApi.Variable variable, @Nullable Icon icon) {
-    return new DlvXValue(myProcess, variable, myProcessor, myId, icon);
+  private XValue createXValue(@NotNull DlvApi.Variable variable, @Nullable Icon icon, @Nullable String expression) {
+    return new DlvXValue(myProcess, variable, myProcessor, myId, icon, expression);
   }
 
   @Nullable
@@ -152,13 +153,15 @@ class DlvStackFrame extends XStackFrame {
 
   @Override
   public void computeChildren(@NotNull XCompositeNode node) {
-    send(new DlvRequest.ListLocalVars(myId)).done(variables -> {
-      XValueChildrenList xVars = new XValueChildrenList(variables.size());
-      for (DlvApi.Variable v : variables) xVars.add(v.name, createXValue(v, GoIcons.VARIABLE));
-      send(new DlvRequest.ListFunctionArgs(myId)).done(args -> {
-        for (DlvApi.Variable v : args) xVars.add(v.name, createXValue(v, GoIcons.PARAMETER));
-        node.addChildren(xVars, true);
-      });
-    });
+    // both requests are in flight at once, children are added when the second answer arrives
+    Promise<List<DlvApi.Variable>> locals = send(new DlvRequest.ListLocalVars(myId));
+    Promise<List<DlvApi.Variable>> args = send(new DlvRequest.ListFunctionArgs(myId));
+    locals.done(variables -> args.done(arguments -> {
+      XValueChildrenList xVars = new XValueChildrenList(variables.size() + arguments.size());
+      for (DlvApi.Variable v : variables) xVars.add(v.name, createXValue(v, GoIcons.VARIABLE, v.name));
+      for (DlvApi.Variable v : arguments) xVars.add(v.name, createXValue(v, GoIcons.PARAMETER, v.name));
+      node.addChildren(xVars, true);
+    }).rejected(throwable -> node.setErrorMessage(throwable.getMessage())))
+      .rejected(throwable -> node.setErrorMessage(throwable.getMessage()));
   }
 }
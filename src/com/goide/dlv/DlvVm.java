@@ -45,7 +45,9 @@ public class DlvVm extends VmBase {
       @Override
       public boolean write(@NotNull Request message) throws IOException {
         ByteBuf content = message.getBuffer();
-        LOG.info("OUT: " + content.toString(CharsetToolkit.UTF8_CHARSET));
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("OUT: " + content.toString(CharsetToolkit.UTF8_CHARSET));
+        }
         return vmHelper.write(content);
       }
     };
@@ -55,8 +57,11 @@ public class DlvVm extends VmBase {
       @Override
       protected void messageReceived(ChannelHandlerContext context, Object message) throws Exception {
         if (message instanceof ByteBuf) {
-          LOG.info("IN: " + ((ByteBuf)message).toString(CharsetToolkit.UTF8_CHARSET));
+          // decoded once into a char array, JsonReaderEx and the gson readers of results work on views of it
           CharSequence string = ChannelBufferToString.readChars((ByteBuf)message);
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("IN: " + string);
+          }
           JsonReaderEx ex = new JsonReaderEx(string);
           getCommandProcessor().processIncomingJson(ex);
         }
@@ -30,6 +30,7 @@ import com.intellij.openapi.fileEditor.FileEditorManager;
 import com.intellij.openapi.fileEditor.impl.FileEditorManagerImpl;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Comparing;
+import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDocumentManager;
@@ -38,6 +39,7 @@ import com.intellij.psi.PsiFile;
 import com.intellij.psi.SyntaxTraverser;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.ThreeState;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.xdebugger.XDebugSession;
@@ -58,48 +60,134 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 class DlvXValue extends XNamedValue {
+  /**
+   * Children are shown by pages of this size, the rest is available through the 'more' node of the tree.
+   * Delve caps elements of arrays and slices it sends, elements beyond the cap are requested by reslicing the value,
+   * so a page that has to be requested is also limited by the cap of Delve.
+   */
+  private static final String PAGE_SIZE_KEY = "go.debugger.children.page.size";
+  /**
+   * No more elements of an array or a slice are requested from Delve.
+   */
+  private static final String MAX_CHILDREN_KEY = "go.debugger.children.max";
+
   @NotNull
   private final DlvApi.Variable myVariable;
   private final Icon myIcon;
   private final DlvDebugProcess myProcess;
   private final DlvCommandProcessor myProcessor;
   private final int myFrameId;
+  @Nullable private final String myExpression;
+  @NotNull private DlvApi.Variable[] myChildren;
+  /**
+   * The node whose 'more' continuation {@link #myNextChild} belongs to, any other node is rendered from the first child.
+   */
+  @Nullable private XCompositeNode myPagedNode;
+  private int myNextChild;
 
+  /**
+   * @param expression evaluates to the variable in its frame, elements of large arrays and slices are loaded through it;
+   *                   null if there is no such expression
+   */
   public DlvXValue(@NotNull DlvDebugProcess process,
                    @NotNull DlvApi.Variable variable,
                    @NotNull DlvCommandProcessor processor, 
                    int frameId, 
-                   @Nullable Icon icon) {
+                   @Nullable Icon icon,
+                   @Nullable String expression) {
     super(variable.name);
     myProcess = process;
     myVariable = variable;
     myIcon = icon;
     myProcessor = processor;
     myFrameId = frameId;
+    myExpression = expression;
+    myChildren = variable.children != null ? variable.children : new DlvApi.Variable[0];
   }
 
   @Override
   public void computePresentation(@NotNull XValueNode node, @NotNull XValuePlace place) {
     XValuePresentation presentation = getPresentation();
-    boolean hasChildren = myVariable.children.length > 0;
+    boolean hasChildren = myChildren.length > 0 || getTotalChildren() > 0;
     node.setPresentation(myIcon, presentation, hasChildren);
   }
 
   @Override
   public void computeChildren(@NotNull XCompositeNode node) {
-    DlvApi.Variable[] children = myVariable.children;
-    if (children.length == 0) {
+    if (myChildren.length == 0 && getTotalChildren() == 0) {
       super.computeChildren(node);
+      return;
+    }
+    if (node != myPagedNode) {
+      myPagedNode = node;
+      myNextChild = 0;
+    }
+    int pageSize = Math.max(1, Registry.intValue(PAGE_SIZE_KEY));
+    if (myVariable.isMap() && pageSize % 2 != 0) {
+      // keys and values of a map are separate children, a page must not split a pair
+      pageSize++;
+    }
+    if (myNextChild < myChildren.length) {
+      addChildren(node, myChildren, myNextChild, Math.min(myChildren.length, myNextChild + pageSize));
+      return;
+    }
+    long total = getTotalChildren();
+    if (myNextChild >= total) {
+      node.addChildren(XValueChildrenList.EMPTY, true);
+      return;
+    }
+    int end = (int)Math.min(total, (long)myNextChild + pageSize);
+    String range = "(" + myExpression + ")[" + myNextChild + ":" + end + "]";
+    myProcessor.send(new DlvRequest.EvalSymbol(range, myFrameId))
+      .done(variable -> {
+        DlvApi.Variable[] loaded = variable.children != null ? variable.children : new DlvApi.Variable[0];
+        if (loaded.length == 0) {
+          node.addChildren(XValueChildrenList.EMPTY, true);
+        }
+        else {
+          myChildren = ArrayUtil.mergeArrays(myChildren, loaded);
+          addChildren(node, myChildren, myNextChild, myChildren.length);
+        }
+      })
+      .rejected(throwable -> node.setErrorMessage(throwable.getMessage()));
+  }
+
+  private void addChildren(@NotNull XCompositeNode node, @NotNull DlvApi.Variable[] children, int from, int to) {
+    XValueChildrenList list = new XValueChildrenList(to - from);
+    for (int i = from; i < to; i++) {
+      DlvApi.Variable child = children[i];
+      boolean element = myVariable.isSlice() || myVariable.isArray();
+      String name = element && StringUtil.isEmpty(child.name) ? "[" + i + "]" : child.name;
+      list.add(name, new DlvXValue(myProcess, child, myProcessor, myFrameId, AllIcons.Nodes.Field, getChildExpression(i, child)));
+    }
+    myNextChild = to;
+    long remaining = Math.max(myChildren.length, getTotalChildren()) - myNextChild;
+    if (remaining > 0) {
+      node.addChildren(list, false);
+      node.tooManyChildren((int)Math.min(Integer.MAX_VALUE, remaining));
     }
     else {
-      XValueChildrenList list = new XValueChildrenList();
-      for (DlvApi.Variable child : children) {
-        list.add(child.name, new DlvXValue(myProcess, child, myProcessor, myFrameId, AllIcons.Nodes.Field));
-      }
       node.addChildren(list, true);
     }
   }
 
+  /**
+   * @return number of elements of an array or a slice that can be loaded from Delve, zero for other values
+   */
+  private long getTotalChildren() {
+    if (myExpression == null || !(myVariable.isSlice() || myVariable.isArray())) return 0;
+    return Math.min(myVariable.len, Math.max(myChildren.length, Registry.intValue(MAX_CHILDREN_KEY)));
+  }
+
+  @Nullable
+  private String getChildExpression(int index, @NotNull DlvApi.Variable child) {
+    if (myExpression == null) return null;
+    if (myVariable.isSlice() || myVariable.isArray()) return "(" + myExpression + ")[" + index + "]";
+    if (myVariable.isStructure() && StringUtil.isNotEmpty(child.name)) return "(" + myExpression + ")." + child.name;
+    if (myVariable.isPtr()) return "(*" + myExpression + ")";
+    return null;
+  }
+
   @Nullable
   @Override
   public XValueModifier getModifier() {
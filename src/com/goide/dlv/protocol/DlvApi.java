@@ -185,6 +185,10 @@ public class DlvApi {
     public boolean isPtr() {
       return getKind() == Kind.Ptr;
     }
+
+    public boolean isMap() {
+      return getKind() == Kind.Map;
+    }
   }
 
   // Goroutine represents the information relevant to Delve from the runtime's
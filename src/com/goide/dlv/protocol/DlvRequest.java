@@ -29,7 +29,7 @@ import java.util.List;
  * Please add your requests as a subclasses, otherwise reflection won't work.
  *
  * @param <T> type of callback
- * @see com.goide.dlv.DlvCommandProcessor#getResultType(String)
+ * @see com.goide.dlv.DlvResultDecoder#getResultType(String)
  */
 public abstract class DlvRequest<T> extends OutMessage implements Request<T> {
   private static final String PARAMS = "params";
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.inspections.unresolved;
+
+import com.intellij.codeInspection.GlobalInspectionContext;
+import com.intellij.codeInspection.HTMLComposer;
+import com.intellij.codeInspection.InspectionProfileEntry;
+import com.intellij.codeInspection.ex.InspectionToolWrapper;
+import com.intellij.codeInspection.ex.Tools;
+import com.intellij.codeInspection.lang.GlobalInspectionContextExtension;
+import com.intellij.codeInspection.lang.HTMLComposerExtension;
+import com.intellij.codeInspection.lang.InspectionExtensionsFactory;
+import com.intellij.codeInspection.lang.RefManagerExtension;
+import com.intellij.codeInspection.reference.RefManager;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Builds {@link GoReferenceCountTable} once before a batch inspection run that includes unused-symbol inspections
+ * and drops it when the run ends.
+ */
+public class GoReferenceCountInspectionExtension
+  implements GlobalInspectionContextExtension<GoReferenceCountInspectionExtension> {
+  private static final Key<GoReferenceCountInspectionExtension> ID = Key.create("GoReferenceCountInspectionExtension");
+
+  private Project myProject;
+
+  @NotNull
+  @Override
+  public Key<GoReferenceCountInspectionExtension> getID() {
+    return ID;
+  }
+
+  @Override
+  public void performPreRunActivities(@NotNull List<Tools> globalTools,
+                                      @NotNull List<Tools> localTools,
+                                      @NotNull GlobalInspectionContext context) {
+    if (localTools.stream().noneMatch(tools -> tools.isEnabled() && usesTable(tools.getTool().getTool()))) return;
+    Project project = context.getProject();
+    GoReferenceCountTable table = ApplicationManager.getApplication().runReadAction(
+      (Computable<GoReferenceCountTable>)() -> GoReferenceCountTable.create(project));
+    GoReferenceCountTable.setActive(project, table);
+    myProject = project;
+  }
+
+  @Override
+  public void performPostRunActivities(@NotNull List<InspectionToolWrapper> inspections,
+                                       @NotNull GlobalInspectionContext context) {
+    cleanup();
+  }
+
+  @Override
+  public void cleanup() {
+    if (myProject != null) {
+      GoReferenceCountTable.setActive(myProject, null);
+      myProject = null;
+    }
+  }
+
+  private static boolean usesTable(@NotNull InspectionProfileEntry tool) {
+    return tool instanceof GoUnusedFunctionInspection ||
+           tool instanceof GoUnusedVariableInspection ||
+           tool instanceof GoUnusedConstInspection;
+  }
+
+  public static class Factory extends InspectionExtensionsFactory {
+    @Override
+    public GlobalInspectionContextExtension createGlobalInspectionContextExtension() {
+      return new GoReferenceCountInspectionExtension();
+    }
+
+    @Nullable
+    @Override
+    public RefManagerExtension createRefManagerExtension(RefManager refManager) {
+      return null;
+    }
+
+    @Nullable
+    @Override
+    public HTMLComposerExtension createHTMLComposerExtension(HTMLComposer composer) {
+      return null;
+    }
+
+    @Override
+    public boolean isToCheckMember(@NotNull PsiElement element, @NotNull String id) {
+      return true;
+    }
+
+    @Nullable
+    @Override
+    public String getSuppressedInspectionIdsIn(@NotNull PsiElement element) {
+      return null;
+    }
+
+    @Override
+    public boolean isProjectConfiguredToRunInspections(@NotNull Project project, boolean online) {
+      return true;
+    }
+  }
+}
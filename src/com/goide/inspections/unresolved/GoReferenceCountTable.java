@@ -0,0 +1,191 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.inspections.unresolved;
+
+import com.goide.GoFileType;
+import com.goide.psi.*;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.MultiMap;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Usage counts of top-level functions, variables and constants of the project, for batch runs of unused-symbol
+ * inspections. Instead of a reference search per declaration, all project files are walked once: names of top-level
+ * declarations are collected first, then every reference with one of these names is resolved and counted. Both passes
+ * run concurrently, one job per package directory.
+ * <p>
+ * The table is built once per batch run by {@link GoReferenceCountInspectionExtension} and dropped when the run ends.
+ * Declarations are keyed by file and identifier offset, so the table doesn't retain PSI. Only project files are walked,
+ * so a zero count doesn't prove that a declaration is unused, callers should fall back to a search.
+ */
+public class GoReferenceCountTable {
+  private static final Logger LOG = Logger.getInstance(GoReferenceCountTable.class);
+  private static final Key<GoReferenceCountTable> ACTIVE_TABLE = Key.create("GO_REFERENCE_COUNT_TABLE");
+
+  private final long myModificationCount;
+  private final Map<Pair<VirtualFile, Integer>, Integer> myCounts = ContainerUtil.newConcurrentMap();
+
+  private GoReferenceCountTable(long modificationCount) {
+    myModificationCount = modificationCount;
+  }
+
+  /**
+   * @return table of the current batch run, or null outside of a run or if PSI was modified since the table was built
+   */
+  @Nullable
+  public static GoReferenceCountTable getInstance(@NotNull Project project) {
+    GoReferenceCountTable table = project.getUserData(ACTIVE_TABLE);
+    return table != null && table.myModificationCount == getModificationCount(project) ? table : null;
+  }
+
+  public static void setActive(@NotNull Project project, @Nullable GoReferenceCountTable table) {
+    project.putUserData(ACTIVE_TABLE, table);
+  }
+
+  /**
+   * A cheap positive answer for batch runs: whether a top-level declaration is used in project files according to the
+   * table of the current run. On-the-fly highlighting never consults the table.
+   */
+  public static boolean hasUsagesInBatchMode(@NotNull GoNamedElement declaration, @NotNull ProblemsHolder holder) {
+    if (holder.isOnTheFly() || !isTopLevel(declaration)) return false;
+    GoReferenceCountTable table = getInstance(declaration.getProject());
+    return table != null && table.getCount(declaration) > 0;
+  }
+
+  /**
+   * @return number of references to a top-level declaration from project files that count as usages
+   */
+  public int getCount(@NotNull GoNamedElement declaration) {
+    Pair<VirtualFile, Integer> key = key(declaration);
+    Integer count = key != null ? myCounts.get(key) : null;
+    return count != null ? count : 0;
+  }
+
+  /**
+   * Walks all project files, should be called under a read action.
+   */
+  @NotNull
+  public static GoReferenceCountTable create(@NotNull Project project) {
+    GoReferenceCountTable table = new GoReferenceCountTable(getModificationCount(project));
+    table.build(project);
+    return table;
+  }
+
+  private static long getModificationCount(@NotNull Project project) {
+    return PsiModificationTracker.SERVICE.getInstance(project).getModificationCount();
+  }
+
+  @Nullable
+  private static Pair<VirtualFile, Integer> key(@NotNull PsiElement element) {
+    VirtualFile file = element.getContainingFile().getVirtualFile();
+    return file != null ? Pair.create(file, element.getTextOffset()) : null;
+  }
+
+  private void build(@NotNull Project project) {
+    long start = System.nanoTime();
+    MultiMap<VirtualFile, VirtualFile> packages = MultiMap.createSmart();
+    for (VirtualFile file : FileTypeIndex.getFiles(GoFileType.INSTANCE, GlobalSearchScope.projectScope(project))) {
+      packages.putValue(file.getParent(), file);
+    }
+    List<Collection<VirtualFile>> jobs = ContainerUtil.newArrayList(packages.values());
+    PsiManager psiManager = PsiManager.getInstance(project);
+
+    Set<String> names = ContainerUtil.newConcurrentSet();
+    processConcurrently(jobs, psiManager, file -> {
+      for (GoFunctionDeclaration function : file.getFunctions()) names.add(function.getName());
+      for (GoVarDefinition var : file.getVars()) names.add(var.getName());
+      for (GoConstDefinition constant : file.getConstants()) names.add(constant.getName());
+    });
+    names.remove(null);
+
+    processConcurrently(jobs, psiManager, file -> {
+      TObjectIntHashMap<Pair<VirtualFile, Integer>> counts = new TObjectIntHashMap<>();
+      file.accept(new GoRecursiveVisitor() {
+        @Override
+        public void visitReferenceExpression(@NotNull GoReferenceExpression o) {
+          super.visitReferenceExpression(o);
+          if (!names.contains(o.getIdentifier().getText())) return;
+          PsiReference reference = o.getReference();
+          PsiElement resolve = reference != null ? reference.resolve() : null;
+          if (isTopLevel(resolve) && (!(resolve instanceof GoVarDefinition) ||
+                                      GoUnusedVariableInspection.isUsage(o, (GoVarDefinition)resolve))) {
+            Pair<VirtualFile, Integer> key = key(resolve);
+            if (key != null) counts.adjustOrPutValue(key, 1, 1);
+          }
+        }
+      });
+      counts.forEachEntry((key, count) -> {
+        myCounts.merge(key, count, Integer::sum);
+        return true;
+      });
+    });
+    LOG.debug("Reference counts of " + myCounts.size() + " declarations in " + jobs.size() + " packages computed in " +
+              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+  }
+
+  private static boolean isTopLevel(@Nullable PsiElement element) {
+    if (element instanceof GoFunctionDeclaration) return true;
+    if (element instanceof GoVarDefinition || element instanceof GoConstDefinition) {
+      PsiElement spec = element.getParent();
+      return spec != null && spec.getParent() != null && spec.getParent().getParent() instanceof GoFile;
+    }
+    return false;
+  }
+
+  private interface FileProcessor {
+    void process(@NotNull GoFile file);
+  }
+
+  private static void processConcurrently(@NotNull List<Collection<VirtualFile>> packages,
+                                          @NotNull PsiManager psiManager,
+                                          @NotNull FileProcessor processor) {
+    ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    JobLauncher.getInstance().invokeConcurrentlyUnderProgress(packages, indicator, true, false, files -> {
+      for (VirtualFile file : files) {
+        PsiFile psiFile = file.isValid() ? psiManager.findFile(file) : null;
+        if (psiFile instanceof GoFile) {
+          processor.process((GoFile)psiFile);
+        }
+      }
+      return true;
+    });
+  }
+}
@@ -34,6 +34,7 @@ public class GoUnusedConstInspection extends GoInspectionBase {
       @Override
       public void visitConstDefinition(@NotNull GoConstDefinition o) {
         if (o.isBlank()) return;
+        if (GoReferenceCountTable.hasUsagesInBatchMode(o, holder)) return;
         if (ReferencesSearch.search(o, o.getUseScope()).findFirst() == null) {
           String constName = o.getName();
           holder.registerProblem(o, "Unused constant <code>#ref</code> #loc", ProblemHighlightType.LIKE_UNUSED_SYMBOL,
@@ -48,6 +48,7 @@ public class GoUnusedFunctionInspection extends GoInspectionBase {
         if (GoConstants.MAIN.equals(file.getPackageName()) && GoConstants.MAIN.equals(name)) return;
         if (GoConstants.INIT.equals(name)) return;
         if (GoTestFinder.isTestFile(file) && GoTestFunctionType.fromName(name) != null) return;
+        if (GoReferenceCountTable.hasUsagesInBatchMode(o, holder)) return;
         if (ReferencesSearch.search(o, o.getUseScope()).findFirst() == null) {
           PsiElement id = o.getIdentifier();
           TextRange range = TextRange.from(id.getStartOffsetInParent(), id.getTextLength());
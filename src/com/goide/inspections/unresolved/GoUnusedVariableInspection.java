@@ -46,28 +46,11 @@ public class GoUnusedVariableInspection extends GoInspectionBase {
           PsiReference reference = o.getReference();
           PsiElement resolve = reference != null ? reference.resolve() : null;
           if (resolve != null) return;
+          if (GoReferenceCountTable.hasUsagesInBatchMode(o, holder)) return;
           boolean foundReference = !ReferencesSearch.search(o, o.getUseScope()).forEach(reference1 -> {
             ProgressManager.checkCanceled();
             PsiElement element = reference1.getElement();
-            if (element == null) return true;
-            PsiElement parent = element.getParent();
-            if (parent instanceof GoLeftHandExprList) {
-              PsiElement grandParent = parent.getParent();
-              if (grandParent instanceof GoAssignmentStatement &&
-                  ((GoAssignmentStatement)grandParent).getAssignOp().getAssign() != null) {
-                GoFunctionLit fn = PsiTreeUtil.getParentOfType(element, GoFunctionLit.class);
-                if (fn == null || !PsiTreeUtil.isAncestor(GoVarProcessor.getScope(o), fn, true)) {
-                  return true;
-                }
-              }
-            }
-            if (parent instanceof GoShortVarDeclaration) {
-              int op = ((GoShortVarDeclaration)parent).getVarAssign().getStartOffsetInParent();
-              if (element.getStartOffsetInParent() < op) {
-                return true;
-              }
-            }
-            return false;
+            return element == null || !isUsage(element, o);
           });
 
           if (!foundReference) {
@@ -78,6 +61,30 @@ public class GoUnusedVariableInspection extends GoInspectionBase {
     };
   }
 
+  /**
+   * Assignments to a variable don't count as its usages unless they happen in a closure.
+   */
+  static boolean isUsage(@NotNull PsiElement element, @NotNull GoVarDefinition definition) {
+    PsiElement parent = element.getParent();
+    if (parent instanceof GoLeftHandExprList) {
+      PsiElement grandParent = parent.getParent();
+      if (grandParent instanceof GoAssignmentStatement &&
+          ((GoAssignmentStatement)grandParent).getAssignOp().getAssign() != null) {
+        GoFunctionLit fn = PsiTreeUtil.getParentOfType(element, GoFunctionLit.class);
+        if (fn == null || !PsiTreeUtil.isAncestor(GoVarProcessor.getScope(definition), fn, true)) {
+          return false;
+        }
+      }
+    }
+    if (parent instanceof GoShortVarDeclaration) {
+      int op = ((GoShortVarDeclaration)parent).getVarAssign().getStartOffsetInParent();
+      if (element.getStartOffsetInParent() < op) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   protected void reportError(@NotNull GoVarDefinition varDefinition, @NotNull ProblemsHolder holder) {
     holder.registerProblem(varDefinition, "Unused variable <code>#ref</code> #loc", ProblemHighlightType.GENERIC_ERROR_OR_WARNING,
                            new GoRenameToBlankQuickFix(varDefinition), new GoDeleteVarDefinitionQuickFix(varDefinition.getName()));
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.marker;
+
+import com.goide.psi.GoTypeSpec;
+import com.goide.psi.impl.implementations.GoImplementationsSearch;
+import com.intellij.codeHighlighting.Pass;
+import com.intellij.codeInsight.daemon.GutterIconNavigationHandler;
+import com.intellij.codeInsight.daemon.LineMarkerInfo;
+import com.intellij.codeInsight.daemon.LineMarkerProvider;
+import com.intellij.codeInsight.daemon.impl.PsiElementListNavigator;
+import com.intellij.icons.AllIcons;
+import com.intellij.ide.util.DefaultPsiElementCellRenderer;
+import com.intellij.openapi.editor.markup.GutterIconRenderer;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.NavigatablePsiElement;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.event.MouseEvent;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * "Implemented by" markers on interfaces and "implements" markers on other types, see {@link GoImplementationsSearch}.
+ */
+public class GoImplementationsMarkerProvider implements LineMarkerProvider {
+  private static final int MAX_NAMES_IN_TOOLTIP = 10;
+
+  @Override
+  public LineMarkerInfo getLineMarkerInfo(@NotNull PsiElement element) {
+    return null;
+  }
+
+  @Override
+  public void collectSlowLineMarkers(@NotNull List<PsiElement> elements, @NotNull Collection<LineMarkerInfo> result) {
+    for (PsiElement element : elements) {
+      PsiElement parent = element.getParent();
+      if (!(parent instanceof GoTypeSpec) || ((GoTypeSpec)parent).getIdentifier() != element) continue;
+      GoTypeSpec typeSpec = (GoTypeSpec)parent;
+      boolean isInterface = GoImplementationsSearch.getInterfaceType(typeSpec) != null;
+      CommonProcessors.FindFirstProcessor<GoTypeSpec> processor = new CommonProcessors.FindFirstProcessor<>();
+      search(typeSpec, isInterface, processor);
+      if (processor.isFound()) {
+        result.add(new ImplementationsMarkerInfo(element, isInterface));
+      }
+    }
+  }
+
+  private static void search(@NotNull GoTypeSpec typeSpec, boolean isInterface, @NotNull CommonProcessors.FindProcessor<GoTypeSpec> processor) {
+    GlobalSearchScope scope = GlobalSearchScope.allScope(typeSpec.getProject());
+    if (isInterface) {
+      GoImplementationsSearch.processImplementations(typeSpec, scope, processor);
+    }
+    else {
+      GoImplementationsSearch.processImplementedInterfaces(typeSpec, scope, processor);
+    }
+  }
+
+  @NotNull
+  private static List<GoTypeSpec> findAll(@NotNull PsiElement identifier, boolean isInterface) {
+    PsiElement parent = identifier.getParent();
+    if (!(parent instanceof GoTypeSpec)) return ContainerUtil.emptyList();
+    List<GoTypeSpec> result = ContainerUtil.newArrayList();
+    search((GoTypeSpec)parent, isInterface, new CommonProcessors.FindProcessor<GoTypeSpec>() {
+      @Override
+      protected boolean accept(GoTypeSpec spec) {
+        result.add(spec);
+        return false;
+      }
+    });
+    ContainerUtil.sort(result, (s1, s2) -> StringUtil.naturalCompare(getName(s1), getName(s2)));
+    return result;
+  }
+
+  @NotNull
+  private static String getName(@NotNull GoTypeSpec spec) {
+    return StringUtil.notNullize(spec.getQualifiedName(), StringUtil.notNullize(spec.getName()));
+  }
+
+  @NotNull
+  private static String getTooltip(@NotNull PsiElement identifier, boolean isInterface) {
+    List<GoTypeSpec> types = findAll(identifier, isInterface);
+    List<String> names = ContainerUtil.map(ContainerUtil.getFirstItems(types, MAX_NAMES_IN_TOOLTIP), GoImplementationsMarkerProvider::getName);
+    String more = types.size() > MAX_NAMES_IN_TOOLTIP ? ", ..." : "";
+    return (isInterface ? "Implemented by " : "Implements ") + StringUtil.join(names, ", ") + more;
+  }
+
+  private static class ImplementationsMarkerInfo extends LineMarkerInfo<PsiElement> {
+    private ImplementationsMarkerInfo(@NotNull PsiElement identifier, boolean isInterface) {
+      super(identifier,
+            identifier.getTextRange(),
+            isInterface ? AllIcons.Gutter.ImplementedMethod : AllIcons.Gutter.ImplementingMethod,
+            Pass.UPDATE_OVERRIDDEN_MARKERS,
+            element -> getTooltip(element, isInterface),
+            new GutterIconNavigationHandler<PsiElement>() {
+              @Override
+              public void navigate(MouseEvent e, PsiElement element) {
+                List<NavigatablePsiElement> targets = ContainerUtil.findAll(findAll(element, isInterface), NavigatablePsiElement.class);
+                String title = (isInterface ? "Choose Implementation of " : "Choose Interface Implemented by ") + element.getText();
+                PsiElementListNavigator.openTargets(e, targets.toArray(new NavigatablePsiElement[targets.size()]), title, null,
+                                                    new DefaultPsiElementCellRenderer());
+              }
+            },
+            GutterIconRenderer.Alignment.RIGHT
+      );
+    }
+  }
+}
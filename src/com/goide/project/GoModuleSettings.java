@@ -29,6 +29,8 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleServiceManager;
 import com.intellij.openapi.options.ShowSettingsUtil;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.psi.impl.source.resolve.ResolveCache;
 import com.intellij.util.ThreeState;
 import com.intellij.util.messages.Topic;
@@ -45,6 +47,7 @@ public class GoModuleSettings implements PersistentStateComponent<GoModuleSettin
   private final GoModuleSettingsState myState = new GoModuleSettingsState();
   @NotNull
   private final Module myModule;
+  private final SimpleModificationTracker myVendoringModificationTracker = new SimpleModificationTracker();
 
   public GoModuleSettings(@NotNull Module module) {
     myModule = module;
@@ -64,6 +67,12 @@ public class GoModuleSettings implements PersistentStateComponent<GoModuleSettin
       cleanResolveCaches();
     }
     myState.vendoring = vendoringEnabled;
+    myVendoringModificationTracker.incModificationCount();
+  }
+
+  @NotNull
+  public ModificationTracker getVendoringModificationTracker() {
+    return myVendoringModificationTracker;
   }
 
   @NotNull
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.psi.impl;
+
+import com.goide.psi.GoFile;
+import com.goide.psi.GoMethodDeclaration;
+import com.goide.psi.GoTypeSpec;
+import com.goide.sdk.GoPackageUtil;
+import com.goide.stubs.GoMethodDeclarationStub;
+import com.goide.stubs.types.GoMethodDeclarationStubElementType;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.containers.ContainerUtil;
+import gnu.trove.TIntObjectHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Method sets of all types of a package, built in one pass over the package files.
+ * Sets are keyed by the hash of the receiver type name, so looking up a type doesn't build any strings.
+ * The cache lives on the package directory and is dropped when any file of the directory changes. It also depends on
+ * the directory itself, so that files added or removed are picked up, and a directory dependency is tracked by the
+ * global out-of-code-block modification count: a change outside of code blocks anywhere in the project drops it too.
+ */
+final class GoPackageMethods {
+  private static final Key<CachedValue<ConcurrentMap<String, GoPackageMethods>>> PACKAGE_METHODS = Key.create("PACKAGE_METHODS");
+
+  private final TIntObjectHashMap<MethodSet> myMethodSets = new TIntObjectHashMap<>();
+
+  private GoPackageMethods(@NotNull List<GoFile> files) {
+    for (GoFile file : files) {
+      for (GoMethodDeclaration method : file.getMethods()) {
+        String typeName = getReceiverTypeName(method);
+        if (StringUtil.isEmpty(typeName)) continue;
+        int hash = typeName.hashCode();
+        MethodSet set = myMethodSets.get(hash);
+        while (set != null && !set.typeName.equals(typeName)) {
+          set = set.next;
+        }
+        if (set == null) {
+          set = new MethodSet(typeName, myMethodSets.get(hash));
+          myMethodSets.put(hash, set);
+        }
+        set.methods.add(method);
+      }
+    }
+  }
+
+  @NotNull
+  private List<GoMethodDeclaration> get(@NotNull String typeName) {
+    for (MethodSet set = myMethodSets.get(typeName.hashCode()); set != null; set = set.next) {
+      if (set.typeName.equals(typeName)) return Collections.unmodifiableList(set.methods);
+    }
+    return Collections.emptyList();
+  }
+
+  @NotNull
+  static List<GoMethodDeclaration> getMethods(@NotNull GoTypeSpec o) {
+    PsiFile file = o.getContainingFile().getOriginalFile();
+    if (!(file instanceof GoFile)) return Collections.emptyList();
+    String packageName = ((GoFile)file).getPackageName();
+    String typeName = o.getName();
+    if (StringUtil.isEmpty(packageName) || StringUtil.isEmpty(typeName)) return Collections.emptyList();
+    PsiDirectory directory = file.getParent();
+    if (directory == null) return new GoPackageMethods(Collections.singletonList((GoFile)file)).get(typeName);
+
+    ConcurrentMap<String, GoPackageMethods> packages = CachedValuesManager.getCachedValue(directory, PACKAGE_METHODS, () -> {
+      List<GoFile> files = GoPackageUtil.getAllPackageFiles(directory, null);
+      Object[] dependencies = ArrayUtil.append(files.toArray(), directory);
+      return CachedValueProvider.Result.create(ContainerUtil.<String, GoPackageMethods>newConcurrentMap(), dependencies);
+    });
+    GoPackageMethods methods = packages.get(packageName);
+    if (methods == null) {
+      methods = ConcurrencyUtil.cacheOrGet(packages, packageName,
+                                           new GoPackageMethods(GoPackageUtil.getAllPackageFiles(directory, packageName)));
+    }
+    return methods.get(typeName);
+  }
+
+  @Nullable
+  private static String getReceiverTypeName(@NotNull GoMethodDeclaration method) {
+    GoMethodDeclarationStub stub = method.getStub();
+    return stub != null ? stub.getTypeName() : GoMethodDeclarationStubElementType.calcTypeText(method);
+  }
+
+  private static class MethodSet {
+    @NotNull private final String typeName;
+    @NotNull private final List<GoMethodDeclaration> methods = ContainerUtil.newSmartList();
+    @Nullable private final MethodSet next;
+
+    private MethodSet(@NotNull String typeName, @Nullable MethodSet next) {
+      this.typeName = typeName;
+      this.next = next;
+    }
+  }
+}
@@ -21,11 +21,8 @@ import com.goide.GoTypes;
 import com.goide.psi.*;
 import com.goide.psi.impl.imports.GoImportReferenceSet;
 import com.goide.runconfig.testing.GoTestFinder;
-import com.goide.sdk.GoPackageUtil;
 import com.goide.sdk.GoSdkUtil;
 import com.goide.stubs.*;
-import com.goide.stubs.index.GoIdFilter;
-import com.goide.stubs.index.GoMethodIndex;
 import com.goide.util.GoStringLiteralEscaper;
 import com.goide.util.GoUtil;
 import com.intellij.codeInsight.highlighting.ReadWriteAccessDetector;
@@ -45,7 +42,6 @@ import com.intellij.psi.impl.source.resolve.reference.impl.providers.FileReferen
 import com.intellij.psi.impl.source.resolve.reference.impl.providers.PsiFileReference;
 import com.intellij.psi.impl.source.tree.LeafElement;
 import com.intellij.psi.scope.PsiScopeProcessor;
-import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.tree.TokenSet;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
@@ -59,7 +55,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 import static com.goide.psi.impl.GoLightType.*;
@@ -126,8 +121,16 @@ public class GoPsiImplUtil {
     return declaration;
   }
 
+  /**
+   * @return number of parameters, {@code a, b int} counts as two and a variadic parameter as one
+   */
   public static int getArity(@Nullable GoSignature s) {
-    return s == null ? -1 : s.getParameters().getParameterDeclarationList().size();
+    if (s == null) return -1;
+    int arity = 0;
+    for (GoParameterDeclaration declaration : s.getParameters().getParameterDeclarationList()) {
+      arity += Math.max(1, declaration.getParamDefinitionList().size());
+    }
+    return arity;
   }
 
   @Nullable
@@ -848,10 +851,7 @@ public class GoPsiImplUtil {
 
   @NotNull
   public static List<GoMethodDeclaration> getMethods(@NotNull GoTypeSpec o) {
-    return CachedValuesManager.getCachedValue(o, () -> {
-      // todo[zolotov]: implement package modification tracker
-      return CachedValueProvider.Result.create(calcMethods(o), PsiModificationTracker.MODIFICATION_COUNT);
-    });
+    return GoPackageMethods.getMethods(o);
   }
 
   public static boolean allowed(@NotNull PsiFile declarationFile, @Nullable PsiFile referenceFile, @Nullable Module contextModule) {
@@ -942,22 +942,6 @@ public class GoPsiImplUtil {
     return owner instanceof GoFunctionLit ? null : owner;
   }
 
-  @NotNull
-  private static List<GoMethodDeclaration> calcMethods(@NotNull GoTypeSpec o) {
-    PsiFile file = o.getContainingFile().getOriginalFile();
-    if (file instanceof GoFile) {
-      String packageName = ((GoFile)file).getPackageName();
-      String typeName = o.getName();
-      if (StringUtil.isEmpty(packageName) || StringUtil.isEmpty(typeName)) return Collections.emptyList();
-      String key = packageName + "." + typeName;
-      Project project = ((GoFile)file).getProject();
-      GlobalSearchScope scope = GoPackageUtil.packageScope((GoFile)file);
-      Collection<GoMethodDeclaration> declarations = GoMethodIndex.find(key, project, scope, GoIdFilter.getFilesFilter(scope));
-      return ContainerUtil.newArrayList(declarations);
-    }
-    return Collections.emptyList();
-  }
-
   @NotNull
   public static GoType getUnderlyingType(@NotNull GoType o) {
     GoType type = RecursionManager.doPreventingRecursion(o, true, () -> getTypeInner(o));
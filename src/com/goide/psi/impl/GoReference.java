@@ -107,7 +107,7 @@ public class GoReference extends GoReferenceBase<GoReferenceExpressionBase> {
       if (((GoImportSpec)target).isCImport()) return processor.execute(myElement, state);
       target = ((GoImportSpec)target).getImportString().resolve();
     }
-    if (target instanceof PsiDirectory && !processDirectory((PsiDirectory)target, file, null, processor, state, false)) return false;
+    if (target instanceof PsiDirectory && !processQualifierDirectory((PsiDirectory)target, file, processor, state)) return false;
     if (target instanceof GoTypeOwner) {
       GoType type = typeOrParameterType((GoTypeOwner)target, createContextOnElement(myElement));
       if (type instanceof GoCType) return processor.execute(myElement, state);
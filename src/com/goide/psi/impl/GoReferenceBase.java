@@ -18,11 +18,15 @@ package com.goide.psi.impl;
 
 import com.goide.psi.*;
 import com.goide.sdk.GoSdkUtil;
+import com.goide.stubs.index.GoPackageExportsIndex;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
 import com.intellij.util.ObjectUtils;
@@ -78,6 +82,31 @@ public abstract class GoReferenceBase<T extends GoReferenceExpressionBase> exten
     return true;
   }
 
+  /**
+   * Processes the package in {@code dir} as a qualifier of the reference. Resolving an exported name only visits the files
+   * that declare it according to {@link GoPackageExportsIndex}, completion and other names visit the whole package.
+   */
+  protected boolean processQualifierDirectory(@NotNull PsiDirectory dir,
+                                              @Nullable GoFile file,
+                                              @NotNull GoScopeProcessor processor,
+                                              @NotNull ResolveState state) {
+    String name = myElement.getIdentifier().getText();
+    Project project = dir.getProject();
+    if (processor.isCompletion() || !StringUtil.isCapitalized(name) || DumbService.isDumb(project)) {
+      return processDirectory(dir, file, null, processor, state, false);
+    }
+    String filePath = getPath(file);
+    Module module = file != null ? ModuleUtilCore.findModuleForPsiElement(file) : null;
+    PsiManager psiManager = dir.getManager();
+    for (VirtualFile virtualFile : GoPackageExportsIndex.getDeclaringFiles(name, dir.getVirtualFile(), project)) {
+      PsiFile f = psiManager.findFile(virtualFile);
+      if (!(f instanceof GoFile) || Comparing.equal(getPath(f), filePath)) continue;
+      if (!allowed(f, file, module)) continue;
+      if (!processFileEntities((GoFile)f, processor, state, false)) return false;
+    }
+    return true;
+  }
+
   protected boolean processBuiltin(@NotNull GoScopeProcessor processor, @NotNull ResolveState state, @NotNull GoCompositeElement element) {
     GoFile builtin = GoSdkUtil.findBuiltinFile(element);
     return builtin == null || processFileEntities(builtin, processor, state, true);
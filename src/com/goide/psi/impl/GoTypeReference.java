@@ -102,7 +102,7 @@ public class GoTypeReference extends GoReferenceBase<GoTypeReferenceExpression>
       target = ((GoImportSpec)target).getImportString().resolve();
     }
     if (target instanceof PsiDirectory) {
-      processDirectory((PsiDirectory)target, file, null, processor, state, false);
+      processQualifierDirectory((PsiDirectory)target, file, processor, state);
     }
     return false;
   }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.psi.impl.implementations;
+
+import com.goide.psi.GoInterfaceType;
+import com.goide.psi.GoMethodDeclaration;
+import com.goide.psi.GoMethodSpec;
+import com.goide.psi.GoTypeSpec;
+import com.intellij.openapi.application.QueryExecutorBase;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.searches.DefinitionsScopedSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Processor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Implementations of Go interfaces and their methods for Go to Implementation.
+ */
+public class GoImplementationsDefinitionsSearch extends QueryExecutorBase<PsiElement, DefinitionsScopedSearch.SearchParameters> {
+  public GoImplementationsDefinitionsSearch() {
+    super(true);
+  }
+
+  @Override
+  public void processQuery(@NotNull DefinitionsScopedSearch.SearchParameters parameters, @NotNull Processor<PsiElement> consumer) {
+    PsiElement element = parameters.getElement();
+    SearchScope searchScope = parameters.getScope();
+    GlobalSearchScope scope = searchScope instanceof GlobalSearchScope
+                              ? (GlobalSearchScope)searchScope
+                              : GlobalSearchScope.allScope(element.getProject());
+    if (element instanceof GoTypeSpec) {
+      GoImplementationsSearch.processImplementations((GoTypeSpec)element, scope, consumer::process);
+    }
+    else if (element instanceof GoMethodSpec) {
+      String name = ((GoMethodSpec)element).getName();
+      GoInterfaceType interfaceType = PsiTreeUtil.getParentOfType(element, GoInterfaceType.class);
+      GoTypeSpec interfaceSpec = PsiTreeUtil.getParentOfType(interfaceType, GoTypeSpec.class);
+      if (name == null || interfaceSpec == null || GoImplementationsSearch.getInterfaceType(interfaceSpec) != interfaceType) return;
+      GoImplementationsSearch.processImplementations(interfaceSpec, scope, type -> {
+        for (GoMethodDeclaration method : type.getMethods()) {
+          if (name.equals(method.getName()) && !consumer.process(method)) return false;
+        }
+        return true;
+      });
+    }
+  }
+}
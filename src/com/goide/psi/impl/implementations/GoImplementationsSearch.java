@@ -0,0 +1,265 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.psi.impl.implementations;
+
+import com.goide.psi.*;
+import com.goide.psi.impl.GoPsiImplUtil;
+import com.goide.stubs.GoMethodDeclarationStub;
+import com.goide.stubs.index.GoMethodFingerprintIndex;
+import com.goide.stubs.types.GoMethodDeclarationStubElementType;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
+import gnu.trove.TIntHashSet;
+import gnu.trove.TIntIntHashMap;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Finds types that implement an interface and interfaces that a type implements.
+ * <p>
+ * Method fingerprints ({@code name/arity}) of one side are looked up in {@link GoMethodFingerprintIndex} to get
+ * candidates of the other side, candidates are numbered and narrowed as sets of ints without touching their PSI, and
+ * only the survivors are confirmed by comparing full signatures. Methods promoted from embedded fields aren't taken
+ * into account, and a type counts as an implementation if it or a pointer to it implements an interface.
+ */
+public class GoImplementationsSearch {
+  private GoImplementationsSearch() {
+  }
+
+  @Nullable
+  public static GoInterfaceType getInterfaceType(@NotNull GoTypeSpec spec) {
+    GoType type = spec.getSpecType().getType();
+    return type instanceof GoInterfaceType ? (GoInterfaceType)type : null;
+  }
+
+  /**
+   * Processes types implementing the given interface, an empty interface has no implementations to show.
+   */
+  public static boolean processImplementations(@NotNull GoTypeSpec interfaceSpec,
+                                               @NotNull GlobalSearchScope scope,
+                                               @NotNull Processor<GoTypeSpec> processor) {
+    GoInterfaceType interfaceType = getInterfaceType(interfaceSpec);
+    if (interfaceType == null) return true;
+    Map<String, GoMethodSpec> methods = getMethodSet(interfaceType);
+    if (methods.isEmpty()) return true;
+
+    Project project = interfaceSpec.getProject();
+    TObjectIntHashMap<String> ids = new TObjectIntHashMap<>();
+    List<GoMethodDeclaration> representatives = ContainerUtil.newArrayList();
+    TIntHashSet candidates = null;
+    for (GoMethodSpec method : methods.values()) {
+      String fingerprint = getFingerprint(method);
+      if (fingerprint == null) return true;
+      TIntHashSet previous = candidates;
+      TIntHashSet found = new TIntHashSet();
+      GoMethodFingerprintIndex.process(fingerprint, project, scope, GoMethodDeclaration.class, declaration -> {
+        String key = getReceiverKey(declaration);
+        if (key == null) return true;
+        int id = ids.get(key);
+        if (!ids.containsKey(key)) {
+          if (previous != null) return true;
+          id = representatives.size();
+          ids.put(key, id);
+          representatives.add(declaration);
+        }
+        if (previous == null || previous.contains(id)) {
+          found.add(id);
+        }
+        return true;
+      });
+      if (found.isEmpty()) return true;
+      candidates = found;
+    }
+
+    Set<GoTypeSpec> confirmed = ContainerUtil.newHashSet();
+    for (int id : candidates.toArray()) {
+      GoTypeSpec type = getReceiverTypeSpec(representatives.get(id));
+      if (type != null && !type.equals(interfaceSpec) && confirmed.add(type) && implementsMethods(type, methods) &&
+          !processor.process(type)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Processes named interfaces implemented by the given type.
+   */
+  public static boolean processImplementedInterfaces(@NotNull GoTypeSpec typeSpec,
+                                                     @NotNull GlobalSearchScope scope,
+                                                     @NotNull Processor<GoTypeSpec> processor) {
+    if (getInterfaceType(typeSpec) != null) return true;
+    List<GoMethodDeclaration> methods = typeSpec.getMethods();
+    if (methods.isEmpty()) return true;
+
+    Project project = typeSpec.getProject();
+    TObjectIntHashMap<GoInterfaceType> ids = new TObjectIntHashMap<>();
+    List<GoInterfaceType> interfaces = ContainerUtil.newArrayList();
+    TIntIntHashMap hits = new TIntIntHashMap();
+    for (GoMethodDeclaration method : methods) {
+      String fingerprint = getFingerprint(method);
+      if (fingerprint == null) continue;
+      GoMethodFingerprintIndex.process(fingerprint, project, scope, GoMethodSpec.class, spec -> {
+        PsiElement parent = PsiTreeUtil.getStubOrPsiParent(spec);
+        if (!(parent instanceof GoInterfaceType)) return true;
+        GoInterfaceType interfaceType = (GoInterfaceType)parent;
+        int id = ids.get(interfaceType);
+        if (!ids.containsKey(interfaceType)) {
+          id = interfaces.size();
+          ids.put(interfaceType, id);
+          interfaces.add(interfaceType);
+        }
+        hits.adjustOrPutValue(id, 1, 1);
+        return true;
+      });
+    }
+
+    Set<GoTypeSpec> reported = ContainerUtil.newHashSet();
+    Deque<GoTypeSpec> queue = new ArrayDeque<>();
+    for (int id : hits.keys()) {
+      GoInterfaceType interfaceType = interfaces.get(id);
+      // every own method of an interface has to be hit, embedded ones are checked with the full signatures
+      if (hits.get(id) != interfaceType.getMethods().size()) continue;
+      GoTypeSpec interfaceSpec = PsiTreeUtil.getStubOrPsiParentOfType(interfaceType, GoTypeSpec.class);
+      if (interfaceSpec == null || getInterfaceType(interfaceSpec) != interfaceType) continue;
+      if (reported.add(interfaceSpec) && implementsMethods(typeSpec, getMethodSet(interfaceType))) {
+        if (!processor.process(interfaceSpec)) return false;
+        queue.add(interfaceSpec);
+      }
+    }
+
+    // interfaces that only embed other ones have no own methods to look up, they are found through what they embed
+    while (!queue.isEmpty()) {
+      for (GoTypeSpec interfaceSpec : getEmbeddingInterfaces(queue.poll(), scope)) {
+        GoInterfaceType interfaceType = getInterfaceType(interfaceSpec);
+        if (interfaceType != null && reported.add(interfaceSpec) && implementsMethods(typeSpec, getMethodSet(interfaceType))) {
+          if (!processor.process(interfaceSpec)) return false;
+          queue.add(interfaceSpec);
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return named interfaces that embed the given one
+   */
+  @NotNull
+  private static List<GoTypeSpec> getEmbeddingInterfaces(@NotNull GoTypeSpec interfaceSpec, @NotNull GlobalSearchScope scope) {
+    List<GoTypeSpec> result = ContainerUtil.newArrayList();
+    for (PsiReference reference : ReferencesSearch.search(interfaceSpec, scope)) {
+      PsiElement element = reference.getElement();
+      PsiElement methodSpec = element instanceof GoTypeReferenceExpression ? element.getParent() : null;
+      if (methodSpec instanceof GoMethodSpec && methodSpec.getParent() instanceof GoInterfaceType) {
+        ContainerUtil.addIfNotNull(result, PsiTreeUtil.getParentOfType(methodSpec, GoTypeSpec.class));
+      }
+    }
+    return result;
+  }
+
+  public static boolean isImplementation(@NotNull GoTypeSpec typeSpec, @NotNull GoTypeSpec interfaceSpec) {
+    GoInterfaceType interfaceType = getInterfaceType(interfaceSpec);
+    return interfaceType != null && getInterfaceType(typeSpec) == null && implementsMethods(typeSpec, getMethodSet(interfaceType));
+  }
+
+  /**
+   * @return methods of the interface including embedded ones by their names
+   */
+  @NotNull
+  public static Map<String, GoMethodSpec> getMethodSet(@NotNull GoInterfaceType type) {
+    Map<String, GoMethodSpec> result = ContainerUtil.newLinkedHashMap();
+    collectMethods(type, result, ContainerUtil.newHashSet());
+    return result;
+  }
+
+  private static void collectMethods(@NotNull GoInterfaceType type,
+                                     @NotNull Map<String, GoMethodSpec> result,
+                                     @NotNull Set<GoInterfaceType> visited) {
+    if (!visited.add(type)) return;
+    for (GoMethodSpec method : type.getMethods()) {
+      String name = method.getName();
+      if (name != null) {
+        result.putIfAbsent(name, method);
+      }
+    }
+    for (GoTypeReferenceExpression reference : type.getBaseTypesReferences()) {
+      PsiElement resolve = reference.resolve();
+      if (resolve instanceof GoTypeSpec) {
+        GoInterfaceType embedded = getInterfaceType((GoTypeSpec)resolve);
+        if (embedded != null) {
+          collectMethods(embedded, result, visited);
+        }
+      }
+    }
+  }
+
+  private static boolean implementsMethods(@NotNull GoTypeSpec typeSpec, @NotNull Map<String, GoMethodSpec> methods) {
+    Map<String, GoMethodDeclaration> declarations = ContainerUtil.newHashMap();
+    for (GoMethodDeclaration declaration : typeSpec.getMethods()) {
+      String name = declaration.getName();
+      if (name != null) {
+        declarations.put(name, declaration);
+      }
+    }
+    for (Map.Entry<String, GoMethodSpec> entry : methods.entrySet()) {
+      GoMethodDeclaration declaration = declarations.get(entry.getKey());
+      if (declaration == null || !GoSignatureUtil.isIdentical(entry.getValue().getSignature(), declaration.getSignature())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Nullable
+  private static String getFingerprint(@NotNull GoNamedSignatureOwner method) {
+    String name = method.getName();
+    int arity = GoPsiImplUtil.getArity(method.getSignature());
+    return name != null && arity >= 0 ? GoMethodFingerprintIndex.fingerprint(name, arity) : null;
+  }
+
+  /**
+   * @return directory, package and name of the receiver type, read from stubs
+   */
+  @Nullable
+  private static String getReceiverKey(@NotNull GoMethodDeclaration declaration) {
+    GoMethodDeclarationStub stub = declaration.getStub();
+    String typeName = stub != null ? stub.getTypeName() : GoMethodDeclarationStubElementType.calcTypeText(declaration);
+    PsiFile file = declaration.getContainingFile();
+    VirtualFile directory = file.getVirtualFile() != null ? file.getVirtualFile().getParent() : null;
+    if (StringUtil.isEmpty(typeName) || directory == null || !(file instanceof GoFile)) return null;
+    return directory.getPath() + ":" + ((GoFile)file).getPackageName() + "." + typeName;
+  }
+
+  @Nullable
+  private static GoTypeSpec getReceiverTypeSpec(@NotNull GoMethodDeclaration declaration) {
+    GoTypeReferenceExpression reference = GoPsiImplUtil.getTypeReference(GoPsiImplUtil.getReceiverType(declaration));
+    PsiElement resolve = reference != null ? reference.resolve() : null;
+    return resolve instanceof GoTypeSpec ? (GoTypeSpec)resolve : null;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.psi.impl.implementations;
+
+import com.goide.psi.*;
+import com.intellij.openapi.util.Comparing;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Identity of signatures of an interface method and a method declaration. Types are compared by their text with type
+ * names cut out, and names are compared by what they resolve to, so {@code Reader} and {@code io.Reader} are the same
+ * type in different packages.
+ */
+final class GoSignatureUtil {
+  private GoSignatureUtil() {
+  }
+
+  static boolean isIdentical(@Nullable GoSignature s1, @Nullable GoSignature s2) {
+    if (s1 == null || s2 == null) return s1 == s2;
+    return isVariadic(s1.getParameters()) == isVariadic(s2.getParameters()) &&
+           isIdentical(getTypes(s1.getParameters()), getTypes(s2.getParameters())) &&
+           isIdentical(getResultTypes(s1.getResult()), getResultTypes(s2.getResult()));
+  }
+
+  private static boolean isIdentical(@NotNull List<GoType> types1, @NotNull List<GoType> types2) {
+    if (types1.size() != types2.size()) return false;
+    for (int i = 0; i < types1.size(); i++) {
+      if (!isIdentical(types1.get(i), types2.get(i))) return false;
+    }
+    return true;
+  }
+
+  private static boolean isIdentical(@Nullable GoType t1, @Nullable GoType t2) {
+    if (t1 == null || t2 == null) return t1 == t2;
+    List<GoTypeReferenceExpression> references1 = getTypeNames(t1);
+    List<GoTypeReferenceExpression> references2 = getTypeNames(t2);
+    if (references1.size() != references2.size() || !getSkeleton(t1, references1).equals(getSkeleton(t2, references2))) {
+      return false;
+    }
+    for (int i = 0; i < references1.size(); i++) {
+      GoTypeReferenceExpression reference1 = references1.get(i);
+      GoTypeReferenceExpression reference2 = references2.get(i);
+      if (!Comparing.equal(reference1.getIdentifier().getText(), reference2.getIdentifier().getText())) return false;
+      PsiElement resolve1 = reference1.resolve();
+      PsiElement resolve2 = reference2.resolve();
+      if (resolve1 != null && resolve2 != null ? !resolve1.equals(resolve2) : !reference1.getText().equals(reference2.getText())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return types of parameters, {@code a, b int} gives two types
+   */
+  @NotNull
+  private static List<GoType> getTypes(@Nullable GoParameters parameters) {
+    List<GoType> result = ContainerUtil.newSmartList();
+    if (parameters == null) return result;
+    for (GoParameterDeclaration declaration : parameters.getParameterDeclarationList()) {
+      int count = Math.max(1, declaration.getParamDefinitionList().size());
+      for (int i = 0; i < count; i++) {
+        result.add(declaration.getType());
+      }
+    }
+    return result;
+  }
+
+  private static boolean isVariadic(@NotNull GoParameters parameters) {
+    GoParameterDeclaration last = ContainerUtil.getLastItem(parameters.getParameterDeclarationList());
+    return last != null && last.getTripleDot() != null;
+  }
+
+  @NotNull
+  private static List<GoType> getResultTypes(@Nullable GoResult result) {
+    if (result == null) return ContainerUtil.emptyList();
+    GoType type = result.getType();
+    return type != null ? ContainerUtil.newSmartList(type) : getTypes(result.getParameters());
+  }
+
+  @NotNull
+  private static List<GoTypeReferenceExpression> getTypeNames(@NotNull GoType type) {
+    // qualifiers are part of their references
+    return ContainerUtil.filter(PsiTreeUtil.findChildrenOfType(type, GoTypeReferenceExpression.class),
+                                reference -> !(reference.getParent() instanceof GoTypeReferenceExpression));
+  }
+
+  @NotNull
+  private static String getSkeleton(@NotNull GoType type, @NotNull List<GoTypeReferenceExpression> references) {
+    StringBuilder result = new StringBuilder();
+    String text = type.getText();
+    int offset = type.getTextRange().getStartOffset();
+    int last = 0;
+    for (GoTypeReferenceExpression reference : references) {
+      TextRange range = reference.getTextRange().shiftRight(-offset);
+      result.append(text, last, range.getStartOffset()).append('#');
+      last = range.getEndOffset();
+    }
+    result.append(text, last, text.length());
+    return result.toString().replaceAll("\\s+", "");
+  }
+}
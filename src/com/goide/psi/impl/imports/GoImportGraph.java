@@ -0,0 +1,425 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.psi.impl.imports;
+
+import com.goide.GoFileType;
+import com.goide.psi.GoFile;
+import com.goide.psi.GoImportSpec;
+import com.goide.stubs.index.GoImportsIndex;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.fileTypes.FileTypeManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.psi.*;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.containers.ContainerUtil;
+import gnu.trove.TIntArrayList;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Package dependency graph of project Go files: which package directories import given ones and which ones are
+ * imported by them, directly or transitively. Shared by the queries that need more than a single
+ * {@link GoImportsIndex} lookup, e.g. selection of tests affected by changes.
+ * <p>
+ * Edges are read from {@link GoImportsIndex}: a directory is imported by the directories of files that import one of
+ * its import paths. The graph is kept as adjacency arrays over directory ids. Edits of Go files only mark their
+ * directories dirty, the next query re-reads imports of dirty directories and patches their edges in. So do Go files
+ * created or deleted in known package directories. The graph is rebuilt after new package directories appear, after
+ * directories with packages are moved, renamed or deleted, and after project root changes.
+ */
+public class GoImportGraph extends SimpleModificationTracker {
+  private final Project myProject;
+  private final Object myLock = new Object();
+  private final Set<VirtualFile> myDirtyDirectories = ContainerUtil.newConcurrentSet();
+  // null if the graph should be rebuilt
+  private volatile Graph myGraph;
+
+  public GoImportGraph(@NotNull Project project) {
+    myProject = project;
+    project.getMessageBus().connect(project).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          fileChanged(event);
+        }
+      }
+    });
+    PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+      @Override
+      public void childAdded(@NotNull PsiTreeChangeEvent event) {
+        markDirty(event.getFile());
+      }
+
+      @Override
+      public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+        markDirty(event.getFile());
+      }
+
+      @Override
+      public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        markDirty(event.getFile());
+      }
+
+      @Override
+      public void childMoved(@NotNull PsiTreeChangeEvent event) {
+        markDirty(event.getFile());
+      }
+
+      @Override
+      public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        markDirty(event.getFile());
+      }
+    }, project);
+  }
+
+  public static GoImportGraph getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, GoImportGraph.class);
+  }
+
+  /**
+   * Should be called in a read action in smart mode, as all the queries below.
+   *
+   * @return directories of project files that import packages of the given directories, directly or through other
+   * project packages; the given directories are not included
+   */
+  @NotNull
+  public Set<VirtualFile> getDependentDirectories(@NotNull Collection<VirtualFile> directories) {
+    Graph graph = getGraph();
+    return graph.closure(graph.myImportedBy, directories);
+  }
+
+  /**
+   * @return project package directories imported by the given directories, directly or through other project
+   * packages; the given directories are not included
+   */
+  @NotNull
+  public Set<VirtualFile> getDependencyDirectories(@NotNull Collection<VirtualFile> directories) {
+    Graph graph = getGraph();
+    return graph.closure(graph.myImports, directories);
+  }
+
+  @NotNull
+  public List<VirtualFile> getImportingDirectories(@NotNull VirtualFile directory) {
+    Graph graph = getGraph();
+    return graph.adjacent(graph.myImportedBy, directory);
+  }
+
+  @NotNull
+  public List<VirtualFile> getImportedDirectories(@NotNull VirtualFile directory) {
+    Graph graph = getGraph();
+    return graph.adjacent(graph.myImports, directory);
+  }
+
+  /**
+   * Edits and creation or deletion of Go files in known package directories only make the directories dirty. New
+   * package directories and moved, renamed or deleted directories with packages change import paths, so the graph
+   * is rebuilt.
+   */
+  private void fileChanged(@NotNull VFileEvent event) {
+    String oldName = null;
+    if (event instanceof VFilePropertyChangeEvent) {
+      VFilePropertyChangeEvent propertyChange = (VFilePropertyChangeEvent)event;
+      if (!VirtualFile.PROP_NAME.equals(propertyChange.getPropertyName())) return;
+      oldName = (String)propertyChange.getOldValue();
+    }
+    VirtualFile file = event instanceof VFileCopyEvent ? ((VFileCopyEvent)event).findCreatedFile() : event.getFile();
+    if (file == null) {
+      invalidate();
+    }
+    else if (file.isDirectory()) {
+      if (event instanceof VFileCreateEvent || event instanceof VFileCopyEvent || containsPackages(file)) invalidate();
+    }
+    else if (isGoFile(file.getName()) || isGoFile(oldName)) {
+      if (event instanceof VFileMoveEvent) markDirty(((VFileMoveEvent)event).getOldParent());
+      VirtualFile directory = file.getParent();
+      if (isKnownDirectory(directory) || event instanceof VFileDeleteEvent) {
+        markDirty(directory);
+      }
+      else if (directory != null && ProjectFileIndex.SERVICE.getInstance(myProject).isInContent(directory)) {
+        // the first Go file of a directory makes a new package
+        invalidate();
+      }
+    }
+  }
+
+  private static boolean isGoFile(@Nullable String fileName) {
+    return fileName != null && FileTypeManager.getInstance().getFileTypeByFileName(fileName) == GoFileType.INSTANCE;
+  }
+
+  private boolean isKnownDirectory(@Nullable VirtualFile directory) {
+    Graph graph = myGraph;
+    return graph == null || graph.getId(directory) >= 0;
+  }
+
+  private boolean containsPackages(@NotNull VirtualFile directory) {
+    Graph graph = myGraph;
+    if (graph == null) return false;
+    for (VirtualFile packageDirectory : graph.myDirectories) {
+      if (VfsUtilCore.isAncestor(directory, packageDirectory, false)) return true;
+    }
+    return false;
+  }
+
+  private void invalidate() {
+    myGraph = null;
+    incModificationCount();
+  }
+
+  private void markDirty(@Nullable PsiFile file) {
+    if (file instanceof GoFile) {
+      markDirty(file.getVirtualFile() != null ? file.getVirtualFile().getParent() : null);
+    }
+  }
+
+  private void markDirty(@Nullable VirtualFile directory) {
+    if (directory != null) {
+      myDirtyDirectories.add(directory);
+      incModificationCount();
+    }
+  }
+
+  @NotNull
+  private Graph getGraph() {
+    long rootsModificationCount = ProjectRootManager.getInstance(myProject).getModificationCount();
+    Graph graph = myGraph;
+    if (graph != null && graph.myRootsModificationCount == rootsModificationCount && myDirtyDirectories.isEmpty()) {
+      return graph;
+    }
+    synchronized (myLock) {
+      graph = myGraph;
+      if (graph == null || graph.myRootsModificationCount != rootsModificationCount) {
+        myDirtyDirectories.clear();
+        graph = buildGraph(rootsModificationCount);
+      }
+      else if (!myDirtyDirectories.isEmpty()) {
+        List<VirtualFile> dirty = ContainerUtil.newArrayList(myDirtyDirectories);
+        myDirtyDirectories.removeAll(dirty);
+        graph = patchGraph(graph, dirty);
+      }
+      myGraph = graph;
+      return graph;
+    }
+  }
+
+  @NotNull
+  private Graph buildGraph(long rootsModificationCount) {
+    GlobalSearchScope scope = GlobalSearchScope.projectScope(myProject);
+    Graph graph = new Graph(rootsModificationCount);
+    for (VirtualFile file : FileTypeIndex.getFiles(GoFileType.INSTANCE, scope)) {
+      VirtualFile directory = file.getParent();
+      if (directory != null) graph.getOrCreateId(directory);
+    }
+
+    int size = graph.myDirectories.size();
+    TIntArrayList[] imports = new TIntArrayList[size];
+    TIntArrayList[] importedBy = new TIntArrayList[size];
+    PsiManager psiManager = PsiManager.getInstance(myProject);
+    for (int id = 0; id < size; id++) {
+      PsiDirectory directory = psiManager.findDirectory(graph.myDirectories.get(id));
+      if (directory == null) continue;
+      for (String importPath : GoImportsIndex.getImportPaths(directory)) {
+        add(graph.myIdsByImportPath, importPath, id);
+        for (VirtualFile importingDirectory : GoImportsIndex.getImportingDirectories(importPath, scope)) {
+          int importingId = graph.getId(importingDirectory);
+          if (importingId < 0 || importingId == id) continue;
+          add(importedBy, id, importingId);
+          add(imports, importingId, id);
+        }
+      }
+    }
+    graph.myImports = toArrays(imports);
+    graph.myImportedBy = toArrays(importedBy);
+    return graph;
+  }
+
+  /**
+   * Re-reads imports of files in the given directories and replaces their outgoing edges, along with the reverse ones.
+   * Import paths of the directories themselves don't change with edits, so other rows stay valid.
+   */
+  @NotNull
+  private Graph patchGraph(@NotNull Graph graph, @NotNull Collection<VirtualFile> directories) {
+    Graph result = graph.copy();
+    PsiManager psiManager = PsiManager.getInstance(myProject);
+    for (VirtualFile directory : directories) {
+      int id = result.getId(directory);
+      if (id < 0 || !directory.isValid()) continue;
+      TIntArrayList targets = new TIntArrayList();
+      for (VirtualFile file : directory.getChildren()) {
+        PsiFile psiFile = file.getFileType() == GoFileType.INSTANCE ? psiManager.findFile(file) : null;
+        if (!(psiFile instanceof GoFile)) continue;
+        for (GoImportSpec spec : ((GoFile)psiFile).getImports()) {
+          TIntArrayList ids = graph.myIdsByImportPath.get(spec.getPath());
+          if (ids == null) continue;
+          for (int target : ids.toNativeArray()) {
+            if (target != id) targets.add(target);
+          }
+        }
+      }
+      int[] newImports = toArrays(new TIntArrayList[]{targets})[0];
+      for (int target : result.myImports[id]) {
+        int[] importedBy = result.myImportedBy[target];
+        result.myImportedBy[target] = ArrayUtil.remove(importedBy, ArrayUtil.indexOf(importedBy, id));
+      }
+      for (int target : newImports) {
+        int[] importedBy = ArrayUtil.append(result.myImportedBy[target], id);
+        Arrays.sort(importedBy);
+        result.myImportedBy[target] = importedBy;
+      }
+      result.myImports[id] = newImports;
+    }
+    return result;
+  }
+
+  private static void add(@NotNull Map<String, TIntArrayList> map, @NotNull String key, int value) {
+    TIntArrayList list = map.get(key);
+    if (list == null) {
+      list = new TIntArrayList(1);
+      map.put(key, list);
+    }
+    list.add(value);
+  }
+
+  private static void add(@NotNull TIntArrayList[] lists, int from, int to) {
+    TIntArrayList list = lists[from];
+    if (list == null) {
+      list = new TIntArrayList(4);
+      lists[from] = list;
+    }
+    list.add(to);
+  }
+
+  @NotNull
+  private static int[][] toArrays(@NotNull TIntArrayList[] lists) {
+    int[][] result = new int[lists.length][];
+    for (int i = 0; i < lists.length; i++) {
+      TIntArrayList list = lists[i];
+      if (list == null) {
+        result[i] = ArrayUtil.EMPTY_INT_ARRAY;
+        continue;
+      }
+      // several files of a package usually import the same package, keep an edge once
+      int[] edges = list.toNativeArray();
+      Arrays.sort(edges);
+      int unique = 0;
+      for (int edge : edges) {
+        if (unique == 0 || edges[unique - 1] != edge) edges[unique++] = edge;
+      }
+      result[i] = unique == edges.length ? edges : Arrays.copyOf(edges, unique);
+    }
+    return result;
+  }
+
+  private static class Graph {
+    private final long myRootsModificationCount;
+    private final List<VirtualFile> myDirectories;
+    private final TObjectIntHashMap<VirtualFile> myIds;
+    private final Map<String, TIntArrayList> myIdsByImportPath;
+    private int[][] myImports;
+    private int[][] myImportedBy;
+
+    private Graph(long rootsModificationCount) {
+      myRootsModificationCount = rootsModificationCount;
+      myDirectories = ContainerUtil.newArrayList();
+      myIds = new TObjectIntHashMap<>();
+      myIdsByImportPath = ContainerUtil.newHashMap();
+    }
+
+    private Graph(@NotNull Graph graph) {
+      myRootsModificationCount = graph.myRootsModificationCount;
+      myDirectories = graph.myDirectories;
+      myIds = graph.myIds;
+      myIdsByImportPath = graph.myIdsByImportPath;
+      myImports = graph.myImports.clone();
+      myImportedBy = graph.myImportedBy.clone();
+    }
+
+    /**
+     * @return graph with the same directories and copies of adjacency arrays that can be patched
+     */
+    @NotNull
+    private Graph copy() {
+      return new Graph(this);
+    }
+
+    private int getOrCreateId(@NotNull VirtualFile directory) {
+      int id = getId(directory);
+      if (id < 0) {
+        id = myDirectories.size();
+        myDirectories.add(directory);
+        myIds.put(directory, id);
+      }
+      return id;
+    }
+
+    private int getId(@Nullable VirtualFile directory) {
+      return directory != null && myIds.containsKey(directory) ? myIds.get(directory) : -1;
+    }
+
+    @NotNull
+    private List<VirtualFile> adjacent(@NotNull int[][] adjacency, @NotNull VirtualFile directory) {
+      int id = getId(directory);
+      if (id < 0) return Collections.emptyList();
+      List<VirtualFile> result = ContainerUtil.newArrayListWithCapacity(adjacency[id].length);
+      for (int adjacent : adjacency[id]) {
+        result.add(myDirectories.get(adjacent));
+      }
+      return result;
+    }
+
+    @NotNull
+    private Set<VirtualFile> closure(@NotNull int[][] adjacency, @NotNull Collection<VirtualFile> directories) {
+      boolean[] visited = new boolean[myDirectories.size()];
+      int[] queue = new int[myDirectories.size()];
+      int head = 0;
+      int tail = 0;
+      for (VirtualFile directory : directories) {
+        int id = getId(directory);
+        if (id >= 0 && !visited[id]) {
+          visited[id] = true;
+          queue[tail++] = id;
+        }
+      }
+      int start = tail;
+      while (head < tail) {
+        for (int adjacent : adjacency[queue[head++]]) {
+          if (!visited[adjacent]) {
+            visited[adjacent] = true;
+            queue[tail++] = adjacent;
+          }
+        }
+      }
+      Set<VirtualFile> result = ContainerUtil.newLinkedHashSet();
+      for (int i = start; i < tail; i++) {
+        result.add(myDirectories.get(queue[i]));
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig;
+
+import com.goide.GoFileType;
+import com.goide.project.GoModuleSettings;
+import com.goide.psi.GoFile;
+import com.goide.psi.GoImportSpec;
+import com.goide.runconfig.application.GoApplicationConfiguration;
+import com.goide.runconfig.application.GoApplicationRunningState;
+import com.goide.runconfig.testing.GoTestFinder;
+import com.goide.sdk.GoPackageUtil;
+import com.goide.sdk.GoSdkService;
+import com.goide.sdk.GoSdkUtil;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.RunManager;
+import com.intellij.execution.RunnerAndConfigurationSettings;
+import com.intellij.execution.configurations.RunProfileState;
+import com.intellij.execution.executors.DefaultRunExecutor;
+import com.intellij.execution.runners.ExecutionEnvironment;
+import com.intellij.execution.runners.ExecutionEnvironmentBuilder;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.util.Alarm;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Binaries built by {@link GoBuildingRunner}, one per run configuration and executor. A binary is launched again without
+ * building while its key is the same: the target, {@code go build} parameters with build tags and gcflags, the
+ * environment and SDK of the configuration and a hash of sources of the target and of packages it imports transitively.
+ * Sources of project files are hashed by content, sources of libraries by size and timestamp, SDK sources are covered
+ * by the SDK version.
+ * <p>
+ * With {@code go.run.prebuild} enabled, the selected application configuration is built with {@code go build -i} in
+ * background after Go files are changed, so that dependencies are installed and the binary is ready when it's run.
+ */
+public class GoBuildCache {
+  private static final Logger LOG = Logger.getInstance(GoBuildCache.class);
+  private static final String PRE_BUILD_KEY = "go.run.prebuild";
+  private static final int PRE_BUILD_DELAY = 2000;
+
+  private final Project myProject;
+  private final Map<String, Artifact> myArtifacts = ContainerUtil.newConcurrentMap();
+  private final Alarm myPreBuildAlarm;
+
+  public GoBuildCache(@NotNull Project project) {
+    myProject = project;
+    myPreBuildAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, project);
+    project.getMessageBus().connect(project).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        if (!Registry.is(PRE_BUILD_KEY)) return;
+        ProjectFileIndex fileIndex = ProjectFileIndex.SERVICE.getInstance(myProject);
+        for (VFileEvent event : events) {
+          VirtualFile file = event.getFile();
+          if (file != null && file.getFileType() == GoFileType.INSTANCE && !GoTestFinder.isTestFile(file) &&
+              fileIndex.isInContent(file)) {
+            myPreBuildAlarm.cancelAllRequests();
+            myPreBuildAlarm.addRequest(this::preBuild, PRE_BUILD_DELAY);
+            return;
+          }
+        }
+      }
+    });
+  }
+
+  public static GoBuildCache getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, GoBuildCache.class);
+  }
+
+  @NotNull
+  static String getSlot(@NotNull GoApplicationRunningState state) {
+    return state.getConfiguration().getName() + (state.isDebug() ? ":debug" : ":run");
+  }
+
+  /**
+   * Should be called in a read action after documents are saved.
+   *
+   * @return key of a binary built for the given state or null if the target cannot be found
+   */
+  @Nullable
+  public String getBuildKey(@NotNull GoApplicationRunningState state) {
+    GoApplicationConfiguration configuration = state.getConfiguration();
+    Module module = state.getModule();
+    VirtualFile target = findTarget(state);
+    if (target == null) return null;
+
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException e) {
+      LOG.warn(e);
+      return null;
+    }
+    update(digest, state.getTarget());
+    update(digest, state.getGoBuildParams());
+    update(digest, String.valueOf(state.isDebug()));
+    update(digest, StringUtil.notNullize(configuration.getOutputFilePath()));
+    update(digest, configuration.getWorkingDirectory());
+    update(digest, String.valueOf(configuration.isPassParentEnvironment()));
+    for (Map.Entry<String, String> entry : new TreeMap<>(configuration.getCustomEnvironment()).entrySet()) {
+      update(digest, entry.getKey() + "=" + entry.getValue());
+    }
+    GoSdkService sdkService = GoSdkService.getInstance(myProject);
+    update(digest, StringUtil.notNullize(sdkService.getSdkHomePath(module)));
+    update(digest, StringUtil.notNullize(sdkService.getSdkVersion(module)));
+    update(digest, StringUtil.notNullize(GoSdkUtil.retrieveGoPath(myProject, module)));
+    update(digest, String.valueOf(GoModuleSettings.getInstance(module).getVendoringEnabled()));
+    update(digest, String.valueOf(GoModuleSettings.getInstance(module).getBuildTargetSettings().hashCode()));
+    if (!updateWithSources(digest, target, module)) return null;
+    return StringUtil.toHexString(digest.digest());
+  }
+
+  /**
+   * @return binary built with the given key unless it was changed or deleted since then
+   */
+  @Nullable
+  public File getArtifact(@NotNull String slot, @NotNull String key) {
+    Artifact artifact = myArtifacts.get(slot);
+    if (artifact == null || !artifact.key.equals(key)) return null;
+    File file = new File(artifact.path);
+    return file.isFile() && file.lastModified() == artifact.timestamp && file.length() == artifact.length ? file : null;
+  }
+
+  /**
+   * @param temporary whether the binary is owned by the cache and should be deleted after it's replaced
+   */
+  public void putArtifact(@NotNull String slot, @NotNull String key, @NotNull File file, boolean temporary) {
+    Artifact previous = myArtifacts.put(slot, new Artifact(key, file, temporary));
+    if (previous != null && previous.temporary && !previous.path.equals(file.getPath())) {
+      FileUtil.delete(new File(previous.path));
+    }
+  }
+
+  public boolean isArtifact(@NotNull File file) {
+    for (Artifact artifact : myArtifacts.values()) {
+      if (artifact.path.equals(file.getPath())) return true;
+    }
+    return false;
+  }
+
+  @Nullable
+  private VirtualFile findTarget(@NotNull GoApplicationRunningState state) {
+    GoApplicationConfiguration configuration = state.getConfiguration();
+    if (configuration.getKind() == GoApplicationConfiguration.Kind.PACKAGE) {
+      VirtualFile directory = GoPackageUtil.findByImportPath(configuration.getPackage(), myProject, state.getModule());
+      return directory != null && directory.isDirectory() ? directory : null;
+    }
+    String filePath = configuration.getFilePath();
+    VirtualFile file = LocalFileSystem.getInstance().findFileByPath(filePath);
+    if (file == null) {
+      file = LocalFileSystem.getInstance().findFileByPath(FileUtil.join(configuration.getWorkingDirectory(), filePath));
+    }
+    return file != null && !file.isDirectory() ? file : null;
+  }
+
+  private boolean updateWithSources(@NotNull MessageDigest digest, @NotNull VirtualFile target, @NotNull Module module) {
+    PsiManager psiManager = PsiManager.getInstance(myProject);
+    ProjectFileIndex fileIndex = ProjectFileIndex.SERVICE.getInstance(myProject);
+    VirtualFile sdkSources = GoSdkUtil.getSdkSrcDir(myProject, module);
+    Set<VirtualFile> visited = ContainerUtil.newHashSet(target);
+    Deque<VirtualFile> queue = new ArrayDeque<>(visited);
+    while (!queue.isEmpty()) {
+      VirtualFile next = queue.poll();
+      // every file of a package directory can take part in a build, e.g. assembly or files selected by build tags
+      VirtualFile[] files = next.isDirectory() ? next.getChildren() : new VirtualFile[]{next};
+      Arrays.sort(files, (f1, f2) -> f1.getName().compareTo(f2.getName()));
+      for (VirtualFile file : files) {
+        if (file.isDirectory() || GoTestFinder.isTestFile(file)) continue;
+        if (!update(digest, file, fileIndex.isInContent(file))) return false;
+        if (file.getFileType() != GoFileType.INSTANCE) continue;
+        PsiFile psiFile = psiManager.findFile(file);
+        if (!(psiFile instanceof GoFile)) continue;
+        for (GoImportSpec spec : ((GoFile)psiFile).getImports()) {
+          PsiDirectory directory = spec.getImportString().resolve();
+          VirtualFile importedDirectory = directory != null ? directory.getVirtualFile() : null;
+          if (importedDirectory == null) {
+            // cgo or an unresolved import, the latter fails the build anyway
+            update(digest, spec.getPath());
+          }
+          else if ((sdkSources == null || !VfsUtilCore.isAncestor(sdkSources, importedDirectory, false)) &&
+                   visited.add(importedDirectory)) {
+            queue.add(importedDirectory);
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean update(@NotNull MessageDigest digest, @NotNull VirtualFile file, boolean byContent) {
+    update(digest, file.getPath());
+    if (!byContent) {
+      update(digest, file.getLength() + ":" + file.getTimeStamp());
+      return true;
+    }
+    try {
+      digest.update(file.contentsToByteArray());
+      return true;
+    }
+    catch (IOException e) {
+      LOG.debug(e);
+      return false;
+    }
+  }
+
+  private static void update(@NotNull MessageDigest digest, @NotNull String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte)0);
+  }
+
+  private void preBuild() {
+    if (myProject.isDisposed()) return;
+    RunnerAndConfigurationSettings settings = RunManager.getInstance(myProject).getSelectedConfiguration();
+    if (settings == null || !(settings.getConfiguration() instanceof GoApplicationConfiguration)) return;
+    try {
+      ExecutionEnvironment environment = ExecutionEnvironmentBuilder.create(DefaultRunExecutor.getRunExecutorInstance(), settings).build();
+      RunProfileState state = settings.getConfiguration().getState(environment.getExecutor(), environment);
+      if (!(state instanceof GoApplicationRunningState)) return;
+      GoApplicationRunningState applicationState = (GoApplicationRunningState)state;
+      String slot = getSlot(applicationState);
+      String key = computeBuildKey(applicationState);
+      if (key == null || getArtifact(slot, key) != null) return;
+
+      File outputFile = FileUtil.createTempFile(settings.getName(), "go", true);
+      GoBuildingRunner.createBuildExecutor(applicationState, outputFile, true)
+        .withPresentableName("go build -i")
+        .executeInBackground(success -> {
+          if (success && key.equals(computeBuildKey(applicationState))) {
+            putArtifact(slot, key, outputFile, true);
+          }
+          else {
+            FileUtil.delete(outputFile);
+          }
+        });
+    }
+    catch (ExecutionException | IOException e) {
+      LOG.debug(e);
+    }
+  }
+
+  /**
+   * Computes {@link #getBuildKey} in a read action, shouldn't be called on the EDT.
+   */
+  @Nullable
+  String computeBuildKey(@NotNull GoApplicationRunningState state) {
+    return ApplicationManager.getApplication().runReadAction((Computable<String>)() -> getBuildKey(state));
+  }
+
+  private static class Artifact {
+    @NotNull private final String key;
+    @NotNull private final String path;
+    private final long timestamp;
+    private final long length;
+    private final boolean temporary;
+
+    private Artifact(@NotNull String key, @NotNull File file, boolean temporary) {
+      this.key = key;
+      path = file.getPath();
+      timestamp = file.lastModified();
+      length = file.length();
+      this.temporary = temporary;
+    }
+  }
+}
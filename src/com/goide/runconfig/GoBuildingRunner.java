@@ -21,6 +21,7 @@ import com.goide.dlv.DlvDebugProcess;
 import com.goide.dlv.DlvRemoteVmConnection;
 import com.goide.runconfig.application.GoApplicationConfiguration;
 import com.goide.runconfig.application.GoApplicationRunningState;
+import com.goide.util.GoExecutor;
 import com.goide.util.GoHistoryProcessListener;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.ExecutionResult;
@@ -37,6 +38,9 @@ import com.intellij.execution.runners.ExecutionEnvironment;
 import com.intellij.execution.runners.RunContentBuilder;
 import com.intellij.execution.ui.RunContentDescriptor;
 import com.intellij.internal.statistic.UsageTrigger;
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
@@ -79,18 +83,42 @@ public class GoBuildingRunner extends AsyncGenericProgramRunner {
   @Override
   protected Promise<RunProfileStarter> prepare(@NotNull ExecutionEnvironment environment, @NotNull RunProfileState state)
     throws ExecutionException {
-    File outputFile = getOutputFile(environment, (GoApplicationRunningState)state);
+    GoApplicationRunningState applicationState = (GoApplicationRunningState)state;
     FileDocumentManager.getInstance().saveAllDocuments();
 
     AsyncPromise<RunProfileStarter> buildingPromise = new AsyncPromise<>();
     GoHistoryProcessListener historyProcessListener = new GoHistoryProcessListener();
-    ((GoApplicationRunningState)state).createCommonExecutor()
-      .withParameters("build")
-      .withParameterString(((GoApplicationRunningState)state).getGoBuildParams())
-      .withParameters("-o", outputFile.getAbsolutePath())
-      .withParameters(((GoApplicationRunningState)state).isDebug() ? new String[]{"-gcflags", "-N -l"} : ArrayUtil.EMPTY_STRING_ARRAY)
-      .withParameters(((GoApplicationRunningState)state).getTarget())
-      .disablePty()
+    GoBuildCache cache = GoBuildCache.getInstance(environment.getProject());
+    String slot = GoBuildCache.getSlot(applicationState);
+    Application application = ApplicationManager.getApplication();
+    application.executeOnPooledThread(() -> {
+      String buildKey = cache.computeBuildKey(applicationState);
+      File cachedFile = buildKey != null ? cache.getArtifact(slot, buildKey) : null;
+      if (cachedFile != null) {
+        buildingPromise.setResult(createStarter(applicationState, cachedFile, historyProcessListener, false));
+        return;
+      }
+      application.invokeLater(() -> {
+        try {
+          build(environment, applicationState, buildKey, historyProcessListener, buildingPromise);
+        }
+        catch (ExecutionException e) {
+          buildingPromise.setError(e);
+        }
+      }, ModalityState.any());
+    });
+    return buildingPromise;
+  }
+
+  private void build(@NotNull ExecutionEnvironment environment,
+                     @NotNull GoApplicationRunningState applicationState,
+                     @Nullable String buildKey,
+                     @NotNull GoHistoryProcessListener historyProcessListener,
+                     @NotNull AsyncPromise<RunProfileStarter> buildingPromise) throws ExecutionException {
+    GoBuildCache cache = GoBuildCache.getInstance(environment.getProject());
+    String slot = GoBuildCache.getSlot(applicationState);
+    File outputFile = getOutputFile(environment, applicationState);
+    createBuildExecutor(applicationState, outputFile, false)
       .withPresentableName("go build")
       .withProcessListener(historyProcessListener)
       .withProcessListener(new ProcessAdapter() {
@@ -99,15 +127,37 @@ public class GoBuildingRunner extends AsyncGenericProgramRunner {
         public void processTerminated(ProcessEvent event) {
           super.processTerminated(event);
           boolean compilationFailed = event.getExitCode() != 0;
-          if (((GoApplicationRunningState)state).isDebug()) {
-              buildingPromise.setResult(new MyDebugStarter(outputFile.getAbsolutePath(), historyProcessListener, compilationFailed));
-            }
-            else {
-              buildingPromise.setResult(new MyRunStarter(outputFile.getAbsolutePath(), historyProcessListener, compilationFailed));
-            }
+          if (!compilationFailed && buildKey != null) {
+            cache.putArtifact(slot, buildKey, outputFile, StringUtil.isEmpty(applicationState.getConfiguration().getOutputFilePath()));
+          }
+          buildingPromise.setResult(createStarter(applicationState, outputFile, historyProcessListener, compilationFailed));
         }
       }).executeWithProgress(false);
-    return buildingPromise;
+  }
+
+  /**
+   * @param installDependencies whether packages the target depends on should be installed as well, see {@code go build -i}
+   */
+  @NotNull
+  static GoExecutor createBuildExecutor(@NotNull GoApplicationRunningState state, @NotNull File outputFile, boolean installDependencies) {
+    return state.createCommonExecutor()
+      .withParameters("build")
+      .withParameters(installDependencies ? new String[]{"-i"} : ArrayUtil.EMPTY_STRING_ARRAY)
+      .withParameterString(state.getGoBuildParams())
+      .withParameters("-o", outputFile.getAbsolutePath())
+      .withParameters(state.isDebug() ? new String[]{"-gcflags", "-N -l"} : ArrayUtil.EMPTY_STRING_ARRAY)
+      .withParameters(state.getTarget())
+      .disablePty();
+  }
+
+  @NotNull
+  private RunProfileStarter createStarter(@NotNull GoApplicationRunningState state,
+                                          @NotNull File outputFile,
+                                          @NotNull GoHistoryProcessListener historyProcessListener,
+                                          boolean compilationFailed) {
+    return state.isDebug()
+           ? new MyDebugStarter(outputFile.getAbsolutePath(), historyProcessListener, compilationFailed)
+           : new MyRunStarter(outputFile.getAbsolutePath(), historyProcessListener, compilationFailed);
   }
 
   @NotNull
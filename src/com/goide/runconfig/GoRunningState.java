@@ -35,6 +35,11 @@ public abstract class GoRunningState<T extends GoRunConfigurationBase<?>> extend
     return myConfiguration;
   }
 
+  @NotNull
+  public Module getModule() {
+    return myModule;
+  }
+
   @NotNull protected final T myConfiguration;
 
   public GoRunningState(@NotNull ExecutionEnvironment env, @NotNull Module module, @NotNull T configuration) {
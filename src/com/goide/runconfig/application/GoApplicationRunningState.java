@@ -17,6 +17,7 @@
 package com.goide.runconfig.application;
 
 import com.goide.GoConstants;
+import com.goide.runconfig.GoBuildCache;
 import com.goide.runconfig.GoRunningState;
 import com.goide.util.GoExecutor;
 import com.goide.util.GoHistoryProcessListener;
@@ -79,7 +80,8 @@ public class GoApplicationRunningState extends GoRunningState<GoApplicationConfi
         super.processTerminated(event);
         if (StringUtil.isEmpty(myConfiguration.getOutputFilePath())) {
           File file = new File(myOutputFilePath);
-          if (file.exists()) {
+          // a binary of the build cache is deleted by the cache once it's rebuilt
+          if (file.exists() && !GoBuildCache.getInstance(myConfiguration.getProject()).isArtifact(file)) {
             //noinspection ResultOfMethodCallIgnored
             file.delete();
           }
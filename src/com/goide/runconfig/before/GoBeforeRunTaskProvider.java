@@ -144,11 +144,14 @@ public class GoBeforeRunTaskProvider extends BeforeRunTaskProvider<GoCommandBefo
           .withProcessListener(new ProcessAdapter() {
             @Override
             public void processTerminated(ProcessEvent event) {
-              done.up();
               result.set(event.getExitCode() == 0);
             }
           })
-          .executeWithProgress(false, result1 -> VirtualFileManager.getInstance().asyncRefresh(null));
+          // called even if the command hasn't been run, e.g. when it was cancelled
+          .executeWithProgress(false, result1 -> {
+            VirtualFileManager.getInstance().asyncRefresh(null);
+            done.up();
+          });
       }
     });
 
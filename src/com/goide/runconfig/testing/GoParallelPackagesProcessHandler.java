@@ -0,0 +1,169 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.goide.util.GoHistoryProcessListener;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.*;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * Runs {@code go test} processes of several packages, at most {@code parallelism} at once. Like {@code go test} does for
+ * several packages, output of a package is shown when its process terminates, so test events of packages don't
+ * interleave. Packages are started in order of the given command lines, durations of packages are recorded to order
+ * packages of later runs. The handler terminates with the first non-zero exit code of packages.
+ */
+public class GoParallelPackagesProcessHandler extends ProcessHandler {
+  @NotNull private final Map<String, GeneralCommandLine> myCommandLines;
+  @NotNull private final Queue<String> myPendingPackages;
+  @NotNull private final Collection<ProcessHandler> myRunningHandlers = ContainerUtil.newArrayList();
+  @NotNull private final GoTestPackageDurations myDurations;
+  private final int myParallelism;
+  private int myExitCode;
+  private boolean myStopped;
+  private boolean myTerminated;
+
+  /**
+   * @param commandLines command lines by paths of their packages, in order packages should be started
+   */
+  public GoParallelPackagesProcessHandler(@NotNull Map<String, GeneralCommandLine> commandLines,
+                                          int parallelism,
+                                          @NotNull GoTestPackageDurations durations) {
+    myCommandLines = commandLines;
+    myPendingPackages = new ArrayDeque<>(commandLines.keySet());
+    myDurations = durations;
+    myParallelism = Math.max(1, parallelism);
+  }
+
+  @Override
+  public void startNotify() {
+    super.startNotify();
+    startPendingPackages();
+  }
+
+  private void startPendingPackages() {
+    List<ProcessHandler> started = ContainerUtil.newSmartList();
+    boolean terminated;
+    synchronized (this) {
+      while (!myStopped && myRunningHandlers.size() < myParallelism && !myPendingPackages.isEmpty()) {
+        String packagePath = myPendingPackages.poll();
+        try {
+          started.add(createPackageHandler(packagePath, myCommandLines.get(packagePath)));
+        }
+        catch (ExecutionException e) {
+          notifyTextAvailable(e.getMessage() + "\n", ProcessOutputTypes.STDERR);
+          updateExitCode(1);
+        }
+      }
+      myRunningHandlers.addAll(started);
+      terminated = !myTerminated && myRunningHandlers.isEmpty() && (myStopped || myPendingPackages.isEmpty());
+      myTerminated |= terminated;
+    }
+    for (ProcessHandler handler : started) {
+      handler.startNotify();
+    }
+    if (terminated) {
+      notifyProcessTerminated(myExitCode);
+    }
+  }
+
+  @NotNull
+  private ProcessHandler createPackageHandler(@NotNull String packagePath, @NotNull GeneralCommandLine commandLine)
+    throws ExecutionException {
+    ProcessHandler handler = createProcessHandler(commandLine);
+    GoHistoryProcessListener output = new GoHistoryProcessListener();
+    handler.addProcessListener(output);
+    handler.addProcessListener(new ProcessAdapter() {
+      private long myStartTime;
+
+      @Override
+      public void startNotified(ProcessEvent event) {
+        myStartTime = System.currentTimeMillis();
+      }
+
+      @Override
+      public void processTerminated(ProcessEvent event) {
+        boolean stopped;
+        synchronized (GoParallelPackagesProcessHandler.this) {
+          stopped = myStopped;
+          myRunningHandlers.remove(handler);
+          updateExitCode(event.getExitCode());
+          output.apply(GoParallelPackagesProcessHandler.this);
+        }
+        if (!stopped) {
+          myDurations.addDuration(packagePath, System.currentTimeMillis() - myStartTime);
+        }
+        startPendingPackages();
+      }
+    });
+    return handler;
+  }
+
+  @NotNull
+  protected ProcessHandler createProcessHandler(@NotNull GeneralCommandLine commandLine) throws ExecutionException {
+    return new KillableColoredProcessHandler(commandLine, true);
+  }
+
+  private void updateExitCode(int exitCode) {
+    if (myExitCode == 0) {
+      myExitCode = exitCode;
+    }
+  }
+
+  @NotNull
+  private synchronized List<ProcessHandler> stop() {
+    myStopped = true;
+    myPendingPackages.clear();
+    return ContainerUtil.newArrayList(myRunningHandlers);
+  }
+
+  @Override
+  protected void destroyProcessImpl() {
+    List<ProcessHandler> running = stop();
+    for (ProcessHandler handler : running) {
+      handler.destroyProcess();
+    }
+    if (running.isEmpty()) {
+      startPendingPackages();
+    }
+  }
+
+  @Override
+  protected void detachProcessImpl() {
+    for (ProcessHandler handler : stop()) {
+      handler.detachProcess();
+    }
+    notifyProcessDetached();
+  }
+
+  @Override
+  public boolean detachIsDefault() {
+    return false;
+  }
+
+  @Nullable
+  @Override
+  public OutputStream getProcessInput() {
+    return null;
+  }
+}
@@ -68,6 +68,7 @@ public class GoTestConsoleProperties extends SMTRunnerConsoleProperties implemen
       Module module = ((GoTestRunConfiguration)configuration).getConfigurationModule().getModule();
       switch (((GoTestRunConfiguration)configuration).getKind()) {
         case DIRECTORY:
+        case AFFECTED:
           String directoryUrl = VfsUtilCore.pathToUrl(((GoTestRunConfiguration)configuration).getDirectoryPath());
           VirtualFile directory = VirtualFileManager.getInstance().findFileByUrl(directoryUrl);
           if (directory != null) {
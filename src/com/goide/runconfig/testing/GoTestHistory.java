@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.goide.sdk.GoSdkUtil;
+import com.intellij.openapi.components.*;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.xmlb.annotations.Tag;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests that failed in previous runs, by packages as {@code go test} reports them in its {@code ok}/{@code FAIL}
+ * summary lines. Used to run packages with failing tests first.
+ */
+@State(name = "GoTestHistory", storages = @Storage(file = StoragePathMacros.WORKSPACE_FILE))
+public class GoTestHistory implements PersistentStateComponent<GoTestHistory.State> {
+  private static final int MAX_PACKAGES = 1000;
+
+  // failed tests by packages, least recently run packages come first
+  private final Map<String, Set<String>> myPackages = ContainerUtil.newLinkedHashMap();
+
+  public static GoTestHistory getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, GoTestHistory.class);
+  }
+
+  /**
+   * @return package name {@code go test} prints for the directory: its import path, or {@code _} followed by the
+   * directory path if the directory is out of GOPATH
+   */
+  @Nullable
+  public static String getPackageName(@NotNull Project project, @NotNull VirtualFile directory) {
+    String importPath = GoSdkUtil.getImportPath(PsiManager.getInstance(project).findDirectory(directory), false);
+    return importPath != null ? importPath : "_" + directory.getPath();
+  }
+
+  /**
+   * Tests that have been run but aren't among {@code failedTests} no longer count as failed, tests that haven't been
+   * run keep their previous state.
+   */
+  public synchronized void addResults(@NotNull String packageName,
+                                      @NotNull Collection<String> finishedTests,
+                                      @NotNull Collection<String> failedTests) {
+    Set<String> failed = myPackages.remove(packageName);
+    if (failed == null) {
+      failed = ContainerUtil.newLinkedHashSet();
+    }
+    failed.removeAll(finishedTests);
+    failed.addAll(failedTests);
+    if (!failed.isEmpty()) {
+      myPackages.put(packageName, failed);
+      if (myPackages.size() > MAX_PACKAGES) {
+        myPackages.remove(myPackages.keySet().iterator().next());
+      }
+    }
+  }
+
+  @NotNull
+  public synchronized Set<String> getFailedTests(@NotNull String packageName) {
+    Set<String> failed = myPackages.get(packageName);
+    return failed != null ? ContainerUtil.newLinkedHashSet(failed) : ContainerUtil.newLinkedHashSet();
+  }
+
+  @NotNull
+  @Override
+  public synchronized State getState() {
+    State state = new State();
+    for (Map.Entry<String, Set<String>> entry : myPackages.entrySet()) {
+      for (String testName : entry.getValue()) {
+        state.failedTests.add(new FailedTest(entry.getKey(), testName));
+      }
+    }
+    return state;
+  }
+
+  @Override
+  public synchronized void loadState(State state) {
+    myPackages.clear();
+    if (state.failedTests != null) {
+      for (FailedTest test : state.failedTests) {
+        if (test.packageName != null && test.name != null) {
+          Set<String> failed = myPackages.get(test.packageName);
+          if (failed == null) {
+            failed = ContainerUtil.newLinkedHashSet();
+            myPackages.put(test.packageName, failed);
+          }
+          failed.add(test.name);
+        }
+      }
+    }
+  }
+
+  public static class State {
+    public List<FailedTest> failedTests = ContainerUtil.newArrayList();
+  }
+
+  @Tag("failed-test")
+  public static class FailedTest {
+    public String packageName;
+    public String name;
+
+    @SuppressWarnings("unused")
+    public FailedTest() {
+    }
+
+    public FailedTest(@NotNull String packageName, @NotNull String name) {
+      this.packageName = packageName;
+      this.name = name;
+    }
+  }
+}
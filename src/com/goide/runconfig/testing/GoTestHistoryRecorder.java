@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Collects results of tests reported by a test events converter and puts them into {@link GoTestHistory}. Test output
+ * doesn't mention packages, so results are kept until {@code go test} prints the summary line of their package.
+ */
+public class GoTestHistoryRecorder {
+  private static final String OK_PREFIX = "ok  \t";
+  private static final String FAIL_PREFIX = "FAIL\t";
+
+  @Nullable private final GoTestHistory myHistory;
+  @NotNull private final List<String> myFinishedTests = ContainerUtil.newArrayList();
+  @NotNull private final List<String> myFailedTests = ContainerUtil.newArrayList();
+
+  public GoTestHistoryRecorder(@Nullable Project project) {
+    myHistory = project != null && !project.isDisposed() ? GoTestHistory.getInstance(project) : null;
+  }
+
+  public void testFinished(@NotNull String testName, boolean failed) {
+    if (myHistory != null) {
+      myFinishedTests.add(testName);
+      if (failed) myFailedTests.add(testName);
+    }
+  }
+
+  /**
+   * Records pending results if the line is a summary line of a package like {@code ok  \tpackage\t0.012s}.
+   */
+  public void processLine(@NotNull String line) {
+    if (myHistory == null || myFinishedTests.isEmpty()) return;
+    String packageName = getSummaryPackageName(line);
+    if (packageName != null) {
+      myHistory.addResults(packageName, myFinishedTests, myFailedTests);
+      myFinishedTests.clear();
+      myFailedTests.clear();
+    }
+  }
+
+  @Nullable
+  static String getSummaryPackageName(@NotNull String line) {
+    String rest = StringUtil.startsWith(line, OK_PREFIX) ? line.substring(OK_PREFIX.length())
+                  : StringUtil.startsWith(line, FAIL_PREFIX) ? line.substring(FAIL_PREFIX.length()) : null;
+    if (rest == null) return null;
+    int end = 0;
+    while (end < rest.length() && !Character.isWhitespace(rest.charAt(end))) {
+      end++;
+    }
+    return end > 0 ? rest.substring(0, end) : null;
+  }
+}
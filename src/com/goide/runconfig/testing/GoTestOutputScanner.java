@@ -0,0 +1,313 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Recognizes events in lines of {@code go test -v}, {@code go test -bench} and gocheck output without regular
+ * expressions. A line is dispatched by a few characters at known positions, so plain output lines are rejected without
+ * allocations; positions of a recognized event and its test name are kept in the scanner, which is reused for all lines
+ * of a process.
+ * <p>
+ * Test names are what {@link com.goide.GoConstants#TEST_NAME_REGEX} matches: an identifier optionally followed by
+ * {@code /} and the non-whitespace path of a subtest, e.g. {@code TestFoo/Bar#01/Buzz}.
+ */
+public class GoTestOutputScanner {
+  public enum Event {NONE, RUN, PASS, FAIL, SKIP, FINISHED}
+
+  /**
+   * Tail of a gocheck result line after the test name
+   */
+  public enum GocheckTail {
+    /**
+     * {@code FAIL: file.go:12: Suite.Test}
+     */
+    NONE,
+    /**
+     * {@code PASS: file.go:12: Suite.Test\t0.001s}
+     */
+    DURATION,
+    /**
+     * {@code SKIP: file.go:12: Suite.Test (reason)}
+     */
+    REASON
+  }
+
+  private static final String RUN_PREFIX = "=== RUN";
+  private static final String RESULT_PREFIX = "--- ";
+  private static final String BENCHMARK_PREFIX = "Benchmark";
+
+  private int myEventStart;
+  private int myNameStart;
+  private int myNameEnd;
+
+  /**
+   * @return offset of the recognized event in the line, text before it is output of the running test
+   */
+  public int getEventStart() {
+    return myEventStart;
+  }
+
+  public int getNameStart() {
+    return myNameStart;
+  }
+
+  public int getNameEnd() {
+    return myNameEnd;
+  }
+
+  @NotNull
+  public String getName(@NotNull CharSequence text) {
+    return text.subSequence(myNameStart, myNameEnd).toString();
+  }
+
+  /**
+   * Recognizes a {@code go test -v} event in the line starting at the offset:
+   * <ul>
+   * <li>{@code === RUN   TestName} at the beginning of the line</li>
+   * <li>{@code --- PASS: TestName (0.00s)}, {@code --- FAIL: ...} or {@code --- SKIP: ...} anywhere after the offset,
+   * output of a test may precede the result if it doesn't end with a line break, results of subtests are indented</li>
+   * <li>{@code PASS} at the beginning of the line or {@code FAIL} at the end of the line that finish the package</li>
+   * </ul>
+   */
+  @NotNull
+  public Event scanGotest(@NotNull CharSequence line, int start) {
+    if (start == 0 && startsWith(line, 0, RUN_PREFIX)) {
+      int nameStart = skipWhitespace(line, RUN_PREFIX.length());
+      if (nameStart > RUN_PREFIX.length() && setName(line, nameStart, scanTestName(line, nameStart))) {
+        myEventStart = 0;
+        return Event.RUN;
+      }
+    }
+    for (int i = indexOf(line, RESULT_PREFIX, start); i >= 0; i = indexOf(line, RESULT_PREFIX, i + 1)) {
+      int statusStart = i + RESULT_PREFIX.length();
+      Event event = startsWith(line, statusStart, "PASS:") ? Event.PASS
+                    : startsWith(line, statusStart, "FAIL:") ? Event.FAIL
+                    : startsWith(line, statusStart, "SKIP:") ? Event.SKIP : null;
+      if (event != null) {
+        int nameStart = skipWhitespace(line, statusStart + 5);
+        if (nameStart > statusStart + 5 && setName(line, nameStart, scanTestName(line, nameStart))) {
+          myEventStart = i;
+          return event;
+        }
+      }
+    }
+    if (start == 0 && startsWith(line, 0, "PASS")) {
+      myEventStart = 0;
+      return Event.FINISHED;
+    }
+    int end = trimLineBreak(line);
+    if (end - 4 >= start && startsWith(line, end - 4, "FAIL")) {
+      myEventStart = end - 4;
+      return Event.FINISHED;
+    }
+    return Event.NONE;
+  }
+
+  /**
+   * Recognizes a benchmark name at the beginning of the line, e.g. {@code BenchmarkRead-4   2000000   612 ns/op},
+   * the name excludes the {@code -GOMAXPROCS} suffix.
+   */
+  public boolean scanBenchmarkStart(@NotNull CharSequence line, int start) {
+    if (start != 0 || !startsWith(line, 0, BENCHMARK_PREFIX)) return false;
+    int nameEnd = scanTestName(line, BENCHMARK_PREFIX.length());
+    myEventStart = 0;
+    return setName(line, 0, nameEnd > 0 ? nameEnd : BENCHMARK_PREFIX.length());
+  }
+
+  /**
+   * Recognizes {@code --- FAIL: BenchmarkName} at the offset.
+   */
+  public boolean scanBenchmarkFailure(@NotNull CharSequence line, int start) {
+    String prefix = RESULT_PREFIX + "FAIL: " + BENCHMARK_PREFIX;
+    if (!startsWith(line, start, prefix)) return false;
+    int nameStart = start + prefix.length() - BENCHMARK_PREFIX.length();
+    int nameEnd = scanTestName(line, start + prefix.length());
+    myEventStart = start;
+    return setName(line, nameStart, nameEnd > 0 ? nameEnd : start + prefix.length());
+  }
+
+  /**
+   * Recognizes a gocheck result line like {@code PASS: file.go:12: Suite.Test\t0.001s}. The keyword may be preceded by
+   * output of the test, the event start is the offset of the keyword.
+   *
+   * @param keyword e.g. {@code "START: "} or {@code "PASS: "}
+   */
+  public boolean scanGocheckResult(@NotNull CharSequence text, @NotNull String keyword, @NotNull GocheckTail tail) {
+    for (int i = lastIndexOf(text, keyword, text.length()); i >= 0; i = lastIndexOf(text, keyword, i - 1)) {
+      if (matchesGocheckLocationAndName(text, i + keyword.length(), tail)) {
+        myEventStart = i;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return whether the text is {@code === RUN} followed by a suite name
+   */
+  public static boolean isGocheckSuiteStart(@NotNull CharSequence text) {
+    return startsWith(text, 0, RUN_PREFIX + " ") && trimLineBreak(text) > RUN_PREFIX.length() + 1;
+  }
+
+  /**
+   * @return whether the text is {@code PASS} or {@code FAIL} followed by whitespace only
+   */
+  public static boolean isGocheckSuiteEnd(@NotNull CharSequence text) {
+    int end = trimWhitespace(text, text.length());
+    return end == 4 && (startsWith(text, 0, "PASS") || startsWith(text, 0, "FAIL"));
+  }
+
+  /**
+   * {@code [^:]+:\d+: ([^\s]+)} followed by the tail and whitespace
+   */
+  private boolean matchesGocheckLocationAndName(@NotNull CharSequence text, int offset, @NotNull GocheckTail tail) {
+    int colon = indexOf(text, ":", offset);
+    if (colon <= offset) return false;
+    int digitsEnd = colon + 1;
+    while (digitsEnd < text.length() && isDigit(text.charAt(digitsEnd))) digitsEnd++;
+    if (digitsEnd == colon + 1 || !startsWith(text, digitsEnd, ": ")) return false;
+    int nameStart = digitsEnd + 2;
+    int nameEnd = nameStart;
+    while (nameEnd < text.length() && !isWhitespace(text.charAt(nameEnd))) nameEnd++;
+    if (nameEnd == nameStart) return false;
+
+    int end = trimWhitespace(text, text.length());
+    boolean matches;
+    switch (tail) {
+      case DURATION:
+        // \t[^\s]+
+        matches = nameEnd < end && text.charAt(nameEnd) == '\t' && nameEnd + 1 < end && indexOfWhitespace(text, nameEnd + 1, end) < 0;
+        break;
+      case REASON:
+        // ( \(.*\))?
+        matches = nameEnd >= end ||
+                  startsWith(text, nameEnd, " (") && text.charAt(end - 1) == ')' && end - 1 > nameEnd + 1 &&
+                  indexOfLineBreak(text, nameEnd, end) < 0;
+        break;
+      default:
+        matches = nameEnd >= end;
+    }
+    if (matches) {
+      myNameStart = nameStart;
+      myNameEnd = nameEnd;
+    }
+    return matches;
+  }
+
+  private boolean setName(@NotNull CharSequence text, int nameStart, int nameEnd) {
+    if (nameEnd <= nameStart) return false;
+    myNameStart = nameStart;
+    myNameEnd = nameEnd;
+    return true;
+  }
+
+  /**
+   * @return end of a test name at the offset, or -1 if there is no test name
+   */
+  private static int scanTestName(@NotNull CharSequence text, int offset) {
+    int length = text.length();
+    if (offset >= length) return -1;
+    int codePoint = Character.codePointAt(text, offset);
+    if (!Character.isLetter(codePoint) && codePoint != '_') return -1;
+    int i = offset + Character.charCount(codePoint);
+    while (i < length) {
+      codePoint = Character.codePointAt(text, i);
+      if (!Character.isLetterOrDigit(codePoint) && codePoint != '_') break;
+      i += Character.charCount(codePoint);
+    }
+    if (i < length && text.charAt(i) == '/') {
+      i++;
+      while (i < length && !isWhitespace(text.charAt(i))) i++;
+    }
+    return i;
+  }
+
+  private static boolean startsWith(@NotNull CharSequence text, int offset, @NotNull String prefix) {
+    if (offset < 0 || offset + prefix.length() > text.length()) return false;
+    for (int i = 0; i < prefix.length(); i++) {
+      if (text.charAt(offset + i) != prefix.charAt(i)) return false;
+    }
+    return true;
+  }
+
+  private static int indexOf(@NotNull CharSequence text, @NotNull String pattern, int from) {
+    char first = pattern.charAt(0);
+    for (int i = Math.max(0, from), last = text.length() - pattern.length(); i <= last; i++) {
+      if (text.charAt(i) == first && startsWith(text, i, pattern)) return i;
+    }
+    return -1;
+  }
+
+  private static int lastIndexOf(@NotNull CharSequence text, @NotNull String pattern, int from) {
+    char first = pattern.charAt(0);
+    for (int i = Math.min(from, text.length() - pattern.length()); i >= 0; i--) {
+      if (text.charAt(i) == first && startsWith(text, i, pattern)) return i;
+    }
+    return -1;
+  }
+
+  private static int indexOfWhitespace(@NotNull CharSequence text, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (isWhitespace(text.charAt(i))) return i;
+    }
+    return -1;
+  }
+
+  private static int indexOfLineBreak(@NotNull CharSequence text, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (isLineBreak(text.charAt(i))) return i;
+    }
+    return -1;
+  }
+
+  private static int skipWhitespace(@NotNull CharSequence text, int offset) {
+    while (offset < text.length() && isWhitespace(text.charAt(offset))) offset++;
+    return offset;
+  }
+
+  private static int trimWhitespace(@NotNull CharSequence text, int end) {
+    while (end > 0 && isWhitespace(text.charAt(end - 1))) end--;
+    return end;
+  }
+
+  /**
+   * @return end of the line without the line break it ends with, like {@code $} of a regular expression sees it
+   */
+  private static int trimLineBreak(@NotNull CharSequence text) {
+    int end = text.length();
+    if (end > 0 && isLineBreak(text.charAt(end - 1))) {
+      end--;
+      if (text.charAt(end) == '\n' && end > 0 && text.charAt(end - 1) == '\r') end--;
+    }
+    return end;
+  }
+
+  private static boolean isLineBreak(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  // \s of regular expressions
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+}
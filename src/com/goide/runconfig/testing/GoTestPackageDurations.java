@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.intellij.openapi.components.*;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durations of {@code go test} runs of packages, used to order packages of a directory run.
+ */
+@State(name = "GoTestPackageDurations", storages = @Storage(file = StoragePathMacros.WORKSPACE_FILE))
+public class GoTestPackageDurations implements PersistentStateComponent<GoTestPackageDurations.State> {
+  private static final int MAX_PACKAGES = 10000;
+
+  private final Map<String, Long> myDurations = ContainerUtil.newLinkedHashMap();
+
+  public static GoTestPackageDurations getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, GoTestPackageDurations.class);
+  }
+
+  /**
+   * @return duration of the package in milliseconds averaged over recent runs, or -1 if it hasn't been run yet
+   */
+  public synchronized long getDuration(@NotNull String packagePath) {
+    Long duration = myDurations.get(packagePath);
+    return duration != null ? duration : -1;
+  }
+
+  public synchronized void addDuration(@NotNull String packagePath, long duration) {
+    Long previous = myDurations.remove(packagePath);
+    // a single slow run shouldn't reorder packages for good
+    myDurations.put(packagePath, previous != null ? (previous + duration) / 2 : duration);
+    if (myDurations.size() > MAX_PACKAGES) {
+      myDurations.remove(myDurations.keySet().iterator().next());
+    }
+  }
+
+  /**
+   * Sorts packages so that the longest ones come first, packages that haven't been run yet precede all others.
+   */
+  public synchronized void sortLongestFirst(@NotNull List<String> packagePaths) {
+    Collections.sort(packagePaths, (p1, p2) -> {
+      Long d1 = myDurations.get(p1);
+      Long d2 = myDurations.get(p2);
+      return Long.compare(d2 != null ? d2 : Long.MAX_VALUE, d1 != null ? d1 : Long.MAX_VALUE);
+    });
+  }
+
+  /**
+   * Sorts packages so that the fastest ones come first, packages that haven't been run yet precede all others.
+   */
+  public synchronized void sortFastestFirst(@NotNull List<String> packagePaths) {
+    Collections.sort(packagePaths, (p1, p2) -> {
+      Long d1 = myDurations.get(p1);
+      Long d2 = myDurations.get(p2);
+      return Long.compare(d1 != null ? d1 : -1, d2 != null ? d2 : -1);
+    });
+  }
+
+  @NotNull
+  @Override
+  public synchronized State getState() {
+    State state = new State();
+    state.durations = ContainerUtil.newLinkedHashMap(myDurations);
+    return state;
+  }
+
+  @Override
+  public synchronized void loadState(State state) {
+    myDurations.clear();
+    if (state.durations != null) {
+      myDurations.putAll(state.durations);
+    }
+  }
+
+  public static class State {
+    public Map<String, Long> durations = ContainerUtil.newLinkedHashMap();
+  }
+}
@@ -47,6 +47,9 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
   private static final String PACKAGE_ATTRIBUTE_NAME = "package";
   private static final String KIND_ATTRIBUTE_NAME = "kind";
   private static final String FRAMEWORK_ATTRIBUTE_NAME = "framework";
+  private static final String PARALLEL_PACKAGES_ATTRIBUTE_NAME = "parallelPackages";
+  private static final String ORDER_ATTRIBUTE_NAME = "order";
+  private static final String COMPARE_WITH_BASELINE_ATTRIBUTE_NAME = "compareWithBaseline";
 
   @NotNull private String myPackage = "";
   @NotNull private String myFilePath = "";
@@ -54,6 +57,9 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
 
   @NotNull private String myPattern = "";
   @NotNull private Kind myKind = Kind.DIRECTORY;
+  private int myParallelPackages;
+  @NotNull private Order myOrder = Order.DEFAULT;
+  private boolean myCompareWithBaseline;
   private GoTestFramework myTestFramework = GotestFramework.INSTANCE;
 
   public GoTestRunConfiguration(@NotNull Project project, String name, @NotNull ConfigurationType configurationType) {
@@ -90,6 +96,7 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
     }
     switch (myKind) {
       case DIRECTORY:
+      case AFFECTED:
         String directoryPath = FileUtil.isAbsolutePlatformIndependent(myDirectoryPath)
                                ? myDirectoryPath
                                : FileUtil.join(getWorkingDirectory(), myDirectoryPath);
@@ -149,6 +156,15 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
     if (!myPattern.isEmpty()) {
       JDOMExternalizerUtil.addElementWithValueAttribute(element, PATTERN_ATTRIBUTE_NAME, myPattern);
     }
+    if (myParallelPackages > 0) {
+      JDOMExternalizerUtil.addElementWithValueAttribute(element, PARALLEL_PACKAGES_ATTRIBUTE_NAME, String.valueOf(myParallelPackages));
+    }
+    if (myOrder != Order.DEFAULT) {
+      JDOMExternalizerUtil.addElementWithValueAttribute(element, ORDER_ATTRIBUTE_NAME, myOrder.name());
+    }
+    if (myCompareWithBaseline) {
+      JDOMExternalizerUtil.addElementWithValueAttribute(element, COMPARE_WITH_BASELINE_ATTRIBUTE_NAME, "true");
+    }
   }
 
   @Override
@@ -166,6 +182,17 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
     myFilePath = StringUtil.notNullize(JDOMExternalizerUtil.getFirstChildValueAttribute(element, FILE_PATH_ATTRIBUTE_NAME));
     myPattern = StringUtil.notNullize(JDOMExternalizerUtil.getFirstChildValueAttribute(element, PATTERN_ATTRIBUTE_NAME));
     myTestFramework = GoTestFramework.fromName(JDOMExternalizerUtil.getFirstChildValueAttribute(element, FRAMEWORK_ATTRIBUTE_NAME));
+    String parallelPackages = JDOMExternalizerUtil.getFirstChildValueAttribute(element, PARALLEL_PACKAGES_ATTRIBUTE_NAME);
+    myParallelPackages = Math.max(0, StringUtil.parseInt(parallelPackages, 0));
+    try {
+      String orderName = JDOMExternalizerUtil.getFirstChildValueAttribute(element, ORDER_ATTRIBUTE_NAME);
+      myOrder = orderName != null ? Order.valueOf(orderName) : Order.DEFAULT;
+    }
+    catch (IllegalArgumentException e) {
+      myOrder = Order.DEFAULT;
+    }
+    String compareWithBaseline = JDOMExternalizerUtil.getFirstChildValueAttribute(element, COMPARE_WITH_BASELINE_ATTRIBUTE_NAME);
+    myCompareWithBaseline = Boolean.parseBoolean(compareWithBaseline);
   }
 
   @NotNull
@@ -213,6 +240,43 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
     myDirectoryPath = directoryPath;
   }
 
+  /**
+   * @return number of packages of a directory that are run by separate {@code go test} processes at once, or 0 if the
+   * directory is run by a single process
+   */
+  public int getParallelPackages() {
+    return myParallelPackages;
+  }
+
+  public void setParallelPackages(int parallelPackages) {
+    myParallelPackages = Math.max(0, parallelPackages);
+  }
+
+  /**
+   * @return order in which packages of a directory are run, packages are run by separate processes unless it's
+   * {@link Order#DEFAULT}
+   */
+  @NotNull
+  public Order getOrder() {
+    return myOrder;
+  }
+
+  public void setOrder(@NotNull Order order) {
+    myOrder = order;
+  }
+
+  /**
+   * @return whether benchmark results are compared with the baseline run of the configuration, otherwise the run becomes
+   * the new baseline
+   */
+  public boolean isCompareWithBaseline() {
+    return myCompareWithBaseline;
+  }
+
+  public void setCompareWithBaseline(boolean compareWithBaseline) {
+    myCompareWithBaseline = compareWithBaseline;
+  }
+
   public void setTestFramework(@NotNull GoTestFramework testFramework) {
     myTestFramework = testFramework;
   }
@@ -223,6 +287,25 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
   }
 
   public enum Kind {
-    DIRECTORY, PACKAGE, FILE
+    DIRECTORY, PACKAGE, FILE,
+    /**
+     * Packages of a directory that contain changed files or depend on packages with changed files
+     */
+    AFFECTED
+  }
+
+  public enum Order {
+    /**
+     * Order of {@code go test ./...} for a single process; packages run by their own processes start longest first
+     */
+    DEFAULT,
+    /**
+     * Packages with tests that failed last time first
+     */
+    FAILED_FIRST,
+    /**
+     * Packages that took least time last time first
+     */
+    FASTEST_FIRST
   }
 }
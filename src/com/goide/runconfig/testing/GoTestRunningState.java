@@ -16,15 +16,20 @@
 
 package com.goide.runconfig.testing;
 
+import com.goide.GoConstants;
+import com.goide.GoFileType;
 import com.goide.psi.GoFile;
 import com.goide.psi.GoFunctionDeclaration;
+import com.goide.psi.impl.imports.GoImportGraph;
 import com.goide.runconfig.GoConsoleFilter;
 import com.goide.runconfig.GoRunningState;
+import com.goide.runconfig.testing.coverage.GoCoverageRunner;
 import com.goide.util.GoExecutor;
 import com.intellij.execution.DefaultExecutionResult;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.ExecutionResult;
 import com.intellij.execution.Executor;
+import com.intellij.execution.configurations.GeneralCommandLine;
 import com.intellij.execution.filters.TextConsoleBuilder;
 import com.intellij.execution.filters.TextConsoleBuilderFactory;
 import com.intellij.execution.process.ProcessHandler;
@@ -37,11 +42,22 @@ import com.intellij.execution.testframework.autotest.ToggleAutoTestAction;
 import com.intellij.execution.testframework.sm.SMTestRunnerConnectionUtil;
 import com.intellij.execution.testframework.sm.runner.ui.SMTRunnerConsoleView;
 import com.intellij.execution.ui.ConsoleView;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vcs.changes.ChangeListManager;
 import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.util.ObjectUtils;
@@ -50,12 +66,19 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class GoTestRunningState extends GoRunningState<GoTestRunConfiguration> {
   private String myCoverageFilePath;
   private String myFailedTestsPattern;
+  // set while command lines of packages run separately are built, see startPackages
+  @Nullable private String myPackageDirectory;
+  @Nullable private String myPackageProfile;
 
   public GoTestRunningState(@NotNull ExecutionEnvironment env, @NotNull Module module, @NotNull GoTestRunConfiguration configuration) {
     super(env, module, configuration);
@@ -86,17 +109,210 @@ public class GoTestRunningState extends GoRunningState<GoTestRunConfiguration> {
     return executionResult;
   }
 
+  @NotNull
+  @Override
+  protected ProcessHandler startProcess() throws ExecutionException {
+    File packageProfiles = null;
+    if (myCoverageFilePath != null) {
+      packageProfiles = GoCoverageRunner.getPackageProfilesDirectory(new File(myCoverageFilePath));
+      FileUtil.delete(packageProfiles);
+    }
+    GoTestRunConfiguration.Kind kind = myConfiguration.getKind();
+    if (kind == GoTestRunConfiguration.Kind.AFFECTED ||
+        kind == GoTestRunConfiguration.Kind.DIRECTORY &&
+        (packageProfiles != null || myConfiguration.getParallelPackages() > 0 ||
+         myConfiguration.getOrder() != GoTestRunConfiguration.Order.DEFAULT)) {
+      List<VirtualFile> packages = collectTestPackages();
+      if (kind == GoTestRunConfiguration.Kind.AFFECTED) {
+        packages = filterAffectedPackages(packages);
+        if (packages.isEmpty()) {
+          throw new ExecutionException("No test packages are affected by changes");
+        }
+      }
+      if (!packages.isEmpty()) {
+        return startPackages(sortPackages(packages), packageProfiles);
+      }
+    }
+    return super.startProcess();
+  }
+
+  /**
+   * Packages that contain files changed in VCS or unsaved, or import such packages directly or transitively.
+   */
+  @NotNull
+  private List<VirtualFile> filterAffectedPackages(@NotNull List<VirtualFile> packages) throws ExecutionException {
+    Project project = myConfiguration.getProject();
+    Collection<VirtualFile> changedFiles = ContainerUtil.newArrayList(ChangeListManager.getInstance(project).getAffectedFiles());
+    FileDocumentManager documentManager = FileDocumentManager.getInstance();
+    for (Document document : documentManager.getUnsavedDocuments()) {
+      ContainerUtil.addIfNotNull(changedFiles, documentManager.getFile(document));
+    }
+
+    Set<VirtualFile> packageSet = ContainerUtil.newHashSet(packages);
+    Set<VirtualFile> changedDirectories = ContainerUtil.newHashSet();
+    for (VirtualFile file : changedFiles) {
+      VirtualFile directory = file.getParent();
+      if (file.getFileType() != GoFileType.INSTANCE) {
+        // changed test data affects the package it belongs to
+        while (directory != null && !packageSet.contains(directory)) {
+          directory = directory.getParent();
+        }
+      }
+      ContainerUtil.addIfNotNull(changedDirectories, directory);
+    }
+    if (changedDirectories.isEmpty()) return Collections.emptyList();
+    if (DumbService.isDumb(project)) {
+      // the import graph is read from indices, running all packages is better than waiting for indexing to finish
+      return packages;
+    }
+
+    Set<VirtualFile> affected = ContainerUtil.newHashSet(changedDirectories);
+    affected.addAll(getDependentDirectories(project, changedDirectories));
+    return ContainerUtil.filter(packages, affected::contains);
+  }
+
+  /**
+   * Queries the import graph in a read action in smart mode, under a modal progress if called on the EDT.
+   */
+  @NotNull
+  private static Set<VirtualFile> getDependentDirectories(@NotNull Project project, @NotNull Set<VirtualFile> directories)
+    throws ExecutionException {
+    Computable<Set<VirtualFile>> query = () -> DumbService.getInstance(project).runReadActionInSmartMode(
+      () -> GoImportGraph.getInstance(project).getDependentDirectories(directories));
+    if (!ApplicationManager.getApplication().isDispatchThread()) {
+      return query.compute();
+    }
+    Ref<Set<VirtualFile>> result = Ref.create();
+    String title = "Looking for Affected Packages";
+    boolean completed = ProgressManager.getInstance()
+      .runProcessWithProgressSynchronously(() -> result.set(query.compute()), title, true, project);
+    if (!completed) {
+      throw new ExecutionException("Search for affected packages was cancelled");
+    }
+    return result.get();
+  }
+
+  @NotNull
+  private List<VirtualFile> sortPackages(@NotNull List<VirtualFile> packages) {
+    Project project = myConfiguration.getProject();
+    GoTestPackageDurations durations = GoTestPackageDurations.getInstance(project);
+    Map<String, VirtualFile> packagesByPath = ContainerUtil.newLinkedHashMap();
+    for (VirtualFile packageDirectory : packages) {
+      packagesByPath.put(packageDirectory.getPath(), packageDirectory);
+    }
+    List<String> paths = ContainerUtil.newArrayList(packagesByPath.keySet());
+    switch (myConfiguration.getOrder()) {
+      case FASTEST_FIRST:
+        durations.sortFastestFirst(paths);
+        break;
+      case FAILED_FIRST:
+        // packages with failed tests go first, longest first among themselves as any other packages
+        durations.sortLongestFirst(paths);
+        GoTestHistory history = GoTestHistory.getInstance(project);
+        List<String> failed = ContainerUtil.filter(paths, path -> {
+          String packageName = GoTestHistory.getPackageName(project, packagesByPath.get(path));
+          return packageName != null && !history.getFailedTests(packageName).isEmpty();
+        });
+        paths.removeAll(failed);
+        paths.addAll(0, failed);
+        break;
+      default:
+        // a long package that starts last would delay the whole run
+        durations.sortLongestFirst(paths);
+    }
+    return ContainerUtil.map(paths, packagesByPath::get);
+  }
+
+  /**
+   * Runs every package of a directory by its own {@code go test} process, packages are started in the given order.
+   * That's also how directories are covered: {@code go test} can't write a profile of several packages
+   * (https://golang.org/issues/6909), so every package writes its own profile and the coverage runner merges them.
+   */
+  @NotNull
+  private ProcessHandler startPackages(@NotNull List<VirtualFile> packages, @Nullable File packageProfiles)
+    throws ExecutionException {
+    if (packageProfiles != null) {
+      if (!FileUtil.createDirectory(packageProfiles)) {
+        throw new ExecutionException("Cannot create directory " + packageProfiles);
+      }
+      try {
+        // the session profile is still loaded by the coverage runner, package profiles are merged into it
+        FileUtil.writeToFile(new File(myCoverageFilePath), "mode: atomic\n");
+      }
+      catch (IOException e) {
+        throw new ExecutionException(e);
+      }
+    }
+
+    Map<String, GeneralCommandLine> commandLines = ContainerUtil.newLinkedHashMap();
+    for (int i = 0; i < packages.size(); i++) {
+      myPackageDirectory = packages.get(i).getPath();
+      myPackageProfile = packageProfiles != null ? new File(packageProfiles, i + ".out").getPath() : null;
+      try {
+        GoExecutor executor = patchExecutor(createCommonExecutor());
+        commandLines.put(myPackageDirectory, executor.withParameterString(myConfiguration.getParams()).createCommandLine());
+      }
+      finally {
+        myPackageDirectory = null;
+        myPackageProfile = null;
+      }
+    }
+    int parallelism = myConfiguration.getParallelPackages();
+    if (parallelism <= 0) {
+      // packages are run separately only to collect their coverage, as many at once as go test would run
+      parallelism = Runtime.getRuntime().availableProcessors();
+    }
+    GoTestPackageDurations durations = GoTestPackageDurations.getInstance(myConfiguration.getProject());
+    ProcessHandler handler = new GoParallelPackagesProcessHandler(commandLines, parallelism, durations);
+    ProcessTerminatedListener.attach(handler);
+    return handler;
+  }
+
+  /**
+   * Directories with test files that {@code ./...} would match.
+   */
+  @NotNull
+  private List<VirtualFile> collectTestPackages() {
+    VirtualFile directory = LocalFileSystem.getInstance().findFileByPath(myConfiguration.getDirectoryPath());
+    if (directory == null || !directory.isDirectory()) return Collections.emptyList();
+    Set<VirtualFile> result = ContainerUtil.newLinkedHashSet();
+    VfsUtilCore.visitChildrenRecursively(directory, new VirtualFileVisitor() {
+      @NotNull
+      @Override
+      public Result visitFileEx(@NotNull VirtualFile file) {
+        if (file.isDirectory()) {
+          String name = file.getName();
+          boolean ignored = !file.equals(directory) &&
+                            (name.startsWith(".") || name.startsWith("_") ||
+                             GoConstants.VENDOR.equals(name) || GoConstants.TESTDATA_NAME.equals(name));
+          return ignored ? SKIP_CHILDREN : CONTINUE;
+        }
+        if (GoTestFinder.isTestFile(file)) {
+          result.add(file.getParent());
+        }
+        return CONTINUE;
+      }
+    });
+    return ContainerUtil.newArrayList(result);
+  }
+
   @Override
   protected GoExecutor patchExecutor(@NotNull GoExecutor executor) throws ExecutionException {
     executor.withParameters("test", "-v");
     executor.withParameterString(myConfiguration.getGoToolParams());
     switch (myConfiguration.getKind()) {
       case DIRECTORY:
+      case AFFECTED:
+        if (myPackageDirectory != null) {
+          executor.withWorkDirectory(myPackageDirectory);
+          executor.withParameters(".");
+          addFilterParameter(executor, ObjectUtils.notNull(myFailedTestsPattern, myConfiguration.getPattern()));
+          break;
+        }
         String relativePath = FileUtil.getRelativePath(myConfiguration.getWorkingDirectory(),
                                                        myConfiguration.getDirectoryPath(),
                                                        File.separatorChar);
-        // TODO Once Go gets support for covering multiple packages the ternary condition should be reverted
-        // See https://golang.org/issues/6909
+        // covered directories with test packages are run by packages, see startPackages
         String pathSuffix = myCoverageFilePath == null ? "..." : ".";
         if (relativePath != null && !".".equals(relativePath)) {
           executor.withParameters("./" + relativePath + "/" + pathSuffix);
@@ -133,7 +349,8 @@ public class GoTestRunningState extends GoRunningState<GoTestRunConfiguration> {
     }
 
     if (myCoverageFilePath != null) {
-      executor.withParameters("-coverprofile=" + myCoverageFilePath, "-covermode=atomic");
+      String coverageFilePath = myPackageProfile != null ? myPackageProfile : myCoverageFilePath;
+      executor.withParameters("-coverprofile=" + coverageFilePath, "-covermode=atomic");
     }
 
     return executor;
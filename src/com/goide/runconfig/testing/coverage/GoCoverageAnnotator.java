@@ -20,18 +20,21 @@ import com.intellij.coverage.BaseCoverageAnnotator;
 import com.intellij.coverage.CoverageDataManager;
 import com.intellij.coverage.CoverageSuite;
 import com.intellij.coverage.CoverageSuitesBundle;
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressIndicatorProvider;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.FileIndexFacade;
 import com.intellij.openapi.roots.ProjectRootManager;
-import com.intellij.openapi.util.Factory;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileVisitor;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiFile;
 import com.intellij.rt.coverage.data.ProjectData;
+import com.intellij.util.ConcurrencyUtil;
 import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -39,8 +42,10 @@ import org.jetbrains.annotations.TestOnly;
 
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 public class GoCoverageAnnotator extends BaseCoverageAnnotator {
   private static final String STATEMENTS_SUFFIX = "% statements";
@@ -130,13 +135,15 @@ public class GoCoverageAnnotator extends BaseCoverageAnnotator {
   @Nullable
   @Override
   protected Runnable createRenewRequest(@NotNull CoverageSuitesBundle bundle, @NotNull CoverageDataManager manager) {
-    GoCoverageProjectData data = new GoCoverageProjectData();
+    List<GoCoverageProjectData> suitesData = ContainerUtil.newArrayList();
     for (CoverageSuite suite : bundle.getSuites()) {
       ProjectData toMerge = suite.getCoverageData(manager);
-      if (toMerge != null) {
-        data.merge(toMerge);
+      if (toMerge instanceof GoCoverageProjectData) {
+        suitesData.add((GoCoverageProjectData)toMerge);
       }
     }
+    GoCoverageProjectData data = new GoCoverageProjectData();
+    data.mergeFiles(suitesData);
 
     return () -> {
       annotateAllFiles(data, manager.doInReadActionIfProjectOpen(() -> ProjectRootManager.getInstance(getProject()).getContentRoots()));
@@ -144,26 +151,6 @@ public class GoCoverageAnnotator extends BaseCoverageAnnotator {
     };
   }
 
-  @NotNull
-  private DirCoverageInfo getOrCreateDirectoryInfo(VirtualFile file) {
-    return ContainerUtil.getOrCreate(myDirCoverageInfos, file.getPath(), new Factory<DirCoverageInfo>() {
-      @Override
-      public DirCoverageInfo create() {
-        return new DirCoverageInfo();
-      }
-    });
-  }
-
-  @NotNull
-  private FileCoverageInfo getOrCreateFileInfo(VirtualFile file) {
-    return ContainerUtil.getOrCreate(myFileCoverageInfos, file.getPath(), new Factory<FileCoverageInfo>() {
-      @Override
-      public FileCoverageInfo create() {
-        return new FileCoverageInfo();
-      }
-    });
-  }
-
   @Nullable
   private static String getStatementsCoverageString(@NotNull FileCoverageInfo info) {
     double percent = calcPercent(info.coveredLineCount, info.totalLineCount);
@@ -183,55 +170,77 @@ public class GoCoverageAnnotator extends BaseCoverageAnnotator {
     return total != 0 ? (double)covered / total : 0;
   }
 
+  /**
+   * Computes statistics of covered files and rolls them up to their directories in one parallel pass over the files of
+   * the profile, so directories without coverage aren't visited at all.
+   */
   public void annotateAllFiles(@NotNull GoCoverageProjectData data,
                                @Nullable VirtualFile... contentRoots) {
-    if (contentRoots != null) {
-      for (VirtualFile root : contentRoots) {
-        VfsUtilCore.visitChildrenRecursively(root, new VirtualFileVisitor() {
-          @NotNull
-          @Override
-          public Result visitFileEx(@NotNull VirtualFile file) {
-            ProgressIndicatorProvider.checkCanceled();
-
-            if (file.isDirectory() && !FileIndexFacade.getInstance(getProject()).isInContent(file)) {
-              return SKIP_CHILDREN;
-            }
-            if (!file.isDirectory() && GoCoverageEngine.INSTANCE.coverageProjectViewStatisticsApplicableTo(file)) {
-              DirCoverageInfo dirCoverageInfo = getOrCreateDirectoryInfo(file.getParent());
-              FileCoverageInfo fileCoverageInfo = getOrCreateFileInfo(file);
-              data.processFile(file.getPath(), rangeData -> {
-                if (rangeData.hits > 0) {
-                  fileCoverageInfo.coveredLineCount += rangeData.statements;
-                }
-                fileCoverageInfo.totalLineCount += rangeData.statements;
-                return true;
-              });
-
-              if (fileCoverageInfo.totalLineCount > 0) {
-                dirCoverageInfo.totalLineCount += fileCoverageInfo.totalLineCount;
-                dirCoverageInfo.totalFilesCount++;
-              }
-              if (fileCoverageInfo.coveredLineCount > 0) {
-                dirCoverageInfo.coveredLineCount += fileCoverageInfo.coveredLineCount;
-                dirCoverageInfo.coveredFilesCount++;
-              }
-            }
-            return CONTINUE;
-          }
+    if (contentRoots == null) {
+      return;
+    }
+    Set<VirtualFile> roots = ContainerUtil.newHashSet(contentRoots);
+    FileIndexFacade fileIndex = FileIndexFacade.getInstance(getProject());
+    Map<String, FileCoverageInfo> fileCoverageInfos = ContainerUtil.newConcurrentMap();
+    Map<String, DirCoverageInfo> dirCoverageInfos = ContainerUtil.newConcurrentMap();
+    List<GoCoverageProjectData.FileData> filesData = ContainerUtil.newArrayList(data.getFilesData());
+    ProgressIndicator indicator = ProgressIndicatorProvider.getGlobalProgressIndicator();
+    JobLauncher.getInstance().invokeConcurrentlyUnderProgress(filesData, indicator, true, false, fileData -> {
+      ProgressIndicatorProvider.checkCanceled();
+      VirtualFile file = findUnderRoots(fileData.myFilePath, contentRoots);
+      if (file == null || !fileIndex.isInContent(file) ||
+          !GoCoverageEngine.INSTANCE.coverageProjectViewStatisticsApplicableTo(file)) {
+        return true;
+      }
+
+      FileCoverageInfo fileCoverageInfo = new FileCoverageInfo();
+      int size = fileData.size();
+      int[] statements = fileData.getStatements();
+      int[] hits = fileData.getHits();
+      for (int i = 0; i < size; i++) {
+        if (hits[i] > 0) {
+          fileCoverageInfo.coveredLineCount += statements[i];
+        }
+        fileCoverageInfo.totalLineCount += statements[i];
+      }
+      fileCoverageInfos.put(file.getPath(), fileCoverageInfo);
+      if (fileCoverageInfo.totalLineCount == 0) {
+        return true;
+      }
 
-          @Override
-          public void afterChildrenVisited(@NotNull VirtualFile file) {
-            if (file.isDirectory()) {
-              DirCoverageInfo currentCoverageInfo = getOrCreateDirectoryInfo(file);
-              DirCoverageInfo parentCoverageInfo = getOrCreateDirectoryInfo(file.getParent());
-              parentCoverageInfo.totalFilesCount += currentCoverageInfo.totalFilesCount;
-              parentCoverageInfo.coveredFilesCount += currentCoverageInfo.coveredFilesCount;
-              parentCoverageInfo.totalLineCount += currentCoverageInfo.totalLineCount;
-              parentCoverageInfo.coveredLineCount += currentCoverageInfo.coveredLineCount;
-            }
+      // parents of content roots get statistics of the roots as well
+      for (VirtualFile directory = file.getParent(); directory != null; directory = directory.getParent()) {
+        DirCoverageInfo dirCoverageInfo = ConcurrencyUtil.cacheOrGet(dirCoverageInfos, directory.getPath(), new DirCoverageInfo());
+        //noinspection SynchronizationOnLocalVariableOrMethodParameter
+        synchronized (dirCoverageInfo) {
+          dirCoverageInfo.totalLineCount += fileCoverageInfo.totalLineCount;
+          dirCoverageInfo.totalFilesCount++;
+          if (fileCoverageInfo.coveredLineCount > 0) {
+            dirCoverageInfo.coveredLineCount += fileCoverageInfo.coveredLineCount;
+            dirCoverageInfo.coveredFilesCount++;
           }
-        });
+        }
+        if (!VfsUtilCore.isUnder(directory, roots)) {
+          break;
+        }
+      }
+      return true;
+    });
+    myFileCoverageInfos.putAll(fileCoverageInfos);
+    myDirCoverageInfos.putAll(dirCoverageInfos);
+  }
+
+  @Nullable
+  private static VirtualFile findUnderRoots(@NotNull String filePath, @NotNull VirtualFile[] roots) {
+    for (VirtualFile root : roots) {
+      String rootPath = root.getPath();
+      if (FileUtil.isAncestor(rootPath, filePath, true)) {
+        VirtualFile file = root.findFileByRelativePath(StringUtil.trimStart(filePath.substring(rootPath.length()), "/"));
+        if (file != null) {
+          return file;
+        }
       }
     }
+    return null;
   }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.coverage;
+
+import com.intellij.util.Function;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Reads profiles written by {@code go test -coverprofile} straight from bytes: the file is memory-mapped, numbers are
+ * parsed in place and nothing is allocated per line. An import path is resolved once per profile; consecutive lines
+ * of the same file, which is how go writes them, are matched by comparing bytes with the previous line.
+ */
+public class GoCoverageProfileParser {
+  private static final int MAX_WINDOW_SIZE = 1 << 28;
+  private static final byte[] MODE_PREFIX = "mode:".getBytes(StandardCharsets.US_ASCII);
+  private static final GoCoverageProjectData.FileData UNRESOLVED = new GoCoverageProjectData.FileData("");
+
+  @NotNull private final Function<String, String> myFilePathResolver;
+  @NotNull private final GoCoverageProjectData myResult;
+  @NotNull private final Map<String, GoCoverageProjectData.FileData> myResolvedFiles = ContainerUtil.newHashMap();
+  @NotNull private byte[] myLastImportPath = new byte[256];
+  private int myLastImportPathLength = -1;
+  @Nullable private GoCoverageProjectData.FileData myLastFileData;
+  private final int[] myNumbers = new int[6];
+
+  /**
+   * @param filePathResolver maps an import path of a file to its path, {@code null} makes parser skip ranges of the file
+   */
+  public GoCoverageProfileParser(@NotNull Function<String, String> filePathResolver, @NotNull GoCoverageProjectData result) {
+    myFilePathResolver = filePathResolver;
+    myResult = result;
+  }
+
+  public void parse(@NotNull File profile) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(profile, "r"); FileChannel channel = file.getChannel()) {
+      long size = channel.size();
+      long position = 0;
+      while (position < size) {
+        long windowSize = Math.min(size - position, MAX_WINDOW_SIZE);
+        boolean last = position + windowSize == size;
+        int consumed = parse(channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize), last);
+        if (consumed == 0) {
+          throw new IOException("Line is too long at offset " + position + " of " + profile);
+        }
+        position += consumed;
+      }
+    }
+  }
+
+  /**
+   * Parses complete lines of the buffer starting from its position, an unterminated last line is parsed only
+   * if {@code last} is set.
+   *
+   * @return number of bytes consumed
+   */
+  public int parse(@NotNull ByteBuffer buffer, boolean last) {
+    int start = buffer.position();
+    int limit = buffer.limit();
+    int lineStart = start;
+    for (int i = start; i < limit; i++) {
+      if (buffer.get(i) == '\n') {
+        parseLine(buffer, lineStart, i);
+        lineStart = i + 1;
+      }
+    }
+    if (last && lineStart < limit) {
+      parseLine(buffer, lineStart, limit);
+      lineStart = limit;
+    }
+    return lineStart - start;
+  }
+
+  private void parseLine(@NotNull ByteBuffer buffer, int start, int end) {
+    if (end > start && buffer.get(end - 1) == '\r') end--;
+    if (end == start || startsWith(buffer, start, end, MODE_PREFIX)) return;
+
+    int colon = end - 1;
+    while (colon >= start && buffer.get(colon) != ':') colon--;
+    if (colon <= start) return;
+
+    // startLine.startColumn,endLine.endColumn statements hits
+    int[] numbers = myNumbers;
+    int offset = colon + 1;
+    for (int i = 0; i < numbers.length; i++) {
+      long value = 0;
+      int digitsStart = offset;
+      while (offset < end) {
+        byte b = buffer.get(offset);
+        if (b < '0' || b > '9') break;
+        value = Math.min(value * 10 + b - '0', Integer.MAX_VALUE);
+        offset++;
+      }
+      if (offset == digitsStart) return;
+      numbers[i] = (int)value;
+      if (i == numbers.length - 1) {
+        if (offset != end) return;
+      }
+      else {
+        if (offset == end || buffer.get(offset) != separator(i)) return;
+        offset++;
+      }
+    }
+
+    GoCoverageProjectData.FileData fileData = findFileData(buffer, start, colon);
+    if (fileData != null) {
+      fileData.add(numbers[0], numbers[1], numbers[2], numbers[3], numbers[4], numbers[5]);
+    }
+  }
+
+  private static char separator(int index) {
+    switch (index) {
+      case 0:
+      case 2:
+        return '.';
+      case 1:
+        return ',';
+      default:
+        return ' ';
+    }
+  }
+
+  @Nullable
+  private GoCoverageProjectData.FileData findFileData(@NotNull ByteBuffer buffer, int start, int end) {
+    int length = end - start;
+    if (length == myLastImportPathLength && equalsLastImportPath(buffer, start, end)) {
+      return myLastFileData;
+    }
+    if (length > myLastImportPath.length) {
+      myLastImportPath = new byte[Math.max(length, myLastImportPath.length * 2)];
+    }
+    for (int i = 0; i < length; i++) {
+      myLastImportPath[i] = buffer.get(start + i);
+    }
+    myLastImportPathLength = length;
+
+    String importPath = new String(myLastImportPath, 0, length, StandardCharsets.UTF_8);
+    GoCoverageProjectData.FileData fileData = myResolvedFiles.get(importPath);
+    if (fileData == null) {
+      String filePath = myFilePathResolver.fun(importPath);
+      fileData = filePath != null ? myResult.getOrCreateFileData(filePath) : UNRESOLVED;
+      myResolvedFiles.put(importPath, fileData);
+    }
+    myLastFileData = fileData != UNRESOLVED ? fileData : null;
+    return myLastFileData;
+  }
+
+  private boolean equalsLastImportPath(@NotNull ByteBuffer buffer, int start, int end) {
+    // the end of import paths differs more often than the beginning
+    for (int i = end - 1; i >= start; i--) {
+      if (myLastImportPath[i - start] != buffer.get(i)) return false;
+    }
+    return true;
+  }
+
+  private static boolean startsWith(@NotNull ByteBuffer buffer, int start, int end, @NotNull byte[] prefix) {
+    if (end - start < prefix.length) return false;
+    for (int i = 0; i < prefix.length; i++) {
+      if (buffer.get(start + i) != prefix[i]) return false;
+    }
+    return true;
+  }
+}
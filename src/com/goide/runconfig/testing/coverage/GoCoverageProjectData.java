@@ -16,14 +16,15 @@
 
 package com.goide.runconfig.testing.coverage;
 
-import com.intellij.openapi.util.Factory;
 import com.intellij.rt.coverage.data.CoverageData;
 import com.intellij.rt.coverage.data.ProjectData;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.Processor;
 import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
+import java.util.*;
 
 public class GoCoverageProjectData extends ProjectData {
   @NotNull
@@ -37,54 +38,70 @@ public class GoCoverageProjectData extends ProjectData {
     }
   }
 
+  @NotNull
+  public Collection<FileData> getFilesData() {
+    return Collections.unmodifiableCollection(myFilesData.values());
+  }
+
   public void processFile(@NotNull String filePath, @NotNull Processor<RangeData> processor) {
     FileData fileData = myFilesData.get(filePath);
     if (fileData != null) {
-      for (RangeData rangeData : fileData.myRangesData.values()) {
-        if (!processor.process(rangeData)) {
+      for (int i = 0; i < fileData.size(); i++) {
+        if (!processor.process(fileData.getRange(i))) {
           return;
         }
       }
     }
   }
 
+  @Nullable
+  public FileData getFileData(@NotNull String filePath) {
+    return myFilesData.get(filePath);
+  }
+
+  @NotNull
+  public FileData getOrCreateFileData(@NotNull String filePath) {
+    FileData fileData = myFilesData.get(filePath);
+    if (fileData == null) {
+      fileData = new FileData(filePath);
+      myFilesData.put(filePath, fileData);
+    }
+    return fileData;
+  }
+
   public void addData(String filePath, int startLine, int startColumn, int endLine, int endColumn, int statements, int hits) {
-    FileData fileData = ContainerUtil.getOrCreate(myFilesData, filePath, new Factory<FileData>() {
-      @Override
-      public FileData create() {
-        return new FileData(filePath);
-      }
-    });
-    fileData.add(startLine, startColumn, endLine, endColumn, statements, hits);
+    getOrCreateFileData(filePath).add(startLine, startColumn, endLine, endColumn, statements, hits);
   }
 
   @Override
   public void merge(CoverageData data) {
     super.merge(data);
     if (data instanceof GoCoverageProjectData) {
-      for (Map.Entry<String, FileData> entry : ((GoCoverageProjectData)data).myFilesData.entrySet()) {
+      mergeFiles(Collections.singletonList((GoCoverageProjectData)data));
+    }
+  }
+
+  /**
+   * Merges ranges of profiles, e.g. written by per-package runs, into this one. Ranges of a file that occurs in several
+   * profiles are merged at once by {@link FileData#merge(String, List)} rather than profile by profile.
+   */
+  public void mergeFiles(@NotNull Collection<GoCoverageProjectData> profiles) {
+    Map<String, List<FileData>> filesToMerge = ContainerUtil.newHashMap();
+    for (GoCoverageProjectData profile : profiles) {
+      for (Map.Entry<String, FileData> entry : profile.myFilesData.entrySet()) {
         String filePath = entry.getKey();
-        FileData fileData = myFilesData.get(filePath);
-        FileData fileDataToMerge = entry.getValue();
-        if (fileData != null) {
-          for (Map.Entry<String, RangeData> dataEntry : fileDataToMerge.myRangesData.entrySet()) {
-            RangeData existingRangeData = fileData.myRangesData.get(dataEntry.getKey());
-            if (existingRangeData != null) {
-              fileData.myRangesData.put(dataEntry.getKey(),
-                                        new RangeData(existingRangeData.startLine, existingRangeData.startColumn, existingRangeData.endLine,
-                                                      existingRangeData.endColumn, existingRangeData.statements,
-                                                      existingRangeData.hits + dataEntry.getValue().hits));
-            }
-            else {
-              fileData.myRangesData.put(dataEntry.getKey(), dataEntry.getValue());
-            }
-          }
-        }
-        else {
-          myFilesData.put(filePath, fileDataToMerge);
+        List<FileData> files = filesToMerge.get(filePath);
+        if (files == null) {
+          FileData fileData = myFilesData.get(filePath);
+          files = fileData != null ? ContainerUtil.newSmartList(fileData) : ContainerUtil.newSmartList();
+          filesToMerge.put(filePath, files);
         }
+        files.add(entry.getValue());
       }
     }
+    for (Map.Entry<String, List<FileData>> entry : filesToMerge.entrySet()) {
+      myFilesData.put(entry.getKey(), FileData.merge(entry.getKey(), entry.getValue()));
+    }
   }
 
   @Override
@@ -101,19 +118,263 @@ public class GoCoverageProjectData extends ProjectData {
     return myFilesData.hashCode();
   }
 
+  /**
+   * Ranges of a file stored by columns, the i-th range is made of the i-th elements of the arrays. Ranges are appended
+   * as they come and are sorted by position on the first read; a range that occurs several times keeps its last
+   * statements and hits. Arrays returned by getters must not be modified.
+   */
   public static class FileData {
     @NotNull
     public final String myFilePath;
-    @NotNull
-    public final Map<String, RangeData> myRangesData = ContainerUtil.newHashMap();
+    @NotNull private int[] myStartLines = ArrayUtil.EMPTY_INT_ARRAY;
+    @NotNull private int[] myStartColumns = ArrayUtil.EMPTY_INT_ARRAY;
+    @NotNull private int[] myEndLines = ArrayUtil.EMPTY_INT_ARRAY;
+    @NotNull private int[] myEndColumns = ArrayUtil.EMPTY_INT_ARRAY;
+    @NotNull private int[] myStatements = ArrayUtil.EMPTY_INT_ARRAY;
+    @NotNull private int[] myHits = ArrayUtil.EMPTY_INT_ARRAY;
+    private int mySize;
+    private boolean myNormalized = true;
 
     public FileData(@NotNull String filePath) {
       myFilePath = filePath;
     }
 
-    public void add(int startLine, int startColumn, int endLine, int endColumn, int statements, int hits) {
-      myRangesData.put(rangeKey(startLine, startColumn, endLine, endColumn),
-                       new RangeData(startLine, startColumn, endLine, endColumn, statements, hits));
+    public synchronized void add(int startLine, int startColumn, int endLine, int endColumn, int statements, int hits) {
+      if (mySize == myStartLines.length) {
+        resize(Math.max(16, mySize * 2));
+      }
+      if (myNormalized && mySize > 0) {
+        myNormalized = comparePosition(this, mySize - 1, startLine, startColumn, endLine, endColumn) < 0;
+      }
+      myStartLines[mySize] = startLine;
+      myStartColumns[mySize] = startColumn;
+      myEndLines[mySize] = endLine;
+      myEndColumns[mySize] = endColumn;
+      myStatements[mySize] = statements;
+      myHits[mySize] = hits;
+      mySize++;
+    }
+
+    public synchronized int size() {
+      normalize();
+      return mySize;
+    }
+
+    @NotNull
+    public synchronized int[] getStartLines() {
+      normalize();
+      return myStartLines;
+    }
+
+    @NotNull
+    public synchronized int[] getStartColumns() {
+      normalize();
+      return myStartColumns;
+    }
+
+    @NotNull
+    public synchronized int[] getEndLines() {
+      normalize();
+      return myEndLines;
+    }
+
+    @NotNull
+    public synchronized int[] getEndColumns() {
+      normalize();
+      return myEndColumns;
+    }
+
+    @NotNull
+    public synchronized int[] getStatements() {
+      normalize();
+      return myStatements;
+    }
+
+    @NotNull
+    public synchronized int[] getHits() {
+      normalize();
+      return myHits;
+    }
+
+    @NotNull
+    public synchronized RangeData getRange(int index) {
+      normalize();
+      return new RangeData(myStartLines[index], myStartColumns[index], myEndLines[index], myEndColumns[index],
+                           myStatements[index], myHits[index]);
+    }
+
+    /**
+     * Merges ranges of the same file from several profiles, hits of equal ranges are summed up. Files are kept in a heap
+     * ordered by their next ranges; the file on top copies all its ranges that precede the next range of the other files
+     * at once, the end of such a run is found with binary search.
+     */
+    @NotNull
+    static FileData merge(@NotNull String filePath, @NotNull List<FileData> files) {
+      int k = files.size();
+      int total = 0;
+      FileData[] heap = new FileData[k];
+      int[] cursors = new int[k];
+      int heapSize = 0;
+      for (FileData file : files) {
+        // normalizes the file, so its arrays can be read directly below
+        int size = file.size();
+        total += size;
+        if (size > 0) {
+          heap[heapSize++] = file;
+        }
+      }
+      FileData result = new FileData(filePath);
+      if (heapSize == 0) return result;
+      result.resize(total);
+      for (int i = heapSize / 2 - 1; i >= 0; i--) {
+        siftDown(heap, cursors, heapSize, i);
+      }
+
+      while (heapSize > 0) {
+        FileData file = heap[0];
+        int from = cursors[0];
+        int last = result.mySize - 1;
+        if (last >= 0 && comparePosition(result, last, file, from) == 0) {
+          result.myHits[last] += file.myHits[from];
+        }
+        else {
+          result.copy(file, from, from + 1);
+        }
+        int to = file.mySize;
+        if (heapSize > 1) {
+          int next = heapSize > 2 && comparePosition(heap[2], cursors[2], heap[1], cursors[1]) < 0 ? 2 : 1;
+          to = lowerBound(file, from + 1, to, heap[next], cursors[next]);
+        }
+        // ranges of the run are greater than the copied one and less than ranges of other files, so they're unique
+        result.copy(file, from + 1, to);
+        cursors[0] = to;
+        if (to == file.mySize) {
+          heapSize--;
+          heap[0] = heap[heapSize];
+          cursors[0] = cursors[heapSize];
+          heap[heapSize] = null;
+        }
+        siftDown(heap, cursors, heapSize, 0);
+      }
+      result.resize(result.mySize);
+      return result;
+    }
+
+    /**
+     * @return index of the first range of the file in {@code [from, to)} that isn't less than the range of another file
+     */
+    private static int lowerBound(@NotNull FileData file, int from, int to, @NotNull FileData other, int otherIndex) {
+      int low = from;
+      int high = to;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (comparePosition(file, middle, other, otherIndex) < 0) {
+          low = middle + 1;
+        }
+        else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private static void siftDown(@NotNull FileData[] heap, @NotNull int[] cursors, int heapSize, int index) {
+      while (true) {
+        int smallest = index;
+        for (int child = 2 * index + 1; child <= 2 * index + 2 && child < heapSize; child++) {
+          if (comparePosition(heap[child], cursors[child], heap[smallest], cursors[smallest]) < 0) {
+            smallest = child;
+          }
+        }
+        if (smallest == index) return;
+        FileData file = heap[index];
+        heap[index] = heap[smallest];
+        heap[smallest] = file;
+        int cursor = cursors[index];
+        cursors[index] = cursors[smallest];
+        cursors[smallest] = cursor;
+        index = smallest;
+      }
+    }
+
+    private void copy(@NotNull FileData from, int start, int end) {
+      int length = end - start;
+      if (length <= 0) return;
+      System.arraycopy(from.myStartLines, start, myStartLines, mySize, length);
+      System.arraycopy(from.myStartColumns, start, myStartColumns, mySize, length);
+      System.arraycopy(from.myEndLines, start, myEndLines, mySize, length);
+      System.arraycopy(from.myEndColumns, start, myEndColumns, mySize, length);
+      System.arraycopy(from.myStatements, start, myStatements, mySize, length);
+      System.arraycopy(from.myHits, start, myHits, mySize, length);
+      mySize += length;
+    }
+
+    private void resize(int capacity) {
+      if (myStartLines.length == capacity) return;
+      myStartLines = ArrayUtil.realloc(myStartLines, capacity);
+      myStartColumns = ArrayUtil.realloc(myStartColumns, capacity);
+      myEndLines = ArrayUtil.realloc(myEndLines, capacity);
+      myEndColumns = ArrayUtil.realloc(myEndColumns, capacity);
+      myStatements = ArrayUtil.realloc(myStatements, capacity);
+      myHits = ArrayUtil.realloc(myHits, capacity);
+    }
+
+    private void normalize() {
+      if (!myNormalized) {
+        sortAndRemoveDuplicates();
+        myNormalized = true;
+      }
+      resize(mySize);
+    }
+
+    private void sortAndRemoveDuplicates() {
+      int[] order = new int[mySize];
+      for (int i = 0; i < mySize; i++) order[i] = i;
+      // stable, so the last of equal ranges stays the last one
+      sort(order, new int[mySize], 0, mySize);
+      FileData sorted = new FileData(myFilePath);
+      sorted.resize(mySize);
+      for (int index : order) {
+        if (sorted.mySize > 0 && comparePosition(sorted, sorted.mySize - 1, this, index) == 0) {
+          sorted.mySize--;
+        }
+        sorted.copy(this, index, index + 1);
+      }
+      myStartLines = sorted.myStartLines;
+      myStartColumns = sorted.myStartColumns;
+      myEndLines = sorted.myEndLines;
+      myEndColumns = sorted.myEndColumns;
+      myStatements = sorted.myStatements;
+      myHits = sorted.myHits;
+      mySize = sorted.mySize;
+    }
+
+    private void sort(@NotNull int[] order, @NotNull int[] buffer, int from, int to) {
+      if (to - from < 2) return;
+      int middle = (from + to) >>> 1;
+      sort(order, buffer, from, middle);
+      sort(order, buffer, middle, to);
+      if (comparePosition(this, order[middle - 1], this, order[middle]) <= 0) return;
+      System.arraycopy(order, from, buffer, from, to - from);
+      int i = from, j = middle, k = from;
+      while (i < middle && j < to) {
+        order[k++] = comparePosition(this, buffer[j], this, buffer[i]) < 0 ? buffer[j++] : buffer[i++];
+      }
+      while (i < middle) order[k++] = buffer[i++];
+      while (j < to) order[k++] = buffer[j++];
+    }
+
+    private static int comparePosition(@NotNull FileData file, int index, int startLine, int startColumn, int endLine, int endColumn) {
+      int c = Integer.compare(file.myStartLines[index], startLine);
+      if (c == 0) c = Integer.compare(file.myStartColumns[index], startColumn);
+      if (c == 0) c = Integer.compare(file.myEndLines[index], endLine);
+      if (c == 0) c = Integer.compare(file.myEndColumns[index], endColumn);
+      return c;
+    }
+
+    private static int comparePosition(@NotNull FileData file1, int index1, @NotNull FileData file2, int index2) {
+      return comparePosition(file1, index1, file2.myStartLines[index2], file2.myStartColumns[index2],
+                             file2.myEndLines[index2], file2.myEndColumns[index2]);
     }
 
     @Override
@@ -124,13 +385,20 @@ public class GoCoverageProjectData extends ProjectData {
       FileData fileData = (FileData)o;
 
       if (!myFilePath.equals(fileData.myFilePath)) return false;
-      return myRangesData.equals(fileData.myRangesData);
+      if (!Arrays.equals(getStartLines(), fileData.getStartLines())) return false;
+      if (!Arrays.equals(getStartColumns(), fileData.getStartColumns())) return false;
+      if (!Arrays.equals(getEndLines(), fileData.getEndLines())) return false;
+      if (!Arrays.equals(getEndColumns(), fileData.getEndColumns())) return false;
+      if (!Arrays.equals(getStatements(), fileData.getStatements())) return false;
+      return Arrays.equals(getHits(), fileData.getHits());
     }
 
     @Override
     public int hashCode() {
       int result = myFilePath.hashCode();
-      result = 31 * result + myRangesData.hashCode();
+      result = 31 * result + Arrays.hashCode(getStartLines());
+      result = 31 * result + Arrays.hashCode(getEndLines());
+      result = 31 * result + Arrays.hashCode(getHits());
       return result;
     }
   }
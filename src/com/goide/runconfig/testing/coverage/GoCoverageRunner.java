@@ -27,17 +27,23 @@ import com.intellij.execution.configurations.RunConfigurationBase;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.rt.coverage.data.ClassData;
 import com.intellij.rt.coverage.data.LineData;
 import com.intellij.rt.coverage.data.ProjectData;
-import gnu.trove.TIntObjectHashMap;
+import com.intellij.util.Function;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.*;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
 
 public class GoCoverageRunner extends CoverageRunner {
   private static final Logger LOG = Logger.getInstance(GoCoverageRunner.class);
@@ -61,96 +67,113 @@ public class GoCoverageRunner extends CoverageRunner {
                     : null;
 
     try {
-      BufferedReader reader = new BufferedReader(new FileReader(sessionDataFile.getAbsolutePath()));
-      try {
-        return parseCoverage(reader, project, module);
-      }
-      catch (IOException e) {
-        LOG.warn(e);
-      }
-      finally {
-        try {
-          reader.close();
-        }
-        catch (IOException e) {
-          LOG.warn(e);
-        }
-      }
+      return parseCoverage(sessionDataFile, project, module);
     }
-    catch (FileNotFoundException e) {
+    catch (IOException e) {
       LOG.warn(e);
     }
 
     return null;
   }
 
+  /**
+   * Parses the profile and profiles of packages that were covered by separate {@code go test} runs,
+   * see {@link #getPackageProfilesDirectory(File)}.
+   */
   @Nullable
-  public static GoCoverageProjectData parseCoverage(@NotNull BufferedReader dataReader,
+  public static GoCoverageProjectData parseCoverage(@NotNull File dataFile,
                                                     @NotNull Project project,
                                                     @Nullable Module module) throws IOException {
+    Function<String, String> resolver = createFilePathResolver(project, module);
     GoCoverageProjectData result = new GoCoverageProjectData();
-    String line;
-
-    while ((line = dataReader.readLine()) != null) {
-      if (line.isEmpty()) continue;
-      List<String> fileNameTail = StringUtil.split(line, ":");
-      VirtualFile file = GoPackageUtil.findByImportPath(fileNameTail.get(0), project, module);
-      if (file == null) continue;
-      String filePath = file.getPath();
-
-      List<String> tailParts = StringUtil.split(fileNameTail.get(1), " ");
-      if (tailParts.size() != 3) continue;
-
-      int statements = Integer.parseInt(tailParts.get(1));
-      int hit = Integer.parseInt(tailParts.get(2));
+    new GoCoverageProfileParser(resolver, result).parse(dataFile);
+
+    File[] packageProfiles = getPackageProfilesDirectory(dataFile).listFiles();
+    if (packageProfiles != null && packageProfiles.length > 0) {
+      List<GoCoverageProjectData> profiles = ContainerUtil.newArrayListWithCapacity(packageProfiles.length);
+      for (File packageProfile : packageProfiles) {
+        GoCoverageProjectData profile = new GoCoverageProjectData();
+        new GoCoverageProfileParser(resolver, profile).parse(packageProfile);
+        profiles.add(profile);
+      }
+      result.mergeFiles(profiles);
+    }
+    fillLineData(result);
+    return result;
+  }
 
-      String offsets = tailParts.get(0);
-      int firstDot = offsets.indexOf('.');
-      int comma = offsets.indexOf(',', firstDot);
-      int secondDot = offsets.indexOf('.', comma);
-      if (firstDot == -1 || comma == -1 || secondDot == -1) continue;
+  /**
+   * Directory with profiles written by per-package runs of a coverage session, they're merged into the session profile
+   * on loading.
+   */
+  @NotNull
+  public static File getPackageProfilesDirectory(@NotNull File dataFile) {
+    return new File(dataFile.getPath() + ".packages");
+  }
 
-      int lineStart = Integer.parseInt(offsets.substring(0, firstDot));
-      int columnStart = Integer.parseInt(offsets.substring(firstDot + 1, comma));
-      int lineEnd = Integer.parseInt(offsets.substring(comma + 1, secondDot));
-      int columnEnd = Integer.parseInt(offsets.substring(secondDot + 1));
+  @Nullable
+  public static GoCoverageProjectData parseCoverage(@NotNull BufferedReader dataReader,
+                                                    @NotNull Project project,
+                                                    @Nullable Module module) throws IOException {
+    GoCoverageProjectData result = new GoCoverageProjectData();
+    byte[] bytes = FileUtil.loadTextAndClose(dataReader).getBytes(CharsetToolkit.UTF8_CHARSET);
+    new GoCoverageProfileParser(createFilePathResolver(project, module), result).parse(ByteBuffer.wrap(bytes), true);
+    fillLineData(result);
+    return result;
+  }
 
-      result.addData(filePath, lineStart, columnStart, lineEnd, columnEnd, statements, hit);
-    }
+  @NotNull
+  private static Function<String, String> createFilePathResolver(@NotNull Project project, @Nullable Module module) {
+    // shared by parsers of package profiles, so every import path is resolved once per session
+    Map<String, String> filePaths = ContainerUtil.newHashMap();
+    return importPath -> {
+      if (filePaths.containsKey(importPath)) {
+        return filePaths.get(importPath);
+      }
+      VirtualFile file = GoPackageUtil.findByImportPath(importPath, project, module);
+      String filePath = file != null ? file.getPath() : null;
+      filePaths.put(importPath, filePath);
+      return filePath;
+    };
+  }
 
+  private static void fillLineData(@NotNull GoCoverageProjectData result) {
     result.processFiles(fileData -> {
       ClassData classData = result.getOrCreateClassData(fileData.myFilePath);
+      int size = fileData.size();
+      int[] startLines = fileData.getStartLines();
+      int[] endLines = fileData.getEndLines();
+      int[] hits = fileData.getHits();
       int max = -1;
-      TIntObjectHashMap<LineData> linesMap = new TIntObjectHashMap<>();
-      for (GoCoverageProjectData.RangeData rangeData : fileData.myRangesData.values()) {
-        for (int i = rangeData.startLine; i <= rangeData.endLine; i++) {
-          LineData existingData = linesMap.get(i);
+      for (int i = 0; i < size; i++) {
+        max = Math.max(max, endLines[i]);
+      }
+
+      LineData[] linesArray = new LineData[max + 1];
+      for (int i = 0; i < size; i++) {
+        for (int line = startLines[i]; line <= endLines[i]; line++) {
+          LineData existingData = linesArray[line];
           if (existingData != null) {
-            existingData.setHits(existingData.getHits() + rangeData.hits);
+            existingData.setHits(existingData.getHits() + hits[i]);
             // emulate partial
             existingData.setFalseHits(0, 0);
             existingData.setTrueHits(0, 0);
           }
           else {
-            LineData newData = new LineData(i, null);
-            newData.setHits(newData.getHits() + rangeData.hits);
-            linesMap.put(i, newData);
+            LineData newData = new LineData(line, null);
+            newData.setHits(hits[i]);
+            linesArray[line] = newData;
           }
         }
-        max = Math.max(max, rangeData.endLine);
       }
-
-      LineData[] linesArray = new LineData[max + 1];
-      linesMap.forEachValue(data -> {
-        data.fillArrays();
-        linesArray[data.getLineNumber()] = data;
-        return true;
-      });
+      for (LineData data : linesArray) {
+        if (data != null) {
+          data.fillArrays();
+        }
+      }
       classData.setLines(linesArray);
       return true;
     });
-
-    return result;
   }
 
   @Override
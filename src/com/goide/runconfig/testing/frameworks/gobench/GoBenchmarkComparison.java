@@ -0,0 +1,245 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.frameworks.gobench;
+
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Comparison of samples of a benchmark metric from two runs, the way benchstat compares them: means of samples, their
+ * delta and the p-value of the two-sided Mann-Whitney U test. A difference is significant if the p-value is below
+ * {@link #ALPHA}, so several samples of each run are needed, e.g. {@code -count=5} gives at least p=0.008.
+ */
+public class GoBenchmarkComparison {
+  public static final double ALPHA = 0.05;
+  private static final String[] METRICS = {GoBenchmarkResult.NS_PER_OP, GoBenchmarkResult.BYTES_PER_OP,
+    GoBenchmarkResult.ALLOCS_PER_OP, GoBenchmarkResult.MB_PER_S};
+  // exact distribution of U is computed for samples up to this size, normal approximation is used for bigger ones
+  private static final int MAX_EXACT_SAMPLES = 50;
+
+  @NotNull private final String myUnit;
+  private final double myOldMean;
+  private final double myNewMean;
+  private final int myOldCount;
+  private final int myNewCount;
+  private final double myPValue;
+
+  private GoBenchmarkComparison(@NotNull String unit, @NotNull double[] oldValues, @NotNull double[] newValues) {
+    myUnit = unit;
+    myOldMean = mean(oldValues);
+    myNewMean = mean(newValues);
+    myOldCount = oldValues.length;
+    myNewCount = newValues.length;
+    myPValue = mannWhitneyPValue(oldValues, newValues);
+  }
+
+  /**
+   * @return comparisons of metrics measured in both runs
+   */
+  @NotNull
+  public static List<GoBenchmarkComparison> compare(@NotNull List<GoBenchmarkResult> oldResults,
+                                                    @NotNull List<GoBenchmarkResult> newResults) {
+    List<GoBenchmarkComparison> result = ContainerUtil.newSmartList();
+    for (String unit : METRICS) {
+      double[] oldValues = values(oldResults, unit);
+      double[] newValues = values(newResults, unit);
+      if (oldValues != null && newValues != null) {
+        result.add(new GoBenchmarkComparison(unit, oldValues, newValues));
+      }
+    }
+    return result;
+  }
+
+  @Nullable
+  private static double[] values(@NotNull List<GoBenchmarkResult> results, @NotNull String unit) {
+    double[] values = new double[results.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = results.get(i).getMetric(unit);
+      if (values[i] < 0) return null;
+    }
+    return values.length > 0 ? values : null;
+  }
+
+  @NotNull
+  public String getUnit() {
+    return myUnit;
+  }
+
+  public double getPValue() {
+    return myPValue;
+  }
+
+  /**
+   * @return relative change of the mean, e.g. 0.1 for 10% growth, or NaN if the old mean is zero
+   */
+  public double getDelta() {
+    return myOldMean != 0 ? (myNewMean - myOldMean) / myOldMean : myNewMean == 0 ? 0 : Double.NaN;
+  }
+
+  public boolean isSignificant() {
+    return myPValue < ALPHA;
+  }
+
+  /**
+   * @return whether the metric got significantly worse: more time, memory or allocations per operation, or lower speed
+   */
+  public boolean isRegression() {
+    if (!isSignificant()) return false;
+    return GoBenchmarkResult.MB_PER_S.equals(myUnit) ? myNewMean < myOldMean : myNewMean > myOldMean;
+  }
+
+  @Override
+  public String toString() {
+    double delta = getDelta();
+    String change = !isSignificant() ? "~" : Double.isNaN(delta) ? "?" : String.format(Locale.US, "%+.2f%%", delta * 100);
+    return String.format(Locale.US, "%s: %s -> %s (%s, p=%.3f n=%d+%d)", myUnit, format(myOldMean), format(myNewMean), change,
+                         myPValue, myOldCount, myNewCount);
+  }
+
+  @NotNull
+  private static String format(double value) {
+    return value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long)value) : String.format(Locale.US, "%.4g", value);
+  }
+
+  private static double mean(@NotNull double[] values) {
+    double sum = 0;
+    for (double value : values) {
+      sum += value;
+    }
+    return sum / values.length;
+  }
+
+  /**
+   * Two-sided p-value of the Mann-Whitney U test. Exact for small samples without ties, otherwise the normal
+   * approximation with tie and continuity corrections.
+   */
+  static double mannWhitneyPValue(@NotNull double[] x, @NotNull double[] y) {
+    int n1 = x.length;
+    int n2 = y.length;
+    if (n1 == 0 || n2 == 0) return 1;
+
+    // ranks of the pooled samples, tied values get the average of their ranks
+    double[] pooled = new double[n1 + n2];
+    System.arraycopy(x, 0, pooled, 0, n1);
+    System.arraycopy(y, 0, pooled, n1, n2);
+    double[] sorted = pooled.clone();
+    Arrays.sort(sorted);
+    double rankSum = 0;
+    for (double value : x) {
+      int first = lowerBound(sorted, value);
+      int last = upperBound(sorted, value);
+      rankSum += (first + 1 + last) / 2.0;
+    }
+    double tieCorrection = 0;
+    boolean ties = false;
+    for (int i = 0; i < sorted.length; ) {
+      int j = upperBound(sorted, sorted[i]);
+      int t = j - i;
+      if (t > 1) {
+        ties = true;
+        tieCorrection += (double)t * t * t - t;
+      }
+      i = j;
+    }
+    double u = rankSum - n1 * (n1 + 1) / 2.0;
+
+    if (!ties && n1 + n2 <= MAX_EXACT_SAMPLES) {
+      double[] distribution = uDistribution(n1, n2);
+      double lower = 0;
+      double upper = 0;
+      double total = 0;
+      for (int i = 0; i < distribution.length; i++) {
+        total += distribution[i];
+        if (i <= u) lower += distribution[i];
+        if (i >= u) upper += distribution[i];
+      }
+      return Math.min(1, 2 * Math.min(lower, upper) / total);
+    }
+
+    int n = n1 + n2;
+    double mean = n1 * n2 / 2.0;
+    double variance = n1 * n2 / 12.0 * ((n + 1) - tieCorrection / ((double)n * (n - 1)));
+    if (variance <= 0) return 1;
+    double z = (Math.abs(u - mean) - 0.5) / Math.sqrt(variance);
+    return Math.min(1, 2 * (1 - normalCdf(Math.max(0, z))));
+  }
+
+  /**
+   * @return number of arrangements of samples of sizes {@code n1} and {@code n2} for every value of U
+   */
+  @NotNull
+  private static double[] uDistribution(int n1, int n2) {
+    // counts[j][u] for the current i: arrangements of i and j values with the statistic u
+    double[][] counts = new double[n2 + 1][];
+    for (int j = 0; j <= n2; j++) {
+      counts[j] = new double[]{1};
+    }
+    for (int i = 1; i <= n1; i++) {
+      double[][] next = new double[n2 + 1][];
+      next[0] = new double[]{1};
+      for (int j = 1; j <= n2; j++) {
+        // the biggest value is either from the first sample, it then exceeds all j values of the second one, or not
+        double[] withFirst = counts[j];
+        double[] withSecond = next[j - 1];
+        double[] sum = new double[i * j + 1];
+        for (int k = 0; k < withFirst.length; k++) sum[k + j] += withFirst[k];
+        for (int k = 0; k < withSecond.length; k++) sum[k] += withSecond[k];
+        next[j] = sum;
+      }
+      counts = next;
+    }
+    return counts[n2];
+  }
+
+  private static double normalCdf(double z) {
+    return 0.5 * (1 + erf(z / Math.sqrt(2)));
+  }
+
+  // Abramowitz and Stegun 7.1.26, absolute error below 1.5e-7
+  private static double erf(double x) {
+    double t = 1 / (1 + 0.3275911 * Math.abs(x));
+    double y = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429)))) * Math.exp(-x * x);
+    return x >= 0 ? y : -y;
+  }
+
+  private static int lowerBound(@NotNull double[] sorted, double value) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] < value) low = mid + 1;
+      else high = mid;
+    }
+    return low;
+  }
+
+  private static int upperBound(@NotNull double[] sorted, double value) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] <= value) low = mid + 1;
+      else high = mid;
+    }
+    return low;
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.frameworks.gobench;
+
+import com.intellij.openapi.components.*;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.xmlb.annotations.Tag;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of recent benchmark runs by run configurations, along with the baseline run of every configuration that
+ * later runs are compared with.
+ */
+@State(name = "GoBenchmarkHistory", storages = @Storage(file = StoragePathMacros.WORKSPACE_FILE))
+public class GoBenchmarkHistory implements PersistentStateComponent<GoBenchmarkHistory.State> {
+  private static final int MAX_RUNS = 10;
+  private static final int MAX_CONFIGURATIONS = 100;
+
+  // least recently run configurations come first
+  private final Map<String, ConfigurationRuns> myConfigurations = ContainerUtil.newLinkedHashMap();
+
+  public static GoBenchmarkHistory getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, GoBenchmarkHistory.class);
+  }
+
+  /**
+   * Starts a run of the configuration. The run is recorded once it has results, so a run that failed to compile doesn't
+   * replace the previous ones.
+   *
+   * @param baseline whether the run becomes the baseline of the configuration
+   */
+  @NotNull
+  public Run startRun(@NotNull String configurationName, boolean baseline) {
+    Run run = new Run();
+    run.timestamp = System.currentTimeMillis();
+    run.myConfigurationName = configurationName;
+    run.myBaseline = baseline;
+    run.myHistory = this;
+    return run;
+  }
+
+  /**
+   * @return results of the baseline run of the configuration by benchmark names
+   */
+  @NotNull
+  public synchronized Map<String, List<GoBenchmarkResult>> getBaseline(@NotNull String configurationName) {
+    ConfigurationRuns runs = myConfigurations.get(configurationName);
+    return runs != null && runs.baseline != null ? runs.baseline.getResults() : ContainerUtil.newHashMap();
+  }
+
+  @NotNull
+  public synchronized List<Run> getRuns(@NotNull String configurationName) {
+    ConfigurationRuns runs = myConfigurations.get(configurationName);
+    return runs != null ? ContainerUtil.newArrayList(runs.runs) : ContainerUtil.newArrayList();
+  }
+
+  private synchronized void addResult(@NotNull Run run, @NotNull GoBenchmarkResult result) {
+    if (run.results.isEmpty()) {
+      ConfigurationRuns runs = myConfigurations.remove(run.myConfigurationName);
+      if (runs == null) {
+        runs = new ConfigurationRuns();
+        runs.name = run.myConfigurationName;
+      }
+      runs.runs.add(run);
+      if (runs.runs.size() > MAX_RUNS) {
+        runs.runs.remove(0);
+      }
+      if (run.myBaseline) {
+        runs.baseline = run;
+      }
+      myConfigurations.put(run.myConfigurationName, runs);
+      if (myConfigurations.size() > MAX_CONFIGURATIONS) {
+        myConfigurations.remove(myConfigurations.keySet().iterator().next());
+      }
+    }
+    run.results.add(result);
+  }
+
+  @NotNull
+  @Override
+  public synchronized State getState() {
+    State state = new State();
+    for (ConfigurationRuns runs : myConfigurations.values()) {
+      state.configurations.add(runs.copy());
+    }
+    return state;
+  }
+
+  @Override
+  public synchronized void loadState(State state) {
+    myConfigurations.clear();
+    if (state.configurations != null) {
+      for (ConfigurationRuns runs : state.configurations) {
+        if (runs.name != null) {
+          myConfigurations.put(runs.name, runs);
+        }
+      }
+    }
+  }
+
+  public static class State {
+    public List<ConfigurationRuns> configurations = ContainerUtil.newArrayList();
+  }
+
+  @Tag("configuration")
+  public static class ConfigurationRuns {
+    public String name;
+    public Run baseline;
+    public List<Run> runs = ContainerUtil.newArrayList();
+
+    @NotNull
+    private ConfigurationRuns copy() {
+      ConfigurationRuns copy = new ConfigurationRuns();
+      copy.name = name;
+      copy.baseline = baseline != null ? baseline.copy() : null;
+      copy.runs = ContainerUtil.newArrayList(ContainerUtil.map(runs, Run::copy));
+      return copy;
+    }
+  }
+
+  @Tag("run")
+  public static class Run {
+    public long timestamp;
+    public List<GoBenchmarkResult> results = ContainerUtil.newArrayList();
+
+    private String myConfigurationName;
+    private boolean myBaseline;
+    private GoBenchmarkHistory myHistory;
+
+    public void addResult(@NotNull GoBenchmarkResult result) {
+      if (myHistory != null) {
+        myHistory.addResult(this, result);
+      }
+    }
+
+    /**
+     * @return results by benchmark names, a benchmark has several results if it was run with {@code -count}
+     */
+    @NotNull
+    public Map<String, List<GoBenchmarkResult>> getResults() {
+      Map<String, List<GoBenchmarkResult>> result = ContainerUtil.newLinkedHashMap();
+      for (GoBenchmarkResult benchmark : getResultList()) {
+        if (benchmark.name != null) {
+          List<GoBenchmarkResult> samples = result.get(benchmark.name);
+          if (samples == null) {
+            samples = ContainerUtil.newSmartList();
+            result.put(benchmark.name, samples);
+          }
+          samples.add(benchmark);
+        }
+      }
+      return result;
+    }
+
+    /**
+     * @return copy of the results, taken under the lock of the history while the run may still get results
+     */
+    @NotNull
+    private List<GoBenchmarkResult> getResultList() {
+      GoBenchmarkHistory history = myHistory;
+      if (history == null) {
+        return ContainerUtil.newArrayList(results);
+      }
+      synchronized (history) {
+        return ContainerUtil.newArrayList(results);
+      }
+    }
+
+    @NotNull
+    private Run copy() {
+      Run copy = new Run();
+      copy.timestamp = timestamp;
+      copy.results = getResultList();
+      return copy;
+    }
+  }
+}
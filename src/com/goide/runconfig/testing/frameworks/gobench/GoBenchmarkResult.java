@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.frameworks.gobench;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.xmlb.annotations.Tag;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A measurement of a benchmark as {@code go test -bench} prints it, e.g.
+ * {@code 2000000  612 ns/op  32.75 MB/s  64 B/op  2 allocs/op}. Metrics that weren't printed are negative.
+ */
+@Tag("benchmark")
+public class GoBenchmarkResult {
+  public static final String NS_PER_OP = "ns/op";
+  public static final String BYTES_PER_OP = "B/op";
+  public static final String ALLOCS_PER_OP = "allocs/op";
+  public static final String MB_PER_S = "MB/s";
+
+  public String name;
+  public long iterations;
+  public double nsPerOp = -1;
+  public double bytesPerOp = -1;
+  public double allocsPerOp = -1;
+  public double mbPerSec = -1;
+
+  @SuppressWarnings("unused")
+  public GoBenchmarkResult() {
+  }
+
+  public GoBenchmarkResult(@NotNull String name, long iterations) {
+    this.name = name;
+    this.iterations = iterations;
+  }
+
+  /**
+   * @param text measurement that follows benchmark name in {@code go test} output
+   * @return null if the text is not a measurement
+   */
+  @Nullable
+  public static GoBenchmarkResult parse(@NotNull String name, @NotNull String text) {
+    String[] tokens = text.trim().split("\\s+");
+    if (tokens.length < 3) return null;
+    long iterations = StringUtil.parseLong(tokens[0], -1);
+    if (iterations <= 0) return null;
+    GoBenchmarkResult result = new GoBenchmarkResult(name, iterations);
+    for (int i = 1; i + 1 < tokens.length; i += 2) {
+      double value;
+      try {
+        value = Double.parseDouble(tokens[i]);
+      }
+      catch (NumberFormatException e) {
+        return null;
+      }
+      // custom metrics reported with b.ReportMetric are skipped
+      result.setMetric(tokens[i + 1], value);
+    }
+    return result.nsPerOp >= 0 ? result : null;
+  }
+
+  /**
+   * @return value of the metric with the given unit, or a negative value if it wasn't measured
+   */
+  public double getMetric(@NotNull String unit) {
+    switch (unit) {
+      case NS_PER_OP:
+        return nsPerOp;
+      case BYTES_PER_OP:
+        return bytesPerOp;
+      case ALLOCS_PER_OP:
+        return allocsPerOp;
+      case MB_PER_S:
+        return mbPerSec;
+      default:
+        return -1;
+    }
+  }
+
+  private void setMetric(@NotNull String unit, double value) {
+    switch (unit) {
+      case NS_PER_OP:
+        nsPerOp = value;
+        break;
+      case BYTES_PER_OP:
+        bytesPerOp = value;
+        break;
+      case ALLOCS_PER_OP:
+        allocsPerOp = value;
+        break;
+      case MB_PER_S:
+        mbPerSec = value;
+        break;
+    }
+  }
+}
@@ -16,38 +16,73 @@
 
 package com.goide.runconfig.testing.frameworks.gobench;
 
-import com.goide.GoConstants;
+import com.goide.runconfig.testing.GoTestOutputScanner;
+import com.goide.runconfig.testing.GoTestRunConfiguration;
 import com.goide.runconfig.testing.frameworks.gotest.GoTestEventsConverterBaseImpl;
+import com.intellij.execution.configurations.RunProfile;
+import com.intellij.execution.process.ProcessOutputTypes;
 import com.intellij.execution.testframework.TestConsoleProperties;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.ContainerUtil;
 import jetbrains.buildServer.messages.serviceMessages.ServiceMessageVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.text.ParseException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 public class GobenchEventsConverter extends GoTestEventsConverterBaseImpl {
-  private static final Pattern RUN = Pattern.compile("^(Benchmark(" + GoConstants.TEST_NAME_REGEX + ")?)");
-  private static final Pattern FAIL = Pattern.compile("^--- FAIL: (Benchmark(" + GoConstants.TEST_NAME_REGEX + ")?).*");
+  private final GoTestOutputScanner myScanner = new GoTestOutputScanner();
+  @Nullable private final GoBenchmarkHistory.Run myRun;
+  @NotNull private final Map<String, List<GoBenchmarkResult>> myBaseline;
+  @NotNull private final Map<String, List<GoBenchmarkResult>> myResults = ContainerUtil.newHashMap();
 
   public GobenchEventsConverter(@NotNull TestConsoleProperties properties) {
     super(GobenchFramework.NAME, properties);
+    RunProfile configuration = properties.getConfiguration();
+    Project project = properties.getProject();
+    if (configuration instanceof GoTestRunConfiguration && !project.isDisposed()) {
+      GoBenchmarkHistory history = GoBenchmarkHistory.getInstance(project);
+      String name = configuration.getName();
+      boolean compare = ((GoTestRunConfiguration)configuration).isCompareWithBaseline();
+      myBaseline = compare ? history.getBaseline(name) : Collections.emptyMap();
+      myRun = history.startRun(name, !compare);
+    }
+    else {
+      myBaseline = Collections.emptyMap();
+      myRun = null;
+    }
   }
 
   @Override
   protected int processLine(@NotNull String line, int start, Key outputType, ServiceMessageVisitor visitor) throws ParseException {
-    Matcher matcher;
-    if ((matcher = RUN.matcher(line)).find(start)) {
-      startTest(matcher.group(1), visitor);
-      int newStartOffset = findFirstNonWSIndex(line, matcher.end(1));
+    String currentTestName = getCurrentTestName();
+    if (currentTestName != null && start < line.length() && Character.isDigit(line.charAt(start))) {
+      GoBenchmarkResult result = GoBenchmarkResult.parse(currentTestName, line.substring(start));
+      if (result != null) {
+        List<GoBenchmarkResult> results = myResults.get(currentTestName);
+        if (results == null) {
+          results = ContainerUtil.newSmartList();
+          myResults.put(currentTestName, results);
+        }
+        results.add(result);
+        if (myRun != null) {
+          myRun.addResult(result);
+        }
+      }
+    }
+    if (myScanner.scanBenchmarkStart(line, start)) {
+      startTest(myScanner.getName(line), visitor);
+      int newStartOffset = findFirstNonWSIndex(line, myScanner.getNameEnd());
       return newStartOffset != -1 ? newStartOffset : line.length();
     }
-    if ((matcher = FAIL.matcher(line.substring(start))).find()) {
-      finishTest(matcher.group(1), TestResult.FAILED, visitor);
-      int newStartOffset = findFirstNonWSIndex(line, start + matcher.end(1));
+    if (myScanner.scanBenchmarkFailure(line, start)) {
+      finishTest(myScanner.getName(line), TestResult.FAILED, visitor);
+      int newStartOffset = findFirstNonWSIndex(line, myScanner.getNameEnd());
       return newStartOffset != -1 ? newStartOffset : line.length();
     }
     return start;
@@ -63,6 +98,28 @@ public class GobenchEventsConverter extends GoTestEventsConverterBaseImpl {
     super.startTest(testName, visitor);
   }
 
+  /**
+   * Compares results of the benchmark with the baseline, significant regressions fail the benchmark.
+   */
+  @Nullable
+  @Override
+  protected String beforeTestFinished(@NotNull String name, @NotNull TestResult result, @Nullable ServiceMessageVisitor visitor)
+    throws ParseException {
+    List<GoBenchmarkResult> baseline = myBaseline.get(name);
+    List<GoBenchmarkResult> results = myResults.get(name);
+    if (baseline == null || results == null) return null;
+    List<String> regressions = ContainerUtil.newSmartList();
+    StringBuilder comparison = new StringBuilder();
+    for (GoBenchmarkComparison metric : GoBenchmarkComparison.compare(baseline, results)) {
+      comparison.append(metric).append('\n');
+      if (metric.isRegression()) {
+        regressions.add(metric.toString());
+      }
+    }
+    processOutput(comparison.toString(), ProcessOutputTypes.STDOUT, visitor);
+    return regressions.isEmpty() ? null : "Regression against baseline: " + StringUtil.join(regressions, ", ");
+  }
+
   private static int findFirstNonWSIndex(@NotNull String text, int startOffset) {
     int whitespaceIndex = StringUtil.indexOfAny(text, " \t", startOffset, text.length());
     if (whitespaceIndex != -1) {
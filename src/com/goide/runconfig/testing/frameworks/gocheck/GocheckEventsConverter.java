@@ -17,7 +17,9 @@
 package com.goide.runconfig.testing.frameworks.gocheck;
 
 import com.goide.runconfig.testing.GoTestEventsConverterBase;
+import com.goide.runconfig.testing.GoTestHistoryRecorder;
 import com.goide.runconfig.testing.GoTestLocator;
+import com.goide.runconfig.testing.GoTestOutputScanner;
 import com.intellij.execution.testframework.TestConsoleProperties;
 import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
 import com.intellij.execution.testframework.sm.runner.OutputToGeneralTestEventsConverter;
@@ -60,26 +62,20 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
     TEST_TEARDOWN
   }
 
-  private static final Pattern SUITE_START = Pattern.compile("=== RUN (.+)\\s*$");
-  private static final Pattern SUITE_END = Pattern.compile("((PASS)|(FAIL))\\s*$");
-  private static final Pattern TEST_START = Pattern.compile("(.*)START: [^:]+:\\d+: ([^\\s]+)\\s*$");
-  private static final Pattern TEST_PASSED = Pattern.compile("(.*)PASS: [^:]+:\\d+: ([^\\s]+)\\t[^\\s]+\\s*$");
-  private static final Pattern TEST_FAILED = Pattern.compile("(.*)FAIL: [^:]+:\\d+: ([^\\s]+)\\s*$");
-  private static final Pattern TEST_PANICKED = Pattern.compile("(.*)PANIC: [^:]+:\\d+: ([^\\s]+)\\s*$");
-  private static final Pattern TEST_MISSED = Pattern.compile("(.*)MISS: [^:]+:\\d+: ([^\\s]+)\\s*$");
-  private static final Pattern TEST_SKIPPED = Pattern.compile("(.*)SKIP: [^:]+:\\d+: ([^\\s]+)( \\(.*\\))?\\s*$");
   private static final Pattern ERROR_LOCATION = Pattern.compile("(.*:\\d+):\\s*$");
   private static final Pattern ERROR_ACTUAL = Pattern.compile("\\.\\.\\. ((obtained)|(value)) (.*?)( \\+)?\\s*$");
   private static final Pattern ERROR_EXPECTED = Pattern.compile("\\.\\.\\. ((expected)|(regex)) (.*?)( \\+)?\\s*$");
   private static final Pattern ERROR_CONTINUATION = Pattern.compile("\\.\\.\\. {5}(.*?)( +\\+)?\\s*$");
   private static final Pattern PANIC_VALUE = Pattern.compile("(.*)\\.\\.\\. (Panic: .* \\(.*\\)\\s*)$");
 
+  private final GoTestOutputScanner myScanner = new GoTestOutputScanner();
   private Scope myScope = Scope.GLOBAL;
   private String mySuiteName;
   private String myTestName;
   private long myCurrentTestStart;
   private TestResult myFixtureFailure;
   private List<String> myStdOut;
+  @NotNull private final GoTestHistoryRecorder myHistoryRecorder;
 
   private enum Status {
     PASSED, FAILED, PANICKED, MISSED, SKIPPED
@@ -112,24 +108,24 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
 
   public GocheckEventsConverter(@NotNull TestConsoleProperties consoleProperties) {
     super(FRAMEWORK_NAME, consoleProperties);
+    myHistoryRecorder = new GoTestHistoryRecorder(consoleProperties.getProject());
   }
 
   @Override
   public boolean processServiceMessages(@NotNull String text, Key outputType, ServiceMessageVisitor visitor) throws ParseException {
-    Matcher matcher;
-
     switch (myScope) {
       case GLOBAL:
-        if (SUITE_START.matcher(text).matches()) {
+        myHistoryRecorder.processLine(text);
+        if (GoTestOutputScanner.isGocheckSuiteStart(text)) {
           myScope = Scope.SUITE;
           return true;
         }
         break;
 
       case SUITE:
-        if ((matcher = TEST_START.matcher(text)).matches()) {
+        if (myScanner.scanGocheckResult(text, "START: ", GoTestOutputScanner.GocheckTail.NONE)) {
           myStdOut = ContainerUtil.newArrayList();
-          myTestName = matcher.group(2);
+          myTestName = myScanner.getName(text);
           processTestSectionStart(myTestName, outputType, visitor);
           if (myTestName.endsWith(".SetUpSuite")) {
             myScope = Scope.SUITE_SETUP;
@@ -142,7 +138,7 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
           myScope = Scope.TEST;
           return processTestStarted(myTestName, outputType, visitor);
         }
-        if (SUITE_END.matcher(text).matches()) {
+        if (GoTestOutputScanner.isGocheckSuiteEnd(text)) {
           myScope = Scope.GLOBAL;
           if (mySuiteName != null) {
             String suiteFinishedMsg = ServiceMessageBuilder.testSuiteFinished(mySuiteName).toString();
@@ -172,12 +168,12 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
         break;
 
       case TEST:
-        if ((matcher = TEST_START.matcher(text)).matches()) {
-          String stdOutLeftover = matcher.group(1);
+        if (myScanner.scanGocheckResult(text, "START: ", GoTestOutputScanner.GocheckTail.NONE)) {
+          String stdOutLeftover = text.substring(0, myScanner.getEventStart());
           if (!StringUtil.isEmptyOrSpaces(stdOutLeftover)) {
             myStdOut.add(stdOutLeftover);
           }
-          String testName = matcher.group(2);
+          String testName = myScanner.getName(text);
           if (testName.endsWith(".SetUpTest")) {
             myScope = Scope.TEST_SETUP;
             return true;
@@ -235,28 +231,27 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
 
   @Nullable
   private TestResult detectTestResult(String text, boolean parseDetails) {
-    Matcher matcher;
-    if ((matcher = TEST_PASSED.matcher(text)).matches()) {
-      myStdOut.add(StringUtil.notNullize(matcher.group(1)).trim());
+    if (myScanner.scanGocheckResult(text, "PASS: ", GoTestOutputScanner.GocheckTail.DURATION)) {
+      myStdOut.add(text.substring(0, myScanner.getEventStart()).trim());
       return new TestResult(Status.PASSED);
     }
-    if ((matcher = TEST_MISSED.matcher(text)).matches()) {
-      myStdOut.add(StringUtil.notNullize(matcher.group(1)).trim());
+    if (myScanner.scanGocheckResult(text, "MISS: ", GoTestOutputScanner.GocheckTail.NONE)) {
+      myStdOut.add(text.substring(0, myScanner.getEventStart()).trim());
       return new TestResult(Status.MISSED);
     }
-    if ((matcher = TEST_SKIPPED.matcher(text)).matches()) {
-      myStdOut.add(StringUtil.notNullize(matcher.group(1)).trim());
+    if (myScanner.scanGocheckResult(text, "SKIP: ", GoTestOutputScanner.GocheckTail.REASON)) {
+      myStdOut.add(text.substring(0, myScanner.getEventStart()).trim());
       return new TestResult(Status.SKIPPED);
     }
-    if ((matcher = TEST_FAILED.matcher(text)).matches()) {
-      myStdOut.add(StringUtil.notNullize(matcher.group(1)).trim());
+    if (myScanner.scanGocheckResult(text, "FAIL: ", GoTestOutputScanner.GocheckTail.NONE)) {
+      myStdOut.add(text.substring(0, myScanner.getEventStart()).trim());
       if (parseDetails) {
         return new TestResult(Status.FAILED, parseFailureAttributes());
       }
       return new TestResult(Status.FAILED);
     }
-    if ((matcher = TEST_PANICKED.matcher(text)).matches()) {
-      myStdOut.add(StringUtil.notNullize(matcher.group(1)).trim());
+    if (myScanner.scanGocheckResult(text, "PANIC: ", GoTestOutputScanner.GocheckTail.NONE)) {
+      myStdOut.add(text.substring(0, myScanner.getEventStart()).trim());
       if (parseDetails) {
         return new TestResult(Status.PANICKED, parsePanickedAttributes());
       }
@@ -299,11 +294,16 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
       default:
         throw new RuntimeException("Unexpected test result: " + testResult);
     }
+    myHistoryRecorder.testFinished(myTestName, isFailed(testResult.getStatus()));
     long duration = System.currentTimeMillis() - myCurrentTestStart;
     String testFinishedMsg = ServiceMessageBuilder.testFinished(myTestName).addAttribute("duration", Long.toString(duration)).toString();
     super.processServiceMessages(testFinishedMsg, outputType, visitor);
   }
 
+  private static boolean isFailed(@NotNull Status status) {
+    return status != Status.PASSED && status != Status.MISSED && status != Status.SKIPPED;
+  }
+
   private void processStdOut(@NotNull String testName, Key outputType, ServiceMessageVisitor visitor) throws ParseException {
     if (myStdOut == null) {
       return;
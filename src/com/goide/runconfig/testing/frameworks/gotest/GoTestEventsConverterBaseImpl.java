@@ -17,6 +17,7 @@
 package com.goide.runconfig.testing.frameworks.gotest;
 
 import com.goide.runconfig.testing.GoTestEventsConverterBase;
+import com.goide.runconfig.testing.GoTestHistoryRecorder;
 import com.goide.runconfig.testing.GoTestLocator;
 import com.intellij.execution.process.ProcessOutputTypes;
 import com.intellij.execution.testframework.TestConsoleProperties;
@@ -41,9 +42,11 @@ public abstract class GoTestEventsConverterBaseImpl extends OutputToGeneralTestE
   @Nullable
   private TestResult myCurrentTestResult;
   private long myCurrentTestStart;
+  @NotNull private final GoTestHistoryRecorder myHistoryRecorder;
 
   public GoTestEventsConverterBaseImpl(@NotNull String testFrameworkName, @NotNull TestConsoleProperties consoleProperties) {
     super(testFrameworkName, consoleProperties);
+    myHistoryRecorder = new GoTestHistoryRecorder(consoleProperties.getProject());
   }
 
   protected abstract int processLine(@NotNull String line, int start, Key outputType, ServiceMessageVisitor visitor)
@@ -62,6 +65,7 @@ public abstract class GoTestEventsConverterBaseImpl extends OutputToGeneralTestE
     if (text.isEmpty()) {
       return true;
     }
+    myHistoryRecorder.processLine(text);
 
     int startOffset = 0;
     int newStartOffset = processLine(text, startOffset, outputType, visitor);
@@ -155,19 +159,36 @@ public abstract class GoTestEventsConverterBaseImpl extends OutputToGeneralTestE
     return testName.equals(myCurrentTestName);
   }
 
+  /**
+   * Called before a test is reported finished, output processed here still goes to the test.
+   *
+   * @return message to report a passed test failed with, or null
+   */
+  @Nullable
+  protected String beforeTestFinished(@NotNull String name, @NotNull TestResult result, @Nullable ServiceMessageVisitor visitor)
+    throws ParseException {
+    return null;
+  }
+
   private void finishTestInner(@NotNull String name,
                                @NotNull TestResult result,
                                @Nullable ServiceMessageVisitor visitor) throws ParseException {
+    String failureMessage = beforeTestFinished(name, result, visitor);
+    if (failureMessage != null && result == TestResult.PASSED) {
+      result = TestResult.FAILED;
+    }
     if (isCurrentlyRunningTest(name)) {
       myCurrentTestName = null;
       myCurrentTestResult = null;
     }
     String duration = myCurrentTestStart > 0 ? Long.toString(System.currentTimeMillis() - myCurrentTestStart) : null;
+    myHistoryRecorder.testFinished(name, result == TestResult.FAILED);
     switch (result) {
       case PASSED:
         break;
       case FAILED:
-        String failedMessage = ServiceMessageBuilder.testFailed(name).addAttribute("message", "").toString();
+        String failedMessage = ServiceMessageBuilder.testFailed(name).addAttribute("message", StringUtil.notNullize(failureMessage))
+          .toString();
         super.processServiceMessages(failedMessage, null, visitor);
         break;
       case SKIPPED:
@@ -16,22 +16,16 @@
 
 package com.goide.runconfig.testing.frameworks.gotest;
 
-import com.goide.GoConstants;
+import com.goide.runconfig.testing.GoTestOutputScanner;
 import com.intellij.execution.testframework.TestConsoleProperties;
 import com.intellij.openapi.util.Key;
 import jetbrains.buildServer.messages.serviceMessages.ServiceMessageVisitor;
 import org.jetbrains.annotations.NotNull;
 
 import java.text.ParseException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class GotestEventsConverter extends GoTestEventsConverterBaseImpl {
-  private static final Pattern RUN = Pattern.compile("^=== RUN\\s+(" + GoConstants.TEST_NAME_REGEX + ")");
-  private static final Pattern PASSED = Pattern.compile("--- PASS:\\s+(" + GoConstants.TEST_NAME_REGEX + ")");
-  private static final Pattern SKIP = Pattern.compile("--- SKIP:\\s+(" + GoConstants.TEST_NAME_REGEX + ")");
-  private static final Pattern FAILED = Pattern.compile("--- FAIL:\\s+(" + GoConstants.TEST_NAME_REGEX + ")");
-  private static final Pattern FINISHED = Pattern.compile("^(PASS)|(FAIL)$");
+  private final GoTestOutputScanner myScanner = new GoTestOutputScanner();
 
   public GotestEventsConverter(@NotNull TestConsoleProperties consoleProperties) {
     super(GotestFramework.NAME, consoleProperties);
@@ -39,30 +33,24 @@ public class GotestEventsConverter extends GoTestEventsConverterBaseImpl {
 
   @Override
   protected int processLine(@NotNull String line, int start, Key outputType, ServiceMessageVisitor visitor) throws ParseException {
-    Matcher matcher;
-    if ((matcher = RUN.matcher(line)).find(start)) {
-      startTest(matcher.group(1), visitor);
-      return line.length();
+    GoTestOutputScanner.Event event = myScanner.scanGotest(line, start);
+    switch (event) {
+      case RUN:
+        startTest(myScanner.getName(line), visitor);
+        return line.length();
+      case PASS:
+      case FAIL:
+      case SKIP:
+        processOutput(line.substring(start, myScanner.getEventStart()), outputType, visitor);
+        TestResult result = event == GoTestOutputScanner.Event.PASS ? TestResult.PASSED
+                            : event == GoTestOutputScanner.Event.FAIL ? TestResult.FAILED : TestResult.SKIPPED;
+        finishTest(myScanner.getName(line), result, visitor);
+        return line.length();
+      case FINISHED:
+        finishDelayedTest(visitor);
+        return line.length();
+      default:
+        return start;
     }
-    if ((matcher = SKIP.matcher(line)).find(start)) {
-      processOutput(line.substring(start, matcher.start()), outputType, visitor);
-      finishTest(matcher.group(1), TestResult.SKIPPED, visitor);
-      return line.length();
-    }
-    if ((matcher = FAILED.matcher(line)).find(start)) {
-      processOutput(line.substring(start, matcher.start()), outputType, visitor);
-      finishTest(matcher.group(1), TestResult.FAILED, visitor);
-      return line.length();
-    }
-    if ((matcher = PASSED.matcher(line)).find(start)) {
-      processOutput(line.substring(start, matcher.start()), outputType, visitor);
-      finishTest(matcher.group(1), TestResult.PASSED, visitor);
-      return line.length();
-    }
-    if (FINISHED.matcher(line).find(start)) {
-      finishDelayedTest(visitor);
-      return line.length();
-    }
-    return start;
   }
 }
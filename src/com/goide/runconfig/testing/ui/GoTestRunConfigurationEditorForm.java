@@ -53,6 +53,11 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
   private JRadioButton myGotestFrameworkRadioButton;
   private JRadioButton myGocheckFrameworkRadioButton;
   private JRadioButton myGobenchRadioButton;
+  private JCheckBox myParallelPackagesCheckBox;
+  private JSpinner myParallelPackagesSpinner;
+  private JLabel myOrderLabel;
+  private JComboBox myOrderComboBox;
+  private JCheckBox myCompareWithBaselineCheckBox;
 
   public GoTestRunConfigurationEditorForm(@NotNull Project project) {
     super(null);
@@ -60,7 +65,13 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
     myCommonSettingsPanel.init(project);
 
     installTestKindComboBox();
+    installOrderComboBox();
     installFileChoosers(project);
+    myParallelPackagesSpinner.setModel(new SpinnerNumberModel(Runtime.getRuntime().availableProcessors(), 1, 1024, 1));
+    myParallelPackagesCheckBox.addActionListener(e -> myParallelPackagesSpinner.setEnabled(myParallelPackagesCheckBox.isSelected()));
+    for (JRadioButton button : new JRadioButton[]{myGotestFrameworkRadioButton, myGocheckFrameworkRadioButton, myGobenchRadioButton}) {
+      button.addActionListener(e -> myCompareWithBaselineCheckBox.setVisible(myGobenchRadioButton.isSelected()));
+    }
   }
 
   private void onTestKindChanged() {
@@ -69,13 +80,18 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
       selectedKind = GoTestRunConfiguration.Kind.DIRECTORY;
     }
     boolean allInPackage = selectedKind == GoTestRunConfiguration.Kind.PACKAGE;
-    boolean allInDirectory = selectedKind == GoTestRunConfiguration.Kind.DIRECTORY;
+    boolean allInDirectory = selectedKind == GoTestRunConfiguration.Kind.DIRECTORY ||
+                             selectedKind == GoTestRunConfiguration.Kind.AFFECTED;
     boolean file = selectedKind == GoTestRunConfiguration.Kind.FILE;
 
     myPackageField.setVisible(allInPackage);
     myPackageLabel.setVisible(allInPackage);
     myDirectoryField.setVisible(allInDirectory);
     myDirectoryLabel.setVisible(allInDirectory);
+    myParallelPackagesCheckBox.setVisible(allInDirectory);
+    myParallelPackagesSpinner.setVisible(allInDirectory);
+    myOrderLabel.setVisible(allInDirectory);
+    myOrderComboBox.setVisible(allInDirectory);
     myFileField.setVisible(file);
     myFileLabel.setVisible(file);
     myPatternEditor.setVisible(!file);
@@ -98,6 +114,14 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
 
     myPatternEditor.setText(configuration.getPattern());
 
+    int parallelPackages = configuration.getParallelPackages();
+    myParallelPackagesCheckBox.setSelected(parallelPackages > 0);
+    myParallelPackagesSpinner.setEnabled(parallelPackages > 0);
+    myParallelPackagesSpinner.setValue(parallelPackages > 0 ? parallelPackages : Runtime.getRuntime().availableProcessors());
+    myOrderComboBox.setSelectedItem(configuration.getOrder());
+    myCompareWithBaselineCheckBox.setSelected(configuration.isCompareWithBaseline());
+    myCompareWithBaselineCheckBox.setVisible(myGobenchRadioButton.isSelected());
+
     myCommonSettingsPanel.resetEditorFrom(configuration);
   }
 
@@ -115,6 +139,10 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
     configuration.setDirectoryPath(myDirectoryField.getText());
     configuration.setFilePath(myFileField.getText());
     configuration.setPattern(myPatternEditor.getText());
+    configuration.setParallelPackages(myParallelPackagesCheckBox.isSelected() ? (Integer)myParallelPackagesSpinner.getValue() : 0);
+    GoTestRunConfiguration.Order order = (GoTestRunConfiguration.Order)myOrderComboBox.getSelectedItem();
+    configuration.setOrder(order != null ? order : GoTestRunConfiguration.Order.DEFAULT);
+    configuration.setCompareWithBaseline(myCompareWithBaselineCheckBox.isSelected());
 
     myCommonSettingsPanel.applyEditorTo(configuration);
   }
@@ -162,4 +190,20 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
     }
     myTestKindComboBox.addActionListener(e -> onTestKindChanged());
   }
+
+  private void installOrderComboBox() {
+    myOrderComboBox.removeAllItems();
+    myOrderComboBox.setRenderer(new ListCellRendererWrapper<GoTestRunConfiguration.Order>() {
+      @Override
+      public void customize(JList list, @Nullable GoTestRunConfiguration.Order order, int index, boolean selected, boolean hasFocus) {
+        if (order != null) {
+          String orderName = StringUtil.capitalize(order.toString().replace('_', ' ').toLowerCase(Locale.US));
+          setText(orderName);
+        }
+      }
+    });
+    for (GoTestRunConfiguration.Order order : GoTestRunConfiguration.Order.values()) {
+      myOrderComboBox.addItem(order);
+    }
+  }
 }
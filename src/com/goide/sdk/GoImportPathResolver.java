@@ -0,0 +1,426 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.sdk;
+
+import com.goide.GoConstants;
+import com.intellij.ProjectTopics;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootAdapter;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves import paths to directories and directories to import paths against SDK, GOPATH and vendor roots, with the
+ * same precedence as a loop over {@link GoSdkUtil#getVendoringAwareSourcesPathsToLookup}: vendor directories from the
+ * closest one up to the first source root, then the SDK and GOPATH sources in their order.
+ * <p>
+ * Lookups walk path tries instead of every root: resolved import paths are kept in a trie per root list and per vendor
+ * directory, source roots and cached vendor children of directories are kept in tries over directory names. Tries are
+ * concurrent and file system lookups run outside of them, so lookups don't block each other. Misses are cached only
+ * for source roots, vendor tries keep found packages only, as most imports aren't vendored. Created, deleted, moved and
+ * renamed files only drop the trie nodes under their paths; root changes drop everything. The modification count
+ * changes with every directory structure or root change, for caches built on top of resolved paths.
+ */
+public class GoImportPathResolver extends SimpleModificationTracker {
+  private final Project myProject;
+  private final Node myVendors = new Node();
+  private final ConcurrentMap<List<VirtualFile>, Roots> myRoots = ContainerUtil.newConcurrentMap();
+  private final ConcurrentMap<VirtualFile, Node> myVendorImports = ContainerUtil.newConcurrentMap();
+
+  public GoImportPathResolver(@NotNull Project project) {
+    myProject = project;
+    MessageBusConnection connection = project.getMessageBus().connect(project);
+    connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter() {
+      @Override
+      public void rootsChanged(ModuleRootEvent event) {
+        myRoots.clear();
+        myVendorImports.clear();
+        incModificationCount();
+      }
+    });
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+      @Override
+      public void before(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          if (event instanceof VFileDeleteEvent || event instanceof VFileMoveEvent || isRename(event)) {
+            invalidate(event.getFile());
+          }
+        }
+      }
+
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          if (event instanceof VFileCreateEvent || event instanceof VFileMoveEvent || isRename(event)) {
+            invalidate(event.getFile());
+          }
+          else if (event instanceof VFileCopyEvent) {
+            invalidate(((VFileCopyEvent)event).findCreatedFile());
+          }
+        }
+      }
+    });
+  }
+
+  public static GoImportPathResolver getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, GoImportPathResolver.class);
+  }
+
+  /**
+   * @param vendoringContext file or directory whose vendor directories are looked up first, null to ignore vendoring
+   */
+  @Nullable
+  public VirtualFile findByImportPath(@NotNull String importPath, @Nullable Module module, @Nullable VirtualFile vendoringContext) {
+    importPath = FileUtil.toSystemIndependentName(importPath);
+    if (importPath.isEmpty()) {
+      return null;
+    }
+    LinkedHashSet<VirtualFile> sourceRoots = GoSdkUtil.getSourcesPathsToLookup(myProject, module);
+    List<VirtualFile> vendorDirectories = vendoringContext != null ? getVendorDirectories(vendoringContext, sourceRoots)
+                                                                   : Collections.emptyList();
+    List<String> segments = StringUtil.split(importPath, "/");
+    if (!isPlainPath(importPath, segments)) {
+      // relative and dotted paths are rare, don't let them into tries
+      VirtualFile file = findInRoots(vendorDirectories, importPath);
+      return file != null ? file : findInRoots(sourceRoots, importPath);
+    }
+    for (VirtualFile vendorDirectory : vendorDirectories) {
+      Node imports = ConcurrencyUtil.cacheOrGet(myVendorImports, vendorDirectory, new Node());
+      VirtualFile file = resolve(imports, Collections.singletonList(vendorDirectory), segments, importPath, false);
+      if (file != null) {
+        return file;
+      }
+    }
+    Roots roots = getRoots(sourceRoots);
+    return resolve(roots.myImports, roots.myRoots, segments, importPath, true);
+  }
+
+  /**
+   * Import path of {@code directory} relative to the first root containing it, vendor directories of
+   * {@code vendoringContext} included if it's not null. Unlike with {@link GoSdkUtil#getImportPath} there is no fallback
+   * to the path after the last {@code src} directory.
+   */
+  @Nullable
+  public String getImportPath(@NotNull VirtualFile directory, @Nullable Module module, @Nullable VirtualFile vendoringContext) {
+    LinkedHashSet<VirtualFile> sourceRoots = GoSdkUtil.getSourcesPathsToLookup(myProject, module);
+    if (vendoringContext != null) {
+      for (VirtualFile vendorDirectory : getVendorDirectories(vendoringContext, sourceRoots)) {
+        if (VfsUtilCore.isAncestor(vendorDirectory, directory, true)) {
+          return VfsUtilCore.getRelativePath(directory, vendorDirectory, '/');
+        }
+      }
+    }
+    List<VirtualFile> ancestors = getAncestors(directory);
+    int bestRoot = -1;
+    int bestDepth = -1;
+    Node node = getRoots(sourceRoots).myRootDirectories;
+    // the root itself has an empty import path, only strict ancestors count
+    for (int i = 0; i < ancestors.size() - 1 && node != null; i++) {
+      node = node.getChild(getName(ancestors, i));
+      if (node != null && node.myRootIndex >= 0 && (bestRoot < 0 || node.myRootIndex < bestRoot)) {
+        bestRoot = node.myRootIndex;
+        bestDepth = i;
+      }
+    }
+    if (bestRoot < 0) {
+      return null;
+    }
+    StringBuilder result = new StringBuilder();
+    for (int i = bestDepth + 1; i < ancestors.size(); i++) {
+      if (result.length() > 0) result.append('/');
+      result.append(ancestors.get(i).getName());
+    }
+    return result.toString();
+  }
+
+  /**
+   * Vendor directories visible from {@code context}, the closest first, up to the vendor directory of the first
+   * source root on the way to the file system root.
+   */
+  @NotNull
+  public List<VirtualFile> getVendorDirectories(@NotNull VirtualFile context, @NotNull Set<VirtualFile> sourceRoots) {
+    List<VirtualFile> ancestors = getAncestors(context);
+    List<VirtualFile> result = ContainerUtil.newSmartList();
+    Node[] nodes = new Node[ancestors.size()];
+    Node node = myVendors;
+    for (int i = 0; i < nodes.length; i++) {
+      node = node.getOrCreateChild(getName(ancestors, i));
+      nodes[i] = node;
+    }
+    for (int i = nodes.length - 1; i >= 0; i--) {
+      VirtualFile directory = ancestors.get(i);
+      node = nodes[i];
+      VirtualFile vendor = node.getResolved();
+      if (vendor == null && !node.isResolved()) {
+        vendor = directory.findChild(GoConstants.VENDOR);
+        vendor = vendor != null && vendor.isDirectory() ? vendor : null;
+        node.setResolved(vendor);
+      }
+      ContainerUtil.addIfNotNull(result, vendor);
+      if (sourceRoots.contains(directory)) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  @NotNull
+  private Roots getRoots(@NotNull Collection<VirtualFile> sourceRoots) {
+    List<VirtualFile> key = ContainerUtil.newArrayList(sourceRoots);
+    Roots roots = myRoots.get(key);
+    return roots != null ? roots : ConcurrencyUtil.cacheOrGet(myRoots, key, new Roots(key));
+  }
+
+  /**
+   * @param cacheMisses whether a trie node should be kept for an import path that isn't found
+   */
+  @Nullable
+  private static VirtualFile resolve(@NotNull Node imports,
+                                     @NotNull Collection<VirtualFile> roots,
+                                     @NotNull List<String> segments,
+                                     @NotNull String importPath,
+                                     boolean cacheMisses) {
+    Node node = imports;
+    for (int i = 0; i < segments.size() && node != null; i++) {
+      node = cacheMisses ? node.getOrCreateChild(segments.get(i)) : node.getChild(segments.get(i));
+    }
+    if (node != null) {
+      VirtualFile file = node.getResolved();
+      if (file != null || node.isResolved()) {
+        return file;
+      }
+    }
+    VirtualFile file = findInRoots(roots, importPath);
+    if (file != null || cacheMisses) {
+      if (node == null) {
+        node = imports;
+        for (String segment : segments) {
+          node = node.getOrCreateChild(segment);
+        }
+      }
+      node.setResolved(file);
+    }
+    return file;
+  }
+
+  @Nullable
+  private static VirtualFile findInRoots(@NotNull Collection<VirtualFile> roots, @NotNull String importPath) {
+    for (VirtualFile root : roots) {
+      VirtualFile file = root.findFileByRelativePath(importPath);
+      if (file != null) {
+        return file;
+      }
+    }
+    return null;
+  }
+
+  private void invalidate(@Nullable VirtualFile file) {
+    if (file == null) {
+      return;
+    }
+    if (file.isDirectory()) {
+      incModificationCount();
+    }
+    List<VirtualFile> ancestors = getAncestors(file);
+    Node parent = myVendors;
+    for (int i = 0; i < ancestors.size() - 1 && parent != null; i++) {
+      parent = parent.getChild(getName(ancestors, i));
+    }
+    if (parent != null) {
+      parent.setUnresolved();
+      parent.removeChild(getName(ancestors, ancestors.size() - 1));
+    }
+
+    for (Iterator<Roots> iterator = myRoots.values().iterator(); iterator.hasNext(); ) {
+      Roots roots = iterator.next();
+      if (!invalidate(roots.myImports, roots.myRoots, file)) {
+        iterator.remove();
+      }
+    }
+    for (Iterator<Map.Entry<VirtualFile, Node>> iterator = myVendorImports.entrySet().iterator(); iterator.hasNext(); ) {
+      Map.Entry<VirtualFile, Node> entry = iterator.next();
+      if (!invalidate(entry.getValue(), Collections.singletonList(entry.getKey()), file)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Drops resolved import paths at and under {@code file}.
+   *
+   * @return false if {@code file} is one of the roots or contains them, so the whole trie is stale
+   */
+  private static boolean invalidate(@NotNull Node imports, @NotNull Collection<VirtualFile> roots, @NotNull VirtualFile file) {
+    for (VirtualFile root : roots) {
+      if (VfsUtilCore.isAncestor(file, root, false)) {
+        return false;
+      }
+      String relativePath = VfsUtilCore.getRelativePath(file, root, '/');
+      if (StringUtil.isEmpty(relativePath)) {
+        continue;
+      }
+      Node parent = imports;
+      List<String> segments = StringUtil.split(relativePath, "/");
+      for (int i = 0; i < segments.size() - 1 && parent != null; i++) {
+        parent = parent.getChild(segments.get(i));
+      }
+      if (parent != null) {
+        parent.removeChild(ContainerUtil.getLastItem(segments));
+      }
+    }
+    return true;
+  }
+
+  private static boolean isRename(@NotNull VFileEvent event) {
+    return event instanceof VFilePropertyChangeEvent && VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent)event).getPropertyName());
+  }
+
+  private static boolean isPlainPath(@NotNull String path, @NotNull List<String> segments) {
+    if (path.startsWith("/") || path.endsWith("/") || path.contains("//")) {
+      return false;
+    }
+    for (String segment : segments) {
+      if (".".equals(segment) || "..".equals(segment)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return {@code file} and its ancestors, the file system root first
+   */
+  @NotNull
+  private static List<VirtualFile> getAncestors(@NotNull VirtualFile file) {
+    List<VirtualFile> result = ContainerUtil.newArrayList();
+    for (VirtualFile ancestor = file; ancestor != null; ancestor = ancestor.getParent()) {
+      result.add(ancestor);
+    }
+    Collections.reverse(result);
+    return result;
+  }
+
+  /**
+   * Trie key of an ancestor; file system roots are keyed by URL to tell file systems apart.
+   */
+  @NotNull
+  private static String getName(@NotNull List<VirtualFile> ancestors, int index) {
+    VirtualFile file = ancestors.get(index);
+    return index == 0 ? file.getUrl() : file.getName();
+  }
+
+  private static class Roots {
+    @NotNull private final List<VirtualFile> myRoots;
+    private final Node myRootDirectories = new Node();
+    private final Node myImports = new Node();
+
+    private Roots(@NotNull List<VirtualFile> roots) {
+      myRoots = roots;
+      for (int index = 0; index < roots.size(); index++) {
+        List<VirtualFile> ancestors = getAncestors(roots.get(index));
+        Node node = myRootDirectories;
+        for (int i = 0; i < ancestors.size(); i++) {
+          node = node.getOrCreateChild(getName(ancestors, i));
+        }
+        if (node.myRootIndex < 0) {
+          node.myRootIndex = index;
+        }
+      }
+    }
+  }
+
+  private static class Node {
+    private static final Ref<VirtualFile> NOT_FOUND = Ref.create();
+
+    private volatile ConcurrentMap<String, Node> myChildren;
+    private int myRootIndex = -1;
+    // null if not resolved yet
+    private volatile Ref<VirtualFile> myResolved;
+
+    @Nullable
+    private Node getChild(@NotNull String name) {
+      ConcurrentMap<String, Node> children = myChildren;
+      return children != null ? children.get(name) : null;
+    }
+
+    @NotNull
+    private Node getOrCreateChild(@NotNull String name) {
+      ConcurrentMap<String, Node> children = myChildren;
+      if (children == null) {
+        synchronized (this) {
+          children = myChildren;
+          if (children == null) {
+            myChildren = children = ContainerUtil.newConcurrentMap();
+          }
+        }
+      }
+      Node child = children.get(name);
+      return child != null ? child : ConcurrencyUtil.cacheOrGet(children, name, new Node());
+    }
+
+    private void removeChild(@NotNull String name) {
+      ConcurrentMap<String, Node> children = myChildren;
+      if (children != null) {
+        children.remove(name);
+      }
+    }
+
+    private boolean isResolved() {
+      return myResolved != null;
+    }
+
+    /**
+     * @return resolved file if it's still valid
+     */
+    @Nullable
+    private VirtualFile getResolved() {
+      Ref<VirtualFile> resolved = myResolved;
+      VirtualFile file = resolved != null ? resolved.get() : null;
+      if (file != null && !file.isValid()) {
+        myResolved = null;
+        return null;
+      }
+      return file;
+    }
+
+    private void setResolved(@Nullable VirtualFile file) {
+      myResolved = file != null ? Ref.create(file) : NOT_FOUND;
+    }
+
+    private void setUnresolved() {
+      myResolved = null;
+    }
+  }
+}
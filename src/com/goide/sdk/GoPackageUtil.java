@@ -26,7 +26,6 @@ import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.util.Key;
-import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDirectory;
@@ -131,16 +130,6 @@ public class GoPackageUtil {
 
   @Nullable
   public static VirtualFile findByImportPath(@NotNull String importPath, @NotNull Project project, @Nullable Module module) {
-    if (importPath.isEmpty()) {
-      return null;
-    }
-    importPath = FileUtil.toSystemIndependentName(importPath);
-    for (VirtualFile root : GoSdkUtil.getSourcesPathsToLookup(project, module)) {
-      VirtualFile file = root.findFileByRelativePath(importPath);
-      if (file != null) {
-        return file;
-      }
-    }
-    return null;
+    return GoImportPathResolver.getInstance(project).findByImportPath(importPath, module, null);
   }
 }
@@ -26,6 +26,7 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.options.Configurable;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.ModificationTracker;
 import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.openapi.util.SystemInfo;
 import com.intellij.openapi.util.io.FileUtil;
@@ -45,6 +46,7 @@ import java.util.Set;
 public abstract class GoSdkService extends SimpleModificationTracker {
   public static final Logger LOG = Logger.getInstance(GoSdkService.class);
   private static final Set<String> FEDORA_SUBDIRECTORIES = ContainerUtil.newHashSet("linux_amd64", "linux_386", "linux_arm");
+  private static final SimpleModificationTracker ourTestSdkVersionTracker = new SimpleModificationTracker();
   private static String ourTestSdkVersion;
 
   @NotNull
@@ -159,9 +161,19 @@ public abstract class GoSdkService extends SimpleModificationTracker {
   @TestOnly
   public static void setTestingSdkVersion(@Nullable String version, @NotNull Disposable disposable) {
     ourTestSdkVersion = version;
+    ourTestSdkVersionTracker.incModificationCount();
     Disposer.register(disposable, () -> {
       //noinspection AssignmentToStaticFieldFromInstanceMethod
       ourTestSdkVersion = null;
+      ourTestSdkVersionTracker.incModificationCount();
     });
   }
+
+  /**
+   * Changes with the SDK version set in tests, which bypasses the modification count of services.
+   */
+  @NotNull
+  static ModificationTracker getTestSdkVersionTracker() {
+    return ourTestSdkVersionTracker;
+  }
 }
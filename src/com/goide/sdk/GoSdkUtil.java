@@ -147,7 +147,7 @@ public class GoSdkUtil {
                                                                                  @Nullable VirtualFile contextFile) {
     LinkedHashSet<VirtualFile> sdkAndGoPath = getSourcesPathsToLookup(project, module);
     if (contextFile != null) {
-      Collection<VirtualFile> vendorDirectories = collectVendorDirectories(contextFile, sdkAndGoPath);
+      Collection<VirtualFile> vendorDirectories = GoImportPathResolver.getInstance(project).getVendorDirectories(contextFile, sdkAndGoPath);
       if (!vendorDirectories.isEmpty()) {
         LinkedHashSet<VirtualFile> result = newLinkedHashSet(vendorDirectories);
         result.addAll(sdkAndGoPath);
@@ -157,27 +157,6 @@ public class GoSdkUtil {
     return sdkAndGoPath;
   }
 
-  @NotNull
-  private static Collection<VirtualFile> collectVendorDirectories(@Nullable VirtualFile contextDirectory,
-                                                                  @NotNull Set<VirtualFile> sourceRoots) {
-    if (contextDirectory == null) {
-      return Collections.emptyList();
-    }
-    Collection<VirtualFile> vendorDirectories = ContainerUtil.newArrayList();
-    VirtualFile directory = contextDirectory;
-    while (directory != null) {
-      VirtualFile vendorDirectory = directory.findChild(GoConstants.VENDOR);
-      if (vendorDirectory != null && vendorDirectory.isDirectory()) {
-        vendorDirectories.add(vendorDirectory);
-      }
-      if (sourceRoots.contains(directory)) {
-        break;
-      }
-      directory = directory.getParent();
-    }
-    return vendorDirectories;
-  }
-
   @NotNull
   private static Collection<VirtualFile> getGoPathRoots(@NotNull Project project, @Nullable Module module) {
     Collection<VirtualFile> roots = ContainerUtil.newArrayList();
@@ -280,10 +259,7 @@ public class GoSdkUtil {
     VirtualFile file = psiDirectory.getVirtualFile();
     Project project = psiDirectory.getProject();
     Module module = ModuleUtilCore.findModuleForPsiElement(psiDirectory);
-    LinkedHashSet<VirtualFile> sourceRoots = withVendoring ? getVendoringAwareSourcesPathsToLookup(project, module, file)
-                                                           : getSourcesPathsToLookup(project, module);
-
-    String relativePath = getRelativePathToRoots(file, sourceRoots);
+    String relativePath = GoImportPathResolver.getInstance(project).getImportPath(file, module, withVendoring ? file : null);
     if (relativePath != null) {
       return relativePath;
     }
@@ -433,11 +409,11 @@ public class GoSdkUtil {
   }
 
   @NotNull
-  private static Collection<Object> getSdkAndLibrariesCacheDependencies(@NotNull Project project,
-                                                                        @Nullable Module module,
-                                                                        Object... extra) {
+  public static Collection<Object> getSdkAndLibrariesCacheDependencies(@NotNull Project project,
+                                                                       @Nullable Module module,
+                                                                       Object... extra) {
     Collection<Object> dependencies = ContainerUtil.newArrayList((Object[])GoLibrariesService.getModificationTrackers(project, module));
-    ContainerUtil.addAllNotNull(dependencies, GoSdkService.getInstance(project));
+    ContainerUtil.addAllNotNull(dependencies, GoSdkService.getInstance(project), GoSdkService.getTestSdkVersionTracker());
     ContainerUtil.addAllNotNull(dependencies, extra);
     return dependencies;
   }
@@ -0,0 +1,481 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.stubs.index;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative file ids in the spirit of roaring bitmaps.
+ * Ids are split by their high 16 bits into chunks; a chunk with few ids is a sorted {@code char[]},
+ * a dense one is a 65536-bit bitmap. Memory depends on the number of ids, not on the largest id,
+ * and intersection/union/difference work chunk by chunk.
+ */
+public class GoFileIdSet {
+  private static final int ARRAY_LIMIT = 4096;
+  private static final int BITMAP_WORDS = 1 << 16 >>> 6;
+
+  private char[] myKeys;
+  private Container[] myContainers;
+  private int mySize;
+
+  public GoFileIdSet() {
+    this(4);
+  }
+
+  private GoFileIdSet(int capacity) {
+    myKeys = new char[capacity];
+    myContainers = new Container[capacity];
+  }
+
+  public boolean contains(int id) {
+    if (id < 0) return false;
+    int i = indexOf(high(id));
+    return i >= 0 && myContainers[i].contains(low(id));
+  }
+
+  public void add(int id) {
+    if (id < 0) throw new IllegalArgumentException("Negative id: " + id);
+    char high = high(id);
+    int i = indexOf(high);
+    if (i >= 0) {
+      myContainers[i] = myContainers[i].add(low(id));
+    }
+    else {
+      insert(-i - 1, high, new ArrayContainer(new char[4], 0).add(low(id)));
+    }
+  }
+
+  public void remove(int id) {
+    if (id < 0) return;
+    int i = indexOf(high(id));
+    if (i < 0) return;
+    Container container = myContainers[i].remove(low(id));
+    if (container.cardinality() == 0) {
+      System.arraycopy(myKeys, i + 1, myKeys, i, mySize - i - 1);
+      System.arraycopy(myContainers, i + 1, myContainers, i, mySize - i - 1);
+      myContainers[--mySize] = null;
+    }
+    else {
+      myContainers[i] = container;
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (int i = 0; i < mySize; i++) {
+      size += myContainers[i].cardinality();
+    }
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return mySize == 0;
+  }
+
+  /**
+   * Approximate memory taken by the set in bytes, handy for comparing with a plain bit set.
+   */
+  public long getMemoryFootprint() {
+    long result = myKeys.length * 2L + myContainers.length * 4L;
+    for (int i = 0; i < mySize; i++) {
+      result += myContainers[i].getMemoryFootprint();
+    }
+    return result;
+  }
+
+  @NotNull
+  public GoFileIdSet and(@NotNull GoFileIdSet other) {
+    GoFileIdSet result = new GoFileIdSet(Math.max(1, Math.min(mySize, other.mySize)));
+    int i = 0;
+    int j = 0;
+    while (i < mySize && j < other.mySize) {
+      char k1 = myKeys[i];
+      char k2 = other.myKeys[j];
+      if (k1 < k2) i++;
+      else if (k1 > k2) j++;
+      else {
+        result.append(k1, myContainers[i++].and(other.myContainers[j++]));
+      }
+    }
+    return result;
+  }
+
+  @NotNull
+  public GoFileIdSet or(@NotNull GoFileIdSet other) {
+    GoFileIdSet result = new GoFileIdSet(Math.max(1, mySize + other.mySize));
+    int i = 0;
+    int j = 0;
+    while (i < mySize || j < other.mySize) {
+      if (j == other.mySize || i < mySize && myKeys[i] < other.myKeys[j]) {
+        result.append(myKeys[i], myContainers[i++].copy());
+      }
+      else if (i == mySize || myKeys[i] > other.myKeys[j]) {
+        result.append(other.myKeys[j], other.myContainers[j++].copy());
+      }
+      else {
+        result.append(myKeys[i], myContainers[i++].or(other.myContainers[j++]));
+      }
+    }
+    return result;
+  }
+
+  @NotNull
+  public GoFileIdSet andNot(@NotNull GoFileIdSet other) {
+    GoFileIdSet result = new GoFileIdSet(Math.max(1, mySize));
+    int j = 0;
+    for (int i = 0; i < mySize; i++) {
+      char key = myKeys[i];
+      while (j < other.mySize && other.myKeys[j] < key) j++;
+      boolean intersects = j < other.mySize && other.myKeys[j] == key;
+      result.append(key, intersects ? myContainers[i].andNot(other.myContainers[j]) : myContainers[i].copy());
+    }
+    return result;
+  }
+
+  private void append(char key, @NotNull Container container) {
+    if (container.cardinality() == 0) return;
+    insert(mySize, key, container);
+  }
+
+  private void insert(int index, char key, @NotNull Container container) {
+    if (mySize == myKeys.length) {
+      int capacity = Math.max(4, mySize * 2);
+      myKeys = Arrays.copyOf(myKeys, capacity);
+      myContainers = Arrays.copyOf(myContainers, capacity);
+    }
+    System.arraycopy(myKeys, index, myKeys, index + 1, mySize - index);
+    System.arraycopy(myContainers, index, myContainers, index + 1, mySize - index);
+    myKeys[index] = key;
+    myContainers[index] = container;
+    mySize++;
+  }
+
+  private int indexOf(char key) {
+    return Arrays.binarySearch(myKeys, 0, mySize, key);
+  }
+
+  private static char high(int id) {
+    return (char)(id >>> 16);
+  }
+
+  private static char low(int id) {
+    return (char)id;
+  }
+
+  private interface Container {
+    boolean contains(char value);
+
+    /**
+     * Adds the value in place, returns the container to use from now on.
+     */
+    @NotNull
+    Container add(char value);
+
+    /**
+     * Removes the value in place, returns the container to use from now on.
+     */
+    @NotNull
+    Container remove(char value);
+
+    int cardinality();
+
+    long getMemoryFootprint();
+
+    @NotNull
+    Container copy();
+
+    @NotNull
+    Container and(@NotNull Container other);
+
+    @NotNull
+    Container or(@NotNull Container other);
+
+    @NotNull
+    Container andNot(@NotNull Container other);
+  }
+
+  private static class ArrayContainer implements Container {
+    private char[] myValues;
+    private int myCardinality;
+
+    private ArrayContainer(@NotNull char[] values, int cardinality) {
+      myValues = values;
+      myCardinality = cardinality;
+    }
+
+    @Override
+    public boolean contains(char value) {
+      return Arrays.binarySearch(myValues, 0, myCardinality, value) >= 0;
+    }
+
+    @NotNull
+    @Override
+    public Container add(char value) {
+      int index = Arrays.binarySearch(myValues, 0, myCardinality, value);
+      if (index >= 0) return this;
+      if (myCardinality >= ARRAY_LIMIT) return toBitmap().add(value);
+      index = -index - 1;
+      if (myCardinality == myValues.length) {
+        myValues = Arrays.copyOf(myValues, Math.min(ARRAY_LIMIT, Math.max(4, myCardinality * 2)));
+      }
+      System.arraycopy(myValues, index, myValues, index + 1, myCardinality - index);
+      myValues[index] = value;
+      myCardinality++;
+      return this;
+    }
+
+    @NotNull
+    @Override
+    public Container remove(char value) {
+      int index = Arrays.binarySearch(myValues, 0, myCardinality, value);
+      if (index >= 0) {
+        System.arraycopy(myValues, index + 1, myValues, index, myCardinality - index - 1);
+        myCardinality--;
+      }
+      return this;
+    }
+
+    @Override
+    public int cardinality() {
+      return myCardinality;
+    }
+
+    @Override
+    public long getMemoryFootprint() {
+      return 16 + myValues.length * 2L;
+    }
+
+    @NotNull
+    @Override
+    public Container copy() {
+      return new ArrayContainer(Arrays.copyOf(myValues, Math.max(1, myCardinality)), myCardinality);
+    }
+
+    @NotNull
+    @Override
+    public Container and(@NotNull Container other) {
+      char[] result = new char[myCardinality];
+      int size = 0;
+      if (other instanceof ArrayContainer) {
+        ArrayContainer array = (ArrayContainer)other;
+        int i = 0;
+        int j = 0;
+        while (i < myCardinality && j < array.myCardinality) {
+          char v1 = myValues[i];
+          char v2 = array.myValues[j];
+          if (v1 < v2) i++;
+          else if (v1 > v2) j++;
+          else {
+            result[size++] = v1;
+            i++;
+            j++;
+          }
+        }
+      }
+      else {
+        for (int i = 0; i < myCardinality; i++) {
+          if (other.contains(myValues[i])) result[size++] = myValues[i];
+        }
+      }
+      return new ArrayContainer(result, size);
+    }
+
+    @NotNull
+    @Override
+    public Container or(@NotNull Container other) {
+      if (!(other instanceof ArrayContainer)) return other.or(this);
+      ArrayContainer array = (ArrayContainer)other;
+      if (myCardinality + array.myCardinality > ARRAY_LIMIT) return toBitmap().or(other);
+      char[] result = new char[myCardinality + array.myCardinality];
+      int size = 0;
+      int i = 0;
+      int j = 0;
+      while (i < myCardinality || j < array.myCardinality) {
+        if (j == array.myCardinality || i < myCardinality && myValues[i] < array.myValues[j]) {
+          result[size++] = myValues[i++];
+        }
+        else if (i == myCardinality || myValues[i] > array.myValues[j]) {
+          result[size++] = array.myValues[j++];
+        }
+        else {
+          result[size++] = myValues[i++];
+          j++;
+        }
+      }
+      return new ArrayContainer(result, size);
+    }
+
+    @NotNull
+    @Override
+    public Container andNot(@NotNull Container other) {
+      char[] result = new char[myCardinality];
+      int size = 0;
+      for (int i = 0; i < myCardinality; i++) {
+        if (!other.contains(myValues[i])) result[size++] = myValues[i];
+      }
+      return new ArrayContainer(result, size);
+    }
+
+    @NotNull
+    private BitmapContainer toBitmap() {
+      BitmapContainer bitmap = new BitmapContainer(new long[BITMAP_WORDS], 0);
+      for (int i = 0; i < myCardinality; i++) {
+        bitmap.add(myValues[i]);
+      }
+      return bitmap;
+    }
+  }
+
+  private static class BitmapContainer implements Container {
+    private final long[] myWords;
+    private int myCardinality;
+
+    private BitmapContainer(@NotNull long[] words, int cardinality) {
+      myWords = words;
+      myCardinality = cardinality;
+    }
+
+    @Override
+    public boolean contains(char value) {
+      return (myWords[value >>> 6] & 1L << value) != 0;
+    }
+
+    @NotNull
+    @Override
+    public Container add(char value) {
+      long word = myWords[value >>> 6];
+      long updated = word | 1L << value;
+      if (updated != word) {
+        myWords[value >>> 6] = updated;
+        myCardinality++;
+      }
+      return this;
+    }
+
+    @NotNull
+    @Override
+    public Container remove(char value) {
+      long word = myWords[value >>> 6];
+      long updated = word & ~(1L << value);
+      if (updated != word) {
+        myWords[value >>> 6] = updated;
+        myCardinality--;
+      }
+      return myCardinality <= ARRAY_LIMIT / 2 ? toArray() : this;
+    }
+
+    @Override
+    public int cardinality() {
+      return myCardinality;
+    }
+
+    @Override
+    public long getMemoryFootprint() {
+      return 16 + BITMAP_WORDS * 8L;
+    }
+
+    @NotNull
+    @Override
+    public Container copy() {
+      return new BitmapContainer(myWords.clone(), myCardinality);
+    }
+
+    @NotNull
+    @Override
+    public Container and(@NotNull Container other) {
+      if (other instanceof ArrayContainer) return other.and(this);
+      long[] words = new long[BITMAP_WORDS];
+      long[] otherWords = ((BitmapContainer)other).myWords;
+      int cardinality = 0;
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        words[i] = myWords[i] & otherWords[i];
+        cardinality += Long.bitCount(words[i]);
+      }
+      return optimize(words, cardinality);
+    }
+
+    @NotNull
+    @Override
+    public Container or(@NotNull Container other) {
+      BitmapContainer result = new BitmapContainer(myWords.clone(), myCardinality);
+      if (other instanceof ArrayContainer) {
+        ArrayContainer array = (ArrayContainer)other;
+        for (int i = 0; i < array.myCardinality; i++) {
+          result.add(array.myValues[i]);
+        }
+        return result;
+      }
+      long[] otherWords = ((BitmapContainer)other).myWords;
+      int cardinality = 0;
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        result.myWords[i] |= otherWords[i];
+        cardinality += Long.bitCount(result.myWords[i]);
+      }
+      result.myCardinality = cardinality;
+      return result;
+    }
+
+    @NotNull
+    @Override
+    public Container andNot(@NotNull Container other) {
+      long[] words = myWords.clone();
+      int cardinality = myCardinality;
+      if (other instanceof ArrayContainer) {
+        ArrayContainer array = (ArrayContainer)other;
+        for (int i = 0; i < array.myCardinality; i++) {
+          char value = array.myValues[i];
+          long bit = 1L << value;
+          if ((words[value >>> 6] & bit) != 0) {
+            words[value >>> 6] &= ~bit;
+            cardinality--;
+          }
+        }
+      }
+      else {
+        long[] otherWords = ((BitmapContainer)other).myWords;
+        cardinality = 0;
+        for (int i = 0; i < BITMAP_WORDS; i++) {
+          words[i] &= ~otherWords[i];
+          cardinality += Long.bitCount(words[i]);
+        }
+      }
+      return optimize(words, cardinality);
+    }
+
+    @NotNull
+    private Container toArray() {
+      char[] values = new char[myCardinality];
+      int size = 0;
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        long word = myWords[i];
+        while (word != 0) {
+          values[size++] = (char)(i << 6 | Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      return new ArrayContainer(values, size);
+    }
+
+    @NotNull
+    private static Container optimize(@NotNull long[] words, int cardinality) {
+      BitmapContainer bitmap = new BitmapContainer(words, cardinality);
+      return cardinality <= ARRAY_LIMIT ? bitmap.toArray() : bitmap;
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.stubs.index;
+
+import com.goide.runconfig.testing.GoTestFinder;
+import com.intellij.ProjectTopics;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootAdapter;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.NewVirtualFile;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps production and test file id sets of the project. The sets are built once by iterating indexable files and
+ * then patched by VFS create/delete/move/rename events; only a change of project roots causes a full rebuild.
+ * <p>
+ * Sets are patched in write actions and read in read actions, so they don't need extra synchronization for readers.
+ */
+public class GoIdFilterService {
+  private static final Logger LOG = Logger.getInstance(GoIdFilterService.class);
+
+  private final Project myProject;
+  private final Object myLock = new Object();
+  private volatile FileIds myFileIds;
+
+  private final AtomicInteger myRebuildCount = new AtomicInteger();
+  private final AtomicLong myRebuildTimeNanos = new AtomicLong();
+  private final AtomicLong myLastRebuildTimeNanos = new AtomicLong();
+  private final AtomicInteger myIncrementalUpdateCount = new AtomicInteger();
+
+  public GoIdFilterService(@NotNull Project project) {
+    myProject = project;
+    MessageBusConnection connection = project.getMessageBus().connect(project);
+    connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter() {
+      @Override
+      public void rootsChanged(ModuleRootEvent event) {
+        myFileIds = null;
+      }
+    });
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+      @Override
+      public void before(@NotNull List<? extends VFileEvent> events) {
+        FileIds ids = myFileIds;
+        if (ids == null) return;
+        for (VFileEvent event : events) {
+          if (event instanceof VFileDeleteEvent || event instanceof VFileMoveEvent) {
+            VirtualFile file = event.getFile();
+            if (file != null) ids.remove(file);
+          }
+        }
+      }
+
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        FileIds ids = myFileIds;
+        if (ids == null || myProject.isDisposed()) return;
+        for (VFileEvent event : events) {
+          VirtualFile file = null;
+          if (event instanceof VFileCreateEvent || event instanceof VFileMoveEvent) {
+            file = event.getFile();
+          }
+          else if (event instanceof VFileCopyEvent) {
+            file = ((VFileCopyEvent)event).findCreatedFile();
+          }
+          else if (event instanceof VFilePropertyChangeEvent &&
+                   VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent)event).getPropertyName())) {
+            file = event.getFile();
+            if (file != null) ids.remove(file);
+          }
+          if (file != null && file.isValid()) {
+            ids.add(file, ProjectFileIndex.SERVICE.getInstance(myProject));
+            myIncrementalUpdateCount.incrementAndGet();
+          }
+        }
+      }
+    });
+  }
+
+  public static GoIdFilterService getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, GoIdFilterService.class);
+  }
+
+  @NotNull
+  public GoFileIdSet getProductionIds() {
+    return getFileIds().myProduction;
+  }
+
+  @NotNull
+  public GoFileIdSet getTestIds() {
+    return getFileIds().myTests;
+  }
+
+  public int getRebuildCount() {
+    return myRebuildCount.get();
+  }
+
+  public long getTotalRebuildTimeMs() {
+    return TimeUnit.NANOSECONDS.toMillis(myRebuildTimeNanos.get());
+  }
+
+  public long getLastRebuildTimeMs() {
+    return TimeUnit.NANOSECONDS.toMillis(myLastRebuildTimeNanos.get());
+  }
+
+  public int getIncrementalUpdateCount() {
+    return myIncrementalUpdateCount.get();
+  }
+
+  @NotNull
+  private FileIds getFileIds() {
+    FileIds ids = myFileIds;
+    if (ids != null) return ids;
+    synchronized (myLock) {
+      ids = myFileIds;
+      if (ids == null) {
+        ids = rebuild();
+        myFileIds = ids;
+      }
+      return ids;
+    }
+  }
+
+  @NotNull
+  private FileIds rebuild() {
+    long start = System.nanoTime();
+    FileIds ids = new FileIds();
+    FileBasedIndex.getInstance().iterateIndexableFiles(fileOrDir -> {
+      ids.set(fileOrDir);
+      ProgressManager.checkCanceled();
+      return true;
+    }, myProject, null);
+    long duration = System.nanoTime() - start;
+    myRebuildCount.incrementAndGet();
+    myRebuildTimeNanos.addAndGet(duration);
+    myLastRebuildTimeNanos.set(duration);
+    LOG.debug("File id filters rebuilt in " + TimeUnit.NANOSECONDS.toMillis(duration) + "ms");
+    return ids;
+  }
+
+  static int getId(@Nullable VirtualFile file) {
+    if (!(file instanceof VirtualFileWithId)) return -1;
+    int id = ((VirtualFileWithId)file).getId();
+    return id < 0 ? -id : id; // workaround for encountering invalid files, see EA-49915, EA-50599
+  }
+
+  private static class FileIds {
+    private final GoFileIdSet myProduction = new GoFileIdSet();
+    private final GoFileIdSet myTests = new GoFileIdSet();
+
+    private void set(@NotNull VirtualFile file) {
+      int id = getId(file);
+      if (id < 0 || file.isDirectory()) return;
+      (GoTestFinder.isTestFile(file) ? myTests : myProduction).add(id);
+    }
+
+    private void add(@NotNull VirtualFile file, @NotNull ProjectFileIndex fileIndex) {
+      if (!file.isDirectory()) {
+        if (fileIndex.isInContent(file) || fileIndex.isInLibraryClasses(file) || fileIndex.isInLibrarySource(file)) {
+          set(file);
+        }
+        return;
+      }
+      for (VirtualFile child : getCachedChildren(file)) {
+        add(child, fileIndex);
+      }
+    }
+
+    private void remove(@NotNull VirtualFile file) {
+      int id = getId(file);
+      if (id >= 0) {
+        myProduction.remove(id);
+        myTests.remove(id);
+      }
+      if (file.isDirectory()) {
+        for (VirtualFile child : getCachedChildren(file)) {
+          remove(child);
+        }
+      }
+    }
+
+    @NotNull
+    private static Iterable<VirtualFile> getCachedChildren(@NotNull VirtualFile dir) {
+      return dir instanceof NewVirtualFile ? ((NewVirtualFile)dir).getCachedChildren() : ContainerUtil.emptyList();
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.stubs.index;
+
+import com.goide.GoFileType;
+import com.goide.psi.GoFile;
+import com.goide.psi.GoImportSpec;
+import com.goide.psi.impl.imports.GoImportReferenceSet;
+import com.goide.sdk.GoSdkUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Import paths of every Go file, as written in import specs. Answers "who imports this package" with an index lookup
+ * instead of a scan over import lists; a package imported through a vendor directory has to be looked up by its path
+ * relative to the vendor directory.
+ */
+public class GoImportsIndex extends ScalarIndexExtension<String> {
+  public static final ID<String, Void> KEY = ID.create("go.imports");
+
+  @NotNull
+  @Override
+  public ID<String, Void> getName() {
+    return KEY;
+  }
+
+  @Override
+  public int getVersion() {
+    return 1;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, Void, FileContent> getIndexer() {
+    return inputData -> {
+      PsiFile file = inputData.getPsiFile();
+      return file instanceof GoFile ? collectImports((GoFile)file) : ContainerUtil.emptyMap();
+    };
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(GoFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  @NotNull
+  public static Collection<VirtualFile> getImportingFiles(@NotNull String importPath, @NotNull GlobalSearchScope scope) {
+    return FileBasedIndex.getInstance().getContainingFiles(KEY, importPath, scope);
+  }
+
+  @NotNull
+  public static Set<VirtualFile> getImportingDirectories(@NotNull String importPath, @NotNull GlobalSearchScope scope) {
+    Set<VirtualFile> result = ContainerUtil.newLinkedHashSet();
+    for (VirtualFile file : getImportingFiles(importPath, scope)) {
+      ContainerUtil.addIfNotNull(result, file.getParent());
+    }
+    return result;
+  }
+
+  /**
+   * Directories of files that import the package in {@code directory}, either by one of its import paths or by a
+   * relative path. Relative imports are found by a pass over the keys of the index.
+   */
+  @NotNull
+  public static Set<VirtualFile> getImportingDirectories(@NotNull PsiDirectory directory, @NotNull GlobalSearchScope scope) {
+    Set<VirtualFile> result = ContainerUtil.newHashSet();
+    for (String importPath : getImportPaths(directory)) {
+      result.addAll(getImportingDirectories(importPath, scope));
+    }
+    List<String> relativePaths = ContainerUtil.newSmartList();
+    FileBasedIndex.getInstance().processAllKeys(KEY, key -> {
+      if (GoImportReferenceSet.isRelativeImport(key)) relativePaths.add(key);
+      return true;
+    }, directory.getProject());
+    VirtualFile target = directory.getVirtualFile();
+    for (String relativePath : relativePaths) {
+      for (VirtualFile importingDirectory : getImportingDirectories(relativePath, scope)) {
+        if (target.equals(importingDirectory.findFileByRelativePath(relativePath))) {
+          result.add(importingDirectory);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Paths the package in {@code directory} can be imported by; a vendored package is imported by its path relative to
+   * the vendor directory.
+   */
+  @NotNull
+  public static Set<String> getImportPaths(@NotNull PsiDirectory directory) {
+    Set<String> result = ContainerUtil.newHashSet();
+    ContainerUtil.addIfNotNull(result, GoSdkUtil.getImportPath(directory, false));
+    ContainerUtil.addIfNotNull(result, GoSdkUtil.getImportPath(directory, true));
+    return result;
+  }
+
+  @NotNull
+  private static Map<String, Void> collectImports(@NotNull GoFile file) {
+    Map<String, Void> result = ContainerUtil.newHashMap();
+    for (GoImportSpec spec : file.getImports()) {
+      String path = spec.getPath();
+      if (StringUtil.isNotEmpty(path)) {
+        result.put(path, null);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.stubs.index;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An exported top-level declaration as stored in {@link GoPackageExportsIndex}.
+ * The fingerprint is a hash of the declared type or signature text, so clients can tell whether a declaration
+ * changed its shape without loading the declaring file.
+ */
+public class GoPackageExport {
+  public enum Kind {FUNCTION, METHOD, TYPE, VAR, CONST}
+
+  @NotNull private final Kind myKind;
+  @Nullable private final String myReceiverType;
+  private final int myFingerprint;
+
+  public GoPackageExport(@NotNull Kind kind, @Nullable String receiverType, int fingerprint) {
+    myKind = kind;
+    myReceiverType = receiverType;
+    myFingerprint = fingerprint;
+  }
+
+  @NotNull
+  public Kind getKind() {
+    return myKind;
+  }
+
+  /**
+   * Name of the receiver base type for methods, e.g. {@code Foo} for {@code func (f *Foo) Bar()}.
+   */
+  @Nullable
+  public String getReceiverType() {
+    return myReceiverType;
+  }
+
+  public int getFingerprint() {
+    return myFingerprint;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof GoPackageExport)) return false;
+    GoPackageExport export = (GoPackageExport)o;
+    return myFingerprint == export.myFingerprint && myKind == export.myKind &&
+           (myReceiverType != null ? myReceiverType.equals(export.myReceiverType) : export.myReceiverType == null);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = myKind.hashCode();
+    result = 31 * result + (myReceiverType != null ? myReceiverType.hashCode() : 0);
+    result = 31 * result + myFingerprint;
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return myKind + (myReceiverType != null ? "(" + myReceiverType + ")" : "") + ":" + myFingerprint;
+  }
+}
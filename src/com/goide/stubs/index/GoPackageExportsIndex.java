@@ -0,0 +1,196 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.stubs.index;
+
+import com.goide.GoFileType;
+import com.goide.psi.*;
+import com.goide.stubs.types.GoMethodDeclarationStubElementType;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.intellij.util.ObjectUtils;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exported top-level names of every Go file. Import paths depend on the GOPATH configuration and can't be computed
+ * while indexing, so the index is keyed by the exported name and a package is selected by its directory scope.
+ * Together this answers "does package X export Y and what is it" without loading stubs of the whole package.
+ */
+public class GoPackageExportsIndex extends FileBasedIndexExtension<String, List<GoPackageExport>> {
+  public static final ID<String, List<GoPackageExport>> KEY = ID.create("go.package.exports");
+
+  @NotNull
+  @Override
+  public ID<String, List<GoPackageExport>> getName() {
+    return KEY;
+  }
+
+  @Override
+  public int getVersion() {
+    return 1;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, List<GoPackageExport>, FileContent> getIndexer() {
+    return inputData -> {
+      PsiFile file = inputData.getPsiFile();
+      return file instanceof GoFile ? collectExports((GoFile)file) : ContainerUtil.emptyMap();
+    };
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<List<GoPackageExport>> getValueExternalizer() {
+    return ExportsExternalizer.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(GoFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  /**
+   * Files of the package in {@code directory} that export {@code name}, including files excluded by build constraints.
+   */
+  @NotNull
+  public static Collection<VirtualFile> getDeclaringFiles(@NotNull String name, @NotNull VirtualFile directory, @NotNull Project project) {
+    return FileBasedIndex.getInstance().getContainingFiles(KEY, name, packageScope(directory, project));
+  }
+
+  @NotNull
+  public static List<GoPackageExport> getExports(@NotNull String name, @NotNull VirtualFile directory, @NotNull Project project) {
+    List<GoPackageExport> result = ContainerUtil.newSmartList();
+    for (List<GoPackageExport> exports : FileBasedIndex.getInstance().getValues(KEY, name, packageScope(directory, project))) {
+      result.addAll(exports);
+    }
+    return result;
+  }
+
+  @NotNull
+  private static GlobalSearchScope packageScope(@NotNull VirtualFile directory, @NotNull Project project) {
+    return GlobalSearchScopesCore.directoryScope(project, directory, false);
+  }
+
+  @NotNull
+  private static Map<String, List<GoPackageExport>> collectExports(@NotNull GoFile file) {
+    Map<String, List<GoPackageExport>> result = ContainerUtil.newHashMap();
+    for (GoFunctionDeclaration function : file.getFunctions()) {
+      add(result, function, GoPackageExport.Kind.FUNCTION, null, function.getSignature());
+    }
+    for (GoMethodDeclaration method : file.getMethods()) {
+      add(result, method, GoPackageExport.Kind.METHOD, GoMethodDeclarationStubElementType.calcTypeText(method), method.getSignature());
+    }
+    for (GoTypeSpec type : file.getTypes()) {
+      add(result, type, GoPackageExport.Kind.TYPE, null, type.getSpecType().getType());
+    }
+    for (GoVarDefinition var : file.getVars()) {
+      GoVarSpec spec = ObjectUtils.tryCast(var.getParent(), GoVarSpec.class);
+      add(result, var, GoPackageExport.Kind.VAR, null, spec != null ? spec.getType() : null);
+    }
+    for (GoConstDefinition constant : file.getConstants()) {
+      GoConstSpec spec = ObjectUtils.tryCast(constant.getParent(), GoConstSpec.class);
+      add(result, constant, GoPackageExport.Kind.CONST, null, spec != null ? spec.getType() : null);
+    }
+    return result;
+  }
+
+  private static void add(@NotNull Map<String, List<GoPackageExport>> result,
+                          @NotNull GoNamedElement element,
+                          @NotNull GoPackageExport.Kind kind,
+                          @Nullable String receiverType,
+                          @Nullable PsiElement type) {
+    String name = element.getName();
+    if (name == null || !StringUtil.isCapitalized(name)) return;
+    List<GoPackageExport> exports = result.get(name);
+    if (exports == null) {
+      exports = ContainerUtil.newSmartList();
+      result.put(name, exports);
+    }
+    exports.add(new GoPackageExport(kind, receiverType, fingerprint(type)));
+  }
+
+  private static int fingerprint(@Nullable PsiElement type) {
+    if (type == null) return 0;
+    int hash = 0;
+    CharSequence text = type.getNode().getChars();
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (!Character.isWhitespace(c)) hash = 31 * hash + c;
+    }
+    return hash;
+  }
+
+  private static class ExportsExternalizer implements DataExternalizer<List<GoPackageExport>> {
+    private static final ExportsExternalizer INSTANCE = new ExportsExternalizer();
+    private static final GoPackageExport.Kind[] KINDS = GoPackageExport.Kind.values();
+
+    @Override
+    public void save(@NotNull DataOutput out, List<GoPackageExport> value) throws IOException {
+      DataInputOutputUtil.writeINT(out, value.size());
+      for (GoPackageExport export : value) {
+        out.writeByte(export.getKind().ordinal());
+        out.writeBoolean(export.getReceiverType() != null);
+        if (export.getReceiverType() != null) IOUtil.writeUTF(out, export.getReceiverType());
+        out.writeInt(export.getFingerprint());
+      }
+    }
+
+    @Override
+    public List<GoPackageExport> read(@NotNull DataInput in) throws IOException {
+      int size = DataInputOutputUtil.readINT(in);
+      List<GoPackageExport> result = ContainerUtil.newArrayListWithCapacity(size);
+      for (int i = 0; i < size; i++) {
+        GoPackageExport.Kind kind = KINDS[in.readByte()];
+        String receiverType = in.readBoolean() ? IOUtil.readUTF(in) : null;
+        result.add(new GoPackageExport(kind, receiverType, in.readInt()));
+      }
+      return result;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import com.goide.psi.impl.GoMethodDeclarationImpl;
 import com.goide.psi.impl.GoPsiImplUtil;
 import com.goide.stubs.GoFileStub;
 import com.goide.stubs.GoMethodDeclarationStub;
+import com.goide.stubs.index.GoMethodFingerprintIndex;
 import com.goide.stubs.index.GoMethodIndex;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.stubs.IndexSink;
@@ -52,7 +53,8 @@ public class GoMethodDeclarationStubElementType extends GoNamedStubElementType<G
   @Nullable
   @Override
   public GoMethodDeclarationStub createStub(@NotNull GoMethodDeclaration psi, StubElement parentStub) {
-    return new GoMethodDeclarationStub(parentStub, this, psi.getName(), psi.isPublic(), calcTypeText(psi));
+    int arity = GoPsiImplUtil.getArity(psi.getSignature());
+    return new GoMethodDeclarationStub(parentStub, this, psi.getName(), psi.isPublic(), calcTypeText(psi), arity);
   }
 
   @Override
@@ -60,12 +62,14 @@ public class GoMethodDeclarationStubElementType extends GoNamedStubElementType<G
     dataStream.writeName(stub.getName());
     dataStream.writeBoolean(stub.isPublic());
     dataStream.writeName(stub.getTypeName());
+    dataStream.writeVarInt(stub.getArity());
   }
 
   @NotNull
   @Override
   public GoMethodDeclarationStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
-    return new GoMethodDeclarationStub(parentStub, this, dataStream.readName(), dataStream.readBoolean(), dataStream.readName());
+    return new GoMethodDeclarationStub(parentStub, this, dataStream.readName(), dataStream.readBoolean(), dataStream.readName(),
+                                       dataStream.readVarInt());
   }
 
   @Override
@@ -81,6 +85,11 @@ public class GoMethodDeclarationStubElementType extends GoNamedStubElementType<G
         }
       }
     }
+    String name = stub.getName();
+    int arity = stub.getArity();
+    if (name != null && arity >= 0) {
+      sink.occurrence(GoMethodFingerprintIndex.KEY, GoMethodFingerprintIndex.fingerprint(name, arity));
+    }
   }
 
   @Nullable
@@ -55,7 +55,10 @@ import org.jetbrains.annotations.Nullable;
 import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class GoExecutor {
   private static final Logger LOGGER = Logger.getInstance(GoExecutor.class);
@@ -278,9 +281,20 @@ public class GoExecutor {
     executeWithProgress(modal, Consumer.EMPTY_CONSUMER);
   }
 
+  /**
+   * Runs the command with a progress right away, requests of a user bypass the queue of {@link GoExecutorService}.
+   * The consumer gets the result in any case, with false if the command was cancelled before it has been run.
+   */
   public void executeWithProgress(boolean modal, @NotNull Consumer<Boolean> consumer) {
+    AtomicBoolean consumed = new AtomicBoolean();
+    Consumer<Boolean> done = result -> {
+      if (consumed.compareAndSet(false, true)) {
+        consumer.consume(result);
+      }
+    };
     ProgressManager.getInstance().run(new Task.Backgroundable(myProject, getPresentableName(), true) {
-      private boolean doNotStart;
+      private volatile boolean doNotStart;
+      private volatile boolean started;
 
       @Override
       public void onCancel() {
@@ -289,6 +303,10 @@ public class GoExecutor {
         if (handler != null) {
           handler.destroyProcess();
         }
+        // a running command reports its result once its process is destroyed
+        if (!started) {
+          done.consume(false);
+        }
       }
 
       @Override
@@ -303,15 +321,62 @@ public class GoExecutor {
 
       @Override
       public void run(@NotNull ProgressIndicator indicator) {
-        if (doNotStart || myProject == null || myProject.isDisposed()) {
-          return;
+        boolean result = false;
+        try {
+          if (doNotStart || myProject == null || myProject.isDisposed()) {
+            return;
+          }
+          started = true;
+          indicator.setIndeterminate(true);
+          result = execute();
+        }
+        finally {
+          done.consume(result);
         }
-        indicator.setIndeterminate(true);
-        consumer.consume(execute());
       }
     });
   }
 
+  /**
+   * Runs the command in a pooled thread without a progress once {@link GoExecutorService} lets it, after requests of a user.
+   */
+  public void executeInBackground(@NotNull Consumer<Boolean> consumer) {
+    GoExecutorService.getInstance().submit(getToolName(), getCommandKey(), GoExecutorService.Priority.BACKGROUND, done -> {
+      ApplicationManager.getApplication().executeOnPooledThread(() -> {
+        boolean result = false;
+        try {
+          result = !myProject.isDisposed() && execute();
+        }
+        finally {
+          done.consume(result);
+        }
+      });
+    }, consumer);
+  }
+
+  /**
+   * @return name of the tool to limit concurrent processes of, e.g. {@code go fmt} or {@code goimports}
+   */
+  @NotNull
+  private String getToolName() {
+    if (myExePath != null) {
+      return new File(myExePath).getName();
+    }
+    List<String> parameters = myParameterList.getList();
+    return parameters.isEmpty() ? "go" : "go " + parameters.get(0);
+  }
+
+  /**
+   * @return identity of the command to run identical commands once, null if the command should always run since
+   * listeners of this executor must get events of its own process
+   */
+  @Nullable
+  private String getCommandKey() {
+    if (!myProcessListeners.isEmpty()) return null;
+    return StringUtil.join(new Object[]{myExePath, myParameterList.getParametersString(), myWorkDirectory, myGoRoot, myGoPath, myEnvPath,
+      myVendoringEnabled, myParentEnvironmentType, new TreeMap<>(myExtraEnvironment)}, String::valueOf, "\n");
+  }
+
   @Nullable
   public ProcessHandler getProcessHandler() {
     return myProcessHandler;
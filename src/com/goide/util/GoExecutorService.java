@@ -0,0 +1,264 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.util;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.util.Consumer;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Schedules background Go tool invocations of {@link GoExecutor}; commands run with a progress at a request of a user
+ * don't wait here. At most {@code go.executor.max.processes.per.tool} processes of the same tool ({@code go fmt},
+ * {@code go build}, {@code goimports}, ...) run at once, the rest wait in a queue ordered by priority. A request of a
+ * command that is already queued or running with the same parameters, directory and environment is not run again, its
+ * callback gets the result of the first one. Every callback is called exactly once, whether its request was run,
+ * coalesced or failed to start.
+ */
+public class GoExecutorService {
+  private static final Logger LOG = Logger.getInstance(GoExecutorService.class);
+  private static final String MAX_PROCESSES_KEY = "go.executor.max.processes.per.tool";
+
+  public enum Priority {
+    USER, BACKGROUND
+  }
+
+  private final Object myLock = new Object();
+  // guarded by myLock
+  private final PriorityQueue<Request> myQueue = new PriorityQueue<>(
+    (r1, r2) -> r1.priority != r2.priority ? r1.priority.compareTo(r2.priority) : Long.compare(r1.sequence, r2.sequence));
+  private final Map<String, Request> myRequests = ContainerUtil.newHashMap();
+  private final Map<String, Metrics> myMetrics = ContainerUtil.newTreeMap();
+  private long mySequence;
+
+  public static GoExecutorService getInstance() {
+    return ServiceManager.getService(GoExecutorService.class);
+  }
+
+  /**
+   * @param commandKey identity of the command for coalescing, null if it should always run
+   * @param starter    starts the command once a slot of the tool is free and must pass the result to the given consumer
+   *                   when the command finishes, in any thread
+   */
+  public void submit(@NotNull String tool,
+                     @Nullable String commandKey,
+                     @NotNull Priority priority,
+                     @NotNull Consumer<Consumer<Boolean>> starter,
+                     @NotNull Consumer<Boolean> callback) {
+    synchronized (myLock) {
+      Metrics metrics = getMetrics(tool);
+      Request existing = commandKey != null ? myRequests.get(commandKey) : null;
+      if (existing != null) {
+        existing.callbacks.add(callback);
+        metrics.coalesced++;
+        if (priority.compareTo(existing.priority) < 0 && myQueue.remove(existing)) {
+          existing.priority = priority;
+          myQueue.add(existing);
+        }
+        return;
+      }
+      Request request = new Request(tool, commandKey, priority, mySequence++, starter);
+      request.callbacks.add(callback);
+      if (commandKey != null) {
+        myRequests.put(commandKey, request);
+      }
+      myQueue.add(request);
+      metrics.queued++;
+    }
+    startQueued();
+  }
+
+  /**
+   * @return snapshot of metrics by tool
+   */
+  @NotNull
+  public Map<String, Metrics> getMetrics() {
+    synchronized (myLock) {
+      Map<String, Metrics> result = ContainerUtil.newTreeMap();
+      for (Map.Entry<String, Metrics> entry : myMetrics.entrySet()) {
+        result.put(entry.getKey(), entry.getValue().copy());
+      }
+      return result;
+    }
+  }
+
+  protected int getMaxProcessesPerTool() {
+    return Math.max(1, Registry.intValue(MAX_PROCESSES_KEY));
+  }
+
+  private void startQueued() {
+    List<Request> toStart = ContainerUtil.newSmartList();
+    synchronized (myLock) {
+      int maxProcesses = getMaxProcessesPerTool();
+      List<Request> waiting = ContainerUtil.newSmartList();
+      Request request;
+      while ((request = myQueue.poll()) != null) {
+        Metrics metrics = getMetrics(request.tool);
+        if (metrics.running >= maxProcesses) {
+          waiting.add(request);
+          continue;
+        }
+        long waitTime = System.currentTimeMillis() - request.submitted;
+        metrics.queued--;
+        metrics.running++;
+        metrics.started++;
+        metrics.totalWaitTime += waitTime;
+        metrics.maxWaitTime = Math.max(metrics.maxWaitTime, waitTime);
+        request.started = System.currentTimeMillis();
+        toStart.add(request);
+      }
+      myQueue.addAll(waiting);
+    }
+    for (Request request : toStart) {
+      try {
+        request.starter.consume(result -> finished(request, result));
+      }
+      catch (RuntimeException e) {
+        LOG.error(e);
+        finished(request, false);
+      }
+    }
+  }
+
+  private void finished(@NotNull Request request, boolean result) {
+    List<Consumer<Boolean>> callbacks;
+    synchronized (myLock) {
+      if (request.finished) return;
+      request.finished = true;
+      long runTime = System.currentTimeMillis() - request.started;
+      Metrics metrics = getMetrics(request.tool);
+      metrics.running--;
+      metrics.totalRunTime += runTime;
+      metrics.maxRunTime = Math.max(metrics.maxRunTime, runTime);
+      if (request.commandKey != null) {
+        myRequests.remove(request.commandKey);
+      }
+      callbacks = ContainerUtil.newArrayList(request.callbacks);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("`" + request.tool + "` finished in " + runTime + " ms after waiting " + (request.started - request.submitted) +
+                  " ms, " + metrics);
+      }
+    }
+    startQueued();
+    for (Consumer<Boolean> callback : callbacks) {
+      try {
+        callback.consume(result);
+      }
+      catch (RuntimeException e) {
+        LOG.error(e);
+      }
+    }
+  }
+
+  @NotNull
+  private Metrics getMetrics(@NotNull String tool) {
+    return ContainerUtil.getOrCreate(myMetrics, tool, Metrics::new);
+  }
+
+  private static class Request {
+    @NotNull private final String tool;
+    @Nullable private final String commandKey;
+    @NotNull private Priority priority;
+    private final long sequence;
+    @NotNull private final Consumer<Consumer<Boolean>> starter;
+    private final List<Consumer<Boolean>> callbacks = ContainerUtil.newSmartList();
+    private final long submitted = System.currentTimeMillis();
+    private long started;
+    private boolean finished;
+
+    private Request(@NotNull String tool,
+                    @Nullable String commandKey,
+                    @NotNull Priority priority,
+                    long sequence,
+                    @NotNull Consumer<Consumer<Boolean>> starter) {
+      this.tool = tool;
+      this.commandKey = commandKey;
+      this.priority = priority;
+      this.sequence = sequence;
+      this.starter = starter;
+    }
+  }
+
+  public static class Metrics {
+    private int queued;
+    private int running;
+    private int started;
+    private int coalesced;
+    private long totalWaitTime;
+    private long maxWaitTime;
+    private long totalRunTime;
+    private long maxRunTime;
+
+    public int getQueued() {
+      return queued;
+    }
+
+    public int getRunning() {
+      return running;
+    }
+
+    public int getStarted() {
+      return started;
+    }
+
+    public int getCoalesced() {
+      return coalesced;
+    }
+
+    public long getAverageWaitTime() {
+      return started > 0 ? totalWaitTime / started : 0;
+    }
+
+    public long getMaxWaitTime() {
+      return maxWaitTime;
+    }
+
+    public long getAverageRunTime() {
+      int finished = started - running;
+      return finished > 0 ? totalRunTime / finished : 0;
+    }
+
+    public long getMaxRunTime() {
+      return maxRunTime;
+    }
+
+    @NotNull
+    private Metrics copy() {
+      Metrics result = new Metrics();
+      result.queued = queued;
+      result.running = running;
+      result.started = started;
+      result.coalesced = coalesced;
+      result.totalWaitTime = totalWaitTime;
+      result.maxWaitTime = maxWaitTime;
+      result.totalRunTime = totalRunTime;
+      result.maxRunTime = maxRunTime;
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "queued: " + queued + ", running: " + running + ", started: " + started + ", coalesced: " + coalesced +
+             ", wait: " + getAverageWaitTime() + "/" + maxWaitTime + " ms, run: " + getAverageRunTime() + "/" + maxRunTime + " ms";
+    }
+  }
+}
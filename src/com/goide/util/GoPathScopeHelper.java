@@ -17,22 +17,51 @@
 package com.goide.util;
 
 import com.goide.GoConstants;
+import com.goide.appengine.YamlFilesModificationTracker;
+import com.goide.project.GoModuleSettings;
 import com.goide.project.GoVendoringUtil;
 import com.goide.psi.impl.GoPsiImplUtil;
+import com.goide.sdk.GoImportPathResolver;
 import com.goide.sdk.GoSdkService;
 import com.goide.sdk.GoSdkUtil;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.UserDataHolder;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.ObjectUtils;
+import com.intellij.util.ThreeState;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Decides which declarations a file can reference. Helpers of files are shared per module and reference directory and
+ * remember the answer for every declaration directory, until SDK, libraries, vendoring settings or directories change.
+ */
 public class GoPathScopeHelper {
+  private static final Key<CachedValue<ConcurrentMap<VirtualFile, GoPathScopeHelper>>> HELPERS_KEY = Key.create("GO_PATH_SCOPE_HELPERS");
+
+  @NotNull
+  private final GoImportPathResolver myResolver;
+  @Nullable
+  private final Module myModule;
+  @Nullable
+  private final VirtualFile myVendoringContext;
+  @Nullable
+  private final VirtualFile myReferenceDirectory;
   @NotNull
   private final Set<VirtualFile> myRoots;
   @Nullable
@@ -40,10 +69,37 @@ public class GoPathScopeHelper {
   private final boolean mySupportsInternalPackages;
   private final boolean mySupportsSdkInternalPackages;
   private final boolean myVendoringEnabled;
+  private final Map<VirtualFile, ThreeState> myReachableDirectories = ContainerUtil.newConcurrentMap();
 
   public static GoPathScopeHelper fromReferenceFile(@NotNull Project project,
                                                     @Nullable Module module,
                                                     @Nullable VirtualFile referenceFile) {
+    VirtualFile referenceDirectory = referenceFile != null && !referenceFile.isDirectory() ? referenceFile.getParent() : null;
+    if (referenceDirectory == null) {
+      return create(project, module, referenceFile);
+    }
+    // vendor directories visible from a file are the ones visible from its directory
+    ConcurrentMap<VirtualFile, GoPathScopeHelper> helpers = getHelpers(project, module);
+    GoPathScopeHelper helper = helpers.get(referenceDirectory);
+    if (helper == null) {
+      helper = ConcurrencyUtil.cacheOrGet(helpers, referenceDirectory, create(project, module, referenceDirectory));
+    }
+    return helper;
+  }
+
+  @NotNull
+  private static ConcurrentMap<VirtualFile, GoPathScopeHelper> getHelpers(@NotNull Project project, @Nullable Module module) {
+    UserDataHolder holder = ObjectUtils.notNull(module, project);
+    return CachedValuesManager.getManager(project).getCachedValue(holder, HELPERS_KEY, () -> {
+      ModificationTracker vendoringTracker = module != null ? GoModuleSettings.getInstance(module).getVendoringModificationTracker() : null;
+      return CachedValueProvider.Result.create(ContainerUtil.newConcurrentMap(), GoSdkUtil.getSdkAndLibrariesCacheDependencies(
+        project, module, YamlFilesModificationTracker.getInstance(project), ProjectRootManager.getInstance(project),
+        GoImportPathResolver.getInstance(project), vendoringTracker));
+    }, false);
+  }
+
+  @NotNull
+  private static GoPathScopeHelper create(@NotNull Project project, @Nullable Module module, @Nullable VirtualFile referenceFile) {
     VirtualFile sdkHome = GoSdkUtil.getSdkSrcDir(project, module);
     String sdkVersion = GoSdkService.getInstance(project).getSdkVersion(module);
     boolean supportsInternalPackages = GoVendoringUtil.supportsInternalPackages(sdkVersion);
@@ -51,14 +107,25 @@ public class GoPathScopeHelper {
     boolean vendoringEnabled = GoVendoringUtil.isVendoringEnabled(module);
     Set<VirtualFile> sourceRoots = vendoringEnabled ? GoSdkUtil.getVendoringAwareSourcesPathsToLookup(project, module, referenceFile)
                                                     : GoSdkUtil.getSourcesPathsToLookup(project, module);
-    return new GoPathScopeHelper(sourceRoots, sdkHome, supportsInternalPackages, supportsSdkInternalPackages, vendoringEnabled);
+    VirtualFile referenceDirectory = referenceFile == null ? null : referenceFile.isDirectory() ? referenceFile : referenceFile.getParent();
+    return new GoPathScopeHelper(GoImportPathResolver.getInstance(project), module, vendoringEnabled ? referenceFile : null,
+                                 referenceDirectory, sourceRoots, sdkHome, supportsInternalPackages, supportsSdkInternalPackages,
+                                 vendoringEnabled);
   }
 
-  private GoPathScopeHelper(@NotNull Set<VirtualFile> roots,
+  private GoPathScopeHelper(@NotNull GoImportPathResolver resolver,
+                            @Nullable Module module,
+                            @Nullable VirtualFile vendoringContext,
+                            @Nullable VirtualFile referenceDirectory,
+                            @NotNull Set<VirtualFile> roots,
                             @Nullable VirtualFile sdkHome,
                             boolean supportsInternalPackages,
                             boolean supportsSdkInternalPackages,
                             boolean vendoringEnabled) {
+    myResolver = resolver;
+    myModule = module;
+    myVendoringContext = vendoringContext;
+    myReferenceDirectory = referenceDirectory;
     myRoots = roots;
     mySdkHome = sdkHome;
     mySupportsInternalPackages = supportsInternalPackages;
@@ -76,49 +143,62 @@ public class GoPathScopeHelper {
       return true;
     }
 
-    String importPath = GoSdkUtil.getRelativePathToRoots(declarationDirectory, myRoots);
+    VirtualFile referenceDirectory = referenceFile != null ? referenceFile.getParent() : null;
+    ThreeState reachable;
+    if (referenceDirectory != null && referenceDirectory.equals(myReferenceDirectory)) {
+      reachable = myReachableDirectories.get(declarationDirectory);
+      if (reachable == null) {
+        reachable = isReachable(declarationDirectory, referenceDirectory);
+        myReachableDirectories.put(declarationDirectory, reachable);
+      }
+    }
+    else {
+      reachable = isReachable(declarationDirectory, referenceDirectory);
+    }
+    return reachable == ThreeState.YES || reachable == ThreeState.UNSURE && GoPsiImplUtil.allowed(declarationFile, referenceFile);
+  }
+
+  /**
+   * @return whether files of {@code declarationDirectory} can be referenced from {@code referenceDirectory}, UNSURE if
+   * it depends on the files themselves
+   */
+  @NotNull
+  private ThreeState isReachable(@NotNull VirtualFile declarationDirectory, @Nullable VirtualFile referenceDirectory) {
+    String importPath = myResolver.getImportPath(declarationDirectory, myModule, myVendoringContext);
     if (importPath == null) {
-      return false;
+      return ThreeState.NO;
     }
     if (importPath.isEmpty()) {
-      return true;
+      return ThreeState.YES;
     }
 
-    VirtualFile referenceDirectory = referenceFile != null ? referenceFile.getParent() : null;
     if (referenceDirectory != null) {
       if (myVendoringEnabled && GoSdkUtil.isUnreachableVendoredPackage(declarationDirectory, referenceDirectory, myRoots)) {
-        return false;
+        return ThreeState.NO;
       }
       boolean declarationIsInSdk = mySdkHome != null && VfsUtilCore.isAncestor(mySdkHome, declarationDirectory, false);
       if (mySupportsInternalPackages || mySupportsSdkInternalPackages && declarationIsInSdk) {
         if (GoSdkUtil.isUnreachableInternalPackage(declarationDirectory, referenceDirectory, myRoots)) {
-          return false;
+          return ThreeState.NO;
         }
       }
       if (declarationIsInSdk && GoSdkUtil.findParentDirectory(declarationDirectory, myRoots, GoConstants.TESTDATA_NAME) != null) {
-        return false;
+        return ThreeState.NO;
       }
       else {
         boolean referenceIsInSdk = mySdkHome != null && VfsUtilCore.isAncestor(mySdkHome, referenceDirectory, false);
         if (referenceIsInSdk) {
-          return false;
+          return ThreeState.NO;
         }
       }
     }
-    return GoPsiImplUtil.allowed(declarationFile, referenceFile) && !isShadowedImportPath(declarationDirectory, importPath, myRoots);
+    return isShadowedImportPath(declarationDirectory, importPath) ? ThreeState.NO : ThreeState.UNSURE;
   }
 
-  private static boolean isShadowedImportPath(@NotNull VirtualFile targetDirectory,
-                                              @NotNull String targetImportPath,
-                                              @NotNull Collection<VirtualFile> roots) {
+  private boolean isShadowedImportPath(@NotNull VirtualFile targetDirectory, @NotNull String targetImportPath) {
     assert targetDirectory.isDirectory();
-    for (VirtualFile root : roots) {
-      VirtualFile realDirectoryToResolve = root.findFileByRelativePath(targetImportPath);
-      if (realDirectoryToResolve != null) {
-        return !targetDirectory.equals(realDirectoryToResolve);
-      }
-    }
-    return false;
+    VirtualFile realDirectoryToResolve = myResolver.findByImportPath(targetImportPath, myModule, myVendoringContext);
+    return realDirectoryToResolve != null && !targetDirectory.equals(realDirectoryToResolve);
   }
 
   @NotNull
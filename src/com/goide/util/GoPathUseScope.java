@@ -16,6 +16,7 @@
 
 package com.goide.util;
 
+import com.goide.GoFileType;
 import com.goide.psi.GoFile;
 import com.goide.psi.GoImportSpec;
 import com.goide.psi.GoNamedElement;
@@ -23,16 +24,25 @@ import com.goide.psi.impl.GoPsiImplUtil;
 import com.goide.psi.impl.imports.GoImportReferenceSet;
 import com.goide.sdk.GoPackageUtil;
 import com.goide.sdk.GoSdkService;
+import com.goide.stubs.index.GoImportsIndex;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.ObjectUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Map;
 import java.util.Set;
@@ -79,6 +89,14 @@ public class GoPathUseScope extends GlobalSearchScope {
     }
 
     Project project = ObjectUtils.assertNotNull(getProject());
+    if (myFilterByImportList && referenceFile instanceof VirtualFileWithId && referenceFile.getFileType() == GoFileType.INSTANCE) {
+      // cheap rejection of indexed files whose package doesn't import the declaration package at all
+      Set<VirtualFile> importingDirectories = getImportingDirectories(project);
+      if (importingDirectories != null && !importingDirectories.contains(referenceDirectory)) {
+        return false;
+      }
+    }
+
     PsiManager psiManager = PsiManager.getInstance(project);
     PsiFile referencePsiFile = psiManager.findFile(referenceFile);
     Module module = referencePsiFile != null ? ModuleUtilCore.findModuleForPsiElement(referencePsiFile) : null;
@@ -121,6 +139,22 @@ public class GoPathUseScope extends GlobalSearchScope {
     return false;
   }
 
+  /**
+   * @return directories of files that import the declaration package, or null if imports aren't indexed yet.
+   * Cached per directory until the next PSI or roots change, so scopes created for the same package share a single
+   * pass over the keys of {@link GoImportsIndex}.
+   */
+  @Nullable
+  private Set<VirtualFile> getImportingDirectories(@NotNull Project project) {
+    if (DumbService.isDumb(project)) return null;
+    VirtualFile declarationDirectory = myDeclarationFile.getParent();
+    PsiDirectory directory = declarationDirectory != null ? PsiManager.getInstance(project).findDirectory(declarationDirectory) : null;
+    if (directory == null) return null;
+    return CachedValuesManager.getCachedValue(directory, () -> CachedValueProvider.Result.create(
+      GoImportsIndex.getImportingDirectories(directory, GlobalSearchScope.allScope(project)),
+      PsiModificationTracker.MODIFICATION_COUNT, ProjectRootManager.getInstance(project)));
+  }
+
   private static boolean hasRelativeImportOfTargetPackage(@NotNull Set<String> paths,
                                                           @NotNull VirtualFile referenceDirectory,
                                                           @NotNull VirtualFile declarationDirectory) {
@@ -20,7 +20,10 @@ import com.goide.SdkAware;
 import com.goide.sdk.GoSdkService;
 import com.intellij.codeInsight.completion.CompletionType;
 import com.intellij.codeInsight.lookup.Lookup;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.openapi.util.registry.RegistryValue;
 import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.util.List;
@@ -210,6 +213,34 @@ public class GoCompletionSdkAwareTest extends GoCompletionTestBase {
     myFixture.assertPreferredCompletionItems(0, "io.ReadWriteSeeker", "idea_io.ReadWriteSeekerCustom");
   }
 
+  public void testAutoImportVariantsOfImportedPackagesGoFirst() {
+    withVariantsLimit(1, () -> doCheckResult("package main; import `idea_io`; func test(){ReadAtLeas<caret>}",
+                                             "package main; import `idea_io`; func test(){idea_io.ReadAtLeastCustom(<caret>)}"));
+  }
+
+  public void testAutoImportVariantsOfSdkGoBeforeGoPath() {
+    myFixture.addFileToProject("lib/lib.go", "package lib; func ReadAtLeastLocal() {}");
+    withVariantsLimit(2, () -> {
+      myFixture.configureByText("a.go", "package main; func test(){ReadAtLeas<caret>}");
+      myFixture.completeBasic();
+      assertSameElements(myFixture.getLookupElementStrings(), "io.ReadAtLeast", "idea_io.ReadAtLeastCustom");
+      myFixture.complete(CompletionType.BASIC, 2);
+      assertSameElements(myFixture.getLookupElementStrings(), "io.ReadAtLeast", "idea_io.ReadAtLeastCustom", "lib.ReadAtLeastLocal");
+    });
+  }
+
+  private static void withVariantsLimit(int limit, @NotNull Runnable runnable) {
+    RegistryValue value = Registry.get("go.completion.auto.import.variants.limit");
+    int oldLimit = value.asInteger();
+    value.setValue(limit);
+    try {
+      runnable.run();
+    }
+    finally {
+      value.setValue(oldLimit);
+    }
+  }
+
   public void testDoNothingInsideSelector() {
     doTestVariants(
       "package main\n" +
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.completion;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.intellij.codeInsight.completion.PrefixMatcher;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.containers.ContainerUtil;
+
+import java.util.Collections;
+import java.util.List;
+
+public class GoPublicNamesServiceTest extends GoCodeInsightFixtureTestCase {
+  public void testCamelHumpsAndRanking() {
+    GoNameTrie trie = new GoNameTrie(ContainerUtil.list("fmt.Println", "fmt.Fprintln", "idea_io.ReadWriteSeeker", "io.Reader",
+                                                        "os.O_RDONLY", "http.HTTPServer"));
+    assertEquals(ContainerUtil.list("fmt.Fprintln"), find(trie, "Fprintl"));
+    assertEquals(ContainerUtil.list("idea_io.ReadWriteSeeker"), find(trie, "io.reWS"));
+    assertEquals(ContainerUtil.list("os.O_RDONLY"), find(trie, "O_RDO"));
+    assertEquals(ContainerUtil.list("http.HTTPServer"), find(trie, "Serv"));
+    assertEquals(ContainerUtil.list("io.Reader", "idea_io.ReadWriteSeeker"), find(trie, "io"));
+  }
+
+  public void testMiddleMatches() {
+    List<String> names = ContainerUtil.list("bufio.Reader", "io.NewReader", "io.Writer", "strings.NewReplacer", "io.ReadAll");
+    GoNameTrie trie = new GoNameTrie(names);
+    assertContainsElements(find(trie, "reader"), "bufio.Reader", "io.NewReader");
+    for (String prefix : ContainerUtil.list("reader", "eader", "ader", "NRead", "rep", "io.rea", "ead")) {
+      PrefixMatcher matcher = GoCompletionUtil.createPrefixMatcher(prefix);
+      assertSameElements(find(trie, prefix), ContainerUtil.filter(names, matcher::prefixMatches));
+    }
+  }
+
+  public void testPackagesAreIncludedRegardlessOfPrefix() {
+    GoNameTrie trie = new GoNameTrie(ContainerUtil.list("fmt.Println", "fmt.Fprintln", "os.Exit"));
+    assertSameElements(trie.findMatches(GoCompletionUtil.createPrefixMatcher("Exi"), Collections.singletonList("fmt")),
+                       "fmt.Println", "fmt.Fprintln", "os.Exit");
+  }
+
+  public void testAddedNames() {
+    GoNameTrie trie = new GoNameTrie(ContainerUtil.list("fmt.Println"));
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(trie.add("pkg" + i + ".Name" + i));
+    }
+    assertFalse(trie.add("pkg1.Name1"));
+    assertEquals(ContainerUtil.list("pkg42.Name42"), find(trie, "Name42"));
+    assertEquals(1001, trie.size());
+  }
+
+  public void testChangedFilesArePatchedIn() {
+    PsiFile file = myFixture.addFileToProject("a/a.go", "package a; func Foo() {}");
+    myFixture.addFileToProject("a/a_test.go", "package a; func FooTest() {}");
+    GoPublicNamesService service = GoPublicNamesService.getInstance(getProject());
+    GoNameTrie trie = service.getProductionNames();
+    assertTrue(trie.contains("a.Foo"));
+    assertFalse(trie.contains("a.FooTest"));
+
+    Document document = PsiDocumentManager.getInstance(getProject()).getDocument(file);
+    assertNotNull(document);
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+      document.setText("package a; func Foo() {}; func FooBar() {}");
+      PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+    });
+    assertSame(trie, service.getProductionNames());
+    assertTrue(trie.contains("a.FooBar"));
+    assertEquals(ContainerUtil.list("a.FooBar"), service.findProductionNames(GoCompletionUtil.createPrefixMatcher("fooB"),
+                                                                             Collections.emptyList()));
+  }
+
+  private static List<String> find(GoNameTrie trie, String prefix) {
+    return trie.findMatches(GoCompletionUtil.createPrefixMatcher(prefix), Collections.emptyList());
+  }
+}
@@ -20,6 +20,7 @@ import com.goide.GoCodeInsightFixtureTestCase;
 import com.goide.runconfig.testing.coverage.GoCoverageAnnotator;
 import com.goide.runconfig.testing.coverage.GoCoverageProjectData;
 import com.goide.runconfig.testing.coverage.GoCoverageRunner;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 
@@ -73,6 +74,23 @@ public class GoCoverageCalculationTest extends GoCodeInsightFixtureTestCase {
     assertEquals("80% statements", mergeAnnotator.getFileCoverageInformationString(file));
   }
 
+  public void testPackageProfilesMerging() throws IOException {
+    VirtualFile file = myFixture.getTempDirFixture().createFile("merging.go");
+    File dataFile = FileUtil.createTempFile("coverage", ".out", true);
+    FileUtil.writeToFile(dataFile, "mode: count\n");
+    File packageProfiles = GoCoverageRunner.getPackageProfilesDirectory(dataFile);
+    FileUtil.copy(new File(getTestDataPath(), "coverage.out"), new File(packageProfiles, "a.out"));
+    FileUtil.copy(new File(getTestDataPath(), "coverage_for_merge.out"), new File(packageProfiles, "b.out"));
+    try {
+      GoCoverageProjectData data = GoCoverageRunner.parseCoverage(dataFile, myFixture.getProject(), myModule);
+      assertNotNull(data);
+      assertEquals("80% statements", annotate(data).getFileCoverageInformationString(file));
+    }
+    finally {
+      FileUtil.delete(packageProfiles);
+    }
+  }
+
   private GoCoverageAnnotator annotate() throws IOException {
     return annotate(file());
   }
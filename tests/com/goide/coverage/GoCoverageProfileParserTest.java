@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.coverage;
+
+import com.goide.runconfig.testing.coverage.GoCoverageProfileParser;
+import com.goide.runconfig.testing.coverage.GoCoverageProjectData;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GoCoverageProfileParserTest {
+  @Test
+  public void testRanges() {
+    GoCoverageProjectData data = parse("mode: count\r\n" +
+                                       "a/x.go:20.56,21.14 1 1\r\n" +
+                                       "a/x.go:3.1,4.2 2 0\n" +
+                                       "b/y.go:1.1,1.9 1 5\n");
+    assertArrayEquals(new int[]{3, 1, 4, 2, 2, 0, 20, 56, 21, 14, 1, 1}, ranges(data, "/a/x.go"));
+    assertArrayEquals(new int[]{1, 1, 1, 9, 1, 5}, ranges(data, "/b/y.go"));
+  }
+
+  @Test
+  public void testLastRangeWins() {
+    GoCoverageProjectData data = parse("a/x.go:20.56,21.14 1 1\nb/y.go:1.1,1.9 1 5\na/x.go:20.56,21.14 1 7");
+    assertArrayEquals(new int[]{20, 56, 21, 14, 1, 7}, ranges(data, "/a/x.go"));
+  }
+
+  @Test
+  public void testMalformedAndUnresolvedLines() {
+    GoCoverageProjectData data = parse("bad line\n" +
+                                       "a/x.go:20.56,21 1 1\n" +
+                                       "a/x.go:20.56,21.14 1 1 1\n" +
+                                       "a/x.go:20.56,21.14 1\n" +
+                                       "unresolved/z.go:1.1,2.2 1 1\n" +
+                                       "a/x.go:1.1,2.2 1 1\n");
+    assertArrayEquals(new int[]{1, 1, 2, 2, 1, 1}, ranges(data, "/a/x.go"));
+    assertNull(data.getFileData("/unresolved/z.go"));
+  }
+
+  @Test
+  public void testResolveImportPathOnce() {
+    List<String> resolved = ContainerUtil.newArrayList();
+    GoCoverageProjectData data = new GoCoverageProjectData();
+    GoCoverageProfileParser parser = new GoCoverageProfileParser(importPath -> {
+      resolved.add(importPath);
+      return "/" + importPath;
+    }, data);
+    parser.parse(bytes("a/x.go:1.1,2.2 1 1\nb/y.go:1.1,2.2 1 1\na/x.go:3.1,4.2 1 1\nb/y.go:3.1,4.2 1 1\n"), true);
+    assertEquals(Arrays.asList("a/x.go", "b/y.go"), resolved);
+  }
+
+  @Test
+  public void testIncompleteLine() {
+    GoCoverageProjectData data = new GoCoverageProjectData();
+    GoCoverageProfileParser parser = new GoCoverageProfileParser(importPath -> "/" + importPath, data);
+    String text = "a/x.go:1.1,2.2 1 1\na/x.go:3.1,4.2 1 1";
+    assertEquals(text.indexOf('\n') + 1, parser.parse(bytes(text), false));
+    assertArrayEquals(new int[]{1, 1, 2, 2, 1, 1}, ranges(data, "/a/x.go"));
+  }
+
+  @Test
+  public void testMerge() {
+    GoCoverageProjectData first = parse("a/x.go:1.1,2.2 1 1\na/x.go:5.1,6.2 1 0\n");
+    GoCoverageProjectData second = parse("a/x.go:3.1,4.2 1 1\na/x.go:5.1,6.2 1 3\nb/y.go:1.1,1.9 1 5\n");
+    first.merge(second);
+    assertArrayEquals(new int[]{1, 1, 2, 2, 1, 1, 3, 1, 4, 2, 1, 1, 5, 1, 6, 2, 1, 3}, ranges(first, "/a/x.go"));
+    assertArrayEquals(new int[]{1, 1, 1, 9, 1, 5}, ranges(first, "/b/y.go"));
+  }
+
+  @Test
+  public void testMergeSeveralProfiles() {
+    GoCoverageProjectData data = parse("a/x.go:3.1,4.2 1 1\n");
+    data.mergeFiles(Arrays.asList(parse("a/x.go:1.1,2.2 1 1\na/x.go:3.1,4.2 1 2\n"),
+                                  parse("b/y.go:1.1,1.9 1 5\n"),
+                                  parse("a/x.go:3.1,4.2 1 3\na/x.go:5.1,6.2 1 0\n")));
+    assertArrayEquals(new int[]{1, 1, 2, 2, 1, 1, 3, 1, 4, 2, 1, 6, 5, 1, 6, 2, 1, 0}, ranges(data, "/a/x.go"));
+    assertArrayEquals(new int[]{1, 1, 1, 9, 1, 5}, ranges(data, "/b/y.go"));
+  }
+
+  @Test
+  public void testFile() throws IOException {
+    File file = FileUtil.createTempFile("coverage", ".out", true);
+    FileUtil.writeToFile(file, "mode: set\na/x.go:3.1,4.2 2 1\na/x.go:1.1,2.2 1 0");
+    GoCoverageProjectData data = new GoCoverageProjectData();
+    new GoCoverageProfileParser(importPath -> "/" + importPath, data).parse(file);
+    assertArrayEquals(new int[]{1, 1, 2, 2, 1, 0, 3, 1, 4, 2, 2, 1}, ranges(data, "/a/x.go"));
+  }
+
+  @NotNull
+  private static GoCoverageProjectData parse(@NotNull String text) {
+    GoCoverageProjectData data = new GoCoverageProjectData();
+    new GoCoverageProfileParser(importPath -> importPath.startsWith("unresolved") ? null : "/" + importPath, data)
+      .parse(bytes(text), true);
+    return data;
+  }
+
+  @NotNull
+  private static ByteBuffer bytes(@NotNull String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @NotNull
+  private static int[] ranges(@NotNull GoCoverageProjectData data, @NotNull String filePath) {
+    GoCoverageProjectData.FileData fileData = data.getFileData(filePath);
+    assertNotNull(fileData);
+    int[] ranges = new int[fileData.size() * 6];
+    for (int i = 0; i < fileData.size(); i++) {
+      ranges[i * 6] = fileData.getStartLines()[i];
+      ranges[i * 6 + 1] = fileData.getStartColumns()[i];
+      ranges[i * 6 + 2] = fileData.getEndLines()[i];
+      ranges[i * 6 + 3] = fileData.getEndColumns()[i];
+      ranges[i * 6 + 4] = fileData.getStatements()[i];
+      ranges[i * 6 + 5] = fileData.getHits()[i];
+    }
+    return ranges;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.inspections;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.goide.inspections.unresolved.GoReferenceCountTable;
+import com.goide.psi.GoFile;
+
+public class GoReferenceCountTableTest extends GoCodeInsightFixtureTestCase {
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      GoReferenceCountTable.setActive(getProject(), null);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testCountsAcrossFilesOfPackage() {
+    GoFile a = (GoFile)myFixture.addFileToProject("a/a.go", "package a\n" +
+                                                           "var used, assigned, unused int\n" +
+                                                           "const C = 1\n" +
+                                                           "func foo() { assigned = used + C }\n" +
+                                                           "func bar() {}\n");
+    myFixture.addFileToProject("a/b.go", "package a\nfunc baz() { foo(); foo(); _ = used }");
+
+    GoReferenceCountTable table = GoReferenceCountTable.create(getProject());
+    assertEquals(2, table.getCount(a.getFunctions().get(0)));
+    assertEquals(0, table.getCount(a.getFunctions().get(1)));
+    assertEquals(2, table.getCount(a.getVars().get(0)));
+    assertEquals(0, table.getCount(a.getVars().get(1)));
+    assertEquals(0, table.getCount(a.getVars().get(2)));
+    assertEquals(1, table.getCount(a.getConstants().get(0)));
+  }
+
+  public void testAvailableOnlyDuringRun() {
+    myFixture.addFileToProject("a/a.go", "package a\nfunc foo() {}");
+    assertNull(GoReferenceCountTable.getInstance(getProject()));
+    GoReferenceCountTable table = GoReferenceCountTable.create(getProject());
+    GoReferenceCountTable.setActive(getProject(), table);
+    assertSame(table, GoReferenceCountTable.getInstance(getProject()));
+    GoReferenceCountTable.setActive(getProject(), null);
+    assertNull(GoReferenceCountTable.getInstance(getProject()));
+  }
+
+  public void testDiscardedAfterModification() {
+    GoFile a = (GoFile)myFixture.addFileToProject("a/a.go", "package a\nfunc foo() {}");
+    GoReferenceCountTable.setActive(getProject(), GoReferenceCountTable.create(getProject()));
+    myFixture.addFileToProject("a/b.go", "package a\nfunc bar() { foo() }");
+    assertNull(GoReferenceCountTable.getInstance(getProject()));
+    assertEquals(1, GoReferenceCountTable.create(getProject()).getCount(a.getFunctions().get(0)));
+  }
+}
@@ -21,6 +21,7 @@ import com.goide.psi.GoVarDefinition;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.LocalSearchScope;
+import com.intellij.psi.search.SearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
 import org.jetbrains.annotations.NotNull;
 
@@ -41,4 +42,21 @@ public class GoNamedElementTest extends GoCodeInsightFixtureTestCase{
     doTestGetUseScope("package a; func a() {\n var b = 1 }", LocalSearchScope.class);
   }
 
+  public void testUseScopeContainsOnlyImportingPackages() {
+    PsiFile declarationFile = myFixture.addFileToProject("a/a.go", "package a; var B = 1");
+    PsiFile sameDirectory = myFixture.addFileToProject("a/a2.go", "package a");
+    PsiFile importing = myFixture.addFileToProject("b/b.go", "package b; import `a`");
+    PsiFile importingSibling = myFixture.addFileToProject("b/b2.go", "package b");
+    PsiFile relativeImporting = myFixture.addFileToProject("c/c.go", "package c; import `../a`");
+    PsiFile notImporting = myFixture.addFileToProject("d/d.go", "package d; import `b`");
+    GoVarDefinition var = PsiTreeUtil.findChildOfType(declarationFile, GoVarDefinition.class);
+    assertNotNull(var);
+    SearchScope scope = var.getUseScope();
+    assertTrue(scope.contains(sameDirectory.getVirtualFile()));
+    assertTrue(scope.contains(importing.getVirtualFile()));
+    assertTrue(scope.contains(importingSibling.getVirtualFile()));
+    assertTrue(scope.contains(relativeImporting.getVirtualFile()));
+    assertFalse(scope.contains(notImporting.getVirtualFile()));
+  }
+
 }
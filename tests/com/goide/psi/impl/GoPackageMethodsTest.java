@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.psi.impl;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.goide.psi.GoFile;
+import com.goide.psi.GoMethodDeclaration;
+import com.goide.psi.GoTypeSpec;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.util.containers.ContainerUtil;
+
+import java.util.List;
+
+public class GoPackageMethodsTest extends GoCodeInsightFixtureTestCase {
+  public void testMethodsFromAllPackageFiles() {
+    GoFile file = (GoFile)myFixture.addFileToProject("foo/a.go", "package foo; type A struct {}; type B int; func (a A) First() {}");
+    myFixture.addFileToProject("foo/b.go", "package foo; func (a *A) Second() {}; func (b B) Third() {}");
+    myFixture.addFileToProject("foo/a_test.go", "package foo_test; type A struct {}; func (a A) Test() {}");
+    myFixture.addFileToProject("bar/a.go", "package foo; type A struct {}; func (a A) Other() {}");
+    assertSameElements(methodNames(file.getTypes().get(0)), "First", "Second");
+    assertSameElements(methodNames(file.getTypes().get(1)), "Third");
+  }
+
+  public void testTypeWithoutMethods() {
+    GoFile file = (GoFile)myFixture.addFileToProject("foo/a.go", "package foo; type A struct {}; type B struct {}; func (b B) Method() {}");
+    assertEmpty(file.getTypes().get(0).getMethods());
+  }
+
+  public void testCacheIsDroppedOnChange() {
+    GoFile file = (GoFile)myFixture.addFileToProject("foo/a.go", "package foo; type A struct {}; func (a A) First() {}");
+    GoFile other = (GoFile)myFixture.addFileToProject("foo/b.go", "package foo\n");
+    assertSameElements(methodNames(file.getTypes().get(0)), "First");
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+      PsiDocumentManager documentManager = PsiDocumentManager.getInstance(getProject());
+      //noinspection ConstantConditions
+      documentManager.getDocument(other).insertString(other.getTextLength(), "func (a *A) Second() {}");
+      documentManager.commitAllDocuments();
+    });
+    assertSameElements(methodNames(file.getTypes().get(0)), "First", "Second");
+  }
+
+  private static List<String> methodNames(GoTypeSpec spec) {
+    return ContainerUtil.map(spec.getMethods(), GoMethodDeclaration::getName);
+  }
+}
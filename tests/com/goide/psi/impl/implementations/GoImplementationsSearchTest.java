@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.psi.impl.implementations;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.goide.psi.GoFile;
+import com.goide.psi.GoInterfaceType;
+import com.goide.psi.GoMethodSpec;
+import com.goide.psi.GoNamedElement;
+import com.goide.psi.GoTypeSpec;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.DefinitionsScopedSearch;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+
+public class GoImplementationsSearchTest extends GoCodeInsightFixtureTestCase {
+  public void testImplementations() {
+    GoTypeSpec reader = getType(addFile("io/io.go", "package io; type Reader interface { Read(p []byte) (n int, err error) }; " +
+                                                      "type ReadCloser interface { Reader; Close() error }"), 0);
+    GoTypeSpec readCloser = getType(reader, 1);
+    addFile("a/a.go", "package a; type File struct {}; func (f *File) Read(b []byte) (int, error) { return 0, nil }; " +
+                      "func (f *File) Close() error { return nil }");
+    addFile("b/b.go", "package b; type Buffer []byte; func (b Buffer) Read(a, b []byte) (int, error) { return 0, nil }");
+    addFile("c/c.go", "package c; type Reader struct {}; func (r Reader) Read(p []string) (n int, err error) { return 0, nil }");
+    addFile("d/d.go", "package d; type Pipe int; func (x Pipe) Read(p []byte) (n int, err error) { return 0, nil }");
+    assertSameElements(getNames(implementations(reader)), "File", "Pipe");
+    assertSameElements(getNames(implementations(readCloser)), "File");
+  }
+
+  public void testImplementedInterfaces() {
+    GoTypeSpec reader = getType(addFile("io/io.go", "package io; type Reader interface { Read(p []byte) (n int, err error) }; " +
+                                                      "type ReadCloser interface { Reader; Close() error }; type Closer interface { Close() error }; " +
+                                                      "type Writer interface { Write(p []byte) (n int, err error) }"), 0);
+    GoFile file = addFile("a/a.go", "package a\nimport `io`\ntype File struct {}\nfunc (f *File) Read(b []byte) (int, error) { return 0, nil }\n" +
+                                    "func (f *File) Close() error { return nil }\nvar _ io.Reader = &File{}");
+    List<GoTypeSpec> result = ContainerUtil.newArrayList();
+    GoImplementationsSearch.processImplementedInterfaces(getType(file, 0), GlobalSearchScope.allScope(getProject()),
+                                                         new CommonProcessors.CollectProcessor<>(result));
+    assertSameElements(getNames(result), "Reader", "ReadCloser", "Closer");
+    assertTrue(GoImplementationsSearch.isImplementation(getType(file, 0), reader));
+  }
+
+  public void testImplementedEmbeddingInterfaces() {
+    addFile("io/io.go", "package io; type Reader interface { Read(p []byte) (n int, err error) }; type Closer interface { Close() error }; " +
+                        "type ReadCloser interface { Reader; Closer }; type Seeker interface { Seek() }; " +
+                        "type ReadSeeker interface { Reader; Seeker }; type ReadCloserAlias interface { ReadCloser }");
+    GoFile file = addFile("a/a.go", "package a\ntype File struct {}\nfunc (f *File) Read(b []byte) (int, error) { return 0, nil }\n" +
+                                    "func (f *File) Close() error { return nil }");
+    List<GoTypeSpec> result = ContainerUtil.newArrayList();
+    GoImplementationsSearch.processImplementedInterfaces(getType(file, 0), GlobalSearchScope.allScope(getProject()),
+                                                         new CommonProcessors.CollectProcessor<>(result));
+    assertSameElements(getNames(result), "Reader", "Closer", "ReadCloser", "ReadCloserAlias");
+  }
+
+  public void testEmptyInterfaceHasNoImplementations() {
+    GoFile file = addFile("a/a.go", "package a; type Any interface {}; type A int; func (a A) String() string { return `` }");
+    assertEmpty(implementations(getType(file, 0)));
+  }
+
+  public void testMethodImplementations() {
+    GoFile file = addFile("a/a.go", "package a; type Stringer interface { String() string }; type A int; func (a A) String() string { return `` }");
+    GoInterfaceType type = GoImplementationsSearch.getInterfaceType(getType(file, 0));
+    assertNotNull(type);
+    GoMethodSpec method = ContainerUtil.getFirstItem(type.getMethods());
+    assertNotNull(method);
+    Collection<PsiElement> result = DefinitionsScopedSearch.search(method).findAll();
+    assertEquals(1, result.size());
+    assertEquals("String", ((GoNamedElement)ContainerUtil.getFirstItem(result)).getName());
+  }
+
+  @NotNull
+  private GoFile addFile(@NotNull String path, @NotNull String text) {
+    return (GoFile)myFixture.addFileToProject(path, text);
+  }
+
+  @NotNull
+  private static GoTypeSpec getType(@NotNull GoFile file, int index) {
+    return file.getTypes().get(index);
+  }
+
+  @NotNull
+  private static GoTypeSpec getType(@NotNull GoTypeSpec sibling, int index) {
+    return getType((GoFile)sibling.getContainingFile(), index);
+  }
+
+  @NotNull
+  private Collection<PsiElement> implementations(@NotNull GoTypeSpec spec) {
+    return DefinitionsScopedSearch.search(spec, GlobalSearchScope.allScope(getProject())).findAll();
+  }
+
+  @NotNull
+  private static List<String> getNames(@NotNull Collection<? extends PsiElement> elements) {
+    return ContainerUtil.map(elements, element -> ((GoNamedElement)element).getName());
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.psi.impl.imports;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.goide.stubs.index.GoImportsIndex;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+
+import java.util.Collections;
+import java.util.Set;
+
+public class GoImportGraphTest extends GoCodeInsightFixtureTestCase {
+  public void testTransitiveDependents() {
+    VirtualFile a = myFixture.addFileToProject("a/a.go", "package a").getVirtualFile().getParent();
+    VirtualFile b = myFixture.addFileToProject("b/b.go", "package b; import \"a\"").getVirtualFile().getParent();
+    VirtualFile c = myFixture.addFileToProject("c/c_test.go", "package c; import alias \"b\"").getVirtualFile().getParent();
+    myFixture.addFileToProject("d/d.go", "package d; import \"fmt\"");
+    assertSameElements(getDependents(a), b, c);
+    assertSameElements(getDependents(b), c);
+    assertEmpty(getDependents(c));
+  }
+
+  public void testDependencies() {
+    VirtualFile a = myFixture.addFileToProject("a/a.go", "package a").getVirtualFile().getParent();
+    VirtualFile b = myFixture.addFileToProject("b/b.go", "package b; import \"a\"").getVirtualFile().getParent();
+    myFixture.addFileToProject("b/b2.go", "package b; import (\"a\"; \"fmt\")");
+    VirtualFile c = myFixture.addFileToProject("c/c.go", "package c; import (\"a\"; \"b\")").getVirtualFile().getParent();
+    GoImportGraph graph = GoImportGraph.getInstance(getProject());
+    assertSameElements(graph.getDependencyDirectories(Collections.singletonList(c)), a, b);
+    assertEmpty(graph.getDependencyDirectories(Collections.singletonList(a)));
+    assertOrderedEquals(graph.getImportedDirectories(b), a);
+    assertSameElements(graph.getImportingDirectories(a), b, c);
+    assertSameElements(GoImportsIndex.getImportingDirectories("a", GlobalSearchScope.projectScope(getProject())), b, c);
+  }
+
+  public void testChangedImportsArePatchedIn() {
+    VirtualFile a = myFixture.addFileToProject("a/a.go", "package a").getVirtualFile().getParent();
+    VirtualFile b = myFixture.addFileToProject("b/b.go", "package b; import \"a\"").getVirtualFile().getParent();
+    PsiFile file = myFixture.addFileToProject("c/c.go", "package c");
+    assertSameElements(getDependents(a), b);
+
+    Document document = PsiDocumentManager.getInstance(getProject()).getDocument(file);
+    assertNotNull(document);
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+      document.setText("package c; import \"b\"");
+      PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+    });
+    assertSameElements(getDependents(a), b, file.getVirtualFile().getParent());
+    assertOrderedEquals(GoImportGraph.getInstance(getProject()).getImportedDirectories(file.getVirtualFile().getParent()), b);
+
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+      document.setText("package c");
+      PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+    });
+    assertSameElements(getDependents(a), b);
+    assertEmpty(GoImportGraph.getInstance(getProject()).getImportingDirectories(b));
+  }
+
+  public void testCreatedFiles() {
+    VirtualFile a = myFixture.addFileToProject("a/a.go", "package a").getVirtualFile().getParent();
+    VirtualFile b = myFixture.addFileToProject("b/b.go", "package b").getVirtualFile().getParent();
+    assertEmpty(getDependents(a));
+
+    myFixture.addFileToProject("b/b2.go", "package b; import \"a\"");
+    assertSameElements(getDependents(a), b);
+    VirtualFile c = myFixture.addFileToProject("c/c.go", "package c; import \"b\"").getVirtualFile().getParent();
+    assertSameElements(getDependents(a), b, c);
+  }
+
+  private Set<VirtualFile> getDependents(VirtualFile directory) {
+    return GoImportGraph.getInstance(getProject()).getDependentDirectories(Collections.singletonList(directory));
+  }
+}
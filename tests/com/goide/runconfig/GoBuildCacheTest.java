@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.intellij.openapi.util.io.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+
+public class GoBuildCacheTest extends GoCodeInsightFixtureTestCase {
+  public void testChangedBinaryIsNotReused() throws IOException {
+    GoBuildCache cache = GoBuildCache.getInstance(getProject());
+    File binary = FileUtil.createTempFile("binary", "go", true);
+    FileUtil.writeToFile(binary, "binary");
+    cache.putArtifact("app:run", "key", binary, true);
+    assertEquals(binary, cache.getArtifact("app:run", "key"));
+    assertNull(cache.getArtifact("app:run", "other key"));
+    assertNull(cache.getArtifact("app:debug", "key"));
+    assertTrue(cache.isArtifact(binary));
+
+    FileUtil.writeToFile(binary, "rebuilt binary");
+    assertNull(cache.getArtifact("app:run", "key"));
+  }
+
+  public void testReplacedTemporaryBinaryIsDeleted() throws IOException {
+    GoBuildCache cache = GoBuildCache.getInstance(getProject());
+    File first = FileUtil.createTempFile("first", "go", true);
+    File second = FileUtil.createTempFile("second", "go", true);
+    cache.putArtifact("app:run", "first", first, true);
+    cache.putArtifact("app:run", "second", second, false);
+    assertFalse(first.exists());
+    assertFalse(cache.isArtifact(first));
+    assertEquals(second, cache.getArtifact("app:run", "second"));
+
+    File third = FileUtil.createTempFile("third", "go", true);
+    cache.putArtifact("app:run", "third", third, true);
+    assertTrue(second.exists());
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class GoParallelPackagesProcessHandlerTest {
+  private final GoTestPackageDurations myDurations = new GoTestPackageDurations();
+  private final List<String> myStarted = ContainerUtil.newArrayList();
+  private final Map<String, FakeProcessHandler> myHandlers = ContainerUtil.newHashMap();
+  private final List<Integer> myExitCodes = ContainerUtil.newArrayList();
+
+  @Test
+  public void testStartsAtMostParallelismPackages() {
+    ProcessHandler handler = createHandler(2, "a", "b", "c", "d");
+    handler.startNotify();
+    assertEquals(ContainerUtil.newArrayList("a", "b"), myStarted);
+    myHandlers.get("b").finish(0);
+    assertEquals(ContainerUtil.newArrayList("a", "b", "c"), myStarted);
+    myHandlers.get("a").finish(0);
+    myHandlers.get("c").finish(0);
+    assertEquals(ContainerUtil.newArrayList("a", "b", "c", "d"), myStarted);
+    assertTrue(myExitCodes.isEmpty());
+    myHandlers.get("d").finish(0);
+    assertEquals(ContainerUtil.newArrayList(0), myExitCodes);
+    assertTrue(myDurations.getDuration("a") >= 0);
+    assertTrue(myDurations.getDuration("d") >= 0);
+  }
+
+  @Test
+  public void testFirstNonZeroExitCode() {
+    ProcessHandler handler = createHandler(3, "a", "b", "c");
+    handler.startNotify();
+    myHandlers.get("a").finish(0);
+    myHandlers.get("c").finish(2);
+    myHandlers.get("b").finish(1);
+    assertEquals(ContainerUtil.newArrayList(2), myExitCodes);
+  }
+
+  @Test
+  public void testDestroyBeforeStart() {
+    ProcessHandler handler = createHandler(1, "a", "b");
+    handler.destroyProcess();
+    handler.startNotify();
+    assertTrue(myStarted.isEmpty());
+    assertEquals(1, myExitCodes.size());
+  }
+
+  @Test
+  public void testDestroyAfterStart() {
+    ProcessHandler handler = createHandler(2, "a", "b", "c");
+    handler.startNotify();
+    handler.destroyProcess();
+    assertEquals(ContainerUtil.newArrayList("a", "b"), myStarted);
+    assertTrue(myHandlers.get("a").isProcessTerminated());
+    assertTrue(myHandlers.get("b").isProcessTerminated());
+    // terminated once, after the last running package
+    assertEquals(ContainerUtil.newArrayList(FakeProcessHandler.DESTROYED), myExitCodes);
+    assertEquals(-1, myDurations.getDuration("a"));
+  }
+
+  @Test
+  public void testTerminatedOnceWithoutPackages() {
+    ProcessHandler handler = createHandler(2);
+    handler.startNotify();
+    handler.destroyProcess();
+    assertEquals(ContainerUtil.newArrayList(0), myExitCodes);
+  }
+
+  @NotNull
+  private ProcessHandler createHandler(int parallelism, @NotNull String... packages) {
+    Map<String, GeneralCommandLine> commandLines = ContainerUtil.newLinkedHashMap();
+    for (String packagePath : packages) {
+      commandLines.put(packagePath, new GeneralCommandLine(packagePath));
+    }
+    ProcessHandler handler = new GoParallelPackagesProcessHandler(commandLines, parallelism, myDurations) {
+      @NotNull
+      @Override
+      protected ProcessHandler createProcessHandler(@NotNull GeneralCommandLine commandLine) {
+        String packagePath = commandLine.getExePath();
+        FakeProcessHandler packageHandler = new FakeProcessHandler();
+        myStarted.add(packagePath);
+        myHandlers.put(packagePath, packageHandler);
+        return packageHandler;
+      }
+    };
+    handler.addProcessListener(new ProcessAdapter() {
+      @Override
+      public void processTerminated(ProcessEvent event) {
+        myExitCodes.add(event.getExitCode());
+      }
+    });
+    return handler;
+  }
+
+  private static class FakeProcessHandler extends ProcessHandler {
+    private static final int DESTROYED = 137;
+
+    private void finish(int exitCode) {
+      notifyProcessTerminated(exitCode);
+    }
+
+    @Override
+    protected void destroyProcessImpl() {
+      notifyProcessTerminated(DESTROYED);
+    }
+
+    @Override
+    protected void detachProcessImpl() {
+      notifyProcessDetached();
+    }
+
+    @Override
+    public boolean detachIsDefault() {
+      return false;
+    }
+
+    @Nullable
+    @Override
+    public OutputStream getProcessInput() {
+      return null;
+    }
+  }
+}
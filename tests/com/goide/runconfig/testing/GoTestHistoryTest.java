@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.intellij.util.containers.ContainerUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class GoTestHistoryTest {
+  @Test
+  public void testResults() {
+    GoTestHistory history = new GoTestHistory();
+    history.addResults("a", Arrays.asList("TestA", "TestB", "TestC"), Collections.singletonList("TestB"));
+    assertEquals(Collections.singleton("TestB"), history.getFailedTests("a"));
+    assertTrue(history.getFailedTests("b").isEmpty());
+
+    history.addResults("a", Collections.singletonList("TestA"), Collections.singletonList("TestA"));
+    assertEquals(ContainerUtil.newHashSet("TestA", "TestB"), history.getFailedTests("a"));
+    history.addResults("a", Arrays.asList("TestA", "TestB"), Collections.emptyList());
+    assertTrue(history.getFailedTests("a").isEmpty());
+  }
+
+  @Test
+  public void testState() {
+    GoTestHistory history = new GoTestHistory();
+    history.addResults("a", Collections.singletonList("TestA"), Collections.singletonList("TestA"));
+    history.addResults("b", Collections.singletonList("TestA"), Collections.emptyList());
+    GoTestHistory loaded = new GoTestHistory();
+    loaded.loadState(history.getState());
+    assertEquals(Collections.singleton("TestA"), loaded.getFailedTests("a"));
+    assertTrue(loaded.getFailedTests("b").isEmpty());
+  }
+
+  @Test
+  public void testSummaryLines() {
+    assertEquals("github.com/dlsniper/go-metrics", GoTestHistoryRecorder.getSummaryPackageName("ok  \tgithub.com/dlsniper/go-metrics\t0.069s\n"));
+    assertEquals("_/home/go", GoTestHistoryRecorder.getSummaryPackageName("FAIL\t_/home/go\t0.012s"));
+    assertEquals("some/package", GoTestHistoryRecorder.getSummaryPackageName("ok  \tsome/package"));
+    assertNull(GoTestHistoryRecorder.getSummaryPackageName("FAIL\n"));
+    assertNull(GoTestHistoryRecorder.getSummaryPackageName("--- FAIL: TestA (0.00s)"));
+    assertNull(GoTestHistoryRecorder.getSummaryPackageName("?   \tsome/package\t[no test files]"));
+  }
+}
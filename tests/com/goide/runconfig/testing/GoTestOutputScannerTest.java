@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.goide.runconfig.testing.GoTestOutputScanner.Event;
+import com.goide.runconfig.testing.GoTestOutputScanner.GocheckTail;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GoTestOutputScannerTest {
+  private final GoTestOutputScanner myScanner = new GoTestOutputScanner();
+
+  @Test
+  public void testGotestEvents() {
+    assertEvent(Event.RUN, "TestA/case_1", "=== RUN   TestA/case_1\n", 0);
+    assertEvent(Event.NONE, null, "  === RUN TestA\n", 0);
+    assertEvent(Event.PASS, "TestA/b/c#01", "        --- PASS: TestA/b/c#01 (0.00s)\n", 0);
+    assertEquals(8, myScanner.getEventStart());
+    assertEvent(Event.FAIL, "TestПривет", "output--- FAIL: TestПривет (0.01s)\n", 3);
+    assertEquals(6, myScanner.getEventStart());
+    assertEvent(Event.SKIP, "TestA", "--- SKIP:\tTestA\n", 0);
+    assertEvent(Event.NONE, null, "--- PASS: 1Test\n", 0);
+    assertEvent(Event.FINISHED, null, "PASS\n", 0);
+    assertEvent(Event.FINISHED, null, "exit status 1 FAIL\n", 0);
+    assertEvent(Event.NONE, null, "FAIL\tgithub.com/a/b\t0.01s\n", 0);
+    assertEvent(Event.NONE, null, " PASS\n", 0);
+  }
+
+  @Test
+  public void testBenchmarks() {
+    assertTrue(myScanner.scanBenchmarkStart("BenchmarkA-8   \t1000\t 10 ns/op\n", 0));
+    assertEquals("BenchmarkA", myScanner.getName("BenchmarkA-8   \t1000\t 10 ns/op\n"));
+    assertTrue(myScanner.scanBenchmarkStart("Benchmark\n", 0));
+    assertFalse(myScanner.scanBenchmarkStart(" BenchmarkA\n", 0));
+    assertTrue(myScanner.scanBenchmarkFailure("--- FAIL: BenchmarkB\n", 0));
+    assertEquals("BenchmarkB", myScanner.getName("--- FAIL: BenchmarkB\n"));
+    assertFalse(myScanner.scanBenchmarkFailure("--- FAIL: TestB\n", 0));
+  }
+
+  @Test
+  public void testGocheckEvents() {
+    String start = "output START: a_test.go:12: MySuite.TestA\n";
+    assertTrue(myScanner.scanGocheckResult(start, "START: ", GocheckTail.NONE));
+    assertEquals("MySuite.TestA", myScanner.getName(start));
+    assertEquals("output ", start.substring(0, myScanner.getEventStart()));
+    String pass = "PASS: a_test.go:12: MySuite.TestA\t0.001s\n";
+    assertTrue(myScanner.scanGocheckResult(pass, "PASS: ", GocheckTail.DURATION));
+    assertEquals("MySuite.TestA", myScanner.getName(pass));
+    assertFalse(myScanner.scanGocheckResult("PASS: a_test.go:12: MySuite.TestA\n", "PASS: ", GocheckTail.DURATION));
+    String skip = "SKIP: a_test.go:12: MySuite.TestA (not now)\n";
+    assertTrue(myScanner.scanGocheckResult(skip, "SKIP: ", GocheckTail.REASON));
+    assertEquals("MySuite.TestA", myScanner.getName(skip));
+    assertFalse(myScanner.scanGocheckResult("FAIL: a_test.go:x: MySuite.TestA\n", "FAIL: ", GocheckTail.NONE));
+    assertTrue(GoTestOutputScanner.isGocheckSuiteStart("=== RUN Test\n"));
+    assertFalse(GoTestOutputScanner.isGocheckSuiteStart("=== RUN \n"));
+    assertTrue(GoTestOutputScanner.isGocheckSuiteEnd("FAIL\n"));
+    assertFalse(GoTestOutputScanner.isGocheckSuiteEnd("PASS: a_test.go:12: MySuite.TestA\t0.001s\n"));
+  }
+
+  private void assertEvent(@NotNull Event expected, @Nullable String name, @NotNull String line, int start) {
+    Event event = myScanner.scanGotest(line, start);
+    assertEquals(expected, event);
+    if (name != null) {
+      assertEquals(name, myScanner.getName(line));
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.intellij.util.containers.ContainerUtil;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class GoTestPackageDurationsTest {
+  @Test
+  public void testAveraging() {
+    GoTestPackageDurations durations = new GoTestPackageDurations();
+    assertEquals(-1, durations.getDuration("a"));
+    durations.addDuration("a", 100);
+    durations.addDuration("a", 300);
+    assertEquals(200, durations.getDuration("a"));
+  }
+
+  @Test
+  public void testLongestFirst() {
+    List<String> packages = ContainerUtil.newArrayList("fast", "new", "slow", "medium");
+    createDurations().sortLongestFirst(packages);
+    assertEquals(ContainerUtil.newArrayList("new", "slow", "medium", "fast"), packages);
+  }
+
+  @Test
+  public void testFastestFirst() {
+    List<String> packages = ContainerUtil.newArrayList("slow", "fast", "medium", "new");
+    createDurations().sortFastestFirst(packages);
+    assertEquals(ContainerUtil.newArrayList("new", "fast", "medium", "slow"), packages);
+  }
+
+  @Test
+  public void testState() {
+    GoTestPackageDurations loaded = new GoTestPackageDurations();
+    loaded.loadState(createDurations().getState());
+    assertEquals(50, loaded.getDuration("medium"));
+    assertEquals(-1, loaded.getDuration("new"));
+  }
+
+  private static GoTestPackageDurations createDurations() {
+    GoTestPackageDurations durations = new GoTestPackageDurations();
+    durations.addDuration("fast", 10);
+    durations.addDuration("medium", 50);
+    durations.addDuration("slow", 200);
+    return durations;
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.frameworks.gobench;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GoBenchmarkComparisonTest {
+  @Test
+  public void testParse() {
+    GoBenchmarkResult result = GoBenchmarkResult.parse("BenchmarkRead", "2000000\t       612 ns/op\t  32.75 MB/s\t      64 B/op\t       2 allocs/op\n");
+    assertNotNull(result);
+    assertEquals(2000000, result.iterations);
+    assertEquals(612, result.nsPerOp, 0);
+    assertEquals(32.75, result.mbPerSec, 0);
+    assertEquals(64, result.bytesPerOp, 0);
+    assertEquals(2, result.allocsPerOp, 0);
+
+    result = GoBenchmarkResult.parse("BenchmarkRead", "2000000000               0.00 ns/op   3 items/op");
+    assertNotNull(result);
+    assertEquals(0, result.nsPerOp, 0);
+    assertEquals(-1, result.bytesPerOp, 0);
+
+    assertNull(GoBenchmarkResult.parse("BenchmarkRead", "Hellooooo"));
+    assertNull(GoBenchmarkResult.parse("BenchmarkRead", "2000 a ns/op"));
+    assertNull(GoBenchmarkResult.parse("BenchmarkRead", "2000 12 B/op"));
+  }
+
+  @Test
+  public void testExactPValue() {
+    double[] x = {1, 2, 3, 4, 5};
+    double[] y = {6, 7, 8, 9, 10};
+    assertEquals(2.0 / 252, GoBenchmarkComparison.mannWhitneyPValue(x, y), 1e-9);
+    assertEquals(2.0 / 252, GoBenchmarkComparison.mannWhitneyPValue(y, x), 1e-9);
+    assertEquals(1, GoBenchmarkComparison.mannWhitneyPValue(new double[]{1}, new double[]{2}), 0);
+    assertTrue(GoBenchmarkComparison.mannWhitneyPValue(new double[]{1, 3, 5, 7, 9}, new double[]{2, 4, 6, 8, 10}) > 0.5);
+  }
+
+  @Test
+  public void testPValueWithTies() {
+    double p = GoBenchmarkComparison.mannWhitneyPValue(new double[]{1, 1, 1, 1, 1}, new double[]{2, 2, 2, 2, 2});
+    assertTrue(p > 0.001 && p < 0.01);
+    assertEquals(1, GoBenchmarkComparison.mannWhitneyPValue(new double[]{1, 1, 1}, new double[]{1, 1, 1}), 0);
+  }
+
+  @Test
+  public void testRegression() {
+    List<GoBenchmarkResult> baseline = results(new double[]{100, 101, 99, 98, 102}, new double[]{64, 64, 64, 64, 64});
+    List<GoBenchmarkResult> current = results(new double[]{120, 121, 119, 122, 118}, new double[]{64, 64, 64, 64, 64});
+    List<GoBenchmarkComparison> comparisons = GoBenchmarkComparison.compare(baseline, current);
+    assertEquals(2, comparisons.size());
+
+    GoBenchmarkComparison time = comparisons.get(0);
+    assertEquals(GoBenchmarkResult.NS_PER_OP, time.getUnit());
+    assertTrue(time.isRegression());
+    assertEquals(0.2, time.getDelta(), 1e-9);
+    assertEquals("ns/op: 100 -> 120 (+20.00%, p=0.008 n=5+5)", time.toString());
+
+    GoBenchmarkComparison memory = comparisons.get(1);
+    assertFalse(memory.isSignificant());
+    assertFalse(memory.isRegression());
+    assertEquals("B/op: 64 -> 64 (~, p=1.000 n=5+5)", memory.toString());
+
+    assertFalse(GoBenchmarkComparison.compare(current, baseline).get(0).isRegression());
+  }
+
+  private static List<GoBenchmarkResult> results(double[] nsPerOp, double[] bytesPerOp) {
+    GoBenchmarkResult[] results = new GoBenchmarkResult[nsPerOp.length];
+    for (int i = 0; i < results.length; i++) {
+      results[i] = new GoBenchmarkResult("BenchmarkRead", 1000);
+      results[i].nsPerOp = nsPerOp[i];
+      results[i].bytesPerOp = bytesPerOp[i];
+    }
+    return Arrays.asList(results);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.sdk;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+
+import java.io.IOException;
+
+public class GoImportPathResolverTest extends GoCodeInsightFixtureTestCase {
+  public void testImportPaths() {
+    VirtualFile directory = myFixture.addFileToProject("a/b/c.go", "package b").getVirtualFile().getParent();
+    GoImportPathResolver resolver = GoImportPathResolver.getInstance(getProject());
+    assertEquals(directory, resolver.findByImportPath("a/b", myFixture.getModule(), null));
+    assertEquals(directory, resolver.findByImportPath("a/b", myFixture.getModule(), null));
+    assertEquals("a/b", resolver.getImportPath(directory, myFixture.getModule(), null));
+    assertNull(resolver.findByImportPath("a/d", myFixture.getModule(), null));
+  }
+
+  public void testVendorPrecedence() {
+    VirtualFile global = myFixture.addFileToProject("v/v.go", "package v").getVirtualFile().getParent();
+    VirtualFile vendored = myFixture.addFileToProject("x/vendor/v/v.go", "package v").getVirtualFile().getParent();
+    VirtualFile nested = myFixture.addFileToProject("x/y/vendor/v/v.go", "package v").getVirtualFile().getParent();
+    PsiFile context = myFixture.addFileToProject("x/y/z/z.go", "package z");
+    PsiFile outside = myFixture.addFileToProject("w/w.go", "package w");
+    GoImportPathResolver resolver = GoImportPathResolver.getInstance(getProject());
+    assertEquals(nested, resolver.findByImportPath("v", myFixture.getModule(), context.getVirtualFile()));
+    assertEquals(vendored, resolver.findByImportPath("v", myFixture.getModule(), vendored));
+    assertEquals(global, resolver.findByImportPath("v", myFixture.getModule(), outside.getVirtualFile()));
+    assertEquals(global, resolver.findByImportPath("v", myFixture.getModule(), null));
+    assertEquals("v", resolver.getImportPath(vendored, myFixture.getModule(), vendored));
+    assertEquals("x/vendor/v", resolver.getImportPath(vendored, myFixture.getModule(), null));
+  }
+
+  public void testChangesAreTrackedIncrementally() throws IOException {
+    GoImportPathResolver resolver = GoImportPathResolver.getInstance(getProject());
+    PsiFile context = myFixture.addFileToProject("x/x.go", "package x");
+    assertNull(resolver.findByImportPath("q/r", myFixture.getModule(), null));
+    VirtualFile directory = myFixture.addFileToProject("q/r/r.go", "package r").getVirtualFile().getParent();
+    assertEquals(directory, resolver.findByImportPath("q/r", myFixture.getModule(), null));
+    assertEquals(directory, resolver.findByImportPath("q/r", myFixture.getModule(), context.getVirtualFile()));
+
+    VirtualFile vendored = myFixture.addFileToProject("x/vendor/q/r/r.go", "package r").getVirtualFile().getParent();
+    assertEquals(vendored, resolver.findByImportPath("q/r", myFixture.getModule(), context.getVirtualFile()));
+
+    VirtualFile vendor = vendored.getParent().getParent();
+    ApplicationManager.getApplication().runWriteAction((ThrowableComputable<Void, IOException>)() -> {
+      vendor.rename(this, "vendor2");
+      return null;
+    });
+    assertEquals(directory, resolver.findByImportPath("q/r", myFixture.getModule(), context.getVirtualFile()));
+    ApplicationManager.getApplication().runWriteAction((ThrowableComputable<Void, IOException>)() -> {
+      directory.getParent().delete(this);
+      return null;
+    });
+    assertNull(resolver.findByImportPath("q/r", myFixture.getModule(), null));
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.stubs;
+
+import com.goide.stubs.index.GoFileIdSet;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GoFileIdSetTest {
+  @Test
+  public void testSparseIds() {
+    GoFileIdSet set = new GoFileIdSet();
+    set.add(1);
+    set.add(70000);
+    set.add(40000000);
+    assertTrue(set.contains(1));
+    assertTrue(set.contains(70000));
+    assertTrue(set.contains(40000000));
+    assertFalse(set.contains(2));
+    assertFalse(set.contains(-1));
+    assertEquals(3, set.size());
+    assertTrue(set.getMemoryFootprint() < new BitSet(40000001).size() / 8 / 100);
+  }
+
+  @Test
+  public void testRemove() {
+    GoFileIdSet set = new GoFileIdSet();
+    set.add(5);
+    set.add(100000);
+    set.remove(5);
+    set.remove(6);
+    assertFalse(set.contains(5));
+    assertTrue(set.contains(100000));
+    set.remove(100000);
+    assertTrue(set.isEmpty());
+  }
+
+  @Test
+  public void testDenseChunk() {
+    GoFileIdSet set = new GoFileIdSet();
+    BitSet expected = new BitSet();
+    for (int i = 0; i < 20000; i += 2) {
+      set.add(i);
+      expected.set(i);
+    }
+    for (int i = 0; i < 19000; i += 4) {
+      set.remove(i);
+      expected.clear(i);
+    }
+    assertSame(expected, set, 20000);
+  }
+
+  @Test
+  public void testSetAlgebra() {
+    Random random = new Random(42);
+    for (int range : new int[]{1000, 200000, 50000000}) {
+      GoFileIdSet first = new GoFileIdSet();
+      GoFileIdSet second = new GoFileIdSet();
+      BitSet firstExpected = new BitSet();
+      BitSet secondExpected = new BitSet();
+      for (int i = 0; i < 30000; i++) {
+        int id = random.nextInt(range);
+        first.add(id);
+        firstExpected.set(id);
+        id = random.nextInt(range);
+        second.add(id);
+        secondExpected.set(id);
+      }
+
+      BitSet and = (BitSet)firstExpected.clone();
+      and.and(secondExpected);
+      assertSame(and, first.and(second), range);
+
+      BitSet or = (BitSet)firstExpected.clone();
+      or.or(secondExpected);
+      assertSame(or, first.or(second), range);
+
+      BitSet andNot = (BitSet)firstExpected.clone();
+      andNot.andNot(secondExpected);
+      assertSame(andNot, first.andNot(second), range);
+
+      assertSame(firstExpected, first, range);
+      assertSame(secondExpected, second, range);
+    }
+  }
+
+  private static void assertSame(BitSet expected, GoFileIdSet actual, int range) {
+    assertEquals(expected.cardinality(), actual.size());
+    for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+      assertTrue("missing " + i, actual.contains(i));
+    }
+    int step = Math.max(1, range / 100000);
+    for (int i = 0; i < range; i += step) {
+      assertEquals("at " + i, expected.get(i), actual.contains(i));
+    }
+  }
+}
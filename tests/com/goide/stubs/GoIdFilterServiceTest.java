@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.stubs;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.goide.stubs.index.GoIdFilter;
+import com.goide.stubs.index.GoIdFilterService;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import com.intellij.util.ThrowableRunnable;
+import com.intellij.util.indexing.IdFilter;
+
+import java.io.IOException;
+
+public class GoIdFilterServiceTest extends GoCodeInsightFixtureTestCase {
+  public void testNewFilesAreAddedWithoutRebuild() {
+    VirtualFile existing = myFixture.addFileToProject("a/a.go", "package a").getVirtualFile();
+    GoIdFilterService service = GoIdFilterService.getInstance(getProject());
+    assertTrue(GoIdFilter.getProductionFilter(getProject()).containsFileId(id(existing)));
+    int rebuilds = service.getRebuildCount();
+
+    VirtualFile production = myFixture.addFileToProject("b/b.go", "package b").getVirtualFile();
+    VirtualFile test = myFixture.addFileToProject("b/b_test.go", "package b").getVirtualFile();
+    IdFilter productionFilter = GoIdFilter.getProductionFilter(getProject());
+    IdFilter testsFilter = GoIdFilter.getTestsFilter(getProject());
+    assertTrue(productionFilter.containsFileId(id(production)));
+    assertFalse(productionFilter.containsFileId(id(test)));
+    assertTrue(testsFilter.containsFileId(id(test)));
+    assertEquals(rebuilds, service.getRebuildCount());
+  }
+
+  public void testRenameAndDelete() throws IOException {
+    VirtualFile file = myFixture.addFileToProject("a/a.go", "package a").getVirtualFile();
+    assertTrue(GoIdFilter.getProductionFilter(getProject()).containsFileId(id(file)));
+
+    write(() -> file.rename(this, "a_test.go"));
+    assertFalse(GoIdFilter.getProductionFilter(getProject()).containsFileId(id(file)));
+    assertTrue(GoIdFilter.getTestsFilter(getProject()).containsFileId(id(file)));
+
+    int id = id(file);
+    write(() -> file.getParent().delete(this));
+    assertFalse(GoIdFilter.getTestsFilter(getProject()).containsFileId(id));
+  }
+
+  private static void write(ThrowableRunnable<IOException> action) throws IOException {
+    ApplicationManager.getApplication().runWriteAction((ThrowableComputable<Void, IOException>)() -> {
+      action.run();
+      return null;
+    });
+  }
+
+  private static int id(VirtualFile file) {
+    return ((VirtualFileWithId)file).getId();
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.stubs;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.goide.stubs.index.GoPackageExport;
+import com.goide.stubs.index.GoPackageExportsIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.containers.ContainerUtil;
+
+import java.util.List;
+
+public class GoPackageExportsIndexTest extends GoCodeInsightFixtureTestCase {
+  public void testExports() {
+    PsiFile file = myFixture.addFileToProject("foo/foo.go", "package foo; type Foo struct {}; func (f *Foo) Bar() {}; func Bar(a int) {};" +
+                                                            "var Var, private int; const Const = 1; func private() {}");
+    VirtualFile dir = file.getVirtualFile().getParent();
+    assertSameElements(kinds(GoPackageExportsIndex.getExports("Bar", dir, getProject())),
+                       GoPackageExport.Kind.FUNCTION, GoPackageExport.Kind.METHOD);
+    assertSameElements(kinds(GoPackageExportsIndex.getExports("Foo", dir, getProject())), GoPackageExport.Kind.TYPE);
+    assertSameElements(kinds(GoPackageExportsIndex.getExports("Var", dir, getProject())), GoPackageExport.Kind.VAR);
+    assertSameElements(kinds(GoPackageExportsIndex.getExports("Const", dir, getProject())), GoPackageExport.Kind.CONST);
+    assertEmpty(GoPackageExportsIndex.getExports("private", dir, getProject()));
+  }
+
+  public void testReceiverType() {
+    PsiFile file = myFixture.addFileToProject("foo/foo.go", "package foo; type Foo struct {}; func (f *Foo) Bar() {}");
+    List<GoPackageExport> exports = GoPackageExportsIndex.getExports("Bar", file.getVirtualFile().getParent(), getProject());
+    assertSize(1, exports);
+    assertEquals("Foo", exports.get(0).getReceiverType());
+  }
+
+  public void testFingerprintDependsOnSignature() {
+    PsiFile first = myFixture.addFileToProject("first/foo.go", "package foo; func Foo(a int) string { return \"\" }");
+    PsiFile same = myFixture.addFileToProject("same/foo.go", "package foo; func Foo(a  int)  string { return \"foo\" }");
+    PsiFile other = myFixture.addFileToProject("other/foo.go", "package foo; func Foo(a int) int { return 0 }");
+    int fingerprint = fingerprint(first);
+    assertEquals(fingerprint, fingerprint(same));
+    assertFalse(fingerprint == fingerprint(other));
+  }
+
+  public void testDeclaringFilesAreLimitedToDirectory() {
+    PsiFile foo = myFixture.addFileToProject("foo/foo.go", "package foo; func Foo() {}");
+    myFixture.addFileToProject("foo/bar.go", "package foo; func Bar() {}");
+    myFixture.addFileToProject("foo/nested/foo.go", "package nested; func Foo() {}");
+    myFixture.addFileToProject("other/foo.go", "package foo; func Foo() {}");
+    assertSameElements(GoPackageExportsIndex.getDeclaringFiles("Foo", foo.getVirtualFile().getParent(), getProject()), foo.getVirtualFile());
+  }
+
+  public void testQualifiedResolve() {
+    myFixture.addFileToProject("foo/bar.go", "package foo; func Bar() {}");
+    myFixture.addFileToProject("foo/foo.go", "package foo; type Foo struct {}");
+    myFixture.configureByText("a.go", "package main; import \"foo\"; func main() { var f foo.Foo; foo.B<caret>ar(); _ = f }");
+    assertEquals("bar.go", myFixture.getElementAtCaret().getContainingFile().getName());
+  }
+
+  private int fingerprint(PsiFile file) {
+    List<GoPackageExport> exports = GoPackageExportsIndex.getExports("Foo", file.getVirtualFile().getParent(), getProject());
+    assertSize(1, exports);
+    return exports.get(0).getFingerprint();
+  }
+
+  private static List<GoPackageExport.Kind> kinds(List<GoPackageExport> exports) {
+    return ContainerUtil.map(exports, GoPackageExport::getKind);
+  }
+}
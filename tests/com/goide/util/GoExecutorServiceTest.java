@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.util;
+
+import com.goide.util.GoExecutorService.Priority;
+import com.intellij.util.Consumer;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class GoExecutorServiceTest {
+  private final GoExecutorService myService = new GoExecutorService() {
+    @Override
+    protected int getMaxProcessesPerTool() {
+      return 1;
+    }
+  };
+  private final List<String> myStarted = ContainerUtil.newArrayList();
+  private final Map<String, Consumer<Boolean>> myRunning = ContainerUtil.newHashMap();
+  private final List<String> myResults = ContainerUtil.newArrayList();
+
+  @Test
+  public void testProcessesOfToolAreLimited() {
+    submit("go fmt", "a", Priority.USER);
+    submit("go fmt", "b", Priority.USER);
+    submit("go vet", "c", Priority.USER);
+    assertEquals(ContainerUtil.newArrayList("a", "c"), myStarted);
+    assertEquals(1, myService.getMetrics().get("go fmt").getQueued());
+
+    finish("a", true);
+    assertEquals(ContainerUtil.newArrayList("a", "c", "b"), myStarted);
+    assertEquals(ContainerUtil.newArrayList("a:true"), myResults);
+    GoExecutorService.Metrics metrics = myService.getMetrics().get("go fmt");
+    assertEquals(0, metrics.getQueued());
+    assertEquals(1, metrics.getRunning());
+    assertEquals(2, metrics.getStarted());
+  }
+
+  @Test
+  public void testUserRequestsGoFirst() {
+    submit("go build", "running", Priority.BACKGROUND);
+    submit("go build", "background", Priority.BACKGROUND);
+    submit("go build", "user", Priority.USER);
+    finish("running", true);
+    assertEquals(ContainerUtil.newArrayList("running", "user"), myStarted);
+    finish("user", true);
+    assertEquals(ContainerUtil.newArrayList("running", "user", "background"), myStarted);
+  }
+
+  @Test
+  public void testIdenticalCommandsAreCoalesced() {
+    submit("go fmt", "a", Priority.USER);
+    submit("go fmt", "a", Priority.USER);
+    assertEquals(ContainerUtil.newArrayList("a"), myStarted);
+    finish("a", false);
+    assertEquals(ContainerUtil.newArrayList("a:false", "a:false"), myResults);
+    assertEquals(1, myService.getMetrics().get("go fmt").getCoalesced());
+
+    submit("go fmt", "a", Priority.USER);
+    assertEquals(ContainerUtil.newArrayList("a", "a"), myStarted);
+  }
+
+  private void submit(@NotNull String tool, @NotNull String command, @NotNull Priority priority) {
+    myService.submit(tool, command, priority, done -> {
+      myStarted.add(command);
+      myRunning.put(command, done);
+    }, result -> myResults.add(command + ":" + result));
+  }
+
+  private void finish(@NotNull String command, boolean result) {
+    Consumer<Boolean> done = myRunning.remove(command);
+    assertNotNull(done);
+    done.consume(result);
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.util;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.goide.sdk.GoSdkService;
+import com.intellij.openapi.vfs.VirtualFile;
+
+public class GoPathScopeHelperTest extends GoCodeInsightFixtureTestCase {
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    GoSdkService.setTestingSdkVersion("1.7", getTestRootDisposable());
+  }
+
+  public void testHelpersAreSharedPerDirectory() {
+    VirtualFile first = myFixture.addFileToProject("y/y.go", "package y").getVirtualFile();
+    VirtualFile second = myFixture.addFileToProject("y/y2.go", "package y").getVirtualFile();
+    VirtualFile other = myFixture.addFileToProject("z/z.go", "package z").getVirtualFile();
+    assertSame(getHelper(first), getHelper(second));
+    assertNotSame(getHelper(first), getHelper(other));
+  }
+
+  public void testShadowingVendorDirectoryIsNoticed() {
+    VirtualFile declaration = myFixture.addFileToProject("a/a.go", "package a").getVirtualFile();
+    VirtualFile reference = myFixture.addFileToProject("y/y.go", "package y").getVirtualFile();
+    assertTrue(getHelper(reference).couldBeReferenced(declaration, reference));
+    assertTrue(getHelper(reference).couldBeReferenced(declaration, reference));
+
+    VirtualFile vendored = myFixture.addFileToProject("y/vendor/a/a.go", "package a").getVirtualFile();
+    assertFalse(getHelper(reference).couldBeReferenced(declaration, reference));
+    assertTrue(getHelper(reference).couldBeReferenced(vendored, reference));
+  }
+
+  public void testTestFilesAreCheckedPerFile() {
+    VirtualFile declaration = myFixture.addFileToProject("a/a.go", "package a").getVirtualFile();
+    VirtualFile testDeclaration = myFixture.addFileToProject("a/a_test.go", "package a").getVirtualFile();
+    VirtualFile reference = myFixture.addFileToProject("y/y.go", "package y").getVirtualFile();
+    assertTrue(getHelper(reference).couldBeReferenced(declaration, reference));
+    assertFalse(getHelper(reference).couldBeReferenced(testDeclaration, reference));
+  }
+
+  private GoPathScopeHelper getHelper(VirtualFile referenceFile) {
+    return GoPathScopeHelper.fromReferenceFile(getProject(), myFixture.getModule(), referenceFile);
+  }
+}